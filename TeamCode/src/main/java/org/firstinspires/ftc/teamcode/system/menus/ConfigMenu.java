@@ -10,6 +10,7 @@ package org.firstinspires.ftc.teamcode.system.menus;
 import android.util.Log;
 
 import org.firstinspires.ftc.teamcode.system.source.BaseRobot.Robot;
+import org.firstinspires.ftc.teamcode.system.source.GUI.DirectoryListSource;
 import org.firstinspires.ftc.teamcode.system.source.GUI.GUI;
 import org.firstinspires.ftc.teamcode.system.source.GUI.GuiLine;
 import org.firstinspires.ftc.teamcode.system.source.GUI.ScrollingListMenu;
@@ -62,6 +63,8 @@ public class ConfigMenu extends ScrollingListMenu {
     private static final String SUPPORTED_CHARS = "#abcdefghijklmnopqrstuvwxyz0123456789";
     //List representation of SUPPORTED_CHARS
     private static final List<Character> VALID_CHARS = getValidChars();
+    //The options shown above the config files in the root_dir state.
+    private static final String[] ROOT_DIR_OPTIONS = new String[]{"New Config", "Edit Config", "Delete Config"};
     //Various filepaths that the menu needs to internally keep track of. currentFilepath and selectedConfigPath change throughout the program.
     private String currentFilepath, selectedConfigPath, robotFolder;
     //An internal variable that stores the name of the currently selected subsystem while the user is configuring that subsystem.
@@ -94,7 +97,7 @@ public class ConfigMenu extends ScrollingListMenu {
            from the autonomous folder filepath. If the situation is the same, except it is being run from a teleop program,
            generate the initial lines from the teleop folder filepath.
         */
-        super(gui, new ConfigCursor(gui.robot,500), genInitialLines(standAloneMode ? filePath : gui.robot.isAutonomous() ? filePath + "/autonomous" : filePath + "/teleop"),1,genInitialLines(standAloneMode ? filePath : gui.robot.isAutonomous() ? filePath + "/autonomous" : filePath + "/teleop").size());
+        super(gui, new ConfigCursor(gui.robot,500), new GuiLine[]{new GuiLine("#", ROOT_DIR_OPTIONS[0])},1,1);
 
         menuState = MenuState.ROOT_DIR;
         configState = gui.robot.isAutonomous() ? ConfigurationState.AUTONOMOUS : ConfigurationState.TELEOP;
@@ -138,6 +141,10 @@ public class ConfigMenu extends ScrollingListMenu {
         }
 
         this.standAloneMode = standAloneMode;
+
+        if(menuState == MenuState.ROOT_DIR) {
+            setRootDirLines();
+        }
     }
 
     @Override
@@ -170,15 +177,15 @@ public class ConfigMenu extends ScrollingListMenu {
             case ROOT_DIR:
                 if(name.equals(ConfigCursor.SELECT)) {
                     //If delete config or edit config is pressed and there are not 0 config files, transition to either choose_edit_config or delete config.
-                    if ((lines.get(cursor.y).postSelectionText.equals("Delete Config") || lines.get(cursor.y).postSelectionText.equals("Edit Config")) && genConfigLines(currentFilepath).size() > 0) {
-                        menuState = lines.get(cursor.y).postSelectionText.equals("Delete Config") ? MenuState.DELETE_CONFIG : MenuState.CHOOSE_EDIT_CONFIG;
+                    if ((getRow(cursor.y).postSelectionText.equals("Delete Config") || getRow(cursor.y).postSelectionText.equals("Edit Config")) && DirectoryListSource.countFiles(currentFilepath, "robot_info.txt") > 0) {
+                        menuState = getRow(cursor.y).postSelectionText.equals("Delete Config") ? MenuState.DELETE_CONFIG : MenuState.CHOOSE_EDIT_CONFIG;
 
                         genDefaultConfigMap();
                         resetCursorPos();
                         setConfigListLines();
                     }
                     //If new config is pressed, transition to new_config.
-                    else if (lines.get(cursor.y).postSelectionText.equals("New Config")) {
+                    else if (getRow(cursor.y).postSelectionText.equals("New Config")) {
                         menuState = MenuState.NEW_CONFIG;
 
                         genDefaultConfigMap();
@@ -186,10 +193,10 @@ public class ConfigMenu extends ScrollingListMenu {
                         setNewConfigLines();
                     }
                     //If in standalone mode and a config is selected (must be a config because is not new/edit/delete options and some configs exist) transition to done and export the config.
-                    else if(standAloneMode && genConfigLines(currentFilepath).size() > 0) {
+                    else if(standAloneMode && DirectoryListSource.countFiles(currentFilepath, "robot_info.txt") > 0) {
                         menuState = MenuState.DONE;
 
-                        exportConfigFile(currentFilepath + '/' + lines.get(cursor.y).postSelectionText + ".txt");
+                        exportConfigFile(currentFilepath + '/' + getRow(cursor.y).postSelectionText + ".txt");
 
                         cursor.setDoBlink(false);
 
@@ -198,9 +205,9 @@ public class ConfigMenu extends ScrollingListMenu {
                         isDone = true;
                     }
                     //If not in standalone mode, running autonomous config, and a config is selected, export that config, then transition back to root_dir and switch to teleop configuration.
-                    else if(configState == ConfigurationState.AUTONOMOUS && genConfigLines(currentFilepath).size() > 0){
+                    else if(configState == ConfigurationState.AUTONOMOUS && DirectoryListSource.countFiles(currentFilepath, "robot_info.txt") > 0){
 
-                        exportConfigFile(currentFilepath + '/' + lines.get(cursor.y).postSelectionText + ".txt");
+                        exportConfigFile(currentFilepath + '/' + getRow(cursor.y).postSelectionText + ".txt");
 
                         configState = ConfigurationState.TELEOP;
                         genDefaultConfigMap();
@@ -211,11 +218,11 @@ public class ConfigMenu extends ScrollingListMenu {
                         setRootDirLines();
                     }
                     //If not in standalone mode, running teleop config, and a config is selected, export that config, then write the location of that config file to robot_info.txt in the teleop folder and transition to done.
-                    else if(configState == ConfigurationState.TELEOP && genConfigLines(currentFilepath).size() > 0) {
+                    else if(configState == ConfigurationState.TELEOP && DirectoryListSource.countFiles(currentFilepath, "robot_info.txt") > 0) {
                         menuState = MenuState.DONE;
 
-                        exportConfigFile(currentFilepath + '/' + lines.get(cursor.y).postSelectionText + ".txt");
-                        writeData(robotFolder+"/teleop/robot_info.txt",currentFilepath+'/'+lines.get(cursor.y).postSelectionText+".txt");
+                        exportConfigFile(currentFilepath + '/' + getRow(cursor.y).postSelectionText + ".txt");
+                        writeData(robotFolder+"/teleop/robot_info.txt",currentFilepath+'/'+getRow(cursor.y).postSelectionText+".txt");
 
                         cursor.setDoBlink(false);
                         super.setSelectionZoneHeight(1,new GuiLine[]{new GuiLine(" ","","")});
@@ -230,7 +237,7 @@ public class ConfigMenu extends ScrollingListMenu {
                 if(name.equals(ConfigCursor.SELECT)) {
                     menuState = MenuState.ROOT_DIR;
 
-                    String configPath = currentFilepath + '/' + lines.get(cursor.y).postSelectionText + ".txt";
+                    String configPath = currentFilepath + '/' + getRow(cursor.y).postSelectionText + ".txt";
                     File configFile = new File(configPath);
 
                     if (!configFile.delete()) {
@@ -252,7 +259,7 @@ public class ConfigMenu extends ScrollingListMenu {
             case NEW_CONFIG:
                 if(name.equals(ConfigCursor.SELECT)) {
                     //If currently entering a name, cycle the character forward one. The modulo function wraps around so when the last char is reached it goes back to the beginning.
-                    if (!lines.get(cursor.y).postSelectionText.equals("Done")) {
+                    if (!getRow(cursor.y).postSelectionText.equals("Done")) {
                         ((ConfigCursor) cursor).setWriteMode(true);
                         char[] currentNameText = lines.get(0).selectionZoneText.toCharArray();
                         currentNameText[cursor.x] = VALID_CHARS.get((VALID_CHARS.indexOf(currentNameText[cursor.x]) + 1) % VALID_CHARS.size());
@@ -284,7 +291,7 @@ public class ConfigMenu extends ScrollingListMenu {
                     }
                 }
                 //If reverse_select is pressed and the user is entering the name cycle the characters backward. Note the use of custom mod.
-                else if(name.equals(ConfigCursor.REVERSE_SELECT) && !lines.get(cursor.y).postSelectionText.equals("Done")) {
+                else if(name.equals(ConfigCursor.REVERSE_SELECT) && !getRow(cursor.y).postSelectionText.equals("Done")) {
                     ((ConfigCursor) cursor).setWriteMode(true);
                     char[] currentNameText = lines.get(0).selectionZoneText.toCharArray();
                     currentNameText[cursor.x] = VALID_CHARS.get(customMod.apply((VALID_CHARS.indexOf(currentNameText[cursor.x]) - 1),VALID_CHARS.size()));
@@ -302,7 +309,7 @@ public class ConfigMenu extends ScrollingListMenu {
             //Edit option selected. Selected config will be edited.
             case CHOOSE_EDIT_CONFIG:
                 if(name.equals(ConfigCursor.SELECT)) {
-                    selectedConfigPath = currentFilepath + '/' + lines.get(cursor.y).postSelectionText + ".txt";
+                    selectedConfigPath = currentFilepath + '/' + getRow(cursor.y).postSelectionText + ".txt";
 
                     readConfigFile(selectedConfigPath);
 
@@ -324,9 +331,9 @@ public class ConfigMenu extends ScrollingListMenu {
             case SELECT_SUBSYSTEM:
                 if(name.equals(ConfigCursor.SELECT)) {
                     //If done isn't selected, transition to configure_subsystem
-                    if (!lines.get(cursor.y).postSelectionText.equals("Done")) {
+                    if (!getRow(cursor.y).postSelectionText.equals("Done")) {
                         menuState = MenuState.CONFIGURE_SUBSYSTEM;
-                        selectedSubsystemName = lines.get(cursor.y).postSelectionText;
+                        selectedSubsystemName = getRow(cursor.y).postSelectionText;
 
                         resetCursorPos();
                         setConfigureSubsystemLines();
@@ -364,8 +371,9 @@ public class ConfigMenu extends ScrollingListMenu {
             case CONFIGURE_SUBSYSTEM:
                 if(name.equals(ConfigCursor.SELECT)) {
                     //If done isn't selected, cycle the option forward by 1.
-                    if (!lines.get(cursor.y).postSelectionText.equals("Done")) {
-                        String[] data = parseOptionLine(lines.get(cursor.y));
+                    if (!getRow(cursor.y).postSelectionText.equals("Done")) {
+                        ((ConfigCursor) cursor).setWriteMode(true);
+                        String[] data = parseOptionLine(getRow(cursor.y));
 
                         List<ConfigParam> subsystemParams = config.get(selectedSubsystemName);
 
@@ -400,8 +408,9 @@ public class ConfigMenu extends ScrollingListMenu {
                     }
                 }
                 //If done isn't selected and the reverse select button is pressed, cycle the option backward by 1.
-                else if(name.equals(ConfigCursor.REVERSE_SELECT) && !lines.get(cursor.y).postSelectionText.equals("Done")) {
-                    String[] data = parseOptionLine(lines.get(cursor.y));
+                else if(name.equals(ConfigCursor.REVERSE_SELECT) && !getRow(cursor.y).postSelectionText.equals("Done")) {
+                    ((ConfigCursor) cursor).setWriteMode(true);
+                    String[] data = parseOptionLine(getRow(cursor.y));
 
                     List<ConfigParam> subsystemParams = config.get(selectedSubsystemName);
 
@@ -426,8 +435,8 @@ public class ConfigMenu extends ScrollingListMenu {
                     lines.set(cursor.y, new GuiLine("#", currentParam.usesGamepad ? data[0] + " | " + currentParam.options.get(customMod.apply((currentParam.options.indexOf(data[1])-1), currentParam.options.size())) + " | " + data[2] : data[0] + " | " + currentParam.options.get(customMod.apply((currentParam.options.indexOf(data[1])-1), currentParam.options.size()))));
                 }
                 //If done isn't selected and the cycle gamepad button is pressed, cycle the setting's gamepad option if possible.
-                else if(name.equals(ConfigCursor.SWITCH_GAMEPAD) && !lines.get(cursor.y).postSelectionText.equals("Done")) {
-                    String unparsedLine = lines.get(cursor.y).postSelectionText;
+                else if(name.equals(ConfigCursor.SWITCH_GAMEPAD) && !getRow(cursor.y).postSelectionText.equals("Done")) {
+                    String unparsedLine = getRow(cursor.y).postSelectionText;
                     String currentOptionName = unparsedLine.substring(0, unparsedLine.indexOf('|')).trim();
 
                     int tempIdx = unparsedLine.substring(unparsedLine.indexOf('|') + 1).indexOf('|'); //This number is the index of the vertical bar in the substring formed by taking all the text after the first vertical bar.
@@ -553,53 +562,11 @@ public class ConfigMenu extends ScrollingListMenu {
         return new String[] {currentOptionName,currentOptionValue,currentGamepadOptionValue};
     }
 
-    /**
-     * Generates a list of GuiLines from the names of all the config files in the given folder.
-     *
-     * @param filePath - The path to the folder containing the config files.
-     * @return - A list of GuiLines generated from the names of all the config files.
-     */
-    private static ArrayList<GuiLine> genConfigLines(String filePath) {
-        File rootDirectory = new File(filePath);
-        File[] dirs = rootDirectory.listFiles();
-        ArrayList<GuiLine> startingLines = new ArrayList<>();
-        for(File dir : dirs) {
-            if (!dir.getName().equals("robot_info.txt")) {
-                startingLines.add(new GuiLine("#",dir.getName().replace(".txt","")));
-            }
-        }
-        return startingLines;
-    }
-
-    /**
-     * Generates the menu's initial lines. Basically a static version of setRootDirLines(). Only exists so that it can be passed into super() in the constructor as an initial set of lines.
-     *
-     * @param filePath - The path to the folder where the config file are located.
-     * @return - The menu's initial GuiLines.
-     */
-    private static ArrayList<GuiLine> genInitialLines(String filePath) {
-        ArrayList<GuiLine> startingLines = new ArrayList<>();
-
-        startingLines.add(new GuiLine("#", "New Config"));
-        startingLines.add(new GuiLine("#", "Edit Config"));
-        startingLines.add(new GuiLine("#", "Delete Config"));
-
-        startingLines.addAll(genConfigLines(filePath));
-
-        return startingLines;
-    }
-
     /**
      * Loads the lines used in the root_dir state. (all config file names and new/edit/delete options).
      */
     private void setRootDirLines() {
-        List<GuiLine> newLines = new ArrayList<>();
-        newLines.add(new GuiLine("#", "New Config"));
-        newLines.add(new GuiLine("#", "Edit Config"));
-        newLines.add(new GuiLine("#", "Delete Config"));
-        newLines.addAll(genConfigLines(currentFilepath));
-
-        super.setSelectionZoneWidthAndHeight(1,newLines.size(), newLines);
+        super.setSource(1, new DirectoryListSource(currentFilepath, "robot_info.txt", ROOT_DIR_OPTIONS, new String[]{}));
     }
 
     /**
@@ -627,8 +594,7 @@ public class ConfigMenu extends ScrollingListMenu {
      * Loads the lines used when listing out all config files (like in the edit or delete states).
      */
     private void setConfigListLines() {
-        List<GuiLine> newLines = genConfigLines(currentFilepath);
-        super.setSelectionZoneHeight(newLines.size(), newLines);
+        super.setSource(getSelectionZoneWidth(), new DirectoryListSource(currentFilepath, "robot_info.txt"));
     }
 
     /**
@@ -671,6 +637,7 @@ public class ConfigMenu extends ScrollingListMenu {
     private void resetCursorPos() {
         cursor.setX(0);
         cursor.setY(0);
+        ((ConfigCursor) cursor).setWriteMode(false);
     }
 
     /**
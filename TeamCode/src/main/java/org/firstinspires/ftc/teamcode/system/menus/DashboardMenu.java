@@ -0,0 +1,275 @@
+/*
+ * Filename: DashboardMenu.java
+ * Author: Cole Savage
+ * Team Name: Level Up
+ * Date: 10/19/19
+ */
+
+package org.firstinspires.ftc.teamcode.system.menus;
+
+import org.firstinspires.ftc.teamcode.system.source.GUI.BaseDisplayMenu;
+import org.firstinspires.ftc.teamcode.system.source.GUI.GUI;
+import org.firstinspires.ftc.teamcode.system.source.GUI.GuiLine;
+import org.firstinspires.ftc.teamcode.system.subsystems.cursors.DefaultCursor;
+import org.firstinspires.ftc.teamcode.util.misc.Button;
+import org.firstinspires.ftc.teamcode.util.misc.Sparkline;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A menu class that shows live graphs of recent values, one graph per line, as a lightweight alternative to Grapher that doesn't need the camera view.
+ * Values can be updated every loop. They are averaged over each sample interval, and only the averages are added to the graphs.
+ * Graphs are only redrawn when they have new samples. If there are more graphs than fit on the screen, the select button cycles through the pages.
+ */
+public class DashboardMenu extends BaseDisplayMenu {
+
+    //The key of the graph used by markLoop().
+    public static final String LOOP_TIME = "Loop ms";
+    //The default number of samples shown in each graph.
+    private static final int DEFAULT_WIDTH = 16;
+    //The default time each sample is averaged over in milliseconds.
+    private static final long DEFAULT_SAMPLE_INTERVAL_MS = 100;
+
+    //The graphs, in the order they were added.
+    private final List<Graph> graphs;
+    //Maps each key to its graph.
+    private final Map<String, Graph> graphsByKey;
+    //The time each sample is averaged over in milliseconds.
+    private long sampleIntervalMs;
+    //The time of the last call to markLoop() in nanoseconds.
+    private long lastLoopTimeNs;
+
+    /**
+     * A single graph and the line it is displayed on.
+     */
+    private static final class Graph {
+        //The line the graph is displayed on.
+        private final GuiLine line;
+        //The key that the graph is stored and displayed under.
+        private final String key;
+        //The graph of the recent samples.
+        private final Sparkline sparkline;
+        //The buffer the graph's line is formatted into.
+        private final StringBuilder text;
+        //The sum and number of the values added since the last sample.
+        private double sum;
+        private int samples;
+        //The time the current sample started in milliseconds.
+        private long sampleStartMs;
+        //A boolean specifying if a sample was added since the graph was last formatted.
+        private boolean dirty;
+
+        /**
+         * Constructor for Graph.
+         *
+         * @param key - The key that the graph is stored and displayed under.
+         * @param sparkline - The graph of the recent samples.
+         */
+        private Graph(String key, Sparkline sparkline) {
+            this.key = key;
+            this.sparkline = sparkline;
+            line = new GuiLine("", "", "");
+            text = new StringBuilder(key.length() + 32);
+            line.postSelectionText = key;
+        }
+
+        /**
+         * Adds a value to the current sample, and adds the sample to the graph if the sample interval has passed.
+         *
+         * @param value - The value to add.
+         * @param sampleIntervalMs - The time each sample is averaged over in milliseconds.
+         */
+        private void update(double value, long sampleIntervalMs) {
+            long now = System.currentTimeMillis();
+            if(samples == 0) {
+                sampleStartMs = now;
+            }
+            sum += value;
+            samples++;
+
+            if(now - sampleStartMs >= sampleIntervalMs) {
+                sparkline.add(sum / samples);
+                sum = 0;
+                samples = 0;
+                dirty = true;
+            }
+        }
+
+        /**
+         * Formats the graph's line if a sample was added since it was last formatted.
+         */
+        private void format() {
+            if(!dirty) {
+                return;
+            }
+            double latest = sparkline.getLatest();
+            text.setLength(0);
+            text.append(key).append(' ').append(sparkline.getText()).append(' ');
+            if(Double.isNaN(latest) || Double.isInfinite(latest)) {
+                text.append(latest);
+            }
+            else {
+                text.append(Math.round(latest * 1000) / 1000.0);
+            }
+            line.postSelectionText = text.toString();
+            dirty = false;
+        }
+    }
+
+    /**
+     * Constructor for DashboardMenu.
+     *
+     * @param gui - The GUI used to render the menu.
+     */
+    public DashboardMenu(GUI gui) {
+        super(gui, new DefaultCursor(gui.robot,new DefaultCursor.Params().setBlinkSpeedMs(0)), new GuiLine[]{});
+        graphs = new ArrayList<>();
+        graphsByKey = new HashMap<>();
+        sampleIntervalMs = DEFAULT_SAMPLE_INTERVAL_MS;
+    }
+
+    @Override
+    protected void open() {
+        cursor.setDoBlink(false);
+        resize();
+    }
+
+    @Override
+    protected void render() {
+        formatGraphs();
+        super.render();
+    }
+
+    @Override
+    protected void initLoopRender() {
+        formatGraphs();
+        super.initLoopRender();
+    }
+
+    @Override
+    public void onSelect() {
+        menuDown();
+    }
+
+    @Override
+    public void onButton(String name, Button button) {}
+
+    /**
+     * Adds a graph that scales to fit the values being shown. Does nothing if a graph with that key already exists.
+     *
+     * @param key - The graph's caption.
+     * @param width - The number of samples shown in the graph.
+     */
+    public void addGraph(String key, int width) {
+        if(!graphsByKey.containsKey(key)) {
+            addGraph(key, new Sparkline(width));
+        }
+    }
+
+    /**
+     * Adds a graph with a fixed range. Does nothing if a graph with that key already exists.
+     *
+     * @param key - The graph's caption.
+     * @param width - The number of samples shown in the graph.
+     * @param min - The value drawn at the bottom of the graph.
+     * @param max - The value drawn at the top of the graph.
+     */
+    public void addGraph(String key, int width, double min, double max) {
+        if(!graphsByKey.containsKey(key)) {
+            addGraph(key, new Sparkline(width, min, max));
+        }
+    }
+
+    /**
+     * Adds a value to a graph. A graph with the default width is added the first time a key is used.
+     *
+     * @param key - The graph's caption.
+     * @param value - The value to add.
+     */
+    public void update(String key, double value) {
+        Graph graph = graphsByKey.get(key);
+        if(graph == null) {
+            graph = addGraph(key, new Sparkline(DEFAULT_WIDTH));
+        }
+        graph.update(value, sampleIntervalMs);
+    }
+
+    /**
+     * Graphs the time between calls to this method. Call it once per loop to graph the loop time in milliseconds.
+     */
+    public void markLoop() {
+        long now = System.nanoTime();
+        if(lastLoopTimeNs != 0) {
+            update(LOOP_TIME, (now - lastLoopTimeNs) / 1e6);
+        }
+        lastLoopTimeNs = now;
+    }
+
+    /**
+     * Removes a graph.
+     *
+     * @param key - The key of the graph to remove.
+     */
+    public void remove(String key) {
+        Graph graph = graphsByKey.remove(key);
+        if(graph == null) {
+            return;
+        }
+        graphs.remove(graph);
+        lines.remove(graph.line);
+        resize();
+    }
+
+    /**
+     * Removes every graph.
+     */
+    public void clearData() {
+        graphs.clear();
+        graphsByKey.clear();
+        lines.clear();
+        resize();
+    }
+
+    /**
+     * Sets the time each sample is averaged over.
+     *
+     * @param sampleIntervalMs - The sample interval in milliseconds. The graphs show width times this much history.
+     */
+    public void setSampleInterval(long sampleIntervalMs) {
+        this.sampleIntervalMs = sampleIntervalMs;
+    }
+
+    /**
+     * Keeps the graphs after each render. The graphs are only removed by remove() or clearData().
+     */
+    @Override
+    public void clear() {}
+
+    /**
+     * Adds a graph to the end of the menu.
+     *
+     * @param key - The graph's caption.
+     * @param sparkline - The graph of the recent samples.
+     * @return - The added graph.
+     */
+    private Graph addGraph(String key, Sparkline sparkline) {
+        Graph graph = new Graph(key, sparkline);
+        graphsByKey.put(key, graph);
+        graphs.add(graph);
+        lines.add(graph.line);
+        resize();
+        return graph;
+    }
+
+    /**
+     * Formats every graph that has new samples since the last render.
+     */
+    private void formatGraphs() {
+        for(int i = 0; i < graphs.size(); i++) {
+            graphs.get(i).format();
+        }
+    }
+}
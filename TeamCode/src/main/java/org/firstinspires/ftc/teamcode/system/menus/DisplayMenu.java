@@ -13,13 +13,82 @@ import org.firstinspires.ftc.teamcode.system.source.GUI.GuiLine;
 import org.firstinspires.ftc.teamcode.system.subsystems.cursors.DefaultCursor;
 import org.firstinspires.ftc.teamcode.util.misc.Button;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * A menu class meant for displaying information similarly to telemetry.
+ * Data is stored in keyed slots that are updated in place, so putting the same keys every loop uses constant memory.
+ * Slots are only reformatted when their value changes, and at most once per render. Slots are shown first, followed by any lines added with addLine().
  */
 public class DisplayMenu extends BaseDisplayMenu {
 
+    //The most lines that can be added with addLine() between renders. The oldest lines are dropped past this.
+    private static final int MAX_TEXT_LINES = 4 * MAXLINESPERSCREEN;
+
+    //The data slots, in the order they were first put.
+    private final List<Slot> slots;
+    //Maps each key to the index of its slot.
+    private final Map<String, Integer> slotIndices;
+
+    /**
+     * A single keyed line of data.
+     */
+    private static final class Slot {
+        //The line the slot is displayed on.
+        private final GuiLine line;
+        //The key that the slot is stored and displayed under.
+        private final String key;
+        //The buffer the slot's text is formatted into.
+        private final StringBuilder text;
+        //The slot's value if it is an object.
+        private Object value;
+        //The slot's value if it is a number.
+        private double number;
+        //A boolean specifying if the slot holds a number (true) or an object (false).
+        private boolean isNumber;
+        //A boolean specifying if the number is a whole number, which is formatted without a decimal point.
+        private boolean isWholeNumber;
+        //A boolean specifying if the value changed since the slot was last formatted.
+        private boolean dirty;
+
+        /**
+         * Constructor for Slot.
+         *
+         * @param key - The key that the slot is stored and displayed under.
+         */
+        private Slot(String key) {
+            this.key = key;
+            line = new GuiLine("", "", "");
+            text = new StringBuilder(key.length() + 16);
+            dirty = true;
+        }
+
+        /**
+         * Formats the slot's text if its value has changed.
+         */
+        private void format() {
+            if(!dirty) {
+                return;
+            }
+            text.setLength(0);
+            text.append(key).append(": ");
+            if(!isNumber) {
+                text.append(value);
+            }
+            else if(isWholeNumber) {
+                text.append((long) number);
+            }
+            else {
+                text.append(number);
+            }
+            line.postSelectionText = text.toString();
+            dirty = false;
+        }
+    }
+
     /**
      * Constructor for DisplayMenu.
      *
@@ -27,6 +96,26 @@ public class DisplayMenu extends BaseDisplayMenu {
      */
     public DisplayMenu(GUI gui) {
         super(gui, new DefaultCursor(gui.robot,new DefaultCursor.Params().setBlinkSpeedMs(0)), new GuiLine[]{});
+        slots = new ArrayList<>();
+        slotIndices = new HashMap<>();
+    }
+
+    @Override
+    protected void open() {
+        cursor.setDoBlink(false);
+        clear();
+    }
+
+    @Override
+    protected void render() {
+        formatSlots();
+        super.render();
+    }
+
+    @Override
+    protected void initLoopRender() {
+        formatSlots();
+        super.initLoopRender();
     }
 
     @Override
@@ -38,32 +127,138 @@ public class DisplayMenu extends BaseDisplayMenu {
     public void onButton(String name, Button button) {}
 
     /**
-     * Adds a line with a caption and a data value to the end of the menu's lines.
+     * Sets the value of a keyed line of data. The line is added the first time a key is used, and updated in place after that.
+     *
+     * @param key - The data's caption.
+     * @param value - The data to print to the screen.
+     */
+    public void put(String key, Object value) {
+        Slot slot = getSlot(key);
+        slot.value = value;
+        slot.isNumber = false;
+        slot.dirty = true;
+    }
+
+    /**
+     * Sets the value of a keyed line of numeric data. The line is only reformatted if the value changed.
+     *
+     * @param key - The data's caption.
+     * @param value - The number to print to the screen.
+     */
+    public void put(String key, double value) {
+        Slot slot = getSlot(key);
+        if(!slot.isNumber || slot.isWholeNumber || Double.doubleToLongBits(slot.number) != Double.doubleToLongBits(value)) {
+            slot.number = value;
+            slot.isNumber = true;
+            slot.isWholeNumber = false;
+            slot.dirty = true;
+        }
+    }
+
+    /**
+     * Sets the value of a keyed line of whole number data. The line is only reformatted if the value changed.
+     *
+     * @param key - The data's caption.
+     * @param value - The number to print to the screen.
+     */
+    public void put(String key, long value) {
+        Slot slot = getSlot(key);
+        if(!slot.isNumber || !slot.isWholeNumber || (long) slot.number != value) {
+            slot.number = value;
+            slot.isNumber = true;
+            slot.isWholeNumber = true;
+            slot.dirty = true;
+        }
+    }
+
+    /**
+     * Removes a keyed line of data.
+     *
+     * @param key - The key of the data to remove.
+     */
+    public void remove(String key) {
+        Integer index = slotIndices.remove(key);
+        if(index == null) {
+            return;
+        }
+        slots.remove((int) index);
+        lines.remove((int) index);
+        for(int i = index; i < slots.size(); i++) {
+            slotIndices.put(slots.get(i).key, i);
+        }
+        resize();
+    }
+
+    /**
+     * Removes every keyed line of data and every added line.
+     */
+    public void clearData() {
+        slots.clear();
+        slotIndices.clear();
+        lines.clear();
+        resize();
+    }
+
+    /**
+     * Adds a line with a caption and a data value to the menu. Adding data with the same caption again updates the existing line.
      *
      * @param caption - The data's caption.
      * @param data - The data to print to the screen.
      */
     public void addData(String caption, Object data){
-        if(lines.size() == 1 && lines.get(0).postSelectionText.equals("")) {
-            clear();
-        }
-        List<GuiLine> newLines = lines;
-        newLines.add(new GuiLine("", caption + ": " + data.toString(), ""));
-        super.setSelectionZoneHeight(super.getSelectionZoneHeight() + 1, newLines);
+        put(caption, data);
     }
 
     /**
-     * Adds a line of text to the end of the menu's lines.
+     * Adds a line of text to the end of the menu's lines. Added lines are removed after the next render.
      *
      * @param text - The text to add.
      */
     public void addLine(String text) {
+        if(lines.size() - slots.size() >= MAX_TEXT_LINES) {
+            lines.remove(slots.size());
+        }
+        lines.add(new GuiLine("",text,""));
+        resize();
+    }
+
+    /**
+     * Removes the lines added with addLine(). Keyed data is kept.
+     */
+    @Override
+    public void clear() {
+        if(lines.size() > slots.size()) {
+            lines.subList(slots.size(), lines.size()).clear();
+        }
+        resize();
+    }
+
+    /**
+     * Gets the slot for a key, adding it if the key is new.
+     *
+     * @param key - The slot's key.
+     * @return - The slot.
+     */
+    private Slot getSlot(String key) {
+        Integer index = slotIndices.get(key);
+        if(index != null) {
+            return slots.get(index);
+        }
 
-        if(lines.size() == 1 && lines.get(0).postSelectionText.equals("")) {
-            clear();
+        Slot slot = new Slot(key);
+        slotIndices.put(key, slots.size());
+        lines.add(slots.size(), slot.line);
+        slots.add(slot);
+        resize();
+        return slot;
+    }
+
+    /**
+     * Formats every slot whose value changed since the last render.
+     */
+    private void formatSlots() {
+        for(int i = 0; i < slots.size(); i++) {
+            slots.get(i).format();
         }
-        List<GuiLine> newLines = lines;
-        newLines.add(new GuiLine("",text,""));
-        super.setSelectionZoneHeight(super.getSelectionZoneHeight() + 1, newLines);
     }
 }
@@ -7,8 +7,6 @@
 
 package org.firstinspires.ftc.teamcode.system.source.BaseRobot;
 
-import android.util.Log;
-
 import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
 
 import org.firstinspires.ftc.teamcode.util.functional_interfaces.BiFunction;
@@ -59,33 +57,33 @@ public abstract class BaseAutonomous extends LinearOpMode {
         robot = buildRobot();
 
         try {
-            robot.init();
-            onInit();
-            while(!isStarted() && !isStopRequested()) {
-                robot.init_loop();
-                onInitLoop();
-            }
-        } catch (Exception ex) {
-            telemetry.clearAll();
-            telemetry.addData("ERROR!!!", ex.getMessage());
-            telemetry.update();
-            Log.e(this.getClass().getSimpleName(), ex.getMessage(), ex);
-        }
-
-        if(!isStopRequested()) {
             try {
-                robot.onStart();
-                main();
+                robot.init();
+                onInit();
+                while(!isStarted() && !isStopRequested()) {
+                    robot.init_loop();
+                    onInitLoop();
+                }
             } catch (Exception ex) {
-                telemetry.clearAll();
-                telemetry.addData("ERROR!", ex.getMessage());
-                telemetry.update();
-                Log.e(this.getClass().getSimpleName(), ex.getMessage(), ex);
+                //Errors go through the telemetry manager so the GUI's next frame doesn't erase them.
+                robot.errorReporter.report(null, ex);
             }
-        }
 
-        onStop();
-        robot.stopAllComponents();
+            if(!isStopRequested()) {
+                try {
+                    robot.onStart();
+                    main();
+                } catch (Exception ex) {
+                    robot.errorReporter.report(null, ex);
+                }
+            }
+
+            onStop();
+        }
+        finally {
+            //The robot's background threads must end with the opmode, even if it failed.
+            robot.stopAllComponents();
+        }
     }
 
     /**
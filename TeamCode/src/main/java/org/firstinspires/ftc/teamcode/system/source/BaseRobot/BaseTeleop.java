@@ -7,8 +7,6 @@
 
 package org.firstinspires.ftc.teamcode.system.source.BaseRobot;
 
-import android.util.Log;
-
 import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
 
 import org.firstinspires.ftc.teamcode.util.functional_interfaces.BiFunction;
@@ -81,13 +79,14 @@ public abstract class BaseTeleop extends LinearOpMode {
             }
 
             onStop();
-            robot.stopAllComponents();
         }
         catch (Exception ex){
-            telemetry.clearAll();
-            telemetry.addData("ERROR!!!", ex.toString());
-            telemetry.update();
-            Log.e(this.getClass().getSimpleName(), ex.toString(), ex);
+            //Errors go through the telemetry manager so the GUI's next frame doesn't erase them. Stopping the robot sends them one last time.
+            robot.errorReporter.report(null, ex);
+        }
+        finally {
+            //The robot's background threads must end with the opmode, even if it failed.
+            robot.stopAllComponents();
         }
     }
 
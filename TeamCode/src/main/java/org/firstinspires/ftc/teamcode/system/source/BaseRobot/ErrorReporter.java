@@ -0,0 +1,222 @@
+/*
+ * Filename: ErrorReporter.java
+ * Author: Cole Savage
+ * Team Name: Level Up
+ * Date: 10/19/19
+ */
+
+package org.firstinspires.ftc.teamcode.system.source.BaseRobot;
+
+import android.util.Log;
+
+import org.firstinspires.ftc.teamcode.system.source.GUI.TelemetryManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reports exceptions thrown by subsystems without letting a subsystem that fails every loop flood the log or stall the robot.
+ * Exceptions are grouped by where they were thrown and counted. The first exception from each place is logged with its full stack trace,
+ * and after that each place is only logged once per log interval with the number of times it happened. The errors shown on telemetry are updated at most once per telemetry interval,
+ * or right away when an exception is thrown from a new place. They are shown in a high priority telemetry channel, above the GUI instead of replacing it.
+ * It also works as a circuit breaker. If a subsystem fails too many times in a row, it is quarantined and the robot stops running it until the program ends.
+ * The circuit breaker is off until a failure limit is set.
+ */
+public class ErrorReporter {
+
+    //The most places exceptions are tracked from. The oldest place is forgotten past this.
+    private static final int MAX_SITES = 32;
+    //The most errors shown on telemetry at once.
+    private static final int MAX_SHOWN_ERRORS = 4;
+
+    //The telemetry channel errors are shown on.
+    private final TelemetryManager.Channel channel;
+    //The lines shown on telemetry.
+    private final List<String> shownLines;
+    //The tag errors are logged under.
+    private final String tag;
+    //Every place exceptions have been thrown from, in the order they were first seen.
+    private final Map<String, ErrorSite> sites;
+    //The time between log messages from the same place in milliseconds.
+    private long logIntervalMs;
+    //The time between telemetry updates in milliseconds.
+    private long telemetryIntervalMs;
+    //The number of failures in a row before a subsystem is quarantined. 0 if subsystems are never quarantined.
+    private int maxConsecutiveFailures;
+    //The time of the last telemetry update in milliseconds.
+    private long lastTelemetryTimeMs;
+    //The total number of exceptions reported.
+    private int totalErrors;
+
+    /**
+     * A place that exceptions have been thrown from.
+     */
+    private static final class ErrorSite {
+        //The subsystem that threw the exception, or null if it wasn't thrown by a subsystem.
+        private final SubSystem subSystem;
+        //The name of the subsystem that threw the exception.
+        private final String subSystemName;
+        //The message of the most recent exception.
+        private String message;
+        //The number of exceptions thrown from this place in total and since it was last logged.
+        private int count, countSinceLog;
+        //The time this place was last logged in milliseconds.
+        private long lastLogTimeMs;
+
+        /**
+         * Constructor for ErrorSite.
+         *
+         * @param subSystem - The subsystem that threw the exception, or null if it wasn't thrown by a subsystem.
+         * @param subSystemName - The name of the subsystem that threw the exception.
+         */
+        private ErrorSite(SubSystem subSystem, String subSystemName) {
+            this.subSystem = subSystem;
+            this.subSystemName = subSystemName;
+        }
+    }
+
+    /**
+     * Constructor for ErrorReporter.
+     *
+     * @param channel - The telemetry channel errors are shown on.
+     * @param tag - The tag errors are logged under.
+     */
+    ErrorReporter(TelemetryManager.Channel channel, String tag) {
+        this.channel = channel;
+        this.tag = tag;
+        shownLines = new ArrayList<>();
+        sites = new LinkedHashMap<String, ErrorSite>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ErrorSite> eldest) {
+                return size() > MAX_SITES;
+            }
+        };
+        logIntervalMs = 5000;
+        telemetryIntervalMs = 1000;
+        maxConsecutiveFailures = 0;
+    }
+
+    /**
+     * Reports an exception thrown by a subsystem.
+     *
+     * @param subSystem - The subsystem that threw the exception, or null if it wasn't thrown by a subsystem.
+     * @param ex - The exception that was thrown.
+     */
+    void report(SubSystem subSystem, Exception ex) {
+        long now = System.currentTimeMillis();
+        String subSystemName = subSystem == null ? tag : subSystem.getClass().getSimpleName();
+        totalErrors++;
+
+        String siteKey = getSiteKey(subSystemName, ex);
+        ErrorSite site = sites.get(siteKey);
+        boolean newSite = site == null;
+        if(newSite) {
+            site = new ErrorSite(subSystem, subSystemName);
+            sites.put(siteKey, site);
+        }
+        site.message = ex.getMessage();
+        site.count++;
+        site.countSinceLog++;
+
+        if(newSite) {
+            Log.e(tag, subSystemName + ": " + ex.getMessage(), ex);
+            site.countSinceLog = 0;
+            site.lastLogTimeMs = now;
+        }
+        else if(now - site.lastLogTimeMs >= logIntervalMs) {
+            Log.e(tag, subSystemName + ": " + ex.getMessage() + " (" + site.countSinceLog + " times since last logged, " + site.count + " total, at " + siteKey + ")");
+            site.countSinceLog = 0;
+            site.lastLogTimeMs = now;
+        }
+
+        if(subSystem != null) {
+            subSystem.consecutiveFailures++;
+            if(maxConsecutiveFailures > 0 && !subSystem.quarantined && subSystem.consecutiveFailures >= maxConsecutiveFailures) {
+                subSystem.quarantined = true;
+                Log.e(tag, subSystemName + " failed " + subSystem.consecutiveFailures + " times in a row and has been quarantined.");
+                newSite = true;
+            }
+        }
+
+        if(newSite || now - lastTelemetryTimeMs >= telemetryIntervalMs) {
+            drawTelemetry();
+            lastTelemetryTimeMs = now;
+        }
+    }
+
+    /**
+     * Records that a subsystem ran without throwing an exception, which resets its count of failures in a row.
+     *
+     * @param subSystem - The subsystem that ran.
+     */
+    void recordSuccess(SubSystem subSystem) {
+        subSystem.consecutiveFailures = 0;
+    }
+
+    /**
+     * Sets the time between log messages from the same place. The first exception from each place is always logged right away.
+     *
+     * @param logIntervalMs - The log interval in milliseconds.
+     */
+    public void setLogInterval(long logIntervalMs) {
+        this.logIntervalMs = logIntervalMs;
+    }
+
+    /**
+     * Sets the time between telemetry updates. Exceptions from new places are always shown right away.
+     *
+     * @param telemetryIntervalMs - The telemetry interval in milliseconds.
+     */
+    public void setTelemetryInterval(long telemetryIntervalMs) {
+        this.telemetryIntervalMs = telemetryIntervalMs;
+    }
+
+    /**
+     * Sets the number of failures in a row before a subsystem is quarantined.
+     *
+     * @param maxConsecutiveFailures - The failure limit, or 0 to never quarantine subsystems.
+     */
+    public void setMaxConsecutiveFailures(int maxConsecutiveFailures) {
+        this.maxConsecutiveFailures = Math.max(maxConsecutiveFailures, 0);
+    }
+
+    /**
+     * Gets the total number of exceptions reported.
+     *
+     * @return - The number of exceptions reported.
+     */
+    public int getTotalErrors() {
+        return totalErrors;
+    }
+
+    /**
+     * Shows the newest error places on telemetry, with how many times each one has happened.
+     */
+    private void drawTelemetry() {
+        shownLines.clear();
+        int skip = Math.max(sites.size() - MAX_SHOWN_ERRORS, 0);
+        for(ErrorSite site : sites.values()) {
+            if(skip > 0) {
+                skip--;
+                continue;
+            }
+            String caption = (site.subSystem != null && site.subSystem.quarantined ? "QUARANTINED!!! " : "ERROR!!! ") + site.subSystemName;
+            shownLines.add(caption + " : " + (site.count > 1 ? site.message + " (x" + site.count + ")" : site.message));
+        }
+        channel.setLines(shownLines);
+    }
+
+    /**
+     * Gets a key identifying where an exception was thrown.
+     *
+     * @param subSystemName - The name of the subsystem that threw the exception.
+     * @param ex - The exception.
+     * @return - The key of the place the exception was thrown from.
+     */
+    private static String getSiteKey(String subSystemName, Exception ex) {
+        StackTraceElement[] trace = ex.getStackTrace();
+        return subSystemName + ' ' + ex.getClass().getName() + (trace.length > 0 ? " at " + trace[0] : "");
+    }
+}
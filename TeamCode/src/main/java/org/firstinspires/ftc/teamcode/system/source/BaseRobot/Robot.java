@@ -18,6 +18,7 @@ import com.qualcomm.robotcore.hardware.HardwareMap;
 import org.firstinspires.ftc.robotcore.external.Telemetry;
 import org.firstinspires.ftc.teamcode.system.menus.ConfigMenu;
 import org.firstinspires.ftc.teamcode.system.source.GUI.GUI;
+import org.firstinspires.ftc.teamcode.system.source.GUI.TelemetryManager;
 import org.firstinspires.ftc.teamcode.util.annotations.AutonomousConfig;
 import org.firstinspires.ftc.teamcode.util.annotations.StandAlone;
 import org.firstinspires.ftc.teamcode.util.annotations.TeleopConfig;
@@ -25,6 +26,8 @@ import org.firstinspires.ftc.teamcode.util.exceptions.DumpsterFireException;
 import org.firstinspires.ftc.teamcode.util.misc.Button;
 import org.firstinspires.ftc.teamcode.util.misc.ConfigParam;
 import org.firstinspires.ftc.teamcode.util.misc.CustomizableGamepad;
+import org.firstinspires.ftc.teamcode.util.misc.PowerManager;
+import org.firstinspires.ftc.teamcode.util.misc.VoltageCompensator;
 
 import java.io.File;
 import java.io.FileOutputStream;
@@ -60,8 +63,16 @@ public abstract class Robot {
     public volatile Gamepad gamepad1, gamepad2;
     //The telemetry used to print lines to the driver station.
     public final Telemetry telemetry;
+    //Splits telemetry between the GUI, the error reporter and subsystems, and sends it without delaying the control loop.
+    public final TelemetryManager telemetryManager;
     //The hardwaremap used to map software representations of hardware to the actual hardware.
     public final HardwareMap hardwareMap;
+    //Scales motor powers to compensate for the battery voltage.
+    public final VoltageCompensator voltageCompensator;
+    //Splits the motor current budget between subsystems to prevent brownouts.
+    public final PowerManager powerManager;
+    //Reports subsystem exceptions without flooding the log and quarantines subsystems that keep failing.
+    public final ErrorReporter errorReporter;
 
     /**
      * Constructor for robot.
@@ -73,6 +84,10 @@ public abstract class Robot {
         this.opMode = opMode;
         telemetry = opMode.telemetry;
         hardwareMap = opMode.hardwareMap;
+        voltageCompensator = new VoltageCompensator(hardwareMap);
+        powerManager = new PowerManager();
+        telemetryManager = new TelemetryManager(telemetry);
+        errorReporter = new ErrorReporter(telemetryManager.addChannel("Errors", TelemetryManager.HIGH_PRIORITY), this.getClass().getSimpleName());
 
         subSystems = new HashMap<>();
 
@@ -230,21 +245,22 @@ public abstract class Robot {
             gui.setActiveMenu("config");
         }
 
+        telemetryManager.start();
         if(useGui) {
             gui.start();
         }
 
+        voltageCompensator.start();
+
         for (SubSystem subSystem : subSystems.values()){
             try
             {
                 subSystem.init();
+                errorReporter.recordSuccess(subSystem);
             }
             catch (Exception ex)
             {
-                telemetry.clearAll();
-                telemetry.addData("ERROR!!!", ex.getMessage());
-                telemetry.update();
-                Log.e(this.getClass().getSimpleName(), ex.getMessage(), ex);
+                errorReporter.report(subSystem, ex);
             }
         }
     }
@@ -269,17 +285,20 @@ public abstract class Robot {
         }
 
         for (SubSystem subSystem : subSystems.values()) {
+            if(subSystem.quarantined) {
+                continue;
+            }
 
             try {
                 subSystem.init_loop();
+                errorReporter.recordSuccess(subSystem);
             }
             catch (Exception ex) {
-                telemetry.clearAll();
-                telemetry.addData("ERROR!!!", ex.getMessage());
-                telemetry.update();
-                Log.e(this.getClass().getSimpleName(), ex.getMessage(), ex);
+                errorReporter.report(subSystem, ex);
             }
         }
+
+        telemetryManager.markLoop();
     }
 
     /**
@@ -297,14 +316,16 @@ public abstract class Robot {
         }
 
         for(SubSystem subSystem : subSystems.values()) {
+            if(subSystem.quarantined) {
+                continue;
+            }
+
             try {
                 subSystem.start();
+                errorReporter.recordSuccess(subSystem);
             }
             catch (Exception ex) {
-                telemetry.clearAll();
-                telemetry.addData("ERROR!!!", ex.getMessage());
-                telemetry.update();
-                Log.e(this.getClass().getSimpleName(), ex.getMessage(), ex);
+                errorReporter.report(subSystem, ex);
             }
         }
     }
@@ -323,40 +344,54 @@ public abstract class Robot {
 
         for (SubSystem subSystem : subSystems.values())
         {
+            if(subSystem.quarantined) {
+                continue;
+            }
+
             try {
                 subSystem.handle();
+                errorReporter.recordSuccess(subSystem);
             }
             catch (Exception ex)
             {
-                telemetry.clearAll();
-                telemetry.addData("ERROR!!!", ex.getMessage());
-                telemetry.update();
-                Log.e(this.getClass().getSimpleName(), ex.getMessage(), ex);
+                errorReporter.report(subSystem, ex);
             }
         }
+
+        telemetryManager.markLoop();
     }
 
     /**
-     * Runs the stop functions for all subsystems and the GUI.
+     * Runs the stop functions for all subsystems and the GUI, then sends the last telemetry and stops the telemetry manager.
      */
     public final void stopAllComponents(){
 
-        if(useGui) {
-            gui.stop();
-        }
+        try {
+            if(useGui) {
+                gui.stop();
+            }
 
-        for (SubSystem subSystem : subSystems.values())
-        {
-            try
+            for (SubSystem subSystem : subSystems.values())
             {
-                subSystem.stop();
+                try
+                {
+                    subSystem.stop();
+                }
+                catch (Exception ex)
+                {
+                    errorReporter.report(subSystem, ex);
+                }
             }
-            catch (Exception ex)
-            {
-                telemetry.clearAll();
-                telemetry.addData("ERROR!!!", ex.getMessage());
-                telemetry.update();
-                Log.e(this.getClass().getSimpleName(), ex.getMessage(), ex);
+        }
+        finally {
+            //The background threads are always stopped so they can't outlive the opmode.
+            telemetryManager.stop();
+
+            try {
+                voltageCompensator.stop();
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
             }
         }
     }
@@ -16,6 +16,10 @@ public abstract class SubSystem {
     protected Robot robot;
     //A boolean specifying whether or not the subsystem should use the configuration menu.
     protected boolean usesConfig;
+    //The number of times in a row the subsystem has thrown an exception. Managed by the robot's ErrorReporter.
+    int consecutiveFailures;
+    //A boolean specifying if the subsystem failed too many times in a row and is no longer run by the robot. Managed by the robot's ErrorReporter.
+    boolean quarantined;
 
     /**
      * Constructor for subsystem.
@@ -28,6 +32,15 @@ public abstract class SubSystem {
         initVars();
     }
 
+    /**
+     * Gets whether the subsystem failed too many times in a row and is no longer run by the robot. Quarantined subsystems are still stopped when the program ends.
+     *
+     * @return - Whether the subsystem is quarantined.
+     */
+    public final boolean isQuarantined() {
+        return quarantined;
+    }
+
     /**
      * An overridable method that allows you to easily initialize variables at the beginning of every constructor for the subsystem.
      */
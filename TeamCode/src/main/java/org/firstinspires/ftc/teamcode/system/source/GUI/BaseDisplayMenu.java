@@ -8,13 +8,15 @@
 package org.firstinspires.ftc.teamcode.system.source.GUI;
 
 import java.util.ArrayList;
-import java.util.List;
 
 /**
  * The base menu class for DisplayMenus to extend.
  */
 public abstract class BaseDisplayMenu extends Menu {
 
+    //Used to empty the menu without creating a new array every time.
+    protected static final GuiLine[] NO_LINES = new GuiLine[]{};
+
     //The current "level" of screen in the menu. If the number of lines in the menu exceeds the maximum number, menunumber will increase by one for every screen the menu takes up.
     private int menuNumber;
 
@@ -49,7 +51,7 @@ public abstract class BaseDisplayMenu extends Menu {
 
     @Override
     protected void open() {
-        super.setSelectionZoneHeight(0,new GuiLine[]{});
+        super.setSelectionZoneHeight(0,NO_LINES);
         super.cursor.doBlink = false;
     }
 
@@ -97,19 +99,34 @@ public abstract class BaseDisplayMenu extends Menu {
      * Displays the current menu.
      */
     private void displayCurrentMenu(){
-
-        List<Integer> lineNums = new ArrayList<>();
-        for (int i = menuNumber * Menu.MAXLINESPERSCREEN; i < Math.min(lines.size(),(menuNumber+1)*Menu.MAXLINESPERSCREEN); i++) {
-            lineNums.add(i);
+        int start = menuNumber * Menu.MAXLINESPERSCREEN;
+        int end = Math.min(lines.size(), start + Menu.MAXLINESPERSCREEN);
+        if(start >= end) {
+            displayNothing();
+            return;
         }
 
-        displayLines(lines,lineNums);
+        for (int i = start; i < end; i++) {
+            displayLine(lines.get(i), i);
+        }
     }
 
     /**
      * Clears the screen.
      */
     public void clear() {
-        super.setSelectionZoneHeight(0,new GuiLine[]{});
+        super.setSelectionZoneHeight(0,NO_LINES);
+    }
+
+    /**
+     * Makes the selection zone match the number of lines.
+     */
+    protected void resize() {
+        if(lines.size() == 0) {
+            super.setSelectionZoneHeight(0, NO_LINES);
+        }
+        else if(lines.size() != getSelectionZoneHeight()) {
+            super.setSelectionZoneHeight(lines.size(), lines);
+        }
     }
 }
\ No newline at end of file
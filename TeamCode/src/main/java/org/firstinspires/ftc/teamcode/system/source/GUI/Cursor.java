@@ -143,6 +143,50 @@ public abstract class Cursor {
         this.y = y;
     }
 
+    /**
+     * Moves the cursor up or down by a number of rows, stopping at the edges of the selection zone. The menu is scrolled for every page boundary crossed.
+     *
+     * @param steps - The number of rows to move. Positive moves down and negative moves up.
+     * @return - Whether the cursor moved.
+     */
+    protected boolean moveVertical(int steps) {
+        int startY = y;
+        while(steps < 0 && y - 1 >= 0) {
+            y--;
+            if((y + 1) % Menu.MAXLINESPERSCREEN == 0) {
+                menu.menuUp();
+            }
+            steps++;
+        }
+        while(steps > 0 && y + 1 <= menu.getSelectionZoneHeight() - 1) {
+            y++;
+            if(y % Menu.MAXLINESPERSCREEN == 0) {
+                menu.menuDown();
+            }
+            steps--;
+        }
+        return y != startY;
+    }
+
+    /**
+     * Moves the cursor left or right by a number of characters, stopping at the edges of the selection zone.
+     *
+     * @param steps - The number of characters to move. Positive moves right and negative moves left.
+     * @return - Whether the cursor moved.
+     */
+    protected boolean moveHorizontal(int steps) {
+        int startX = x;
+        while(steps < 0 && x - 1 >= 0) {
+            x--;
+            steps++;
+        }
+        while(steps > 0 && x + 1 <= menu.getSelectionZoneWidth() - 1) {
+            x++;
+            steps--;
+        }
+        return x != startX;
+    }
+
     /**
      * Abstract method that runs when the cursor is updated every frame. Methods for controlling the cursor go here.
      */
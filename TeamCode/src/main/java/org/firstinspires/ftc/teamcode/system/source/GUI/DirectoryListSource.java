@@ -0,0 +1,118 @@
+/*
+ * Filename: DirectoryListSource.java
+ * Author: Cole Savage
+ * Team Name: Level Up
+ * Date: 10/19/19
+ */
+
+package org.firstinspires.ftc.teamcode.system.source.GUI;
+
+import java.io.File;
+
+/**
+ * A ListSource that lists the files in a folder, with optional fixed option rows before and after the files.
+ * Only the file names are read when the source is created. GuiLines are created for the rows being shown.
+ */
+public class DirectoryListSource implements ListSource {
+
+    //An empty list of option rows.
+    private static final String[] NO_OPTIONS = new String[]{};
+
+    //The rows shown before the files.
+    private final String[] headerOptions;
+    //The names of the listed files, with any .txt extensions removed.
+    private final String[] fileNames;
+    //The rows shown after the files.
+    private final String[] footerOptions;
+
+    /**
+     * Constructor for DirectoryListSource.
+     *
+     * @param filePath - The path to the folder to list.
+     * @param exclude - The name of a file to leave out of the list, or null to list every file.
+     * @param headerOptions - The rows shown before the files.
+     * @param footerOptions - The rows shown after the files.
+     */
+    public DirectoryListSource(String filePath, String exclude, String[] headerOptions, String[] footerOptions) {
+        this.headerOptions = headerOptions;
+        this.footerOptions = footerOptions;
+
+        String[] names = listNames(filePath);
+        int count = 0;
+        for(String name : names) {
+            if(!name.equals(exclude)) {
+                names[count] = name.replace(".txt","");
+                count++;
+            }
+        }
+        fileNames = new String[count];
+        System.arraycopy(names, 0, fileNames, 0, count);
+    }
+
+    /**
+     * Constructor for DirectoryListSource.
+     *
+     * @param filePath - The path to the folder to list.
+     * @param exclude - The name of a file to leave out of the list, or null to list every file.
+     */
+    public DirectoryListSource(String filePath, String exclude) {
+        this(filePath, exclude, NO_OPTIONS, NO_OPTIONS);
+    }
+
+    @Override
+    public int size() {
+        return headerOptions.length + fileNames.length + footerOptions.length;
+    }
+
+    @Override
+    public GuiLine getLine(int index) {
+        String text;
+        if(index < headerOptions.length) {
+            text = headerOptions[index];
+        }
+        else if(index < headerOptions.length + fileNames.length) {
+            text = fileNames[index - headerOptions.length];
+        }
+        else {
+            text = footerOptions[index - headerOptions.length - fileNames.length];
+        }
+        return new GuiLine("#", text);
+    }
+
+    /**
+     * Gets the number of files listed, not counting option rows.
+     *
+     * @return - The number of files.
+     */
+    public int getFileCount() {
+        return fileNames.length;
+    }
+
+    /**
+     * Counts the files in a folder without creating any rows.
+     *
+     * @param filePath - The path to the folder.
+     * @param exclude - The name of a file to leave out of the count, or null to count every file.
+     * @return - The number of files in the folder.
+     */
+    public static int countFiles(String filePath, String exclude) {
+        int count = 0;
+        for(String name : listNames(filePath)) {
+            if(!name.equals(exclude)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Lists the names of the files in a folder.
+     *
+     * @param filePath - The path to the folder.
+     * @return - The names of the files, or an empty array if the folder can't be read.
+     */
+    private static String[] listNames(String filePath) {
+        String[] names = new File(filePath).list();
+        return names == null ? NO_OPTIONS : names;
+    }
+}
@@ -14,39 +14,71 @@ import org.firstinspires.ftc.teamcode.util.misc.CustomizableGamepad;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
  * Gui class for drawing and handling menus. Think of it like the robot.java class but for graphics.
+ * Menus are rendered on the main thread into an immutable GuiFrame, which is only published if it differs from the last frame.
+ * A GuiRenderer draws the frames and blinks the cursor on the telemetry manager's thread, so sending telemetry never delays the control loop.
+ * Menus are kept in a ring in the order they were added, so cycling, adding and removing menus don't search through the other menus.
+ * Each menu keeps its view state and its last rendered frame while it isn't active, so switching back to it shows it immediately without rendering it again.
  */
 public class GUI {
 
-    //The current active menu.
-    private Menu activeMenu;
-    //The hashmap mapping the name of a menu to the actual menu object.
-    private Map<String,Menu> menus;
+    //The entry of the current active menu. Null if there are no menus.
+    private MenuEntry activeEntry;
+    //The entry of the first menu in the ring. New menus are added right before it. Null if there are no menus.
+    private MenuEntry firstEntry;
+    //The hashmap mapping the name of a menu to its entry in the ring.
+    private Map<String,MenuEntry> menus;
     //The robot using th GUI.
     public Robot robot;
     //The cursor the GUI will use in the menus.
     private Cursor cursor;
     //A boolean value that becomes true when the user attempts to cycle menus.
     private boolean cycle;
-    //The character to be drawn to the screen at the coordinates of the cursor.
-    private char drawChar;
     //The time at which the last render action occurred in milliseconds.
     private long lastRenderTime;
-    //The current state of the cursor's blinking and the index of the active menu in a list of the hashmap's values.
-    private int cursorBlinkState, activeMenuIdx;
-    //The timestamp of the last blink.
-    private double lastBlinkTimeMs;
-    //A list of all menu names currently in the GUI.
-    private ArrayList<String> menuKeys;
     //Used in a three way toggle to make the cursor blink, I apologize in advance.
     private boolean flag;
     //The customizable gamepad used to customize inputs to the GUI.
     private CustomizableGamepad inputs;
     //The name of the cycle menus button.
     private static final String CYCLE_MENUS = "CycleMenus";
+    //The name of the GUI's telemetry channel.
+    private static final String GUI_CHANNEL = "GUI";
+    //The lines of the frame being rendered.
+    private List<String> frame;
+    //The line the cursor is on in the frame being rendered and the character it covers. -1 if the cursor isn't on screen.
+    private int frameCursorLine, frameCursorX;
+    //The renderer that draws frames to telemetry.
+    private GuiRenderer renderer;
+
+    /**
+     * A menu's place in the ring of menus, along with the state the GUI keeps for it while it isn't active.
+     */
+    private static final class MenuEntry {
+        //The menu.
+        private final Menu menu;
+        //The menus before and after this one in the ring.
+        private MenuEntry prev, next;
+        //The last frame published from the menu. Null if the menu hasn't been rendered since the screen was last cleared.
+        private GuiFrame lastFrame;
+        //A boolean specifying if the menu has been opened since it was added.
+        private boolean opened;
+
+        /**
+         * Constructor for MenuEntry.
+         *
+         * @param menu - The menu.
+         */
+        private MenuEntry(Menu menu) {
+            this.menu = menu;
+            prev = this;
+            next = this;
+        }
+    }
 
     /**
      * Constructor for GUI.
@@ -62,8 +94,11 @@ public class GUI {
 
         this.inputs = new CustomizableGamepad(robot);
 
-        menuKeys = new ArrayList<>();
-        
+        frame = new ArrayList<>();
+        renderer = new GuiRenderer(robot.telemetryManager.addChannel(GUI_CHANNEL, TelemetryManager.NORMAL_PRIORITY));
+        //The GUI draws every frame from scratch, so it takes over telemetry.
+        robot.telemetryManager.setExclusive(true);
+
         if(flipMenu.isBoolean) {
             this.inputs.addButton(CYCLE_MENUS, flipMenu);
         }
@@ -71,32 +106,27 @@ public class GUI {
             throw new NotBooleanInputException("A non-boolean input was passed to the controller as a boolean input");
         }
 
-        cursorBlinkState = 0;
-        lastBlinkTimeMs = System.currentTimeMillis();
         lastRenderTime = 0;
         flag = false;
         cycle = false;
-        activeMenuIdx = 0;
-
-        robot.telemetry.setAutoClear(false);
-        robot.telemetry.setMsTransmissionInterval(50);
     }
 
     /**
-     * Runs the init() function for every menu contained in the GUI.
+     * Runs the init() function for every menu contained in the GUI and starts the renderer.
      */
     public final void start(){
-        if(menus.size() > 0){
-            cursor = menus.get(menuKeys.get(activeMenuIdx)).cursor;
+        if(activeEntry != null){
+            cursor = activeEntry.menu.cursor;
         }
-        for(Menu m : menus.values()) {
-            m.init();
+        for(MenuEntry entry : menus.values()) {
+            entry.menu.init();
         }
+        renderer.start();
     }
 
     public final void onStart() {
-        for(Menu m : menus.values()) {
-            m.onStart();
+        for(MenuEntry entry : menus.values()) {
+            entry.menu.onStart();
         }
     }
 
@@ -107,12 +137,11 @@ public class GUI {
         if(menus.size() != 0) {
             cursor.update();
             if (inputs.getBooleanInput(CYCLE_MENUS) && flag) {
-                activeMenuIdx++;
-                activeMenuIdx = activeMenuIdx % menuKeys.size();
-                setActiveMenu(menuKeys.get(activeMenuIdx));
-                cursor.cursorUpdated = true;
+                //A menu with a cached frame is shown from the cache, and is only rendered again when its cursor or blink needs it.
+                setActiveEntry(activeEntry.next);
+                cycle = activeEntry.lastFrame == null;
+                cursor.cursorUpdated = cycle;
                 flag = false;
-                cycle = true;
             } else if (!inputs.getBooleanInput(CYCLE_MENUS) && !flag) {
                 flag = true;
                 cycle = false;
@@ -123,13 +152,9 @@ public class GUI {
 
             if (System.currentTimeMillis() - lastRenderTime >= cursor.blinkSpeedMs || cursor.cursorUpdated || cycle) {
 
-                if (cursor.cursorUpdated) {
-                    cursorBlinkState = 0;
-                }
-
-                clearScreen();
-                activeMenu.render();
-                robot.telemetry.update();
+                beginFrame();
+                activeEntry.menu.render();
+                endFrame(cursor.cursorUpdated || cycle);
                 lastRenderTime = System.currentTimeMillis();
             }
         }
@@ -142,12 +167,11 @@ public class GUI {
         if(menus.size() != 0) {
             cursor.update();
             if (inputs.getBooleanInput(CYCLE_MENUS) && flag) {
-                activeMenuIdx++;
-                activeMenuIdx = activeMenuIdx % menuKeys.size();
-                setActiveMenu(menuKeys.get(activeMenuIdx));
-                cursor.cursorUpdated = true;
+                //A menu with a cached frame is shown from the cache, and is only rendered again when its cursor or blink needs it.
+                setActiveEntry(activeEntry.next);
+                cycle = activeEntry.lastFrame == null;
+                cursor.cursorUpdated = cycle;
                 flag = false;
-                cycle = true;
             } else if (!inputs.getBooleanInput(CYCLE_MENUS) && !flag) {
                 flag = true;
                 cycle = false;
@@ -158,64 +182,81 @@ public class GUI {
 
             if (System.currentTimeMillis() - lastRenderTime >= cursor.blinkSpeedMs || cursor.cursorUpdated || cycle) {
 
-                if (cursor.cursorUpdated) {
-                    cursorBlinkState = 0;
-                }
-
-                clearScreen();
-                activeMenu.initLoopRender();
-                robot.telemetry.update();
+                beginFrame();
+                activeEntry.menu.initLoopRender();
+                endFrame(cursor.cursorUpdated || cycle);
                 lastRenderTime = System.currentTimeMillis();
             }
         }
     }
 
     /**
-     * Runs the stop function for every menu contained in the GUI.
+     * Runs the stop function for every menu contained in the GUI and stops the renderer.
      */
     public void stop() {
-        for (Menu m : menus.values()) {
-            m.stop();
+        for (MenuEntry entry : menus.values()) {
+            entry.menu.stop();
         }
+        renderer.stop();
         clearScreen();
     }
 
     /**
-     * Adds a menu to the GUI.
+     * Adds a menu to the GUI. It is added to the end of the ring, right before the first menu added. A menu already using the name is replaced.
      *
      * @param name - The menu object to be added.
      * @param menu - The name of the menu.
      */
     public void addMenu(String name, Menu menu){
-        menus.put(name, menu);
-        menuKeys.add(name);
+        if(menus.containsKey(name)) {
+            removeMenu(name);
+        }
+
+        MenuEntry entry = new MenuEntry(menu);
+        if(firstEntry == null) {
+            firstEntry = entry;
+        }
+        else {
+            entry.prev = firstEntry.prev;
+            entry.next = firstEntry;
+            firstEntry.prev.next = entry;
+            firstEntry.prev = entry;
+        }
+        menus.put(name, entry);
         if(menus.size() == 1){
-            setActiveMenu(name);
+            setActiveEntry(entry);
         }
     }
 
     /**
-     * Removes a menu from the GUI.
+     * Removes a menu from the GUI. If it was the active menu, the menu after it becomes active.
      *
      * @param name - The name of the menu to be removed.
      */
     public void removeMenu(String name) {
+        MenuEntry entry = menus.remove(name);
+        if(entry == null) {
+            return;
+        }
 
-        if(name.equals(menuKeys.get(activeMenuIdx))) {
-            robot.telemetry.clearAll();
-            activeMenu.displayNothing();
-            robot.telemetry.update();
+        if(entry == activeEntry) {
+            beginFrame();
+            entry.menu.displayNothing();
+            endFrame(true);
         }
 
-        if(menuKeys.indexOf(name) > activeMenuIdx && activeMenuIdx != menuKeys.size()-1){
-            activeMenuIdx--;
+        MenuEntry next = entry.next;
+        entry.prev.next = next;
+        next.prev = entry.prev;
+        if(entry == firstEntry) {
+            firstEntry = menus.isEmpty() ? null : next;
         }
-        menuKeys.remove(name);
-        menus.remove(name);
 
-        activeMenuIdx = menus.size() != 0 ? activeMenuIdx % menuKeys.size() : 0;
-        if(menus.size() != 0) {
-            setActiveMenu(menuKeys.get(activeMenuIdx));
+        if(menus.isEmpty()) {
+            activeEntry = null;
+        }
+        else if(entry == activeEntry) {
+            setActiveEntry(next);
         }
         cycle = true;
     }
@@ -226,45 +267,72 @@ public class GUI {
      * @param menuName - The name of the menu to be set as the active menu.
      */
     public void setActiveMenu(String menuName){
-
-        this.activeMenu = menus.get(menuName);
-        this.activeMenuIdx = menuKeys.indexOf(menuName);
-        menus.get(menuName).open();
-        cursor = menus.get(menuName).cursor;
+        setActiveEntry(menus.get(menuName));
     }
 
     /**
-     * Causes the cursor to blink on a specified line.
+     * Makes a menu the active menu. The menu is opened the first time it becomes active and resumed every time after that, so it keeps its view state.
+     * If it has a cached frame, the frame is shown immediately.
      *
-     * @param line - The line object where the cursor is currently located.
+     * @param entry - The entry of the menu to make active.
      */
-    private void blinkCursor(GuiLine line) {
-        char[] chars = line.selectionZoneText.toCharArray();
-
-        if(System.currentTimeMillis() - lastBlinkTimeMs >= cursor.getBlinkSpeedMs()) {
-            cursorBlinkState++;
-            cursorBlinkState = cursorBlinkState % 2;
-            lastBlinkTimeMs = System.currentTimeMillis();
+    private void setActiveEntry(MenuEntry entry) {
+        activeEntry = entry;
+        cursor = entry.menu.cursor;
+        if(!entry.opened) {
+            entry.opened = true;
+            entry.menu.open();
+        }
+        else {
+            entry.menu.resume();
         }
 
-        if(!cursor.doBlink || !cursor.forceCursorChar) {
-            cursorBlinkState = 1;
+        if(entry.lastFrame != null) {
+            renderer.publish(entry.lastFrame);
         }
+    }
 
-        if(chars.length != 0) {
-            drawChar = cursorBlinkState == 0 ? cursor.getCursorIcon() : chars[cursor.getX()];
-            chars[cursor.getX()] = drawChar;
+    /**
+     * Clears the screen. The cached frames of every menu are dropped, so each menu is rendered again the next time it is shown.
+     */
+    protected void clearScreen() {
+        renderer.clear();
+        for(MenuEntry entry : menus.values()) {
+            entry.lastFrame = null;
         }
+    }
 
-        robot.telemetry.addLine(line.FormatSelectionZoneText(new String(chars)));
+    /**
+     * Forces the next frame to be sent even if it hasn't changed. Call this after writing to telemetry outside of the GUI.
+     */
+    public void invalidate() {
+        renderer.invalidate();
+        robot.telemetryManager.invalidate();
     }
 
     /**
-     * Clears the screen.
+     * Starts building a new frame.
      */
-    protected void clearScreen() {
-        robot.telemetry.clearAll();
-        robot.telemetry.update();
+    private void beginFrame() {
+        frame.clear();
+        frameCursorLine = -1;
+        frameCursorX = -1;
+    }
+
+    /**
+     * Publishes the frame that was just built to the renderer and caches it for the active menu, if it differs from the active menu's last frame.
+     *
+     * @param cursorMoved - Whether the cursor moved since the last frame.
+     */
+    private void endFrame(boolean cursorMoved) {
+        boolean blink = cursor.doBlink && cursor.forceCursorChar;
+        GuiFrame lastFrame = activeEntry.lastFrame;
+        if(!cursorMoved && lastFrame != null && lastFrame.matches(frame, frameCursorLine, frameCursorX, cursor.getCursorIcon(), blink, cursor.getBlinkSpeedMs())) {
+            return;
+        }
+
+        activeEntry.lastFrame = new GuiFrame(frame, frameCursorLine, frameCursorX, cursor.getCursorIcon(), blink, cursor.getBlinkSpeedMs(), cursorMoved);
+        renderer.publish(activeEntry.lastFrame);
     }
 
     /**
@@ -274,12 +342,11 @@ public class GUI {
      * @param lineNumber - The line number (starts at 0 at the top).
      */
     protected void displayLine(GuiLine line, int lineNumber){
-        if(cursor.getY() == lineNumber){
-            blinkCursor(line);
-        }
-        else {
-            robot.telemetry.addLine(line.getLineText());
+        if(cursor.getY() == lineNumber && line.selectionZoneText.length() != 0){
+            frameCursorLine = frame.size();
+            frameCursorX = cursor.getX();
         }
+        frame.add(line.getLineText());
     }
 
     /**
@@ -289,7 +356,8 @@ public class GUI {
      * @return - The menu object corresponding to menuName in the GUI.
      */
     public Menu getMenu(String menuName) {
-        return menus.get(menuName);
+        MenuEntry entry = menus.get(menuName);
+        return entry == null ? null : entry.menu;
     }
 
     /**
@@ -309,6 +377,6 @@ public class GUI {
      * @return Whether or not the menu is in the GUI.
      */
     public boolean isMenuPresent(String menuName) {
-        return menuKeys.contains(menuName);
+        return menus.containsKey(menuName);
     }
 }
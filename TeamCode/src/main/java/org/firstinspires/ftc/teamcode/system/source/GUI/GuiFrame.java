@@ -0,0 +1,94 @@
+/*
+ * Filename: GuiFrame.java
+ * Author: Cole Savage
+ * Team Name: Level Up
+ * Date: 10/19/19
+ */
+
+package org.firstinspires.ftc.teamcode.system.source.GUI;
+
+import java.util.List;
+
+/**
+ * An immutable snapshot of a rendered menu. Frames are built by the GUI on the main thread and drawn by the GuiRenderer on its own thread.
+ * The cursor is not drawn into the lines, so that the renderer can blink it without the menu being rendered again.
+ */
+public final class GuiFrame {
+
+    //The text of each line, without the cursor drawn in.
+    private final String[] lines;
+    //The index of the line the cursor is on and the index of the character it covers. Both are -1 if there is no cursor to draw.
+    public final int cursorLine, cursorX;
+    //The character drawn at the cursor's position.
+    public final char cursorIcon;
+    //A boolean specifying if the cursor is drawn at all. Cursors that don't blink are hidden.
+    public final boolean blink;
+    //The time the cursor spends shown and hidden in milliseconds.
+    public final int blinkSpeedMs;
+    //A boolean specifying if the cursor moved since the last frame, which restarts the blink so the cursor is shown immediately.
+    public final boolean cursorMoved;
+
+    /**
+     * Constructor for GuiFrame.
+     *
+     * @param lines - The text of each line, without the cursor drawn in.
+     * @param cursorLine - The index of the line the cursor is on, or -1 if there is no cursor to draw.
+     * @param cursorX - The index of the character the cursor covers, or -1 if there is no cursor to draw.
+     * @param cursorIcon - The character drawn at the cursor's position.
+     * @param blink - Whether the cursor is drawn at all.
+     * @param blinkSpeedMs - The time the cursor spends shown and hidden in milliseconds.
+     * @param cursorMoved - Whether the cursor moved since the last frame.
+     */
+    public GuiFrame(List<String> lines, int cursorLine, int cursorX, char cursorIcon, boolean blink, int blinkSpeedMs, boolean cursorMoved) {
+        this.lines = lines.toArray(new String[0]);
+        this.cursorLine = cursorLine;
+        this.cursorX = cursorX;
+        this.cursorIcon = cursorIcon;
+        this.blink = blink;
+        this.blinkSpeedMs = blinkSpeedMs;
+        this.cursorMoved = cursorMoved;
+    }
+
+    /**
+     * Gets the number of lines in the frame.
+     *
+     * @return - The number of lines.
+     */
+    public int size() {
+        return lines.length;
+    }
+
+    /**
+     * Gets the text of a line, without the cursor drawn in.
+     *
+     * @param line - The index of the line.
+     * @return - The line's text.
+     */
+    public String getLine(int line) {
+        return lines[line];
+    }
+
+    /**
+     * Checks whether this frame would draw the same thing as a new set of lines and cursor settings.
+     *
+     * @param lines - The text of each line, without the cursor drawn in.
+     * @param cursorLine - The index of the line the cursor is on, or -1 if there is no cursor to draw.
+     * @param cursorX - The index of the character the cursor covers, or -1 if there is no cursor to draw.
+     * @param cursorIcon - The character drawn at the cursor's position.
+     * @param blink - Whether the cursor is drawn at all.
+     * @param blinkSpeedMs - The time the cursor spends shown and hidden in milliseconds.
+     * @return - Whether the frames match.
+     */
+    public boolean matches(List<String> lines, int cursorLine, int cursorX, char cursorIcon, boolean blink, int blinkSpeedMs) {
+        if(lines.size() != this.lines.length || cursorLine != this.cursorLine || cursorX != this.cursorX
+                || cursorIcon != this.cursorIcon || blink != this.blink || blinkSpeedMs != this.blinkSpeedMs) {
+            return false;
+        }
+        for(int i = 0; i < this.lines.length; i++) {
+            if(!this.lines[i].equals(lines.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
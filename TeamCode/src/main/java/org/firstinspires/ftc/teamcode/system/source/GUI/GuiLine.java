@@ -11,13 +11,21 @@ import org.firstinspires.ftc.teamcode.util.exceptions.InvalidSelectionZoneExcept
 
 /**
  * A class representing a line printed on a menu.
+ * The full line text is cached and only recomposed when one of its parts is replaced, so rendering an unchanged line doesn't create any garbage.
  */
 public class GuiLine {
 
+    //The divider used when no custom divider is set.
+    private static final String DEFAULT_DIVIDER = "| ";
+
     //SelectionZoneText is text for the selection zone, PostSelectionText is text to go after selection zone, divider is text between the two of them.
     public String selectionZoneText, postSelectionText, divider;
     //True if custom divider is used.
     private boolean hasDivider;
+    //The cached full line text. Null until the text is first requested.
+    private String lineText;
+    //The parts the cached text was composed from. Strings are immutable, so the text is stale exactly when one of these is no longer the same object as the current part.
+    private String composedSelectionZoneText, composedPostSelectionText, composedDivider;
 
     /**
      * Constructor that checks line against the given menu and uses the default divider.
@@ -87,12 +95,14 @@ public class GuiLine {
      * Returns the full line text.
      */
     public String getLineText() {
-
-        if (hasDivider) {
-            return selectionZoneText + divider + postSelectionText;
-        } else {
-            return selectionZoneText + "| " + postSelectionText;
+        String currentDivider = hasDivider ? divider : DEFAULT_DIVIDER;
+        if(lineText == null || composedSelectionZoneText != selectionZoneText || composedPostSelectionText != postSelectionText || composedDivider != currentDivider) {
+            lineText = selectionZoneText + currentDivider + postSelectionText;
+            composedSelectionZoneText = selectionZoneText;
+            composedPostSelectionText = postSelectionText;
+            composedDivider = currentDivider;
         }
+        return lineText;
     }
 
     /**
@@ -101,12 +111,7 @@ public class GuiLine {
      * @param selectionZoneText - Text to replace the selectionZoneText with.
      */
     public String FormatSelectionZoneText(String selectionZoneText){
-        if(hasDivider){
-            return selectionZoneText + divider + postSelectionText;
-        }
-        else {
-            return selectionZoneText + "| " + postSelectionText;
-        }
+        return selectionZoneText + (hasDivider ? divider : DEFAULT_DIVIDER) + postSelectionText;
     }
 
     /**
@@ -0,0 +1,191 @@
+/*
+ * Filename: GuiRenderer.java
+ * Author: Cole Savage
+ * Team Name: Level Up
+ * Date: 10/19/19
+ */
+
+package org.firstinspires.ftc.teamcode.system.source.GUI;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Draws GuiFrames into a TelemetryManager channel on the telemetry manager's background thread, so blinking the cursor and sending telemetry never delay the control loop.
+ * Right before each transmission the renderer draws the newest frame it was given and only updates its channel if the drawn lines changed.
+ */
+public class GuiRenderer implements TelemetryManager.Producer {
+
+    //The channel that frames are drawn to.
+    private final TelemetryManager.Channel channel;
+    //Lock guarding the pending frame, the invalid, cursorMoved and cleared flags, and updates to the channel.
+    private final Object frameLock = new Object();
+    //The newest frame published by the GUI that hasn't been drawn yet. Null if there is none.
+    private GuiFrame pendingFrame;
+    //A boolean specifying if the next frame must be sent even if it hasn't changed.
+    private boolean invalid;
+    //A boolean specifying if the cursor moved in any frame published since the last draw.
+    private boolean cursorMoved;
+    //A boolean specifying if the channel was cleared and nothing should be drawn until a new frame is published.
+    private boolean cleared;
+    //The frame currently being drawn. Only used by the telemetry manager's thread.
+    private GuiFrame currentFrame;
+    //The lines last drawn to the channel. Only used by the telemetry manager's thread.
+    private final List<String> sentLines;
+    //The frame that cursorLineText was drawn for, the cursor's line with the cursor drawn in, and the buffer it was drawn in. Only used by the telemetry manager's thread.
+    private GuiFrame cursorFrame;
+    private String cursorLineText;
+    private char[] cursorBuffer;
+    //The current state of the cursor's blinking. 0 is shown and 1 is hidden.
+    private int blinkState;
+    //The time of the last blink in milliseconds.
+    private long lastBlinkTimeMs;
+
+    /**
+     * Constructor for GuiRenderer.
+     *
+     * @param channel - The channel that frames are drawn to.
+     */
+    public GuiRenderer(TelemetryManager.Channel channel) {
+        this.channel = channel;
+        sentLines = new ArrayList<>();
+        cursorBuffer = new char[64];
+        invalid = true;
+    }
+
+    /**
+     * Starts drawing frames to the channel before each transmission.
+     */
+    public void start() {
+        channel.setProducer(this);
+    }
+
+    /**
+     * Stops drawing frames and removes the GUI's lines from the channel. Frames published after this are not drawn.
+     */
+    public void stop() {
+        channel.setProducer(null);
+        clear();
+    }
+
+    /**
+     * Removes the GUI's lines from the channel. The next frame drawn is always sent.
+     */
+    public void clear() {
+        synchronized (frameLock) {
+            pendingFrame = null;
+            invalid = true;
+            cleared = true;
+            channel.clear();
+        }
+    }
+
+    /**
+     * Publishes a frame to be drawn. Only the newest frame is kept, so frames published faster than the transmission interval are skipped.
+     * If the cursor moved in a skipped frame, the cursor is still shown immediately.
+     *
+     * @param frame - The frame to draw.
+     */
+    public void publish(GuiFrame frame) {
+        synchronized (frameLock) {
+            pendingFrame = frame;
+            cursorMoved |= frame.cursorMoved;
+            cleared = false;
+        }
+    }
+
+    /**
+     * Forces the next frame to be drawn even if it hasn't changed.
+     */
+    public void invalidate() {
+        synchronized (frameLock) {
+            invalid = true;
+        }
+    }
+
+    /**
+     * Draws the newest frame with the cursor at its current blink state, and updates the channel if it differs from the last lines drawn.
+     *
+     * @param channel - The channel to update.
+     */
+    @Override
+    public void produce(TelemetryManager.Channel channel) {
+        boolean forceSend, skip;
+        synchronized (frameLock) {
+            if(pendingFrame != null) {
+                currentFrame = pendingFrame;
+                pendingFrame = null;
+            }
+            if(cursorMoved) {
+                blinkState = 0;
+                lastBlinkTimeMs = System.currentTimeMillis();
+                cursorMoved = false;
+            }
+            forceSend = invalid;
+            invalid = false;
+            skip = cleared;
+        }
+        if(currentFrame == null || skip) {
+            return;
+        }
+
+        if(System.currentTimeMillis() - lastBlinkTimeMs >= currentFrame.blinkSpeedMs) {
+            blinkState = (blinkState + 1) % 2;
+            lastBlinkTimeMs = System.currentTimeMillis();
+        }
+        if(!currentFrame.blink) {
+            blinkState = 1;
+        }
+
+        boolean changed = forceSend || sentLines.size() != currentFrame.size();
+        for(int i = 0; i < currentFrame.size(); i++) {
+            String line = drawLine(i);
+            if(i < sentLines.size()) {
+                if(!line.equals(sentLines.get(i))) {
+                    sentLines.set(i, line);
+                    changed = true;
+                }
+            }
+            else {
+                sentLines.add(line);
+            }
+        }
+        while(sentLines.size() > currentFrame.size()) {
+            sentLines.remove(sentLines.size() - 1);
+        }
+
+        if(changed) {
+            //The channel may have been cleared while the frame was being drawn.
+            synchronized (frameLock) {
+                if(!cleared) {
+                    channel.setLines(sentLines);
+                }
+            }
+        }
+    }
+
+    /**
+     * Draws one line of the current frame, with the cursor drawn in if it is on that line and currently shown.
+     * The cursor's line is only drawn once per frame, so blinking alternates between two existing strings.
+     *
+     * @param line - The index of the line.
+     * @return - The line's text.
+     */
+    private String drawLine(int line) {
+        String text = currentFrame.getLine(line);
+        if(line != currentFrame.cursorLine || currentFrame.cursorX < 0 || currentFrame.cursorX >= text.length() || blinkState != 0) {
+            return text;
+        }
+
+        if(cursorFrame != currentFrame) {
+            if(cursorBuffer.length < text.length()) {
+                cursorBuffer = new char[text.length()];
+            }
+            text.getChars(0, text.length(), cursorBuffer, 0);
+            cursorBuffer[currentFrame.cursorX] = currentFrame.cursorIcon;
+            cursorLineText = new String(cursorBuffer, 0, text.length());
+            cursorFrame = currentFrame;
+        }
+        return cursorLineText;
+    }
+}
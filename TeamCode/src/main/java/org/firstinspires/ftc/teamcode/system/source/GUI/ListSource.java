@@ -0,0 +1,30 @@
+/*
+ * Filename: ListSource.java
+ * Author: Cole Savage
+ * Team Name: Level Up
+ * Date: 10/19/19
+ */
+
+package org.firstinspires.ftc.teamcode.system.source.GUI;
+
+/**
+ * Supplies the rows of a virtualized ScrollingListMenu on demand.
+ * The menu only asks for the rows on the page being shown, so a source can describe a long list without creating a GuiLine for every row.
+ */
+public interface ListSource {
+
+    /**
+     * Gets the number of rows in the list.
+     *
+     * @return - The number of rows.
+     */
+    int size();
+
+    /**
+     * Creates the GuiLine for a row. Only called for rows that are about to be shown or selected.
+     *
+     * @param index - The index of the row.
+     * @return - The row's GuiLine.
+     */
+    GuiLine getLine(int index);
+}
@@ -34,6 +34,8 @@ public abstract class Menu {
     protected List<GuiLine> lines;
     //The maximum number of lines that can fit on the FTC driver station. This is a global constant.
     public static final int MAXLINESPERSCREEN = 8;
+    //The line displayed when a menu has nothing to show. Shared so that empty menus don't create a new line every render.
+    private static final GuiLine EMPTY_LINE = new GuiLine("", "", "");
 
     /**
      * Constructor for menu class.
@@ -93,10 +95,15 @@ public abstract class Menu {
     protected abstract void init();
 
     /**
-     * Abstract method that is called whenever the menu is opened.
+     * Abstract method that is called the first time the menu is opened after being added to the GUI.
      */
     protected abstract void open();
 
+    /**
+     * Method that is called whenever the menu is switched back to after it has already been opened. Does nothing by default, so the menu keeps the view state it was left in.
+     */
+    protected void resume() {}
+
     /**
      * Abstract method that is called whenever the cursor select button is pressed.
      */
@@ -229,7 +236,7 @@ public abstract class Menu {
      * Empties the screen display.
      */
     protected final void displayNothing(){
-        displayLine(new GuiLine("", "", ""), 0);
+        displayLine(EMPTY_LINE, 0);
     }
 
     /**
@@ -341,6 +348,20 @@ public abstract class Menu {
         setLines(newLines);
     }
 
+    /**
+     * Sets the selection zone width and height without changing the menu's lines. Used by menus that supply their lines some other way.
+     *
+     * @param selectionZoneWidth - The desired selection zone width.
+     * @param selectionZoneHeight - The desired selection zone height.
+     */
+    protected void setSelectionZone(int selectionZoneWidth, int selectionZoneHeight) {
+        this.selectionZoneWidth = selectionZoneWidth;
+        this.selectionZoneHeight = selectionZoneHeight;
+
+        cursor.x = Range.clip(cursor.x,0,selectionZoneWidth);
+        cursor.y = Range.clip(cursor.y,0,selectionZoneHeight);
+    }
+
     /**
      * Updates the menu's lines with new values.
      *
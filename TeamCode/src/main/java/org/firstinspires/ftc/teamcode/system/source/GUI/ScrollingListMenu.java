@@ -12,11 +12,21 @@ import java.util.List;
 
 /**
  * An abstract class extending Menu.java that represents a common typ of menu.
+ * The menu's rows either come from its list of lines or, when a ListSource is set, are pulled from the source one page at a time.
+ * Only the rows on the page being shown are created and they are cached until the page changes, so a long list opens instantly and costs the same to render as a short one.
  */
 public abstract class ScrollingListMenu extends Menu {
 
     //The current "level" of screen in the menu. If the number of lines in the menu exceeds the maximum number, menunumber will increase by one for every screen the menu takes up.
     protected int menuNumber;
+    //The source the menu's rows are pulled from, or null if the rows are the menu's lines.
+    private ListSource source;
+    //The number of rows in the source, read when the source is set or refreshed.
+    private int sourceSize;
+    //The cached rows of the page being shown when using a source.
+    private final GuiLine[] pageRows = new GuiLine[Menu.MAXLINESPERSCREEN];
+    //The menu number that pageRows was filled for. -1 if the cache is empty.
+    private int cachedMenuNumber = -1;
 
     /**
      * Constructor for ScrollingListMenu class.
@@ -81,8 +91,8 @@ public abstract class ScrollingListMenu extends Menu {
         menuNumber--;
 
         if(menuNumber < 0) {
-            menuNumber = (int) Math.floor((lines.size() * 1.0) / Menu.MAXLINESPERSCREEN);
-            cursor.y = Math.min(lines.size() - 1,(menuNumber*Menu.MAXLINESPERSCREEN)-1);
+            menuNumber = (int) Math.floor((getListSize() * 1.0) / Menu.MAXLINESPERSCREEN);
+            cursor.y = Math.min(getListSize() - 1,(menuNumber*Menu.MAXLINESPERSCREEN)-1);
         }
     }
 
@@ -91,7 +101,7 @@ public abstract class ScrollingListMenu extends Menu {
 
         menuNumber++;
 
-        if(menuNumber >= (int) Math.ceil((lines.size() * 1.0) / Menu.MAXLINESPERSCREEN)) {
+        if(menuNumber >= (int) Math.ceil((getListSize() * 1.0) / Menu.MAXLINESPERSCREEN)) {
             menuNumber = 0;
             cursor.y = 0;
         }
@@ -121,15 +131,99 @@ public abstract class ScrollingListMenu extends Menu {
         menuNumber = (int) Math.floor((cursor.y * 1.0)/Menu.MAXLINESPERSCREEN);
     }
 
+    @Override
+    public void setLines(GuiLine[] lines) {
+        super.setLines(lines);
+        source = null;
+        cachedMenuNumber = -1;
+    }
+
+    @Override
+    public void setLines(List<GuiLine> lines) {
+        super.setLines(lines);
+        source = null;
+        cachedMenuNumber = -1;
+    }
+
+    /**
+     * Makes the menu pull its rows from a source instead of its list of lines. The source's rows are only created when they are shown or selected.
+     *
+     * @param selectionZoneWidth - The desired selection zone width.
+     * @param source - The source to pull rows from.
+     */
+    protected void setSource(int selectionZoneWidth, ListSource source) {
+        if(source.size() == 0) {
+            setSelectionZoneWidthAndHeight(selectionZoneWidth, 0, new ArrayList<GuiLine>());
+            return;
+        }
+        this.source = source;
+        lines = new ArrayList<>();
+        refreshRows();
+        setSelectionZone(selectionZoneWidth, sourceSize);
+        menuNumber = (int) Math.floor((cursor.y * 1.0)/Menu.MAXLINESPERSCREEN);
+    }
+
+    /**
+     * Rereads the source's size and clears the cached rows, so changes to the source are shown on the next render.
+     */
+    protected void refreshRows() {
+        if(source != null) {
+            sourceSize = source.size();
+        }
+        cachedMenuNumber = -1;
+    }
+
+    /**
+     * Gets the number of rows in the menu.
+     *
+     * @return - The number of rows.
+     */
+    protected int getListSize() {
+        return source == null ? lines.size() : sourceSize;
+    }
+
+    /**
+     * Gets a row of the menu. Rows on the page being shown come from the cache. Other rows are created from the source without being cached.
+     *
+     * @param index - The index of the row.
+     * @return - The row's GuiLine.
+     */
+    protected GuiLine getRow(int index) {
+        if(source == null) {
+            return lines.get(index);
+        }
+        if(index / Menu.MAXLINESPERSCREEN == menuNumber) {
+            fillPage();
+            return pageRows[index % Menu.MAXLINESPERSCREEN];
+        }
+        return source.getLine(index);
+    }
+
+    /**
+     * Fills the row cache with the current page's rows from the source if it doesn't already hold them.
+     */
+    private void fillPage() {
+        if(cachedMenuNumber == menuNumber) {
+            return;
+        }
+        int start = menuNumber * Menu.MAXLINESPERSCREEN;
+        for (int i = 0; i < Menu.MAXLINESPERSCREEN; i++) {
+            pageRows[i] = start + i < sourceSize ? source.getLine(start + i) : null;
+        }
+        cachedMenuNumber = menuNumber;
+    }
+
     /**
      * Displays the current menu.
      */
     protected void displayCurrentMenu(){
-        List<Integer> lineNums = new ArrayList<>();
-        for (int i = menuNumber * Menu.MAXLINESPERSCREEN; i < Math.min(lines.size(),(menuNumber+1)*Menu.MAXLINESPERSCREEN); i++) {
-            lineNums.add(i);
+        int end = Math.min(getListSize(),(menuNumber+1)*Menu.MAXLINESPERSCREEN);
+        if(menuNumber * Menu.MAXLINESPERSCREEN >= end) {
+            displayNothing();
+            return;
+        }
+        for (int i = menuNumber * Menu.MAXLINESPERSCREEN; i < end; i++) {
+            displayLine(getRow(i), i);
         }
-
-        displayLines(lines,lineNums);
     }
 }
@@ -0,0 +1,541 @@
+/*
+ * Filename: TelemetryManager.java
+ * Author: Cole Savage
+ * Team Name: Level Up
+ * Date: 10/19/19
+ */
+
+package org.firstinspires.ftc.teamcode.system.source.GUI;
+
+import android.util.Log;
+
+import org.firstinspires.ftc.robotcore.external.Telemetry;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shares telemetry between everything that wants to write to it, so that the GUI, the error reporter and subsystems don't overwrite each other.
+ * Each writer gets a channel with a priority. Channels only store their newest lines, so updating the same line many times between transmissions only sends it once.
+ * Once per transmission interval a low priority background thread collects the channels' lines, highest priority first, until the line or byte budget is used up,
+ * and only sends them if they changed. The transmission interval stretches when the control loop is running slowly and shrinks back when it speeds up,
+ * so sending telemetry never takes time away from the control loop.
+ */
+public class TelemetryManager {
+
+    //Channel priorities. Higher priority channels are sent first and are the last to be cut when the budget runs out.
+    public static final int LOW_PRIORITY = 0, NORMAL_PRIORITY = 1, HIGH_PRIORITY = 2;
+    //The fraction of each new loop time mixed into the average loop time.
+    private static final double LOOP_SMOOTHING = 0.1;
+
+    //The telemetry that lines are sent to.
+    private final Telemetry telemetry;
+    //Lock guarding the channels and the dirty and invalid flags.
+    private final Object lock = new Object();
+    //The channels, from highest to lowest priority. Channels with the same priority are kept in the order they were added.
+    private final List<Channel> channels;
+    //A boolean specifying if any channel changed since the last transmission.
+    private boolean dirty;
+    //A boolean specifying if the next transmission must be sent even if it hasn't changed.
+    private boolean invalid;
+    //The channels that had a producer at the start of the current transmission. Only used by the transmission thread.
+    private final List<Channel> producing;
+    //The captions and values of the lines collected for the current transmission. Captions are null for lines without one. Only used by the transmission thread.
+    private final List<String> captions, values;
+    //The lines of the current transmission and the lines last sent to telemetry. Only used by the transmission thread.
+    private List<String> composedLines, sentLines;
+    //The most lines and bytes sent in one transmission.
+    private volatile int maxLines, maxBytes;
+    //The number of lines left out of the last transmission because they didn't fit in the budget.
+    private volatile int droppedLines;
+    //The shortest and longest time between transmissions in milliseconds.
+    private volatile long minIntervalMs, maxIntervalMs;
+    //The average loop time above which the control loop is considered overloaded in milliseconds.
+    private volatile double loopBudgetMs;
+    //The current time between transmissions in milliseconds.
+    private volatile long intervalMs;
+    //The average time between calls to markLoop() in milliseconds. 0 if the loop hasn't been measured yet.
+    private volatile double averageLoopMs;
+    //The time of the last call to markLoop() in nanoseconds.
+    private long lastLoopTimeNs;
+    //A boolean specifying if telemetry has been set up for transmissions. Telemetry is left alone until there is something to send.
+    private boolean telemetryConfigured;
+    //A boolean specifying if the manager owns telemetry, meaning it may clear it and turn off auto clear. Otherwise lines are only added alongside the opmode's own.
+    private volatile boolean exclusive;
+    //The thread that sends transmissions.
+    private Thread transmitThread;
+    //Whether the transmission thread should keep running.
+    private volatile boolean running;
+
+    /**
+     * Something that fills in a channel's lines right before each transmission, on the transmission thread.
+     */
+    public interface Producer {
+        /**
+         * Updates the channel's lines for the next transmission.
+         *
+         * @param channel - The channel to update.
+         */
+        void produce(Channel channel);
+    }
+
+    /**
+     * A group of lines written by one part of the program. Lines are either set all at once as a list, or one at a time under a key.
+     * Keyed lines are sent as "key : value" after the list lines, in the order their keys were first used.
+     */
+    public final class Channel {
+        //The name of the channel.
+        public final String name;
+        //The channel's priority.
+        public final int priority;
+        //The lines set all at once.
+        private final List<String> lines;
+        //The keyed lines, mapping each key to its newest value.
+        private final Map<String, String> data;
+        //The producer that fills in the channel's lines before each transmission. Null if the channel has none.
+        private volatile Producer producer;
+
+        /**
+         * Constructor for Channel.
+         *
+         * @param name - The name of the channel.
+         * @param priority - The channel's priority.
+         */
+        private Channel(String name, int priority) {
+            this.name = name;
+            this.priority = priority;
+            lines = new ArrayList<>();
+            data = new LinkedHashMap<>();
+        }
+
+        /**
+         * Replaces the channel's list lines. Does nothing if the lines haven't changed.
+         *
+         * @param newLines - The new lines. The list is copied, so it can be reused by the caller.
+         */
+        public void setLines(List<String> newLines) {
+            synchronized (lock) {
+                if(!lines.equals(newLines)) {
+                    lines.clear();
+                    lines.addAll(newLines);
+                    dirty = true;
+                }
+            }
+        }
+
+        /**
+         * Sets the value of a keyed line, replacing any value that hasn't been sent yet. Does nothing if the value hasn't changed.
+         *
+         * @param key - The line's key, which is shown as its caption.
+         * @param value - The line's value.
+         */
+        public void setLine(String key, String value) {
+            synchronized (lock) {
+                String oldValue = data.put(key, value);
+                if(oldValue == null ? value != null : !oldValue.equals(value)) {
+                    dirty = true;
+                }
+            }
+        }
+
+        /**
+         * Removes a keyed line.
+         *
+         * @param key - The line's key.
+         */
+        public void removeLine(String key) {
+            synchronized (lock) {
+                if(data.remove(key) != null) {
+                    dirty = true;
+                }
+            }
+        }
+
+        /**
+         * Removes every line from the channel.
+         */
+        public void clear() {
+            synchronized (lock) {
+                if(!lines.isEmpty() || !data.isEmpty()) {
+                    lines.clear();
+                    data.clear();
+                    dirty = true;
+                }
+            }
+        }
+
+        /**
+         * Sets the producer that fills in the channel's lines right before each transmission.
+         *
+         * @param producer - The producer, or null to remove it.
+         */
+        public void setProducer(Producer producer) {
+            this.producer = producer;
+        }
+    }
+
+    /**
+     * Constructor for TelemetryManager.
+     *
+     * @param telemetry - The telemetry that lines are sent to.
+     */
+    public TelemetryManager(Telemetry telemetry) {
+        this.telemetry = telemetry;
+        channels = new ArrayList<>();
+        producing = new ArrayList<>();
+        captions = new ArrayList<>();
+        values = new ArrayList<>();
+        composedLines = new ArrayList<>();
+        sentLines = new ArrayList<>();
+        maxLines = 24;
+        maxBytes = 2048;
+        minIntervalMs = 50;
+        maxIntervalMs = 500;
+        loopBudgetMs = 20;
+        intervalMs = minIntervalMs;
+    }
+
+    /**
+     * Adds a channel.
+     *
+     * @param name - The name of the channel.
+     * @param priority - The channel's priority. Higher priority channels are sent first.
+     * @return - The new channel.
+     */
+    public Channel addChannel(String name, int priority) {
+        Channel channel = new Channel(name, priority);
+        synchronized (lock) {
+            int idx = channels.size();
+            while(idx > 0 && channels.get(idx - 1).priority < priority) {
+                idx--;
+            }
+            channels.add(idx, channel);
+        }
+        return channel;
+    }
+
+    /**
+     * Removes a channel. Its lines are removed from telemetry in the next transmission.
+     *
+     * @param channel - The channel to remove.
+     */
+    public void removeChannel(Channel channel) {
+        synchronized (lock) {
+            if(channels.remove(channel)) {
+                dirty = true;
+            }
+        }
+    }
+
+    /**
+     * Starts the transmission thread.
+     */
+    public synchronized void start() {
+        if(transmitThread != null) {
+            return;
+        }
+
+        running = true;
+        transmitThread = new Thread() {
+            @Override
+            public void run() {
+                runTransmitting();
+            }
+        };
+        transmitThread.setName("TelemetryManager");
+        transmitThread.setPriority(Thread.MIN_PRIORITY);
+        transmitThread.setDaemon(true);
+        transmitThread.start();
+    }
+
+    /**
+     * Stops the transmission thread, then sends the channels' lines one last time so telemetry shows what was left in them.
+     * The last lines are sent even if the thread was never started, so an error reported during init still reaches telemetry.
+     */
+    public synchronized void stop() {
+        running = false;
+        if(transmitThread != null) {
+            transmitThread.interrupt();
+            try {
+                transmitThread.join(100);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            transmitThread = null;
+        }
+        transmit(false);
+    }
+
+    /**
+     * Records the end of a control loop. Call it once per loop so the transmission interval can follow the loop's load.
+     */
+    public void markLoop() {
+        long now = System.nanoTime();
+        if(lastLoopTimeNs != 0) {
+            double loopMs = (now - lastLoopTimeNs) / 1e6;
+            averageLoopMs = averageLoopMs == 0 ? loopMs : averageLoopMs + (loopMs - averageLoopMs) * LOOP_SMOOTHING;
+        }
+        lastLoopTimeNs = now;
+    }
+
+    /**
+     * Sets whether the manager owns telemetry. While it does, every transmission replaces everything on telemetry and auto clear is turned off.
+     * While it doesn't, the lines are added without clearing anything and telemetry's settings are left alone, so opmodes that write to telemetry themselves still work.
+     *
+     * @param exclusive - Whether the manager owns telemetry.
+     */
+    public void setExclusive(boolean exclusive) {
+        this.exclusive = exclusive;
+        invalidate();
+    }
+
+    /**
+     * Forces the next transmission to be sent even if it hasn't changed. Call this after writing to telemetry directly.
+     */
+    public void invalidate() {
+        synchronized (lock) {
+            invalid = true;
+        }
+    }
+
+    /**
+     * Sets the most lines sent in one transmission.
+     *
+     * @param maxLines - The line budget.
+     */
+    public void setMaxLines(int maxLines) {
+        this.maxLines = Math.max(maxLines, 1);
+    }
+
+    /**
+     * Sets the most bytes sent in one transmission. Lines are counted in UTF-8 with one extra byte each for the line break.
+     *
+     * @param maxBytes - The byte budget.
+     */
+    public void setMaxBytes(int maxBytes) {
+        this.maxBytes = Math.max(maxBytes, 1);
+    }
+
+    /**
+     * Sets the range the transmission interval is adapted within.
+     *
+     * @param minIntervalMs - The shortest time between transmissions in milliseconds, used while the loop is running quickly.
+     * @param maxIntervalMs - The longest time between transmissions in milliseconds, used while the loop is overloaded.
+     */
+    public void setIntervalRange(long minIntervalMs, long maxIntervalMs) {
+        this.minIntervalMs = Math.max(minIntervalMs, 1);
+        this.maxIntervalMs = Math.max(maxIntervalMs, this.minIntervalMs);
+    }
+
+    /**
+     * Sets the average loop time above which the control loop is considered overloaded. The transmission interval grows while the loop is slower than this
+     * and shrinks while it is less than half of this.
+     *
+     * @param loopBudgetMs - The loop budget in milliseconds.
+     */
+    public void setLoopBudget(double loopBudgetMs) {
+        this.loopBudgetMs = loopBudgetMs;
+    }
+
+    /**
+     * Gets the current time between transmissions.
+     *
+     * @return - The transmission interval in milliseconds.
+     */
+    public long getInterval() {
+        return intervalMs;
+    }
+
+    /**
+     * Gets the average loop time measured by markLoop().
+     *
+     * @return - The average loop time in milliseconds, or 0 if the loop hasn't been measured yet.
+     */
+    public double getAverageLoopMs() {
+        return averageLoopMs;
+    }
+
+    /**
+     * Gets the number of lines left out of the last transmission because they didn't fit in the budget.
+     *
+     * @return - The number of lines dropped.
+     */
+    public int getDroppedLines() {
+        return droppedLines;
+    }
+
+    /**
+     * The transmission thread's main loop. Sends the channels' lines and adapts the interval until the manager is stopped.
+     */
+    private void runTransmitting() {
+        while(running && !Thread.currentThread().isInterrupted()) {
+            try {
+                transmit(true);
+                adaptInterval();
+            }
+            catch (Exception ex) {
+                Log.e(this.getClass().getSimpleName(), ex.getMessage(), ex);
+            }
+
+            try {
+                Thread.sleep(intervalMs);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Collects the channels' lines within the budget and sends them if they changed.
+     *
+     * @param produce - Whether to run the channels' producers first.
+     */
+    private void transmit(boolean produce) {
+        if(produce) {
+            producing.clear();
+            synchronized (lock) {
+                for(int i = 0; i < channels.size(); i++) {
+                    if(channels.get(i).producer != null) {
+                        producing.add(channels.get(i));
+                    }
+                }
+            }
+            //Producers are run outside of the lock because they set their channel's lines.
+            for(int i = 0; i < producing.size(); i++) {
+                Channel channel = producing.get(i);
+                Producer producer = channel.producer;
+                if(producer != null) {
+                    producer.produce(channel);
+                }
+            }
+        }
+
+        boolean forceSend;
+        captions.clear();
+        values.clear();
+        synchronized (lock) {
+            if(!dirty && !invalid) {
+                return;
+            }
+            forceSend = invalid;
+            dirty = false;
+            invalid = false;
+
+            for(int i = 0; i < channels.size(); i++) {
+                Channel channel = channels.get(i);
+                for(int j = 0; j < channel.lines.size(); j++) {
+                    captions.add(null);
+                    values.add(channel.lines.get(j));
+                }
+                for(Map.Entry<String, String> entry : channel.data.entrySet()) {
+                    captions.add(entry.getKey());
+                    values.add(entry.getValue());
+                }
+            }
+        }
+
+        //Lines are taken in priority order until the budget runs out. A line that doesn't fit is skipped so that shorter lower priority lines can still use the rest of the bytes.
+        composedLines.clear();
+        int bytes = 0;
+        int dropped = 0;
+        for(int i = 0; i < values.size(); i++) {
+            String line = captions.get(i) == null ? values.get(i) : captions.get(i) + " : " + values.get(i);
+            int lineBytes = utf8Length(line) + 1;
+            if(composedLines.size() >= maxLines || bytes + lineBytes > maxBytes) {
+                dropped++;
+                continue;
+            }
+            composedLines.add(line);
+            bytes += lineBytes;
+        }
+        droppedLines = dropped;
+
+        if(!forceSend && composedLines.equals(sentLines)) {
+            return;
+        }
+        List<String> temp = sentLines;
+        sentLines = composedLines;
+        composedLines = temp;
+
+        //Without ownership of telemetry there is nothing to clear, so an empty transmission would only flush the opmode's own lines early.
+        boolean owned = exclusive;
+        if(!owned && sentLines.isEmpty()) {
+            return;
+        }
+
+        //The library only writes to telemetry here. The lock keeps the final flush in stop() from interleaving with a transmission that outlived the join.
+        synchronized (telemetry) {
+            if(!owned) {
+                for(int i = 0; i < sentLines.size(); i++) {
+                    telemetry.addLine(sentLines.get(i));
+                }
+                telemetry.update();
+                return;
+            }
+            if(!telemetryConfigured) {
+                telemetry.setAutoClear(false);
+                telemetry.setMsTransmissionInterval((int) intervalMs);
+                telemetryConfigured = true;
+            }
+            telemetry.clearAll();
+            for(int i = 0; i < sentLines.size(); i++) {
+                telemetry.addLine(sentLines.get(i));
+            }
+            telemetry.update();
+        }
+    }
+
+    /**
+     * Doubles the transmission interval while the loop is overloaded and shrinks it by a quarter while the loop has plenty of time left, within the interval range.
+     */
+    private void adaptInterval() {
+        double loadMs = averageLoopMs;
+        long nextIntervalMs = Math.max(Math.min(intervalMs, maxIntervalMs), minIntervalMs);
+        if(loadMs > loopBudgetMs) {
+            nextIntervalMs = Math.min(nextIntervalMs * 2, maxIntervalMs);
+        }
+        else if(loadMs < loopBudgetMs / 2) {
+            nextIntervalMs = Math.max(nextIntervalMs - nextIntervalMs / 4, minIntervalMs);
+        }
+
+        if(nextIntervalMs != intervalMs) {
+            intervalMs = nextIntervalMs;
+            if(telemetryConfigured) {
+                synchronized (telemetry) {
+                    telemetry.setMsTransmissionInterval((int) nextIntervalMs);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the number of bytes a string takes up in UTF-8.
+     *
+     * @param text - The string.
+     * @return - The string's length in bytes.
+     */
+    private static int utf8Length(String text) {
+        int length = 0;
+        for(int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if(c < 0x80) {
+                length++;
+            }
+            else if(c < 0x800) {
+                length += 2;
+            }
+            else if(Character.isHighSurrogate(c)) {
+                length += 4;
+                i++;
+            }
+            else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Filename: ChassisDrive.java
+ * Author: Cole Savage
+ * Team Name: Level Up
+ * Date: 10/19/19
+ */
+
+package org.firstinspires.ftc.teamcode.system.subsystems;
+
+/**
+ * A common interface for every drivetrain, so that path followers, odometry and calibration programs can drive any drivetrain without knowing which one it is.
+ * Speeds are robot-relative: vx is to the right, vy is forwards and omega is counterclockwise.
+ * Wheel states are reported in a fixed order for each drivetrain. 4 wheel drives use top left, top right, bottom left, bottom right. Tank drives use left, right.
+ * Wheel states are written into arrays supplied by the caller so that reading them every loop doesn't allocate anything.
+ */
+public interface ChassisDrive {
+
+    /**
+     * The ways a drivetrain's wheels can be laid out, which decide how wheel motion turns into robot motion.
+     */
+    enum WheelLayout {
+        //Wheels that only roll forwards and backwards. The robot turns by driving its sides at different speeds.
+        DIFFERENTIAL,
+        //Mechanum wheels in an X pattern. Each wheel's surface travels as far as the robot does when driving forwards.
+        MECHANUM,
+        //Omniwheels mounted at 45 degrees in an X pattern. Each wheel's surface travels cos(45) times as far as the robot does when driving forwards.
+        OMNI_X
+    }
+
+    /**
+     * Drives the robot at a set of chassis speeds. Speeds are fractions of the drivetrain's top speed, and are scaled down together if any wheel would saturate.
+     * The driver speed modes are not applied.
+     *
+     * @param vx - The speed to the right, from -1 to 1. Ignored by drivetrains that can't strafe.
+     * @param vy - The forward speed, from -1 to 1.
+     * @param omega - The counterclockwise turning speed, from -1 to 1.
+     */
+    void setChassisSpeeds(double vx, double vy, double omega);
+
+    /**
+     * Stops every drive motor.
+     */
+    void stopChassis();
+
+    /**
+     * Gets whether the drivetrain can strafe.
+     *
+     * @return - Whether the vx chassis speed is used.
+     */
+    boolean isHolonomic();
+
+    /**
+     * Gets how the drivetrain's wheels are laid out, so that odometry and calibration can turn wheel motion into robot motion.
+     *
+     * @return - The drivetrain's wheel layout.
+     */
+    WheelLayout getWheelLayout();
+
+    /**
+     * Gets the number of wheels the drivetrain reports states for.
+     *
+     * @return - The length of the wheel state arrays.
+     */
+    int getWheelCount();
+
+    /**
+     * Reads the encoder position of every wheel.
+     * The positions keep counting through encoder resets, so the difference between two reads is always the distance the wheels turned.
+     *
+     * @param positions - The array to write the positions into, in encoder ticks. Must be at least getWheelCount() long.
+     */
+    void getWheelPositions(int[] positions);
+
+    /**
+     * Reads the velocity of every wheel.
+     *
+     * @param velocities - The array to write the velocities into, in encoder ticks per second. Must be at least getWheelCount() long.
+     *                   Wheels whose motors can't report velocity read 0.
+     */
+    void getWheelVelocities(double[] velocities);
+
+    /**
+     * Gets the number of encoder ticks per meter traveled by each wheel.
+     *
+     * @return - The number of encoder ticks per meter, or a value less than or equal to 0 if it is unknown.
+     */
+    double getEncodersPerMeter();
+
+    /**
+     * Gets the calibrated scale factor of each wheel's encoder. A wheel's encoder ticks per meter is getEncodersPerMeter() times its scale factor.
+     *
+     * @return - The scale factor of each wheel, all 1 if the drivetrain hasn't been calibrated.
+     */
+    double[] getWheelScales();
+}
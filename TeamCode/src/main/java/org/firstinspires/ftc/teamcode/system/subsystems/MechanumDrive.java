@@ -14,14 +14,19 @@ import com.qualcomm.robotcore.hardware.PIDFCoefficients;
 import com.qualcomm.robotcore.util.Range;
 
 import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
+import org.firstinspires.ftc.robotcore.external.navigation.AngularVelocity;
 import org.firstinspires.ftc.robotcore.external.navigation.AxesOrder;
 import org.firstinspires.ftc.robotcore.external.navigation.AxesReference;
 import org.firstinspires.ftc.teamcode.system.menus.DisplayMenu;
 import org.firstinspires.ftc.teamcode.system.source.BaseRobot.Robot;
 import org.firstinspires.ftc.teamcode.system.source.BaseRobot.SubSystem;
+import org.firstinspires.ftc.teamcode.system.source.GUI.TelemetryManager;
 import org.firstinspires.ftc.teamcode.util.annotations.AutonomousConfig;
 import org.firstinspires.ftc.teamcode.util.annotations.TeleopConfig;
+import org.firstinspires.ftc.teamcode.util.calib.EncoderCalibration;
+import org.firstinspires.ftc.teamcode.util.control.HeadingController;
 import org.firstinspires.ftc.teamcode.util.control.PIDController;
+import org.firstinspires.ftc.teamcode.util.control.PredictiveBrake;
 import org.firstinspires.ftc.teamcode.util.exceptions.DumpsterFireException;
 import org.firstinspires.ftc.teamcode.util.exceptions.GuiNotPresentException;
 import org.firstinspires.ftc.teamcode.util.exceptions.InvalidMoveCommandException;
@@ -31,8 +36,8 @@ import org.firstinspires.ftc.teamcode.util.exceptions.NotDoubleInputException;
 import org.firstinspires.ftc.teamcode.util.exceptions.NotVectorInputException;
 import org.firstinspires.ftc.teamcode.util.exceptions.WrongDrivetypeException;
 import org.firstinspires.ftc.teamcode.util.functional_interfaces.BiFunction;
-import org.firstinspires.ftc.teamcode.util.math.ArrayMath;
 import org.firstinspires.ftc.teamcode.util.math.EncoderToDistanceProcessor;
+import org.firstinspires.ftc.teamcode.util.math.HolonomicKinematics;
 import org.firstinspires.ftc.teamcode.util.math.Units;
 import org.firstinspires.ftc.teamcode.util.math.Vector;
 import org.firstinspires.ftc.teamcode.util.misc.BaseParam;
@@ -50,12 +55,14 @@ import static java.lang.Thread.sleep;
 /**
  * A built in mechanum drive class with 7 drive modes.
  */
-public class MechanumDrive extends SubSystem {
+public class MechanumDrive extends SubSystem implements ChassisDrive {
 
     //Names of all the controls.
     private static final String DRIVESTICK = "drivestick", LEFT_DRIVESTICK = "drivestick_left", RIGHT_DRIVESTICK = "drivestick_right", TURNSTICK = "turnstick", TURN_LEFT = "turn_left", TURN_RIGHT = "turn_right", TTA_STICK = "tta_stick", SPEED_MODE = "speed_mode_toggle", TURN_SPEED_MODE = "turn_speed_mode_toggle";
     //Motors used to control the robot.
     private DcMotorEx topRight, topLeft, botRight, botLeft;
+    //All 4 motors, in the same order as the wheel power arrays. Used to report the drive's current demand to the power manager.
+    private DcMotor[] motors;
     //Gyroscope used to get the robot's current angle.
     private BNO055IMU imu;
     //The motor config. [0] is top left, [1] is top right, [2] is bottom left, [3] is bottom right.
@@ -66,10 +73,14 @@ public class MechanumDrive extends SubSystem {
     private CustomizableGamepad inputs;
     //PID controllers for turning to specific angles and driving in a straight line, respectively.
     private PIDController turnPID, stabilityPID;
+    //Holds the heading in teleop using the gyroscope's yaw rate. Null if the stability PID is used instead.
+    private HeadingController headingController;
     //A boolean designating whether or not the drive will use the gyroscope.
     private boolean usesGyro;
     //The number of encoder ticks per meter traveled.
     private double encodersPerMeter;
+    //The scale factor of each wheel's encoder, from the saved encoder calibration. All 1 if the drive hasn't been calibrated.
+    private double[] wheelScales = new double[] {1, 1, 1, 1};
     //Which IMU the robot should use when configuring the rev hub internal gyroscope.
     private int imuNumber;
     //Speed mode multipliers for use in speed toggle and speed reduction/amplification.
@@ -86,6 +97,36 @@ public class MechanumDrive extends SubSystem {
     private boolean useDisplayMenu;
     //A displaymenu used to display data to the screen.
     private DisplayMenu displayMenu;
+    //Maps chassis speeds to wheel powers.
+    private final HolonomicKinematics kinematics = new HolonomicKinematics();
+    //The lowest the traction scale is allowed to drop to while slipping.
+    private static final double MIN_TRACTION_SCALE = 0.3;
+    //The summed wheel speed (m/s) below which the kinematic consistency check is skipped, since encoder noise dominates at low speed.
+    private static final double MIN_SLIP_CHECK_SPEED = 0.1;
+    //The number of ticks each wheel turns per tick of a raw encoder move. Raw encoder moves have always counted ticks along the wheels' 45 degree axes.
+    private static final double ENCODER_MOVE_SCALE = Math.sqrt(2) / 2;
+    //A boolean specifying whether wheel outputs are sent as velocity setpoints instead of raw powers.
+    private boolean useVelocityControl;
+    //The wheel speed at full power (m/s), the distance from the center of the robot to the wheels along each axis added together (m), and the maximum wheel acceleration (m/s^2).
+    private double maxWheelSpeed, turnRadius, maxWheelAcceleration;
+    //The slip detection settings: max kinematic residual ratio, max yaw rate error (rad/s), scale applied each slipping loop, and traction recovered per second.
+    private double slipThreshold, yawRateThreshold, slipScaleDown, slipRecoveryRate;
+    //The fraction of the commanded wheel speeds currently being sent to the motors. Drops while the wheels are slipping.
+    private double tractionScale = 1;
+    //A boolean specifying whether slip was detected on the last velocity update.
+    private boolean slipping;
+    //The velocity setpoints last sent to each wheel in encoder ticks per second.
+    private final double[] velocitySetpoints = new double[4];
+    //The measured wheel surface speeds in meters/second, reused by each slip check.
+    private final double[] wheelSpeeds = new double[4];
+    //The time of the last velocity update in nanoseconds.
+    private long lastVelocityUpdate;
+    //Lock guarding the encoder offsets, since odometry reads the wheel positions from its own thread.
+    private final Object encoderLock = new Object();
+    //The position each wheel was at when its encoder was last reset, summed over every reset. Keeps getWheelPositions() counting through resets.
+    private final int[] encoderOffsets = new int[4];
+    //Predictive braking controllers for encoder moves. The left brake is only used for the left side of matthew style moves.
+    private PredictiveBrake brake, leftBrake;
 
     //Specifies the type of drive the user will use.
     public enum DriveType {
@@ -122,6 +163,7 @@ public class MechanumDrive extends SubSystem {
 
         turnPID = params.turnPID;
         stabilityPID = params.stabilityPID;
+        headingController = params.headingController;
 
         this.config = params.config.clone();
 
@@ -129,6 +171,7 @@ public class MechanumDrive extends SubSystem {
         topRight = (DcMotorEx) robot.hardwareMap.dcMotor.get(params.config[1]);
         botLeft = (DcMotorEx) robot.hardwareMap.dcMotor.get(params.config[2]);
         botRight = (DcMotorEx) robot.hardwareMap.dcMotor.get(params.config[3]);
+        motors = new DcMotor[] {topLeft, topRight, botLeft, botRight};
 
         resetAllEncoders();
         forwardDirection();
@@ -140,8 +183,24 @@ public class MechanumDrive extends SubSystem {
             botRight.setPIDFCoefficients(DcMotor.RunMode.RUN_USING_ENCODER, new PIDFCoefficients(params.vkp, params.vki, params.vkd, params.vkf));
         }
 
-        //2*PI*0.05 is theoretical circumference of a gobilda mechanum wheel.
-        encodersPerMeter = params.encodersPerMeter > 0 ? params.encodersPerMeter : topLeft.getMotorType().getTicksPerRev()/(2*PI*0.05);
+        //Explicitly set encoder ticks per meter take priority over the saved calibration. 2*PI*0.05 is theoretical circumference of a gobilda mechanum wheel.
+        EncoderCalibration calibration = EncoderCalibration.load(robot, this.getClass(), 4);
+        if(calibration != null) {
+            wheelScales = calibration.wheelScales;
+        }
+        encodersPerMeter = params.encodersPerMeter > 0 ? params.encodersPerMeter : calibration != null ? calibration.ticksPerMeter : topLeft.getMotorType().getTicksPerRev()/(2*PI*0.05);
+
+        useVelocityControl = params.maxWheelSpeed > 0;
+        maxWheelSpeed = params.maxWheelSpeed;
+        turnRadius = params.turnRadius;
+        maxWheelAcceleration = params.maxWheelAcceleration;
+        slipThreshold = params.slipThreshold;
+        yawRateThreshold = params.yawRateThreshold;
+        slipScaleDown = params.slipScaleDown;
+        slipRecoveryRate = params.slipRecoveryRate;
+
+        brake = new PredictiveBrake(params.brakeDeceleration, params.brakeLatency, new PIDController(params.bkp, params.bki, params.bkd));
+        leftBrake = new PredictiveBrake(params.brakeDeceleration, params.brakeLatency, new PIDController(params.bkp, params.bki, params.bkd));
 
         //Add buttons to controller.
         inputs = new CustomizableGamepad(robot);
@@ -202,6 +261,7 @@ public class MechanumDrive extends SubSystem {
         topRight = (DcMotorEx) robot.hardwareMap.dcMotor.get(params.config[1]);
         botLeft = (DcMotorEx) robot.hardwareMap.dcMotor.get(params.config[2]);
         botRight = (DcMotorEx) robot.hardwareMap.dcMotor.get(params.config[3]);
+        motors = new DcMotor[] {topLeft, topRight, botLeft, botRight};
 
         resetAllEncoders();
 
@@ -212,10 +272,27 @@ public class MechanumDrive extends SubSystem {
             botRight.setPIDFCoefficients(DcMotor.RunMode.RUN_USING_ENCODER, new PIDFCoefficients(params.vkp, params.vki, params.vkd, params.vkf));
         }
 
-        //2*PI*0.05 is theoretical circumference of a gobilda mechanum wheel.
-        this.encodersPerMeter = params.encodersPerMeter > 0 ? params.encodersPerMeter : topLeft.getMotorType().getTicksPerRev()/(2*PI*0.05);
+        //Explicitly set encoder ticks per meter take priority over the saved calibration. 2*PI*0.05 is theoretical circumference of a gobilda mechanum wheel.
+        EncoderCalibration calibration = EncoderCalibration.load(robot, this.getClass(), 4);
+        if(calibration != null) {
+            wheelScales = calibration.wheelScales;
+        }
+        this.encodersPerMeter = params.encodersPerMeter > 0 ? params.encodersPerMeter : calibration != null ? calibration.ticksPerMeter : topLeft.getMotorType().getTicksPerRev()/(2*PI*0.05);
+
+        useVelocityControl = params.maxWheelSpeed > 0;
+        maxWheelSpeed = params.maxWheelSpeed;
+        turnRadius = params.turnRadius;
+        maxWheelAcceleration = params.maxWheelAcceleration;
+        slipThreshold = params.slipThreshold;
+        yawRateThreshold = params.yawRateThreshold;
+        slipScaleDown = params.slipScaleDown;
+        slipRecoveryRate = params.slipRecoveryRate;
+
+        brake = new PredictiveBrake(params.brakeDeceleration, params.brakeLatency, new PIDController(params.bkp, params.bki, params.bkd));
+        leftBrake = new PredictiveBrake(params.brakeDeceleration, params.brakeLatency, new PIDController(params.bkp, params.bki, params.bkd));
 
         stabilityPID = params.stabilityPID;
+        headingController = params.headingController;
         turnPID = params.turnPID;
 
         useDegreesTurn = params.useDegreesTurn;
@@ -258,12 +335,14 @@ public class MechanumDrive extends SubSystem {
     @Override
     public void init() throws InterruptedException {
 
+        //Calibration blocks the main loop, so the status is sent by the telemetry manager's thread.
+        TelemetryManager.Channel status = null;
         if(useDisplayMenu) {
             displayMenu.addLine("Calibrating...");
         }
         else {
-            robot.telemetry.addLine("Calibrating...");
-            robot.telemetry.update();
+            status = robot.telemetryManager.addChannel(this.getClass().getSimpleName(), TelemetryManager.LOW_PRIORITY);
+            status.setLine("Status", "Calibrating...");
         }
 
         if (usesGyro && !usesConfig) {
@@ -277,8 +356,8 @@ public class MechanumDrive extends SubSystem {
             displayMenu.addLine("Done!");
         }
         else {
-            robot.telemetry.addLine("Done!");
-            robot.telemetry.update();
+            //The status only matters while init is blocked, so it doesn't stay on telemetry for the whole match.
+            robot.telemetryManager.removeChannel(status);
         }
     }
 
@@ -360,6 +439,11 @@ public class MechanumDrive extends SubSystem {
         boolean turnLeft = inputs.getBooleanInput(TURN_LEFT);
         boolean turnRight = inputs.getBooleanInput(TURN_RIGHT);
 
+        //The heading is read once per loop and shared by the PID controllers and the field centric math.
+        double heading = usesGyro ? getHeading() : 0;
+        double angleStability = useDegreesStability ? Math.toDegrees(heading) : heading;
+        double angleTurn = useDegreesTurn ? Math.toDegrees(heading) : heading;
+
         double correction, turnCorrection;
 
         switch (driveType) {
@@ -368,198 +452,92 @@ public class MechanumDrive extends SubSystem {
             case STANDARD:
             //Standard vector drive where the front of the robot is fixed.
             case FIELD_CENTRIC:
-                correction = usesGyro ? stabilityPID.getCorrection(imu.getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX, AngleUnit.RADIANS).firstAngle) : 0;
-
-                if ((turnPower != 0 || turnLeft || turnRight) && usesGyro) {
-                    stabilityPID.setSetpoint(imu.getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX, useDegreesStability ? AngleUnit.DEGREES : AngleUnit.RADIANS).firstAngle);
-                    correction = 0;
-                }
-                if (!turnLeft && !turnRight) {
-                    turnAndMove(input,(turnPower*constantTurnSpeedMultiplier*currentTurnSpeedModeMultiplier)-correction);
-                } else if (turnLeft) {
-                    turnAndMove(input,-turnLeftPower*currentTurnSpeedModeMultiplier);
-                } else {
-                    turnAndMove(input,turnRightPower*currentTurnSpeedModeMultiplier);
-                }
-                break;
-
-            //Standard drive, but the turn control is a joystick that tells the robot what angle to turn to.
-            case STANDARD_TTA:
-            //Standard vector drive where the front of the robot is fixed and the turn control is a joystick that gives the robot an angle to turn to.
-            case FIELD_CENTRIC_TTA:
-                double angleStability = imu.getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX, useDegreesStability ? AngleUnit.DEGREES : AngleUnit.RADIANS).firstAngle;
-                double angleTurn = imu.getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX, useDegreesTurn ? AngleUnit.DEGREES : AngleUnit.RADIANS).firstAngle;
-
-                correction = stabilityPID.getCorrection(angleStability);
-                turnCorrection = turnPID.getCorrection(angleTurn);
-
-                if ((!tta.isZeroVector() || turnLeft || turnRight) && usesGyro) {
-                    turnPID.setSetpoint(useDegreesTurn ? Math.toDegrees(tta.theta) : tta.theta);
-                    stabilityPID.setSetpoint(angleStability);
-                    correction = 0;
-                    turnCorrection = 0;
+            //Arcade drive.
+            case ARCADE:
+                if(headingController != null && usesGyro) {
+                    correction = headingController.update(heading, getYawRate(), turnPower != 0 || turnLeft || turnRight);
                 }
+                else {
+                    correction = usesGyro ? stabilityPID.getCorrection(angleStability) : 0;
 
-                if(Math.abs(turnPID.getError(angleTurn)) < 0.05) {
-                    turnPID.setSetpoint(angleTurn);
-                    turnCorrection = 0;
+                    if ((turnPower != 0 || turnLeft || turnRight) && usesGyro) {
+                        stabilityPID.setSetpoint(angleStability);
+                        correction = 0;
+                    }
                 }
 
-                if(Math.abs(stabilityPID.getError(angleStability)) < 0.05) {
-                    stabilityPID.setSetpoint(angleStability);
+                //Arcade drive only turns in place when the stick is released, it doesn't hold its heading.
+                if (driveType == DriveType.ARCADE && input.isZeroVector()) {
                     correction = 0;
                 }
 
                 if (!turnLeft && !turnRight) {
-                    turnAndMove(input, -turnCorrection - correction);
+                    move(input.x, input.y, (turnPower*constantTurnSpeedMultiplier*currentTurnSpeedModeMultiplier) - correction, heading);
                 }
                 else if (turnLeft) {
-                    turnAndMove(input,-turnLeftPower*currentTurnSpeedModeMultiplier);
+                    move(input.x, input.y, -turnLeftPower*currentTurnSpeedModeMultiplier, heading);
                 }
                 else {
-                    turnAndMove(input, turnRightPower*currentTurnSpeedModeMultiplier);
+                    move(input.x, input.y, turnRightPower*currentTurnSpeedModeMultiplier, heading);
                 }
-
-                break;
-
-            //Arcade drive.
-            case ARCADE:
-                correction = usesGyro ? stabilityPID.getCorrection(imu.getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX, useDegreesStability ? AngleUnit.DEGREES : AngleUnit.RADIANS).firstAngle) : 0;
-
-                if ((turnPower != 0 || turnLeft || turnRight) && usesGyro) {
-                    stabilityPID.setSetpoint(imu.getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX, useDegreesStability ? AngleUnit.DEGREES : AngleUnit.RADIANS).firstAngle);
-                    correction = 0;
-                }
-
-                if (!turnLeft && !turnRight) {
-                    if (input.isZeroVector()) {
-                        turn(-turnPower*constantTurnSpeedMultiplier*currentTurnSpeedModeMultiplier);
-                    }
-                    else {
-                        turnAndMove(input,(turnPower*constantTurnSpeedMultiplier*currentTurnSpeedModeMultiplier) - correction);
-                    }
-                } else if (turnLeft) {
-                    if (input.isZeroVector()) {
-                        turn(turnLeftPower*currentTurnSpeedModeMultiplier);
-                    }
-                    else {
-                        turnAndMove(input,-turnLeftPower*currentTurnSpeedModeMultiplier);
-                    }
-                } else {
-                    if (input.isZeroVector()) {
-                        turn(-turnRightPower*currentTurnSpeedModeMultiplier);
-                    }
-                    else {
-                        turnAndMove(input,turnRightPower*currentTurnSpeedModeMultiplier);
-                    }
-                }
-
                 break;
 
+            //Standard drive, but the turn control is a joystick that tells the robot what angle to turn to.
+            case STANDARD_TTA:
+            //Standard vector drive where the front of the robot is fixed and the turn control is a joystick that gives the robot an angle to turn to.
+            case FIELD_CENTRIC_TTA:
             //Arcade drive with turn to angle functionality.
             case ARCADE_TTA:
-                double angleStabilityArcade = imu.getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX, useDegreesStability ? AngleUnit.DEGREES : AngleUnit.RADIANS).firstAngle;
-                double angleTurnArcade = imu.getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX, useDegreesTurn ? AngleUnit.DEGREES : AngleUnit.RADIANS).firstAngle;
-
-                correction = stabilityPID.getCorrection(angleStabilityArcade);
-                turnCorrection = turnPID.getCorrection(angleTurnArcade);
-
-                if ((!tta.isZeroVector() || turnLeft || turnRight) && usesGyro) {
-                    turnPID.setSetpoint(useDegreesTurn ? Math.toDegrees(tta.theta) : tta.theta);
-                    stabilityPID.setSetpoint(angleStabilityArcade);
-                    correction = 0;
+                if(headingController != null && usesGyro) {
+                    //The heading controller turns to the stick's angle itself, so the turn PID isn't needed.
+                    if(!tta.isZeroVector()) {
+                        headingController.hold(tta.theta);
+                    }
+                    correction = headingController.update(heading, getYawRate(), turnLeft || turnRight);
                     turnCorrection = 0;
                 }
+                else {
+                    correction = stabilityPID.getCorrection(angleStability);
+                    turnCorrection = turnPID.getCorrection(angleTurn);
+
+                    if ((!tta.isZeroVector() || turnLeft || turnRight) && usesGyro) {
+                        turnPID.setSetpoint(useDegreesTurn ? Math.toDegrees(tta.theta) : tta.theta);
+                        stabilityPID.setSetpoint(angleStability);
+                        correction = 0;
+                        turnCorrection = 0;
+                    }
 
-                if(Math.abs(turnPID.getError(angleTurnArcade)) < 0.05) {
-                    turnPID.setSetpoint(angleTurnArcade);
-                    turnCorrection = 0;
+                    if(Math.abs(turnPID.getError(angleTurn)) < 0.05) {
+                        turnPID.setSetpoint(angleTurn);
+                        turnCorrection = 0;
+                    }
+
+                    if(Math.abs(stabilityPID.getError(angleStability)) < 0.05) {
+                        stabilityPID.setSetpoint(angleStability);
+                        correction = 0;
+                    }
                 }
 
-                if(Math.abs(stabilityPID.getError(angleStabilityArcade)) < 0.05) {
-                    stabilityPID.setSetpoint(angleStabilityArcade);
+                //Arcade drive only turns in place when the stick is released, it doesn't hold its heading.
+                if (driveType == DriveType.ARCADE_TTA && input.isZeroVector()) {
                     correction = 0;
                 }
 
-
-                if(!turnLeft && !turnRight) {
-                    if(input.isZeroVector()) {
-                        turn(turnCorrection);
-                    }
-                    else {
-                        turnAndMove(input, -turnCorrection - correction);
-                    }
+                if (!turnLeft && !turnRight) {
+                    move(input.x, input.y, -turnCorrection - correction, heading);
                 }
-                else if(turnLeft) {
-                    if(input.isZeroVector()) {
-                        turn(turnLeftPower*currentTurnSpeedModeMultiplier);
-                    }
-                    else {
-                        turnAndMove(input, -turnLeftPower*currentTurnSpeedModeMultiplier);
-                    }
+                else if (turnLeft) {
+                    move(input.x, input.y, -turnLeftPower*currentTurnSpeedModeMultiplier, heading);
                 }
                 else {
-                    if(input.isZeroVector()) {
-                        turn(-turnRightPower*currentTurnSpeedModeMultiplier);
-                    }
-                    else {
-                        turnAndMove(input, turnRightPower*currentTurnSpeedModeMultiplier);
-                    }
+                    move(input.x, input.y, turnRightPower*currentTurnSpeedModeMultiplier, heading);
                 }
-
                 break;
 
             //Special driving mode requested by Matthew. Two joysticks, one controlling each side of the robot. Stability PID and turn to angle PID do not matter here.
             case MATTHEW:
-                left.scalarMultiply(Math.sqrt(2));
-                right.scalarMultiply(Math.sqrt(2));
-
-                left.rotate(-(PI / 4));
-                right.rotate(-(PI / 4));
-
-                if (!turnLeft && !turnRight) {
-                    double[] powersLeft = new double[] {left.x, left.y};
-                    double maxLeft = ArrayMath.max(ArrayMath.abs(powersLeft));
-                    ArrayMath.divide(powersLeft, maxLeft > 1 ? maxLeft : 1);
-
-                    double[] powersRight = new double[] {right.x, right.y};
-                    double maxRight = ArrayMath.max(ArrayMath.abs(powersRight));
-                    ArrayMath.divide(powersLeft, maxRight > 1 ? maxRight : 1);
-
-                    topLeft.setPower(powersLeft[0]);
-                    botLeft.setPower(powersLeft[1]);
-
-                    topRight.setPower(powersRight[1]);
-                    botRight.setPower(powersRight[0]);
-                } else if (turnLeft) {
-                    double[] powersLeft = new double[] {left.x - turnLeftPower, left.y - (turnLeftPower*currentTurnSpeedModeMultiplier)};
-                    double maxLeft = ArrayMath.max(ArrayMath.abs(powersLeft));
-                    ArrayMath.divide(powersLeft, maxLeft > 1 ? maxLeft : 1);
-
-                    double[] powersRight = new double[] {right.x + turnLeftPower, right.y + (turnLeftPower*currentTurnSpeedModeMultiplier)};
-                    double maxRight = ArrayMath.max(ArrayMath.abs(powersRight));
-                    ArrayMath.divide(powersLeft, maxRight > 1 ? maxRight : 1);
-
-                    topLeft.setPower(powersLeft[0]);
-                    botLeft.setPower(powersLeft[1]);
-
-                    topRight.setPower(powersRight[1]);
-                    botRight.setPower(powersRight[0]);
-                } else {
-                    double[] powersLeft = new double[] {left.x + turnRightPower, left.y + (turnRightPower*currentTurnSpeedModeMultiplier)};
-                    double maxLeft = ArrayMath.max(ArrayMath.abs(powersLeft));
-                    ArrayMath.divide(powersLeft, maxLeft > 1 ? maxLeft : 1);
-
-                    double[] powersRight = new double[] {right.x - turnRightPower, right.y - (turnRightPower*currentTurnSpeedModeMultiplier)};
-                    double maxRight = ArrayMath.max(ArrayMath.abs(powersRight));
-                    ArrayMath.divide(powersLeft, maxRight > 1 ? maxRight : 1);
-
-                    topLeft.setPower(powersLeft[0]);
-                    botLeft.setPower(powersLeft[1]);
-
-                    topRight.setPower(powersRight[1]);
-                    botRight.setPower(powersRight[0]);
-                }
+                double omega = turnLeft ? turnLeftPower*currentTurnSpeedModeMultiplier : turnRight ? -turnRightPower*currentTurnSpeedModeMultiplier : 0;
+                setPower(kinematics.calculateSplit(left.x, left.y, right.x, right.y, omega));
                 break;
         }
     }
@@ -573,10 +551,17 @@ public class MechanumDrive extends SubSystem {
      * Resets all encoders affiliated with the drive train.
      */
     public void resetAllEncoders() {
-        topLeft.setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
-        topRight.setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
-        botLeft.setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
-        botRight.setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
+        synchronized (encoderLock) {
+            encoderOffsets[HolonomicKinematics.TOP_LEFT] += topLeft.getCurrentPosition();
+            encoderOffsets[HolonomicKinematics.TOP_RIGHT] += topRight.getCurrentPosition();
+            encoderOffsets[HolonomicKinematics.BOT_LEFT] += botLeft.getCurrentPosition();
+            encoderOffsets[HolonomicKinematics.BOT_RIGHT] += botRight.getCurrentPosition();
+
+            topLeft.setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
+            topRight.setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
+            botLeft.setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
+            botRight.setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
+        }
 
         topLeft.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
         topRight.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
@@ -592,6 +577,12 @@ public class MechanumDrive extends SubSystem {
         topRight.setPower(0);
         botLeft.setPower(0);
         botRight.setPower(0);
+        robot.powerManager.release(this);
+
+        for(int i = 0; i < 4; i++) {
+            velocitySetpoints[i] = 0;
+        }
+        lastVelocityUpdate = 0;
     }
 
     /**
@@ -645,11 +636,12 @@ public class MechanumDrive extends SubSystem {
      */
     public void turnAndMoveDistance(Vector leftVector, Vector rightVector, double distanceLeft, double distanceRight, Units unit) throws InterruptedException {
         EncoderToDistanceProcessor processor = new EncoderToDistanceProcessor(encodersPerMeter);
-        turnAndMoveEncoders(leftVector, rightVector, processor.getEncoderAmount(distanceLeft,unit), processor.getEncoderAmount(distanceRight,unit));
+        turnAndMoveEncoders(leftVector, rightVector, processor.getEncoderAmount(distanceLeft,unit) / ENCODER_MOVE_SCALE, processor.getEncoderAmount(distanceRight,unit) / ENCODER_MOVE_SCALE);
     }
 
     /**
      * Turn and move at the same time for a certain amount of encoder ticks.
+     * Encoder ticks are counted along the wheels' 45 degree axes, so each side's wheels turn sqrt(2)/2 times the given ticks when moving in a straight line.
      *
      * @param leftVector - The left motor vector.
      * @param rightVector - The right motor vector.
@@ -658,59 +650,45 @@ public class MechanumDrive extends SubSystem {
      * @throws InterruptedException - Throws this exception when the program is unexpectedly interrupted.
      */
     public void turnAndMoveEncoders(Vector leftVector, Vector rightVector, double encodersLeft, double encodersRight) throws InterruptedException {
-            if ((leftVector.isZeroVector() && encodersLeft != 0) || (rightVector.isZeroVector() && encodersRight != 0)) {
-                throw new InvalidMoveCommandException("You can't move anywhere if you aren't trying to move ;)");
-            }
-
-            if (encodersLeft < 0 || encodersRight < 0) {
-                throw new DumpsterFireException("Where you're going, you don't need roads! (distance must be positive)");
-            }
+        if ((leftVector.isZeroVector() && encodersLeft != 0) || (rightVector.isZeroVector() && encodersRight != 0)) {
+            throw new InvalidMoveCommandException("You can't move anywhere if you aren't trying to move ;)");
+        }
 
-            resetAllEncoders();
+        if (encodersLeft < 0 || encodersRight < 0) {
+            throw new DumpsterFireException("Where you're going, you don't need roads! (distance must be positive)");
+        }
 
-            Vector leftDisplacement = new Vector(encodersLeft, leftVector.theta, Vector.CoordinateType.POLAR);
-            Vector rightDisplacement = new Vector(encodersRight, rightVector.theta, Vector.CoordinateType.POLAR);
+        resetAllEncoders();
 
-            leftVector.scalarMultiply(constantSpeedMultiplier * Math.sqrt(2));
-            rightVector.scalarMultiply(constantSpeedMultiplier * Math.sqrt(2));
+        //Unit vectors in the direction each side of the robot is moving.
+        double leftX = leftVector.isZeroVector() ? 0 : leftVector.x / leftVector.r, leftY = leftVector.isZeroVector() ? 0 : leftVector.y / leftVector.r;
+        double rightX = rightVector.isZeroVector() ? 0 : rightVector.x / rightVector.r, rightY = rightVector.isZeroVector() ? 0 : rightVector.y / rightVector.r;
 
-            leftVector.rotate(-(PI / 4));
-            rightVector.rotate(-(PI / 4));
+        double targetLeft = encodersLeft * ENCODER_MOVE_SCALE / encodersPerMeter;
+        double targetRight = encodersRight * ENCODER_MOVE_SCALE / encodersPerMeter;
 
-            double[] powersLeft = new double[] {leftVector.x, leftVector.y};
-            double maxLeft = ArrayMath.max(ArrayMath.abs(powersLeft));
-            ArrayMath.divide(powersLeft, maxLeft > 1 ? maxLeft : 1);
+        leftBrake.setDeceleration(brake.getDeceleration());
+        brake.reset();
+        leftBrake.reset();
 
-            double[] powersRight = new double[] {rightVector.x, rightVector.y};
-            double maxRight = ArrayMath.max(ArrayMath.abs(powersRight));
-            ArrayMath.divide(powersLeft, maxRight > 1 ? maxRight : 1);
+        while (robot.opModeIsActive() && !(brake.isDone() && leftBrake.isDone())) {
+            double tl = topLeft.getCurrentPosition(), tr = topRight.getCurrentPosition(), bl = botLeft.getCurrentPosition(), br = botRight.getCurrentPosition();
+            double tlV = topLeft.getVelocity(), trV = topRight.getVelocity(), blV = botLeft.getVelocity(), brV = botRight.getVelocity();
 
-            leftDisplacement.rotate(-(PI / 4));
-            rightDisplacement.rotate(-(PI / 4));
+            //Each side's travel is split into a strafe ((tl - bl)/2 or (br - tr)/2) and a forward ((tl + bl)/2 or (tr + br)/2) component, then projected onto its direction.
+            double leftProgress = ((tl - bl) * leftX + (tl + bl) * leftY) / (2 * encodersPerMeter);
+            double leftVelocity = ((tlV - blV) * leftX + (tlV + blV) * leftY) / (2 * encodersPerMeter);
+            double rightProgress = ((br - tr) * rightX + (tr + br) * rightY) / (2 * encodersPerMeter);
+            double rightVelocity = ((brV - trV) * rightX + (trV + brV) * rightY) / (2 * encodersPerMeter);
 
-            double thresh1Left = Math.abs(leftDisplacement.x);
-            double thresh2Left = Math.abs(leftDisplacement.y);
+            double leftScale = leftBrake.isDone() ? 0 : leftBrake.update(targetLeft - leftProgress, leftVelocity) * constantSpeedMultiplier;
+            double rightScale = brake.isDone() ? 0 : brake.update(targetRight - rightProgress, rightVelocity) * constantSpeedMultiplier;
 
-            double thresh1Right = Math.abs(rightDisplacement.x);
-            double thresh2Right = Math.abs(rightDisplacement.y);
+            setPower(kinematics.calculateSplit(leftVector.x * leftScale, leftVector.y * leftScale, rightVector.x * rightScale, rightVector.y * rightScale, 0));
+            sleep(1);
+        }
 
-            while (robot.opModeIsActive() && ((Math.abs(topLeft.getCurrentPosition()) < thresh1Left && Math.abs(botLeft.getCurrentPosition()) < thresh2Left) || (Math.abs(botRight.getCurrentPosition()) < thresh1Right && Math.abs(topRight.getCurrentPosition()) < thresh2Right))) {
-                if (Math.abs(topLeft.getCurrentPosition()) < thresh1Left && Math.abs(botLeft.getCurrentPosition()) < thresh2Left) {
-                    topLeft.setPower(powersLeft[0]);
-                    botLeft.setPower(powersLeft[1]);
-                } else {
-                    topLeft.setPower(0);
-                    botLeft.setPower(0);
-                }
-                if (Math.abs(botRight.getCurrentPosition()) < thresh1Right && Math.abs(topRight.getCurrentPosition()) < thresh2Right) {
-                    topRight.setPower(powersRight[1]);
-                    botRight.setPower(powersRight[0]);
-                } else {
-                    topRight.setPower(0);
-                    botRight.setPower(0);
-                }
-                sleep(1);
-            }
+        brake.setDeceleration((brake.getDeceleration() + leftBrake.getDeceleration()) / 2);
 
         stopAllMotors();
     }
@@ -769,10 +747,23 @@ public class MechanumDrive extends SubSystem {
     public void turnAndMoveEncoders(Vector v, double turnPower, double encoders) throws InterruptedException {
         resetAllEncoders();
 
-        turnAndMove(v, turnPower);
-        while(robot.opModeIsActive() && (Math.abs(topLeft.getCurrentPosition()) + Math.abs(topLeft.getCurrentPosition()) + Math.abs(topLeft.getCurrentPosition()) + Math.abs(topLeft.getCurrentPosition()))/4.0 < Math.abs(encoders)) {
+        double target = Math.abs(encoders) / encodersPerMeter;
+        double heading = driveType == DriveType.FIELD_CENTRIC || driveType == DriveType.FIELD_CENTRIC_TTA ? getHeading() : 0;
+
+        brake.reset();
+        while(robot.opModeIsActive() && !brake.isDone()) {
+            int tl = topLeft.getCurrentPosition(), tr = topRight.getCurrentPosition(), bl = botLeft.getCurrentPosition(), br = botRight.getCurrentPosition();
+
+            //Progress is the average distance traveled by each wheel. Velocities are signed so that moving away from the start counts as positive.
+            double progress = (Math.abs(tl) + Math.abs(tr) + Math.abs(bl) + Math.abs(br)) / (4 * encodersPerMeter);
+            double velocity = (Math.signum(tl) * topLeft.getVelocity() + Math.signum(tr) * topRight.getVelocity() + Math.signum(bl) * botLeft.getVelocity() + Math.signum(br) * botRight.getVelocity()) / (4 * encodersPerMeter);
+
+            double scale = brake.update(target - progress, velocity);
+            move(v.x * scale, v.y * scale, turnPower * scale, heading);
             sleep(1);
         }
+
+        stopAllMotors();
     }
 
     /**
@@ -799,40 +790,7 @@ public class MechanumDrive extends SubSystem {
      * @param turnPower - The power to turn at.
      */
     public void turnAndMove(Vector v, double turnPower) {
-        Vector vcpy = v.clone();
-        vcpy.scalarMultiply(Math.sqrt(2));
-
-        switch(driveType) {
-            case STANDARD:
-            case STANDARD_TTA:
-                vcpy.rotate(-PI / 4);
-                setPower(vcpy.x + turnPower, vcpy.y - turnPower, vcpy.y + turnPower, vcpy.x - turnPower);
-                break;
-            case ARCADE:
-            case ARCADE_TTA:
-                if(vcpy.isZeroVector()) {
-                    stopAllMotors();
-                }
-                else if (vcpy.theta < PI / 4 || vcpy.theta > (7 * PI) / 4) { //right side of the square
-                    setPower(vcpy.x + turnPower, -vcpy.y - turnPower, -vcpy.y + turnPower, vcpy.x - turnPower);
-                }
-                else if (vcpy.theta > PI / 4 && vcpy.theta < (3 * PI) / 4) { //top side of the square
-                    setPower(vcpy.r + turnPower,vcpy.r - turnPower,vcpy.r + turnPower,vcpy.r - turnPower);
-                }
-                else if (vcpy.theta > (3 * PI) / 4 && vcpy.theta < (5 * PI) / 4) { //left side of the square
-                    setPower(-vcpy.r + turnPower,vcpy.r - turnPower,vcpy.r + turnPower,-vcpy.r - turnPower);
-                }
-                else if (vcpy.theta > (5 * PI) / 4 && vcpy.theta < (7 * PI) / 4) { //Bottom side of the square
-                    setPower(-vcpy.r + turnPower,-vcpy.r - turnPower,-vcpy.r + turnPower,-vcpy.r - turnPower);
-                }
-                break;
-            case FIELD_CENTRIC:
-            case FIELD_CENTRIC_TTA:
-                vcpy.rotate(-((PI / 4) + imu.getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX, AngleUnit.RADIANS).firstAngle));
-                setPower(vcpy.x + turnPower, vcpy.y - turnPower, vcpy.y + turnPower, vcpy.x - turnPower);
-                break;
-        }
-
+        move(v.x, v.y, turnPower, driveType == DriveType.FIELD_CENTRIC || driveType == DriveType.FIELD_CENTRIC_TTA ? getHeading() : 0);
     }
 
     /**
@@ -842,26 +800,7 @@ public class MechanumDrive extends SubSystem {
      * @param rightVector - The right input vector.
      */
     public void drive(Vector leftVector, Vector rightVector) {
-
-        leftVector.scalarMultiply(constantSpeedMultiplier * Math.sqrt(2));
-        rightVector.scalarMultiply(constantSpeedMultiplier * Math.sqrt(2));
-
-        leftVector.rotate(-(PI / 4));
-        rightVector.rotate(-(PI / 4));
-
-        double[] powersLeft = new double[] {leftVector.x, leftVector.y};
-        double maxLeft = ArrayMath.max(ArrayMath.abs(powersLeft));
-        ArrayMath.divide(powersLeft, maxLeft > 1 ? maxLeft : 1);
-
-        double[] powersRight = new double[] {rightVector.x, rightVector.y};
-        double maxRight = ArrayMath.max(ArrayMath.abs(powersRight));
-        ArrayMath.divide(powersLeft, maxRight > 1 ? maxRight : 1);
-
-        topLeft.setPower(powersLeft[0]);
-        botLeft.setPower(powersLeft[1]);
-
-        topRight.setPower(powersRight[1]);
-        botRight.setPower(powersRight[0]);
+        setPower(kinematics.calculateSplit(leftVector.x * constantSpeedMultiplier, leftVector.y * constantSpeedMultiplier, rightVector.x * constantSpeedMultiplier, rightVector.y * constantSpeedMultiplier, 0));
     }
 
 
@@ -909,7 +848,7 @@ public class MechanumDrive extends SubSystem {
      */
     public void driveDistance(Vector v, double distance, Units unit, boolean stabilityControl) throws InterruptedException {
         EncoderToDistanceProcessor processor = new EncoderToDistanceProcessor(encodersPerMeter);
-        driveEncoders(v,processor.getEncoderAmount(distance,unit),stabilityControl);
+        driveEncoders(v,processor.getEncoderAmount(distance,unit) / ENCODER_MOVE_SCALE,stabilityControl);
     }
 
     /**
@@ -926,6 +865,7 @@ public class MechanumDrive extends SubSystem {
 
     /**
      * Drive a certain number of encoder ticks.
+     * Encoder ticks are counted along the wheels' 45 degree axes, so each wheel turns sqrt(2)/2 times the given ticks when driving forwards or sideways.
      *
      * @param v - The input velocity vector.
      * @param encoders - The amount of encoder ticks to travel.
@@ -939,58 +879,55 @@ public class MechanumDrive extends SubSystem {
         if (encoders < 0) {
             throw new DumpsterFireException("Where you're going, you don't need roads! (encoders must be positive)");
         }
-
-        Vector displacement = new Vector(encoders, v.theta, Vector.CoordinateType.POLAR);
+        if ((driveType == DriveType.FIELD_CENTRIC || driveType == DriveType.FIELD_CENTRIC_TTA) && !usesGyro) {
+            throw new WrongDrivetypeException("Field Centric Drive Must uses the IMU but the IMU was never set up");
+        }
 
         resetAllEncoders();
 
-        double thresh1;
-        double thresh2;
-
         if (stabilityControl) {
             stabilityPID.setSetpoint(imu.getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX, useDegreesStability ? AngleUnit.DEGREES : AngleUnit.RADIANS).firstAngle);
         }
 
+        //The unit direction of travel relative to the robot.
+        double directionX = v.isZeroVector() ? 0 : v.x / v.r, directionY = v.isZeroVector() ? 0 : v.y / v.r;
         switch (driveType) {
-            case STANDARD_TTA:
-            case STANDARD:
-
-                displacement.rotate(-(PI / 4));
-
-                thresh1 = Math.abs(displacement.x);
-                thresh2 = Math.abs(displacement.y);
-
-                while (robot.opModeIsActive() && (Math.abs(topLeft.getCurrentPosition()) < thresh1 && Math.abs(topRight.getCurrentPosition()) < thresh2 && Math.abs(botLeft.getCurrentPosition()) < thresh2 && Math.abs(botRight.getCurrentPosition()) < thresh1)) {
-                    drive(v, stabilityControl);
-                    sleep(1);
+            case ARCADE_TTA:
+            case ARCADE:
+                //Arcade moves are snapped to the nearest axis.
+                if (Math.abs(directionX) > Math.abs(directionY)) {
+                    directionX = Math.signum(directionX);
+                    directionY = 0;
+                }
+                else {
+                    directionX = 0;
+                    directionY = Math.signum(directionY);
                 }
                 break;
             case FIELD_CENTRIC_TTA:
             case FIELD_CENTRIC:
-                if (!usesGyro) {
-                    throw new WrongDrivetypeException("Field Centric Drive Must uses the IMU but the IMU was never set up");
-                }
+                //Field centric moves are rotated into the robot's frame using the heading at the start of the move.
+                double heading = getHeading();
+                double fieldX = directionX;
+                directionX = fieldX * Math.cos(heading) + directionY * Math.sin(heading);
+                directionY = directionY * Math.cos(heading) - fieldX * Math.sin(heading);
+                break;
+        }
 
-                displacement.rotate(-((PI / 4) + imu.getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX, AngleUnit.RADIANS).firstAngle));
+        double target = encoders * ENCODER_MOVE_SCALE / encodersPerMeter;
 
-                thresh1 = Math.abs(displacement.x);
-                thresh2 = Math.abs(displacement.y);
+        brake.reset();
+        while (robot.opModeIsActive() && !brake.isDone()) {
+            int tl = topLeft.getCurrentPosition(), tr = topRight.getCurrentPosition(), bl = botLeft.getCurrentPosition(), br = botRight.getCurrentPosition();
+            double tlV = topLeft.getVelocity(), trV = topRight.getVelocity(), blV = botLeft.getVelocity(), brV = botRight.getVelocity();
 
-                while (robot.opModeIsActive() && (Math.abs(topLeft.getCurrentPosition()) < thresh1 && Math.abs(topRight.getCurrentPosition()) < thresh2 && Math.abs(botLeft.getCurrentPosition()) < thresh2 && Math.abs(botRight.getCurrentPosition()) < thresh1)) {
-                    drive(v, stabilityControl);
-                    sleep(1);
-                }
-                break;
-            case ARCADE_TTA:
-            case ARCADE:
-
-                double thresh = encoders * Math.sqrt(2) / 2;
+            //The robot's strafe is (tl - tr - bl + br)/4 and its forward travel is (tl + tr + bl + br)/4. Both are projected onto the direction of travel.
+            double progress = ((tl - tr - bl + br) * directionX + (tl + tr + bl + br) * directionY) / (4 * encodersPerMeter);
+            double velocity = ((tlV - trV - blV + brV) * directionX + (tlV + trV + blV + brV) * directionY) / (4 * encodersPerMeter);
 
-                while (robot.opModeIsActive() && (Math.abs(topLeft.getCurrentPosition()) < thresh && Math.abs(topRight.getCurrentPosition()) < thresh && Math.abs(botLeft.getCurrentPosition()) < thresh && Math.abs(botRight.getCurrentPosition()) < thresh)) {
-                    drive(v, stabilityControl);
-                    sleep(1);
-                }
-                break;
+            double scale = brake.update(target - progress, velocity);
+            drive(v.x * scale, v.y * scale, stabilityControl);
+            sleep(1);
         }
 
         stopAllMotors();
@@ -1014,43 +951,32 @@ public class MechanumDrive extends SubSystem {
      * @param stabilityControl - Whether or not to use the drive's stability control system.
      */
     public void drive(Vector v, boolean stabilityControl){
+        drive(v.x, v.y, stabilityControl);
+    }
 
-        Vector vcpy = v.clone();
+    /**
+     * Makes the robot move. Use this for any non-matthew drive mode. You must set the stability control target manually for this to work with stability control.
+     *
+     * @param x - The strafing power, positive to the right.
+     * @param y - The forward power.
+     * @param stabilityControl - Whether or not to use the drive's stability control system.
+     */
+    private void drive(double x, double y, boolean stabilityControl) {
+        boolean fieldCentric = driveType == DriveType.FIELD_CENTRIC || driveType == DriveType.FIELD_CENTRIC_TTA;
+        if(fieldCentric && !usesGyro) {
+            throw new WrongDrivetypeException("Field Centric Drive Must uses the IMU but the IMU was never set up");
+        }
 
-        vcpy.scalarMultiply(constantSpeedMultiplier * Math.sqrt(2));
+        //Arcade drive stops when it isn't told to move.
+        if((driveType == DriveType.ARCADE || driveType == DriveType.ARCADE_TTA) && x == 0 && y == 0) {
+            stopAllMotors();
+            return;
+        }
 
-        double correction = stabilityControl && usesGyro ? stabilityPID.getCorrection(imu.getAngularOrientation(AxesReference.INTRINSIC,AxesOrder.ZYX, useDegreesStability ? AngleUnit.DEGREES : AngleUnit.RADIANS).firstAngle) : 0;
+        double heading = usesGyro && (stabilityControl || fieldCentric) ? getHeading() : 0;
+        double correction = stabilityControl && usesGyro ? stabilityPID.getCorrection(useDegreesStability ? Math.toDegrees(heading) : heading) : 0;
 
-        switch (driveType) {
-            case STANDARD_TTA:
-            case STANDARD:
-                vcpy.rotate(-(PI / 4));
-                setPower(vcpy.x - correction, vcpy.y + correction, vcpy.y - correction, vcpy.x + correction);
-                break;
-            case FIELD_CENTRIC_TTA:
-            case FIELD_CENTRIC:
-                if(!usesGyro) {
-                    throw new WrongDrivetypeException("Field Centric Drive Must uses the IMU but the IMU was never set up");
-                }
-                vcpy.rotate(-((PI / 4) + imu.getAngularOrientation(AxesReference.INTRINSIC,AxesOrder.ZYX,AngleUnit.RADIANS).firstAngle));
-                setPower(vcpy.x - correction, vcpy.y + correction, vcpy.y - correction, vcpy.x + correction);
-                break;
-            case ARCADE_TTA:
-            case ARCADE:
-                if (vcpy.isZeroVector()) {
-                    stopAllMotors();
-                }
-                else if (vcpy.theta < PI / 4 || vcpy.theta > (7 * PI) / 4) { //right side of the square
-                    setPower(vcpy.r - correction, -vcpy.r + correction, -vcpy.r - correction, vcpy.r + correction);
-                } else if (vcpy.theta > PI / 4 && vcpy.theta < (3 * PI) / 4) { //top side of the square
-                    setPower(vcpy.r - correction, vcpy.r + correction, vcpy.r - correction, vcpy.r + correction);
-                } else if (vcpy.theta > (3 * PI) / 4 && vcpy.theta < (5 * PI) / 4) { //left side of the square
-                    setPower(-vcpy.r - correction, vcpy.r + correction, vcpy.r - correction, -vcpy.r + correction);
-                } else if (vcpy.theta > (5 * PI) / 4 && vcpy.theta < (7 * PI) / 4) { //Bottom side of the square
-                    setPower(-vcpy.r - correction, -vcpy.r + correction, -vcpy.r - correction, -vcpy.r + correction);
-                }
-                break;
-        }
+        move(x * constantSpeedMultiplier, y * constantSpeedMultiplier, -correction, heading);
     }
 
     /**
@@ -1119,10 +1045,7 @@ public class MechanumDrive extends SubSystem {
      * @param turnPower - The power to turn at.
      */
     public void turn(double turnPower) {
-        topLeft.setPower(Range.clip(-turnPower,-1,1));
-        topRight.setPower(Range.clip(turnPower,-1,1));
-        botLeft.setPower(Range.clip(-turnPower,-1,1));
-        botRight.setPower(Range.clip(turnPower,-1,1));
+        setPower(kinematics.calculate(0, 0, turnPower));
     }
 
     /**
@@ -1234,22 +1157,231 @@ public class MechanumDrive extends SubSystem {
     }
 
     /**
-     * Sets the scaled powers of all 4 motors.
+     * Gets the number of encoder ticks per meter traveled by each wheel.
+     *
+     * @return - The number of encoder ticks per meter.
+     */
+    @Override
+    public double getEncodersPerMeter() {
+        return encodersPerMeter;
+    }
+
+    /**
+     * Gets the scale factor of each wheel's encoder from the saved encoder calibration.
+     * A wheel's encoder ticks per meter is the drive's encoder ticks per meter times its scale factor.
+     *
+     * @return - The scale factor of each wheel. [0] is top left, [1] is top right, [2] is bottom left, [3] is bottom right.
+     */
+    @Override
+    public double[] getWheelScales() {
+        return wheelScales.clone();
+    }
+
+    @Override
+    public void setChassisSpeeds(double vx, double vy, double omega) {
+        setPower(kinematics.calculate(vx, vy, omega));
+    }
+
+    @Override
+    public void stopChassis() {
+        stopAllMotors();
+    }
+
+    @Override
+    public boolean isHolonomic() {
+        return true;
+    }
+
+    @Override
+    public WheelLayout getWheelLayout() {
+        return WheelLayout.MECHANUM;
+    }
+
+    @Override
+    public int getWheelCount() {
+        return 4;
+    }
+
+    @Override
+    public void getWheelPositions(int[] positions) {
+        synchronized (encoderLock) {
+            positions[HolonomicKinematics.TOP_LEFT] = encoderOffsets[HolonomicKinematics.TOP_LEFT] + topLeft.getCurrentPosition();
+            positions[HolonomicKinematics.TOP_RIGHT] = encoderOffsets[HolonomicKinematics.TOP_RIGHT] + topRight.getCurrentPosition();
+            positions[HolonomicKinematics.BOT_LEFT] = encoderOffsets[HolonomicKinematics.BOT_LEFT] + botLeft.getCurrentPosition();
+            positions[HolonomicKinematics.BOT_RIGHT] = encoderOffsets[HolonomicKinematics.BOT_RIGHT] + botRight.getCurrentPosition();
+        }
+    }
+
+    @Override
+    public void getWheelVelocities(double[] velocities) {
+        velocities[HolonomicKinematics.TOP_LEFT] = topLeft.getVelocity();
+        velocities[HolonomicKinematics.TOP_RIGHT] = topRight.getVelocity();
+        velocities[HolonomicKinematics.BOT_LEFT] = botLeft.getVelocity();
+        velocities[HolonomicKinematics.BOT_RIGHT] = botRight.getVelocity();
+    }
+
+    /**
+     * Drives at a given chassis velocity using closed loop wheel velocity control.
+     *
+     * @param vx - The strafing velocity in meters/second, positive to the right.
+     * @param vy - The forward velocity in meters/second.
+     * @param omega - The turning velocity in radians/second, positive counterclockwise.
+     *
+     * @throws DumpsterFireException - Throws this exception if velocity control was not enabled in the params.
+     */
+    public void driveVelocity(double vx, double vy, double omega) {
+        if(!useVelocityControl) {
+            throw new DumpsterFireException("Velocity control must be enabled with setVelocityControl to drive at a velocity");
+        }
+        setPower(kinematics.calculate(vx / maxWheelSpeed, vy / maxWheelSpeed, omega * turnRadius / maxWheelSpeed));
+    }
+
+    /**
+     * Gets whether slip was detected on the last velocity update.
+     *
+     * @return - Whether the wheels are slipping.
+     */
+    public boolean isSlipping() {
+        return slipping;
+    }
+
+    /**
+     * Gets the fraction of the commanded wheel speeds currently being sent to the motors.
+     *
+     * @return - The traction scale, between 0 and 1.
+     */
+    public double getTractionScale() {
+        return tractionScale;
+    }
+
+    /**
+     * Gets the deceleration learned by the predictive braking used in encoder moves.
+     *
+     * @return - The learned deceleration in meters/second^2.
+     */
+    public double getBrakingDeceleration() {
+        return brake.getDeceleration();
+    }
+
+    /**
+     * Moves and turns using the drive's kinematics. Arcade modes snap the translation to the nearest side of the square and field centric modes rotate it by the heading.
+     *
+     * @param vx - The strafing power, positive to the right.
+     * @param vy - The forward power.
+     * @param turnPower - The power to turn at, positive clockwise.
+     * @param heading - The robot's heading in radians. Only used in field centric modes.
+     */
+    private void move(double vx, double vy, double turnPower, double heading) {
+        switch (driveType) {
+            case ARCADE:
+            case ARCADE_TTA:
+                setPower(kinematics.calculateArcade(vx, vy, -turnPower));
+                break;
+            case FIELD_CENTRIC:
+            case FIELD_CENTRIC_TTA:
+                setPower(kinematics.calculateFieldCentric(vx, vy, -turnPower, heading));
+                break;
+            default:
+                setPower(kinematics.calculate(vx, vy, -turnPower));
+                break;
+        }
+    }
+
+    /**
+     * Gets the robot's heading from the IMU.
+     *
+     * @return - The robot's heading in radians.
+     */
+    private double getHeading() {
+        return imu.getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX, AngleUnit.RADIANS).firstAngle;
+    }
+
+    /**
+     * Gets the robot's yaw rate from the IMU.
+     *
+     * @return - The robot's yaw rate in radians/second. Positive is counterclockwise.
+     */
+    private double getYawRate() {
+        AngularVelocity angularVelocity = imu.getAngularVelocity();
+        return angularVelocity.unit == AngleUnit.DEGREES ? Math.toRadians(angularVelocity.zRotationRate) : angularVelocity.zRotationRate;
+    }
+
+    /**
+     * Sets the powers of all 4 motors.
+     *
+     * @param powers - The normalized wheel powers, ordered top left, top right, bottom left, bottom right.
+     */
+    private void setPower(double[] powers) {
+        if(!useVelocityControl) {
+            robot.voltageCompensator.compensate(powers, 0, 4);
+        }
+        double budgetScale = robot.powerManager.request(this, motors, powers);
+        for(int i = 0; i < 4; i++) {
+            powers[i] *= budgetScale;
+        }
+
+        if(useVelocityControl) {
+            setVelocity(powers);
+            return;
+        }
+        topLeft.setPower(powers[HolonomicKinematics.TOP_LEFT]);
+        topRight.setPower(powers[HolonomicKinematics.TOP_RIGHT]);
+        botLeft.setPower(powers[HolonomicKinematics.BOT_LEFT]);
+        botRight.setPower(powers[HolonomicKinematics.BOT_RIGHT]);
+    }
+
+    /**
+     * Converts wheel powers into velocity setpoints and sends them to the motors' built in velocity PID.
+     * Each setpoint is scaled by the traction scale and slew limited by the max wheel acceleration.
      *
-     * @param topLeftPower - The top left motor power.
-     * @param topRightPower - The top right motor power.
-     * @param botLeftPower - The top left motor power.
-     * @param botRightPower - The bottom right motor power.
+     * @param powers - The wheel powers, each a fraction of the max wheel speed. [0] is top left, [1] is top right, [2] is bottom left, [3] is bottom right.
      */
-    private void setPower(double topLeftPower, double topRightPower, double botLeftPower, double botRightPower) {
-        double[] powers = new double[] {topLeftPower, topRightPower, botLeftPower, botRightPower};
-        double max = ArrayMath.max(ArrayMath.abs(powers));
-        ArrayMath.divide(powers, max > 1 ? max : 1);
+    private void setVelocity(double[] powers) {
+        long now = System.nanoTime();
+        //Long gaps between updates (the drive sat idle) are capped so the slew limit can't jump straight to full speed.
+        double dt = lastVelocityUpdate == 0 ? 0 : Math.min((now - lastVelocityUpdate) / 1e9, 0.1);
+        lastVelocityUpdate = now;
+
+        updateTraction(dt);
 
-        topLeft.setPower(powers[0]);
-        topRight.setPower(powers[1]);
-        botLeft.setPower(powers[2]);
-        botRight.setPower(powers[3]);
+        double maxTicksPerSecond = maxWheelSpeed * encodersPerMeter * tractionScale;
+        double maxStep = maxWheelAcceleration > 0 ? maxWheelAcceleration * encodersPerMeter * dt : Double.POSITIVE_INFINITY;
+        for(int i = 0; i < 4; i++) {
+            double target = Range.clip(powers[i], -1, 1) * maxTicksPerSecond;
+            velocitySetpoints[i] += Range.clip(target - velocitySetpoints[i], -maxStep, maxStep);
+        }
+
+        topLeft.setVelocity(velocitySetpoints[HolonomicKinematics.TOP_LEFT]);
+        topRight.setVelocity(velocitySetpoints[HolonomicKinematics.TOP_RIGHT]);
+        botLeft.setVelocity(velocitySetpoints[HolonomicKinematics.BOT_LEFT]);
+        botRight.setVelocity(velocitySetpoints[HolonomicKinematics.BOT_RIGHT]);
+    }
+
+    /**
+     * Checks the measured wheel velocities for slip and updates the traction scale.
+     * If the drive uses the gyroscope, the rotation implied by the wheels is also compared against the IMU's yaw rate.
+     *
+     * @param dt - The time since the last update in seconds.
+     */
+    private void updateTraction(double dt) {
+        wheelSpeeds[HolonomicKinematics.TOP_LEFT] = topLeft.getVelocity() / encodersPerMeter;
+        wheelSpeeds[HolonomicKinematics.TOP_RIGHT] = topRight.getVelocity() / encodersPerMeter;
+        wheelSpeeds[HolonomicKinematics.BOT_LEFT] = botLeft.getVelocity() / encodersPerMeter;
+        wheelSpeeds[HolonomicKinematics.BOT_RIGHT] = botRight.getVelocity() / encodersPerMeter;
+
+        boolean slip = HolonomicKinematics.getSlipRatio(wheelSpeeds, MIN_SLIP_CHECK_SPEED) > slipThreshold;
+
+        if(usesGyro && turnRadius > 0) {
+            slip |= Math.abs(HolonomicKinematics.getWheelYawRate(wheelSpeeds, turnRadius) - getYawRate()) > yawRateThreshold;
+        }
+
+        slipping = slip;
+        if(slipping) {
+            tractionScale = Math.max(MIN_TRACTION_SCALE, tractionScale * slipScaleDown);
+        }
+        else {
+            tractionScale = Math.min(1, tractionScale + slipRecoveryRate * dt);
+        }
     }
 
     /**
@@ -1371,6 +1503,8 @@ public class MechanumDrive extends SubSystem {
         private double turnLeftPower, turnRightPower;
         //The PID controllers for turning to angles and stability, respectively.
         private PIDController turnPID, stabilityPID;
+        //The heading hold controller. Null if the stability PID is used in teleop instead.
+        private HeadingController headingController;
         //A boolean specifying whether or not to use the gyroscope.
         private boolean useGyro;
         //A boolean specifying whether to change the motor velocity PID.
@@ -1379,6 +1513,14 @@ public class MechanumDrive extends SubSystem {
         private double vkp, vki, vkd, vkf;
         //The number of encoder ticks per meter traveled.
         private double encodersPerMeter;
+        //The velocity control settings. A max wheel speed of 0 disables velocity control.
+        private double maxWheelSpeed, turnRadius, maxWheelAcceleration;
+        //The slip detection settings.
+        private double slipThreshold, yawRateThreshold, slipScaleDown, slipRecoveryRate;
+        //The initial deceleration guess (m/s^2) and response latency (s) used by predictive braking.
+        private double brakeDeceleration, brakeLatency;
+        //The PID coefficients of the predictive braking tail.
+        private double bkp, bki, bkd;
         //The constants used to scale the drive's speed and to change the robot's speed in speed mode.
         private double constantSpeedMultiplier, slowModeMultiplier;
         //The constants used to scale the drive's turn speed and to change the robot's turn speed in turn speed mode.
@@ -1428,6 +1570,21 @@ public class MechanumDrive extends SubSystem {
 
             encodersPerMeter = -1;
 
+            maxWheelSpeed = 0;
+            turnRadius = 0;
+            maxWheelAcceleration = 0;
+
+            slipThreshold = 0.25;
+            yawRateThreshold = 0.5;
+            slipScaleDown = 0.8;
+            slipRecoveryRate = 1;
+
+            brakeDeceleration = 1.5;
+            brakeLatency = 0.05;
+            bkp = 8;
+            bki = 0;
+            bkd = 1;
+
             constantSpeedMultiplier = 1;
             slowModeMultiplier = 1;
 
@@ -1734,6 +1891,22 @@ public class MechanumDrive extends SubSystem {
             return this;
         }
 
+        /**
+         * Makes teleop hold the robot's heading with a heading controller instead of the stability PID.
+         * The controller's D term uses the gyroscope's yaw rate, and a new heading is captured once the robot settles after the driver stops turning.
+         *
+         * @param kp - Proportional gain in power per radian.
+         * @param ki - Integral gain in power per radian-second.
+         * @param kd - Derivative gain in power per radian/second.
+         * @param settleTime - The longest time to wait for the robot to stop rotating after a turn in seconds.
+         * @return - This instance of Params.
+         */
+        public Params setHeadingHold(double kp, double ki, double kd, double settleTime) {
+            useGyro = true;
+            headingController = new HeadingController(kp, ki, kd, settleTime);
+            return this;
+        }
+
         /**
          * Sets the velocity PID coefficients.
          *
@@ -1763,6 +1936,57 @@ public class MechanumDrive extends SubSystem {
             return this;
         }
 
+        /**
+         * Enables velocity control. Wheel outputs are sent to the motors as velocity setpoints in ticks/second, calculated using the encoders per meter.
+         *
+         * @param maxWheelSpeed - The wheel speed that full power corresponds to in meters/second.
+         * @param turnRadius - The distance from the center of the robot to the wheels along the x axis plus the distance along the y axis in meters.
+         * @param maxWheelAcceleration - The maximum wheel acceleration in meters/second^2. 0 means no limit.
+         * @return - This instance of Params.
+         */
+        public Params setVelocityControl(double maxWheelSpeed, double turnRadius, double maxWheelAcceleration) {
+            this.maxWheelSpeed = maxWheelSpeed;
+            this.turnRadius = turnRadius;
+            this.maxWheelAcceleration = maxWheelAcceleration;
+            return this;
+        }
+
+        /**
+         * Sets the slip detection settings used while velocity control is enabled.
+         *
+         * @param slipThreshold - The largest allowed kinematic inconsistency between the wheels, as a fraction of their total speed.
+         * @param yawRateThreshold - The largest allowed difference between the wheels' rotation rate and the gyroscope's yaw rate in radians/second. Only used if the drive uses the gyroscope.
+         * @param slipScaleDown - The amount to multiply the output by on each update while slipping.
+         * @param slipRecoveryRate - How much of the output to restore per second once the wheels grip again.
+         * @return - This instance of Params.
+         */
+        public Params setSlipDetection(double slipThreshold, double yawRateThreshold, double slipScaleDown, double slipRecoveryRate) {
+            this.slipThreshold = slipThreshold;
+            this.yawRateThreshold = yawRateThreshold;
+            this.slipScaleDown = slipScaleDown;
+            this.slipRecoveryRate = slipRecoveryRate;
+            return this;
+        }
+
+        /**
+         * Sets the predictive braking used by encoder moves. The deceleration is refined automatically after every move.
+         *
+         * @param deceleration - The initial guess for the robot's deceleration when power is cut in meters/second^2.
+         * @param latency - The delay between cutting power and the robot starting to slow down in seconds.
+         * @param kp - Proportional gain of the braking tail, in power per meter.
+         * @param ki - Integral gain of the braking tail.
+         * @param kd - Derivative gain of the braking tail.
+         * @return - This instance of Params.
+         */
+        public Params setPredictiveBraking(double deceleration, double latency, double kp, double ki, double kd) {
+            brakeDeceleration = deceleration;
+            brakeLatency = latency;
+            bkp = kp;
+            bki = ki;
+            bkd = kd;
+            return this;
+        }
+
         /**
          * Sets a constant speed multiplier to scale the calculated linear velocities by.
          *
@@ -1818,10 +2042,20 @@ public class MechanumDrive extends SubSystem {
         private double encodersPerMeter, turnLeftPower, turnRightPower, constantSpeedMultipler, slowModeMultiplier, constantTurnSpeedMultiplier, slowTurnModeMultiplier;
         //Velocity PID coefficients.
         private double vkp, vki, vkd, vkf;
+        //The velocity control settings. A max wheel speed of 0 disables velocity control.
+        private double maxWheelSpeed, turnRadius, maxWheelAcceleration;
+        //The slip detection settings.
+        private double slipThreshold, yawRateThreshold, slipScaleDown, slipRecoveryRate;
+        //The initial deceleration guess (m/s^2) and response latency (s) used by predictive braking.
+        private double brakeDeceleration, brakeLatency;
+        //The PID coefficients of the predictive braking tail.
+        private double bkp, bki, bkd;
         //A boolean specifying if the velocity PID was changed.
         private boolean changeVelocityPID;
         //Two PID controllers used to stabilize linear motion and to turn to specific angles.
         private PIDController stabilityPID, turnPID;
+        //The heading hold controller. Null if the stability PID is used in teleop instead.
+        private HeadingController headingController;
         //Boolean value specifying whether or not degrees should be used for the turn and stability PID controller.
         private boolean useDegreesStability, useDegreesTurn;
 
@@ -1854,6 +2088,21 @@ public class MechanumDrive extends SubSystem {
 
             encodersPerMeter = -1;
 
+            maxWheelSpeed = 0;
+            turnRadius = 0;
+            maxWheelAcceleration = 0;
+
+            slipThreshold = 0.25;
+            yawRateThreshold = 0.5;
+            slipScaleDown = 0.8;
+            slipRecoveryRate = 1;
+
+            brakeDeceleration = 1.5;
+            brakeLatency = 0.05;
+            bkp = 8;
+            bki = 0;
+            bkd = 1;
+
             turnLeftPower = 0.5;
             turnRightPower = 0.5;
 
@@ -1875,6 +2124,57 @@ public class MechanumDrive extends SubSystem {
             return this;
         }
 
+        /**
+         * Enables velocity control. Wheel outputs are sent to the motors as velocity setpoints in ticks/second, calculated using the encoders per meter.
+         *
+         * @param maxWheelSpeed - The wheel speed that full power corresponds to in meters/second.
+         * @param turnRadius - The distance from the center of the robot to the wheels along the x axis plus the distance along the y axis in meters.
+         * @param maxWheelAcceleration - The maximum wheel acceleration in meters/second^2. 0 means no limit.
+         * @return - This instance of SpecificParams.
+         */
+        public SpecificParams setVelocityControl(double maxWheelSpeed, double turnRadius, double maxWheelAcceleration) {
+            this.maxWheelSpeed = maxWheelSpeed;
+            this.turnRadius = turnRadius;
+            this.maxWheelAcceleration = maxWheelAcceleration;
+            return this;
+        }
+
+        /**
+         * Sets the slip detection settings used while velocity control is enabled.
+         *
+         * @param slipThreshold - The largest allowed kinematic inconsistency between the wheels, as a fraction of their total speed.
+         * @param yawRateThreshold - The largest allowed difference between the wheels' rotation rate and the gyroscope's yaw rate in radians/second. Only used if the drive uses the gyroscope.
+         * @param slipScaleDown - The amount to multiply the output by on each update while slipping.
+         * @param slipRecoveryRate - How much of the output to restore per second once the wheels grip again.
+         * @return - This instance of SpecificParams.
+         */
+        public SpecificParams setSlipDetection(double slipThreshold, double yawRateThreshold, double slipScaleDown, double slipRecoveryRate) {
+            this.slipThreshold = slipThreshold;
+            this.yawRateThreshold = yawRateThreshold;
+            this.slipScaleDown = slipScaleDown;
+            this.slipRecoveryRate = slipRecoveryRate;
+            return this;
+        }
+
+        /**
+         * Sets the predictive braking used by encoder moves. The deceleration is refined automatically after every move.
+         *
+         * @param deceleration - The initial guess for the robot's deceleration when power is cut in meters/second^2.
+         * @param latency - The delay between cutting power and the robot starting to slow down in seconds.
+         * @param kp - Proportional gain of the braking tail, in power per meter.
+         * @param ki - Integral gain of the braking tail.
+         * @param kd - Derivative gain of the braking tail.
+         * @return - This instance of SpecificParams.
+         */
+        public SpecificParams setPredictiveBraking(double deceleration, double latency, double kp, double ki, double kd) {
+            brakeDeceleration = deceleration;
+            brakeLatency = latency;
+            bkp = kp;
+            bki = ki;
+            bkd = kd;
+            return this;
+        }
+
         /**
          * Set the turn left power.
          *
@@ -2078,5 +2378,20 @@ public class MechanumDrive extends SubSystem {
             this.stabilityPID = stabilityPID;
             return this;
         }
+
+        /**
+         * Makes teleop hold the robot's heading with a heading controller instead of the stability PID.
+         * The controller's D term uses the gyroscope's yaw rate, and a new heading is captured once the robot settles after the driver stops turning.
+         *
+         * @param kp - Proportional gain in power per radian.
+         * @param ki - Integral gain in power per radian-second.
+         * @param kd - Derivative gain in power per radian/second.
+         * @param settleTime - The longest time to wait for the robot to stop rotating after a turn in seconds.
+         * @return - This instance of SpecificParams.
+         */
+        public SpecificParams setHeadingHold(double kp, double ki, double kd, double settleTime) {
+            headingController = new HeadingController(kp, ki, kd, settleTime);
+            return this;
+        }
     }
 }
\ No newline at end of file
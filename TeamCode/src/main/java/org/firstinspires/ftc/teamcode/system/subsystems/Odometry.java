@@ -0,0 +1,549 @@
+/*
+ * Filename: Odometry.java
+ * Author: Cole Savage
+ * Team Name: Level Up
+ * Date: 10/19/19
+ */
+
+package org.firstinspires.ftc.teamcode.system.subsystems;
+
+import android.util.Log;
+
+import com.qualcomm.robotcore.hardware.DcMotor;
+
+import org.firstinspires.ftc.teamcode.system.source.BaseRobot.Robot;
+import org.firstinspires.ftc.teamcode.system.source.BaseRobot.SubSystem;
+import org.firstinspires.ftc.teamcode.util.exceptions.DumpsterFireException;
+import org.firstinspires.ftc.teamcode.util.exceptions.WrongDrivetypeException;
+import org.firstinspires.ftc.teamcode.util.math.Pose;
+import org.firstinspires.ftc.teamcode.util.misc.BaseParam;
+
+import static java.lang.Math.PI;
+
+/**
+ * A wheel odometry subsystem. Integrates encoder deltas from any ChassisDrive, or from dedicated dead wheels, into a field pose.
+ * Runs on its own thread at a fixed rate independent of the main loop, and integrates each update exactly along an arc (the SE(2) exponential map).
+ * The pose is published through a seqlock, so any thread can read a consistent pose without blocking the odometry thread.
+ * Heading 0 faces the +y axis and is counterclockwise positive, matching PoseEstimator and PurePursuit.
+ */
+public class Odometry extends SubSystem {
+
+    //The kinematics used to turn encoder readings into motion.
+    private enum Source {
+        MECHANUM, OMNI, DIFFERENTIAL, DEAD_WHEELS
+    }
+
+    //Below this turn (in radians) the exponential map is evaluated with its Taylor series to avoid dividing by zero.
+    private static final double SMALL_ANGLE = 1e-6;
+
+    //The drive that encoders are read from. Null if dead wheels are used.
+    private ChassisDrive drive;
+    //The kinematics used to turn encoder readings into motion.
+    private Source source;
+    //The parameters for the odometry.
+    private Params params;
+    //The dead wheel encoders. The strafe encoder is null if there is no strafe wheel.
+    private DcMotor leftEncoder, rightEncoder, strafeEncoder;
+    //The number of encoder ticks per meter.
+    private double encodersPerMeter;
+    //The number of encoder ticks per meter for each encoder, in the same order as the encoder readings. Includes the drive's calibrated wheel scales.
+    private double[] wheelTicksPerMeter;
+    //The encoder positions from this update and the last update. Swapped every update so reading the encoders doesn't allocate.
+    private int[] encoders, lastEncoders;
+    //Whether lastEncoders holds a reading yet.
+    private boolean hasEncoders;
+
+    //The thread that runs the odometry updates.
+    private Thread odometryThread;
+    //Whether the odometry thread should keep running.
+    private volatile boolean running;
+    //The measured update rate in updates per second.
+    private volatile double updateRate;
+
+    //The integrated pose. Only written inside update().
+    private double x, y, heading;
+
+    //The seqlock sequence number. Odd while the published pose is being written.
+    private volatile int sequence;
+    //The published pose and the time it was computed at.
+    private volatile double publishedX, publishedY, publishedHeading;
+    private volatile long publishedTimestamp;
+
+    //Lock guarding a pending reset, which can be requested from any thread.
+    private final Object resetLock = new Object();
+    //The pending reset pose.
+    private double resetX, resetY, resetHeading;
+    private boolean hasPendingReset;
+
+    /**
+     * Constructor for Odometry.
+     *
+     * @param robot - The robot using this subsystem.
+     * @param drive - The drive to read encoders from. Can be null if dead wheels are used.
+     * @param params - The parameters for the odometry.
+     *
+     * @throws WrongDrivetypeException - Throws this exception if no dead wheels are set and there is no drive, or the drive's wheels can't be turned into motion.
+     * @throws DumpsterFireException - Throws this exception if the number of encoder ticks per meter or the track width is unknown.
+     */
+    public Odometry(Robot robot, ChassisDrive drive, Params params) {
+        super(robot);
+
+        this.drive = drive;
+        this.params = params;
+
+        if(params.leftEncoderName != null) {
+            source = Source.DEAD_WHEELS;
+            leftEncoder = robot.hardwareMap.dcMotor.get(params.leftEncoderName);
+            rightEncoder = robot.hardwareMap.dcMotor.get(params.rightEncoderName);
+            strafeEncoder = params.strafeEncoderName == null ? null : robot.hardwareMap.dcMotor.get(params.strafeEncoderName);
+        }
+        else if(drive == null) {
+            throw new WrongDrivetypeException("Odometry requires dead wheels or a drive.");
+        }
+        else if(drive.getWheelLayout() == ChassisDrive.WheelLayout.MECHANUM && drive.getWheelCount() == 4) {
+            source = Source.MECHANUM;
+        }
+        else if(drive.getWheelLayout() == ChassisDrive.WheelLayout.OMNI_X && drive.getWheelCount() == 4) {
+            source = Source.OMNI;
+        }
+        else if(drive.getWheelLayout() == ChassisDrive.WheelLayout.DIFFERENTIAL && (drive.getWheelCount() == 2 || drive.getWheelCount() == 4)) {
+            source = Source.DIFFERENTIAL;
+        }
+        else {
+            throw new WrongDrivetypeException("Odometry doesn't support drives with " + drive.getWheelCount() + " wheels.");
+        }
+
+        if(params.encodersPerMeter > 0) {
+            encodersPerMeter = params.encodersPerMeter;
+        }
+        else if(drive != null) {
+            encodersPerMeter = drive.getEncodersPerMeter();
+        }
+        if(encodersPerMeter <= 0) {
+            throw new DumpsterFireException("Odometry needs to know the number of encoder ticks per meter.");
+        }
+
+        double[] wheelScales = source == Source.DEAD_WHEELS ? new double[] {1, 1, 1} : drive.getWheelScales();
+        wheelTicksPerMeter = new double[wheelScales.length];
+        for(int i = 0; i < wheelScales.length; i++) {
+            wheelTicksPerMeter[i] = encodersPerMeter * wheelScales[i];
+        }
+        encoders = new int[wheelScales.length];
+        lastEncoders = new int[wheelScales.length];
+        if(params.trackWidth <= 0) {
+            throw new DumpsterFireException("Odometry needs to know the track width.");
+        }
+
+        x = params.startX;
+        y = params.startY;
+        heading = params.startHeading;
+        publish(System.currentTimeMillis());
+    }
+
+    @Override
+    public void init() {}
+
+    @Override
+    public void init_loop() {}
+
+    @Override
+    public void start() {
+        readEncoders(lastEncoders);
+        hasEncoders = true;
+        running = true;
+
+        odometryThread = new Thread() {
+            @Override
+            public void run() {
+                runOdometry();
+            }
+        };
+        odometryThread.setName("Odometry");
+        odometryThread.setPriority(Thread.MAX_PRIORITY);
+        odometryThread.start();
+    }
+
+    @Override
+    public void handle() {}
+
+    @Override
+    public void stop() throws InterruptedException {
+        running = false;
+        if(odometryThread != null) {
+            odometryThread.interrupt();
+            odometryThread.join(100);
+            odometryThread = null;
+        }
+    }
+
+    /**
+     * Gets the latest pose. Safe to call from any thread.
+     *
+     * @return - The latest pose.
+     */
+    public Pose getPose() {
+        double px, py, ph;
+        long time;
+        int seq;
+        do {
+            seq = sequence;
+            px = publishedX;
+            py = publishedY;
+            ph = publishedHeading;
+            time = publishedTimestamp;
+        } while((seq & 1) != 0 || seq != sequence);
+        return new Pose(px, py, ph, time);
+    }
+
+    /**
+     * Gets the latest pose without allocating. Safe to call from any thread.
+     *
+     * @param out - An array of length 3 that the x position, y position and heading will be written to.
+     * @return - The system time in milliseconds that the pose was computed at.
+     */
+    public long getPose(double[] out) {
+        long time;
+        int seq;
+        do {
+            seq = sequence;
+            out[0] = publishedX;
+            out[1] = publishedY;
+            out[2] = publishedHeading;
+            time = publishedTimestamp;
+        } while((seq & 1) != 0 || seq != sequence);
+        return time;
+    }
+
+    /**
+     * Moves the odometry to a known pose. Safe to call from any thread. Takes effect on the next update.
+     *
+     * @param x - The x position of the robot in meters.
+     * @param y - The y position of the robot in meters.
+     * @param heading - The heading of the robot in radians.
+     */
+    public void reset(double x, double y, double heading) {
+        synchronized (resetLock) {
+            resetX = x;
+            resetY = y;
+            resetHeading = heading;
+            hasPendingReset = true;
+        }
+        if(!running) {
+            update();
+        }
+    }
+
+    /**
+     * Gets the measured rate that the odometry is updating at.
+     *
+     * @return - The update rate in updates per second.
+     */
+    public double getUpdateRate() {
+        return updateRate;
+    }
+
+    /**
+     * The odometry thread's main loop. Updates at a fixed rate until the subsystem is stopped.
+     */
+    private void runOdometry() {
+        long period = (long) (1e9 / params.updateRate);
+        long next = System.nanoTime();
+        long last = next;
+
+        while(running && !Thread.currentThread().isInterrupted()) {
+            try {
+                update();
+            }
+            catch (Exception ex) {
+                Log.e(this.getClass().getSimpleName(), ex.getMessage(), ex);
+            }
+
+            long now = System.nanoTime();
+            if(now > last) {
+                //Low pass the measured rate so it is readable on telemetry.
+                updateRate += 0.05 * (1e9 / (now - last) - updateRate);
+            }
+            last = now;
+
+            next += period;
+            long wait = next - System.nanoTime();
+            if(wait > 0) {
+                try {
+                    Thread.sleep(wait / 1000000, (int) (wait % 1000000));
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            else {
+                //Fell behind (ex: slow hub reads), so don't try to catch up with a burst of updates.
+                next = System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * Reads the encoders, integrates the motion since the last update and publishes the new pose.
+     * Synchronized so that a reset applied from another thread while the odometry thread is stopping can't interleave with an update.
+     */
+    private synchronized void update() {
+        synchronized (resetLock) {
+            if(hasPendingReset) {
+                x = resetX;
+                y = resetY;
+                heading = resetHeading;
+                hasPendingReset = false;
+            }
+        }
+
+        if(!hasEncoders) {
+            publish(System.currentTimeMillis());
+            return;
+        }
+
+        readEncoders(encoders);
+
+        double strafe, forward, turn;
+        switch (source) {
+            case MECHANUM: {
+                //Mechanum rollers move each wheel by forward +/- strafe.
+                double dtl = (encoders[0] - lastEncoders[0]) / wheelTicksPerMeter[0];
+                double dtr = (encoders[1] - lastEncoders[1]) / wheelTicksPerMeter[1];
+                double dbl = (encoders[2] - lastEncoders[2]) / wheelTicksPerMeter[2];
+                double dbr = (encoders[3] - lastEncoders[3]) / wheelTicksPerMeter[3];
+                forward = (dtl + dtr + dbl + dbr) / 4;
+                strafe = (dtl - dtr - dbl + dbr) / 4;
+                turn = ((dtr + dbr) - (dtl + dbl)) / (2 * params.trackWidth);
+                break;
+            }
+            case OMNI: {
+                //Omniwheels at 45 degrees see the projection of the motion onto the wheel direction.
+                double dtl = (encoders[0] - lastEncoders[0]) / wheelTicksPerMeter[0];
+                double dtr = (encoders[1] - lastEncoders[1]) / wheelTicksPerMeter[1];
+                double dbl = (encoders[2] - lastEncoders[2]) / wheelTicksPerMeter[2];
+                double dbr = (encoders[3] - lastEncoders[3]) / wheelTicksPerMeter[3];
+                forward = (dtl + dtr + dbl + dbr) / (2 * Math.sqrt(2));
+                strafe = (dtl - dtr - dbl + dbr) / (2 * Math.sqrt(2));
+                turn = ((dtr + dbr) - (dtl + dbl)) / (2 * params.trackWidth);
+                break;
+            }
+            case DIFFERENTIAL: {
+                double dl, dr;
+                if(encoders.length == 4) {
+                    //Both wheels on a side turn together, so average them.
+                    dl = ((encoders[0] - lastEncoders[0]) / wheelTicksPerMeter[0] + (encoders[2] - lastEncoders[2]) / wheelTicksPerMeter[2]) / 2;
+                    dr = ((encoders[1] - lastEncoders[1]) / wheelTicksPerMeter[1] + (encoders[3] - lastEncoders[3]) / wheelTicksPerMeter[3]) / 2;
+                }
+                else {
+                    dl = (encoders[0] - lastEncoders[0]) / wheelTicksPerMeter[0];
+                    dr = (encoders[1] - lastEncoders[1]) / wheelTicksPerMeter[1];
+                }
+                forward = (dl + dr) / 2;
+                strafe = 0;
+                turn = (dr - dl) / params.trackWidth;
+                break;
+            }
+            default: {
+                double dl = (encoders[0] - lastEncoders[0]) / wheelTicksPerMeter[0];
+                double dr = (encoders[1] - lastEncoders[1]) / wheelTicksPerMeter[1];
+                double ds = (encoders[2] - lastEncoders[2]) / wheelTicksPerMeter[2];
+                forward = (dl + dr) / 2;
+                turn = (dr - dl) / params.trackWidth;
+                //A strafe wheel ahead of the center of rotation is pushed sideways when the robot turns, so remove that part.
+                strafe = strafeEncoder == null ? 0 : ds + params.strafeWheelOffset * turn;
+                break;
+            }
+        }
+        int[] temp = lastEncoders;
+        lastEncoders = encoders;
+        encoders = temp;
+
+        integrate(strafe, forward, turn);
+        publish(System.currentTimeMillis());
+    }
+
+    /**
+     * Integrates a robot-relative motion along the arc it traces, assuming constant velocity over the update.
+     *
+     * @param strafe - The distance moved to the right in meters.
+     * @param forward - The distance moved forwards in meters.
+     * @param turn - The change in heading in radians, counterclockwise positive.
+     */
+    private void integrate(double strafe, double forward, double turn) {
+        double sinTerm, cosTerm;
+        if(Math.abs(turn) < SMALL_ANGLE) {
+            sinTerm = 1 - turn * turn / 6;
+            cosTerm = turn / 2;
+        }
+        else {
+            sinTerm = Math.sin(turn) / turn;
+            cosTerm = (1 - Math.cos(turn)) / turn;
+        }
+
+        //The motion in the robot's frame at the start of the update.
+        double localX = sinTerm * strafe - cosTerm * forward;
+        double localY = cosTerm * strafe + sinTerm * forward;
+
+        double cos = Math.cos(heading);
+        double sin = Math.sin(heading);
+        x += localX * cos - localY * sin;
+        y += localX * sin + localY * cos;
+        heading = wrap(heading + turn);
+    }
+
+    /**
+     * Publishes the integrated pose through the seqlock.
+     *
+     * @param timestamp - The system time in milliseconds that the pose was computed at.
+     */
+    private void publish(long timestamp) {
+        //Writers are serialized by update(), so the increments don't need to be atomic.
+        sequence++;
+        publishedX = x;
+        publishedY = y;
+        publishedHeading = heading;
+        publishedTimestamp = timestamp;
+        sequence++;
+    }
+
+    /**
+     * Reads the encoder positions.
+     *
+     * @param out - The array to write the positions into. Drive encoders are in the drive's wheel order. Dead wheels are ordered left, right, strafe.
+     */
+    private void readEncoders(int[] out) {
+        if(source != Source.DEAD_WHEELS) {
+            drive.getWheelPositions(out);
+            return;
+        }
+        out[0] = params.leftReversed ? -leftEncoder.getCurrentPosition() : leftEncoder.getCurrentPosition();
+        out[1] = params.rightReversed ? -rightEncoder.getCurrentPosition() : rightEncoder.getCurrentPosition();
+        out[2] = strafeEncoder == null ? 0 : params.strafeReversed ? -strafeEncoder.getCurrentPosition() : strafeEncoder.getCurrentPosition();
+    }
+
+    /**
+     * Wraps an angle to the range [-pi, pi).
+     *
+     * @param angle - The angle in radians.
+     * @return - The wrapped angle.
+     */
+    private static double wrap(double angle) {
+        return ((angle + PI) % (2 * PI) + 2 * PI) % (2 * PI) - PI;
+    }
+
+    /**
+     * A class containing all the parameters for the odometry.
+     */
+    public static final class Params implements BaseParam {
+
+        //The number of encoder ticks per meter. 0 uses the drive's value.
+        private double encodersPerMeter = 0;
+        //The distance between the left and right wheels in meters. For 4 wheel drives this is the effective turning width.
+        private double trackWidth = 0;
+        //The rate to update at in updates per second.
+        private double updateRate = 200;
+        //The starting pose.
+        private double startX = 0, startY = 0, startHeading = 0;
+        //The config names of the dead wheel encoders.
+        private String leftEncoderName, rightEncoderName, strafeEncoderName;
+        //How far ahead of the center of rotation the strafe wheel is in meters.
+        private double strafeWheelOffset = 0;
+        //Whether each dead wheel counts backwards.
+        private boolean leftReversed, rightReversed, strafeReversed;
+
+        /**
+         * Sets the number of encoder ticks per meter. Required for dead wheels and uncalibrated tank drives.
+         *
+         * @param encodersPerMeter - The number of encoder ticks per meter.
+         * @return - This instance of Params.
+         *
+         * @throws DumpsterFireException - Throws this exception if the value is not positive.
+         */
+        public Params setEncodersPerMeter(double encodersPerMeter) {
+            if(encodersPerMeter <= 0) {
+                throw new DumpsterFireException("Encoders per meter must be positive");
+            }
+            this.encodersPerMeter = encodersPerMeter;
+            return this;
+        }
+
+        /**
+         * Sets the track width, the distance between the left and right wheels.
+         *
+         * @param trackWidth - The track width in meters.
+         * @return - This instance of Params.
+         *
+         * @throws DumpsterFireException - Throws this exception if the track width is not positive.
+         */
+        public Params setTrackWidth(double trackWidth) {
+            if(trackWidth <= 0) {
+                throw new DumpsterFireException("Track width must be positive");
+            }
+            this.trackWidth = trackWidth;
+            return this;
+        }
+
+        /**
+         * Sets the rate the odometry thread updates at.
+         *
+         * @param updateRate - The update rate in updates per second.
+         * @return - This instance of Params.
+         *
+         * @throws DumpsterFireException - Throws this exception if the rate is not positive.
+         */
+        public Params setUpdateRate(double updateRate) {
+            if(updateRate <= 0) {
+                throw new DumpsterFireException("Update rate must be positive");
+            }
+            this.updateRate = updateRate;
+            return this;
+        }
+
+        /**
+         * Sets the pose the robot starts at.
+         *
+         * @param x - The starting x position in meters.
+         * @param y - The starting y position in meters.
+         * @param heading - The starting heading in radians.
+         * @return - This instance of Params.
+         */
+        public Params setStartPose(double x, double y, double heading) {
+            startX = x;
+            startY = y;
+            startHeading = heading;
+            return this;
+        }
+
+        /**
+         * Uses dedicated dead wheel encoders instead of the drive motors' encoders.
+         *
+         * @param leftEncoder - The config name of the left parallel encoder.
+         * @param rightEncoder - The config name of the right parallel encoder.
+         * @param strafeEncoder - The config name of the perpendicular encoder, or null if there is none.
+         * @param strafeWheelOffset - How far ahead of the center of rotation the perpendicular wheel is in meters.
+         * @return - This instance of Params.
+         */
+        public Params setDeadWheels(String leftEncoder, String rightEncoder, String strafeEncoder, double strafeWheelOffset) {
+            leftEncoderName = leftEncoder;
+            rightEncoderName = rightEncoder;
+            strafeEncoderName = strafeEncoder;
+            this.strafeWheelOffset = strafeWheelOffset;
+            return this;
+        }
+
+        /**
+         * Sets which dead wheels count backwards.
+         *
+         * @param left - Whether the left encoder is reversed.
+         * @param right - Whether the right encoder is reversed.
+         * @param strafe - Whether the strafe encoder is reversed.
+         * @return - This instance of Params.
+         */
+        public Params setDeadWheelsReversed(boolean left, boolean right, boolean strafe) {
+            leftReversed = left;
+            rightReversed = right;
+            strafeReversed = strafe;
+            return this;
+        }
+    }
+}
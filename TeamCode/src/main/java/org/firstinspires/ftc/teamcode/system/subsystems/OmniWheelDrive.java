@@ -14,12 +14,15 @@ import com.qualcomm.robotcore.hardware.PIDFCoefficients;
 import com.qualcomm.robotcore.util.Range;
 
 import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
+import org.firstinspires.ftc.robotcore.external.navigation.AngularVelocity;
 import org.firstinspires.ftc.robotcore.external.navigation.AxesOrder;
 import org.firstinspires.ftc.robotcore.external.navigation.AxesReference;
 import org.firstinspires.ftc.teamcode.system.source.BaseRobot.Robot;
 import org.firstinspires.ftc.teamcode.system.source.BaseRobot.SubSystem;
 import org.firstinspires.ftc.teamcode.util.annotations.AutonomousConfig;
 import org.firstinspires.ftc.teamcode.util.annotations.TeleopConfig;
+import org.firstinspires.ftc.teamcode.util.calib.EncoderCalibration;
+import org.firstinspires.ftc.teamcode.util.control.HeadingController;
 import org.firstinspires.ftc.teamcode.util.control.PIDController;
 import org.firstinspires.ftc.teamcode.util.exceptions.DumpsterFireException;
 import org.firstinspires.ftc.teamcode.util.exceptions.GuiNotPresentException;
@@ -31,6 +34,7 @@ import org.firstinspires.ftc.teamcode.util.exceptions.NotVectorInputException;
 import org.firstinspires.ftc.teamcode.util.exceptions.WrongDrivetypeException;
 import org.firstinspires.ftc.teamcode.util.functional_interfaces.BiFunction;
 import org.firstinspires.ftc.teamcode.util.math.EncoderToDistanceProcessor;
+import org.firstinspires.ftc.teamcode.util.math.HolonomicKinematics;
 import org.firstinspires.ftc.teamcode.util.math.Units;
 import org.firstinspires.ftc.teamcode.util.math.Vector;
 import org.firstinspires.ftc.teamcode.util.misc.BaseParam;
@@ -48,12 +52,14 @@ import static java.lang.Thread.sleep;
 /**
  * A built in omniwheel drive class with 7 drive modes.
  */
-public class OmniWheelDrive extends SubSystem {
+public class OmniWheelDrive extends SubSystem implements ChassisDrive {
 
     //Names of all the controls.
     private static final String DRIVESTICK = "drivestick", LEFT_DRIVESTICK = "drivestick_left", RIGHT_DRIVESTICK = "drivestick_right", TURNSTICK = "turnstick", TURN_LEFT = "turn_left", TURN_RIGHT = "turn_right", TTA_STICK = "tta_stick", SPEED_MODE = "speed_mode_toggle";
     //Motors used to control the robot.
     private DcMotorEx topRight, topLeft, botRight, botLeft;
+    //All 4 motors, in the same order as the wheel power arrays. Used to report the drive's current demand to the power manager.
+    private DcMotor[] motors;
     //Gyroscope used to get the robot's current angle.
     private BNO055IMU imu;
     //The motor config. [0] is top left, [1] is top right, [2] is bottom left, [3] is bottom right.
@@ -64,10 +70,14 @@ public class OmniWheelDrive extends SubSystem {
     private CustomizableGamepad inputs;
     //PID controllers for turning to specific angles and driving in a straight line, respectively.
     private PIDController turnPID, stabilityPID;
+    //Holds the heading in teleop using the gyroscope's yaw rate. Null if the stability PID is used instead.
+    private HeadingController headingController;
     //A boolean designating whether or not the drive will use the gyroscope.
     private boolean usesGyro;
     //The number of encoder ticks per meter traveled.
     private double encoderPerMeter;
+    //The scale factor of each wheel's encoder, from the saved encoder calibration. All 1 if the drive hasn't been calibrated.
+    private double[] wheelScales = new double[] {1, 1, 1, 1};
     //Which IMU the robot should use when configuring the rev hub internal gyroscope.
     private int imuNumber;
     //Speed mode multipliers for use in speed toggle and speed reduction/amplification.
@@ -78,6 +88,32 @@ public class OmniWheelDrive extends SubSystem {
     private static boolean useSpecific = false;
     //Boolean values specifying whether the turn and stability PID controllers use degrees.
     private boolean useDegreesTurn, useDegreesStability;
+    //Maps chassis speeds to wheel powers. Omniwheel translation is a pure -pi/4 rotation of the input.
+    private final HolonomicKinematics kinematics = new HolonomicKinematics(Math.sqrt(2) / 2);
+    //The lowest the traction scale is allowed to drop to while slipping.
+    private static final double MIN_TRACTION_SCALE = 0.3;
+    //The summed wheel speed (m/s) below which the kinematic consistency check is skipped, since encoder noise dominates at low speed.
+    private static final double MIN_SLIP_CHECK_SPEED = 0.1;
+    //A boolean specifying whether wheel outputs are sent as velocity setpoints instead of raw powers.
+    private boolean useVelocityControl;
+    //The wheel speed at full power (m/s), the distance from the center of the robot to each wheel (m), and the maximum wheel acceleration (m/s^2).
+    private double maxWheelSpeed, turnRadius, maxWheelAcceleration;
+    //The slip detection settings: max kinematic residual ratio, max yaw rate error (rad/s), scale applied each slipping loop, and traction recovered per second.
+    private double slipThreshold, yawRateThreshold, slipScaleDown, slipRecoveryRate;
+    //The fraction of the commanded wheel speeds currently being sent to the motors. Drops while the wheels are slipping.
+    private double tractionScale = 1;
+    //A boolean specifying whether slip was detected on the last velocity update.
+    private boolean slipping;
+    //The velocity setpoints last sent to each wheel in encoder ticks per second.
+    private final double[] velocitySetpoints = new double[4];
+    //The measured wheel surface speeds in meters/second, reused by each slip check.
+    private final double[] wheelSpeeds = new double[4];
+    //The time of the last velocity update in nanoseconds.
+    private long lastVelocityUpdate;
+    //Lock guarding the encoder offsets, since odometry reads the wheel positions from its own thread.
+    private final Object encoderLock = new Object();
+    //The position each wheel was at when its encoder was last reset, summed over every reset. Keeps getWheelPositions() counting through resets.
+    private final int[] encoderOffsets = new int[4];
 
     //Specifies the type of drive the user will use.
     public enum DriveType {
@@ -96,7 +132,21 @@ public class OmniWheelDrive extends SubSystem {
 
         this.driveType = params.driveType;
 
-        this.encoderPerMeter = params.encoderPerMeter;
+        //Explicitly set encoder ticks per meter take priority over the saved calibration.
+        EncoderCalibration calibration = EncoderCalibration.load(robot, this.getClass(), 4);
+        if(calibration != null) {
+            wheelScales = calibration.wheelScales;
+        }
+        this.encoderPerMeter = params.encoderPerMeter > 0 ? params.encoderPerMeter : calibration != null ? calibration.ticksPerMeter : 1440;
+
+        useVelocityControl = params.maxWheelSpeed > 0;
+        maxWheelSpeed = params.maxWheelSpeed;
+        turnRadius = params.turnRadius;
+        maxWheelAcceleration = params.maxWheelAcceleration;
+        slipThreshold = params.slipThreshold;
+        yawRateThreshold = params.yawRateThreshold;
+        slipScaleDown = params.slipScaleDown;
+        slipRecoveryRate = params.slipRecoveryRate;
 
         this.constantSpeedMultiplier = params.constantSpeedMultiplier;
         slowModeMultiplier = params.speedModeMultiplier;
@@ -112,6 +162,7 @@ public class OmniWheelDrive extends SubSystem {
 
         turnPID = params.turnPID;
         stabilityPID = params.stabilityPID;
+        headingController = params.headingController;
 
         this.config = params.config.clone();
 
@@ -119,6 +170,7 @@ public class OmniWheelDrive extends SubSystem {
         topRight = (DcMotorEx) robot.hardwareMap.dcMotor.get(params.config[1]);
         botLeft = (DcMotorEx) robot.hardwareMap.dcMotor.get(params.config[2]);
         botRight = (DcMotorEx) robot.hardwareMap.dcMotor.get(params.config[3]);
+        motors = new DcMotor[] {topLeft, topRight, botLeft, botRight};
 
         resetAllEncoders();
 
@@ -167,7 +219,21 @@ public class OmniWheelDrive extends SubSystem {
         turnLeftPower = params.turnLeftPower;
         turnRightPower = params.turnRightPower;
 
-        this.encoderPerMeter = params.encodersPerMeter;
+        //Explicitly set encoder ticks per meter take priority over the saved calibration.
+        EncoderCalibration calibration = EncoderCalibration.load(robot, this.getClass(), 4);
+        if(calibration != null) {
+            wheelScales = calibration.wheelScales;
+        }
+        this.encoderPerMeter = params.encodersPerMeter > 0 ? params.encodersPerMeter : calibration != null ? calibration.ticksPerMeter : 0;
+
+        useVelocityControl = params.maxWheelSpeed > 0;
+        maxWheelSpeed = params.maxWheelSpeed;
+        turnRadius = params.turnRadius;
+        maxWheelAcceleration = params.maxWheelAcceleration;
+        slipThreshold = params.slipThreshold;
+        yawRateThreshold = params.yawRateThreshold;
+        slipScaleDown = params.slipScaleDown;
+        slipRecoveryRate = params.slipRecoveryRate;
 
         this.constantSpeedMultiplier = params.constantSpeedMultipler;
         slowModeMultiplier = params.slowModeMultiplier;
@@ -180,6 +246,7 @@ public class OmniWheelDrive extends SubSystem {
         topRight = (DcMotorEx) robot.hardwareMap.dcMotor.get(params.config[1]);
         botLeft = (DcMotorEx) robot.hardwareMap.dcMotor.get(params.config[2]);
         botRight = (DcMotorEx) robot.hardwareMap.dcMotor.get(params.config[3]);
+        motors = new DcMotor[] {topLeft, topRight, botLeft, botRight};
 
         resetAllEncoders();
 
@@ -191,6 +258,7 @@ public class OmniWheelDrive extends SubSystem {
         }
 
         stabilityPID = params.stabilityPID;
+        headingController = params.headingController;
         turnPID = params.turnPID;
 
         useDegreesTurn = params.useDegreesTurn;
@@ -244,380 +312,100 @@ public class OmniWheelDrive extends SubSystem {
         boolean turnLeft = inputs.getBooleanInput(TURN_LEFT);
         boolean turnRight = inputs.getBooleanInput(TURN_RIGHT);
 
+        //The heading is read once per loop and shared by the PID controllers and the field centric math.
+        double heading = usesGyro ? getHeading() : 0;
+        double angleStability = useDegreesStability ? Math.toDegrees(heading) : heading;
+        double angleTurn = useDegreesTurn ? Math.toDegrees(heading) : heading;
+
         double correction, turnCorrection;
 
         switch (driveType) {
 
             //Standard vector drive. 1 control for driving, one for turning.
             case STANDARD:
-                input.rotate(-(PI / 4));
-
-                correction = usesGyro ? stabilityPID.getCorrection(imu.getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX, AngleUnit.RADIANS).firstAngle) : 0;
-
-                if((turnPower != 0 || turnLeft || turnRight) && usesGyro) {
-                    stabilityPID.setSetpoint(imu.getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX, useDegreesStability ? AngleUnit.DEGREES : AngleUnit.RADIANS).firstAngle);
-                    correction = 0;
-                }
-
-                if(!turnLeft && !turnRight) {
-                    topLeft.setPower(Range.clip(input.x + turnPower - correction,-1,1));
-                    topRight.setPower(Range.clip(input.y - turnPower + correction,-1,1));
-                    botLeft.setPower(Range.clip(input.y + turnPower - correction,-1,1));
-                    botRight.setPower(Range.clip(input.x - turnPower + correction,-1,1));
-                }
-                else if(turnLeft) {
-                    topLeft.setPower(Range.clip(input.x - turnLeftPower,-1,1));
-                    topRight.setPower(Range.clip(input.y + turnLeftPower,-1,1));
-                    botLeft.setPower(Range.clip(input.y - turnLeftPower,-1,1));
-                    botRight.setPower(Range.clip(input.x + turnLeftPower,-1,1));
+            //Standard vector drive where the front of the robot is fixed.
+            case FIELD_CENTRIC:
+            //Arcade drive.
+            case ARCADE:
+                if(headingController != null && usesGyro) {
+                    correction = headingController.update(heading, getYawRate(), turnPower != 0 || turnLeft || turnRight);
                 }
                 else {
-                    topLeft.setPower(Range.clip(input.x + turnRightPower,-1,1));
-                    topRight.setPower(Range.clip(input.y - turnRightPower,-1,1));
-                    botLeft.setPower(Range.clip(input.y + turnRightPower,-1,1));
-                    botRight.setPower(Range.clip(input.x - turnRightPower,-1,1));
-                }
-
-                break;
-
-            //Standard drive, but the turn control is a joystick that tells the robot what angle to turn to.
-            case STANDARD_TTA:
-                input.rotate(-(PI / 4));
-
-                correction = usesGyro ? stabilityPID.getCorrection(imu.getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX, useDegreesStability ? AngleUnit.DEGREES : AngleUnit.RADIANS).firstAngle) : 0;
-
-                if(!tta.isZeroVector() && usesGyro) {
-                    turnPID.setSetpoint(useDegreesTurn ? Math.toDegrees(tta.theta) : tta.theta);
-                }
-
-                turnCorrection = turnPID.getCorrection(imu.getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX, useDegreesTurn ? AngleUnit.DEGREES : AngleUnit.RADIANS).firstAngle);
-
-                if((!tta.isZeroVector() || turnLeft || turnRight) && usesGyro) {
-                    stabilityPID.setSetpoint(imu.getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX, useDegreesStability ? AngleUnit.DEGREES : AngleUnit.RADIANS).firstAngle);
-                    correction = 0;
-                    turnCorrection = 0;
-                }
+                    correction = usesGyro ? stabilityPID.getCorrection(angleStability) : 0;
 
-                if(!turnLeft && !turnRight) {
-                    topLeft.setPower(Range.clip(input.x - turnCorrection - correction,-1,1));
-                    topRight.setPower(Range.clip(input.y + turnCorrection + correction,-1,1));
-                    botLeft.setPower(Range.clip(input.y - turnCorrection - correction,-1,1));
-                    botRight.setPower(Range.clip(input.x + turnCorrection + correction,-1,1));
-                }
-                else if(turnLeft) {
-                    topLeft.setPower(Range.clip(input.x - turnLeftPower,-1,1));
-                    topRight.setPower(Range.clip(input.y + turnLeftPower,-1,1));
-                    botLeft.setPower(Range.clip(input.y - turnLeftPower,-1,1));
-                    botRight.setPower(Range.clip(input.x + turnLeftPower,-1,1));
-                }
-                else {
-                    topLeft.setPower(Range.clip(input.x + turnRightPower,-1,1));
-                    topRight.setPower(Range.clip(input.y - turnRightPower,-1,1));
-                    botLeft.setPower(Range.clip(input.y + turnRightPower,-1,1));
-                    botRight.setPower(Range.clip(input.x - turnRightPower,-1,1));
+                    if((turnPower != 0 || turnLeft || turnRight) && usesGyro) {
+                        stabilityPID.setSetpoint(angleStability);
+                        correction = 0;
+                    }
                 }
 
-                break;
-
-            //Standard vector drive where the front of the robot is fixed.
-            case FIELD_CENTRIC:
-                input.rotate(-((PI / 4) + imu.getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX, AngleUnit.RADIANS).firstAngle));
-
-                correction = usesGyro ? stabilityPID.getCorrection(imu.getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX, useDegreesStability ? AngleUnit.DEGREES : AngleUnit.RADIANS).firstAngle) : 0;
-
-                if((turnPower != 0 || turnLeft || turnRight) && usesGyro) {
-                    stabilityPID.setSetpoint(imu.getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX, useDegreesStability ? AngleUnit.DEGREES : AngleUnit.RADIANS).firstAngle);
+                //Arcade drive only turns in place when the stick is released, it doesn't hold its heading.
+                if(driveType == DriveType.ARCADE && input.isZeroVector()) {
                     correction = 0;
                 }
 
                 if(!turnLeft && !turnRight) {
-                    topLeft.setPower(Range.clip(input.x + turnPower - correction,-1,1));
-                    topRight.setPower(Range.clip(input.y - turnPower + correction,-1,1));
-                    botLeft.setPower(Range.clip(input.y + turnPower - correction,-1,1));
-                    botRight.setPower(Range.clip(input.x - turnPower + correction,-1,1));
+                    move(input.x, input.y, turnPower - correction, heading);
                 }
                 else if(turnLeft) {
-                    topLeft.setPower(Range.clip(input.x - turnLeftPower,-1,1));
-                    topRight.setPower(Range.clip(input.y + turnLeftPower,-1,1));
-                    botLeft.setPower(Range.clip(input.y - turnLeftPower,-1,1));
-                    botRight.setPower(Range.clip(input.x + turnLeftPower,-1,1));
+                    move(input.x, input.y, -turnLeftPower, heading);
                 }
                 else {
-                    topLeft.setPower(Range.clip(input.x + turnRightPower,-1,1));
-                    topRight.setPower(Range.clip(input.y - turnRightPower,-1,1));
-                    botLeft.setPower(Range.clip(input.y + turnRightPower,-1,1));
-                    botRight.setPower(Range.clip(input.x - turnRightPower,-1,1));
+                    move(input.x, input.y, turnRightPower, heading);
                 }
                 break;
 
+            //Standard drive, but the turn control is a joystick that tells the robot what angle to turn to.
+            case STANDARD_TTA:
             //Standard vector drive where the front of the robot is fixed and the turn control is a joystick that gives the robot an angle to turn to.
             case FIELD_CENTRIC_TTA:
-                input.rotate(-((PI / 4) + imu.getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX, AngleUnit.RADIANS).firstAngle));
-
-                correction = usesGyro ? stabilityPID.getCorrection(imu.getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX, useDegreesStability ? AngleUnit.DEGREES : AngleUnit.RADIANS).firstAngle) : 0;
-
-                if(!tta.isZeroVector() && usesGyro) {
-                    turnPID.setSetpoint(useDegreesTurn ? Math.toDegrees(tta.theta) : tta.theta);
-                }
-
-                turnCorrection = turnPID.getCorrection(imu.getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX, useDegreesTurn ? AngleUnit.DEGREES : AngleUnit.RADIANS).firstAngle);
-
-                if((!tta.isZeroVector() || turnLeft || turnRight) && usesGyro) {
-                    stabilityPID.setSetpoint(imu.getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX, useDegreesStability ? AngleUnit.DEGREES : AngleUnit.RADIANS).firstAngle);
-                    correction = 0;
+            //Arcade drive with turn to angle functionality.
+            case ARCADE_TTA:
+                if(headingController != null && usesGyro) {
+                    //The heading controller turns to the stick's angle itself, so the turn PID isn't needed.
+                    if(!tta.isZeroVector()) {
+                        headingController.hold(tta.theta);
+                    }
+                    correction = headingController.update(heading, getYawRate(), turnLeft || turnRight);
                     turnCorrection = 0;
                 }
-
-                if(!turnLeft && !turnRight) {
-                    topLeft.setPower(Range.clip(input.x - turnCorrection - correction,-1,1));
-                    topRight.setPower(Range.clip(input.y + turnCorrection + correction,-1,1));
-                    botLeft.setPower(Range.clip(input.y - turnCorrection - correction,-1,1));
-                    botRight.setPower(Range.clip(input.x + turnCorrection + correction,-1,1));
-                }
-                else if(turnLeft) {
-                    topLeft.setPower(Range.clip(input.x - turnLeftPower,-1,1));
-                    topRight.setPower(Range.clip(input.y + turnLeftPower,-1,1));
-                    botLeft.setPower(Range.clip(input.y - turnLeftPower,-1,1));
-                    botRight.setPower(Range.clip(input.x + turnLeftPower,-1,1));
-                }
                 else {
-                    topLeft.setPower(Range.clip(input.x + turnRightPower,-1,1));
-                    topRight.setPower(Range.clip(input.y - turnRightPower,-1,1));
-                    botLeft.setPower(Range.clip(input.y + turnRightPower,-1,1));
-                    botRight.setPower(Range.clip(input.x - turnRightPower,-1,1));
-                }
-                break;
-
-            //Arcade drive.
-            case ARCADE:
-                correction = usesGyro ? stabilityPID.getCorrection(imu.getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX, useDegreesStability ? AngleUnit.DEGREES : AngleUnit.RADIANS).firstAngle) : 0;
+                    correction = usesGyro ? stabilityPID.getCorrection(angleStability) : 0;
 
-                if((turnPower != 0 || turnLeft || turnRight) && usesGyro) {
-                    stabilityPID.setSetpoint(imu.getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX, useDegreesStability ? AngleUnit.DEGREES : AngleUnit.RADIANS).firstAngle);
-                    correction = 0;
-                }
-
-                if(!turnLeft && !turnRight) {
-                    if (input.isZeroVector()) {
-                        topLeft.setPower(Range.clip(turnPower,-1,1));
-                        topRight.setPower(Range.clip(-turnPower,-1,1));
-                        botLeft.setPower(Range.clip(turnPower,-1,1));
-                        botRight.setPower(Range.clip(-turnPower,-1,1));
-                    } else if (input.theta < PI / 4 || input.theta > (7 * PI) / 4) { //right side of the square
-                        topLeft.setPower(Range.clip(input.r + turnPower - correction,-1,1));
-                        topRight.setPower(Range.clip(-input.r - turnPower + correction,-1,1));
-                        botLeft.setPower(Range.clip(-input.r + turnPower - correction,-1,1));
-                        botRight.setPower(Range.clip(input.r - turnPower + correction,-1,1));
-                    } else if (input.theta > PI / 4 && input.theta < (3 * PI) / 4) { //top side of the square
-                        topLeft.setPower(Range.clip(-input.r + turnPower - correction,-1,1));
-                        topRight.setPower(Range.clip(input.r - turnPower + correction,-1,1));
-                        botLeft.setPower(Range.clip(input.r + turnPower - correction,-1,1));
-                        botRight.setPower(Range.clip(-input.r - turnPower + correction,-1,1));
-                    } else if (input.theta > (3 * PI) / 4 && input.theta < (5 * PI) / 4) { //left side of the square
-                        topLeft.setPower(Range.clip(input.r + turnPower - correction,-1,1));
-                        topRight.setPower(Range.clip(input.r - turnPower + correction,-1,1));
-                        botLeft.setPower(Range.clip(input.r + turnPower - correction,-1,1));
-                        botRight.setPower(Range.clip(input.r - turnPower + correction,-1,1));
-                    } else if (input.theta > (5 * PI) / 4 && input.theta < (7 * PI) / 4) { //Bottom side of the square
-                        topLeft.setPower(Range.clip(-input.r + turnPower - correction,-1,1));
-                        topRight.setPower(Range.clip(-input.r - turnPower + correction,-1,1));
-                        botLeft.setPower(Range.clip(-input.r + turnPower - correction,-1,1));
-                        botRight.setPower(Range.clip(-input.r - turnPower + correction,-1,1));
+                    if(!tta.isZeroVector() && usesGyro) {
+                        turnPID.setSetpoint(useDegreesTurn ? Math.toDegrees(tta.theta) : tta.theta);
                     }
-                }
-                else if(turnLeft) {
-                    if (input.isZeroVector()) {
-                        topLeft.setPower(Range.clip(-turnLeftPower,-1,1));
-                        topRight.setPower(Range.clip(turnLeftPower,-1,1));
-                        botLeft.setPower(Range.clip(-turnLeftPower,-1,1));
-                        botRight.setPower(Range.clip(turnLeftPower,-1,1));
-                    } else if (input.theta < PI / 4 || input.theta > (7 * PI) / 4) { //right side of the square
-                        topLeft.setPower(Range.clip(input.r - turnLeftPower,-1,1));
-                        topRight.setPower(Range.clip(-input.r + turnLeftPower,-1,1));
-                        botLeft.setPower(Range.clip(-input.r - turnLeftPower,-1,1));
-                        botRight.setPower(Range.clip(input.r + turnLeftPower,-1,1));
-                    } else if (input.theta > PI / 4 && input.theta < (3 * PI) / 4) { //top side of the square
-                        topLeft.setPower(Range.clip(-input.r - turnLeftPower,-1,1));
-                        topRight.setPower(Range.clip(input.r + turnLeftPower,-1,1));
-                        botLeft.setPower(Range.clip(input.r - turnLeftPower,-1,1));
-                        botRight.setPower(Range.clip(-input.r + turnLeftPower,-1,1));
-                    } else if (input.theta > (3 * PI) / 4 && input.theta < (5 * PI) / 4) { //left side of the square
-                        topLeft.setPower(Range.clip(input.r - turnLeftPower,-1,1));
-                        topRight.setPower(Range.clip(input.r + turnLeftPower,-1,1));
-                        botLeft.setPower(Range.clip(input.r - turnLeftPower,-1,1));
-                        botRight.setPower(Range.clip(input.r + turnLeftPower,-1,1));
-                    } else if (input.theta > (5 * PI) / 4 && input.theta < (7 * PI) / 4) { //Bottom side of the square
-                        topLeft.setPower(Range.clip(-input.r - turnLeftPower,-1,1));
-                        topRight.setPower(Range.clip(-input.r + turnLeftPower,-1,1));
-                        botLeft.setPower(Range.clip(-input.r - turnLeftPower,-1,1));
-                        botRight.setPower(Range.clip(-input.r + turnLeftPower,-1,1));
-                    }
-                }
-                else {
-                    if (input.isZeroVector()) {
-                        topLeft.setPower(Range.clip(turnRightPower,-1,1));
-                        topRight.setPower(Range.clip(-turnRightPower,-1,1));
-                        botLeft.setPower(Range.clip(turnRightPower,-1,1));
-                        botRight.setPower(Range.clip(-turnRightPower,-1,1));
-                    } else if (input.theta < PI / 4 || input.theta > (7 * PI) / 4) { //right side of the square
-                        topLeft.setPower(Range.clip(input.r + turnRightPower,-1,1));
-                        topRight.setPower(Range.clip(-input.r - turnRightPower,-1,1));
-                        botLeft.setPower(Range.clip(-input.r + turnRightPower,-1,1));
-                        botRight.setPower(Range.clip(input.r - turnRightPower,-1,1));
-                    } else if (input.theta > PI / 4 && input.theta < (3 * PI) / 4) { //top side of the square
-                        topLeft.setPower(Range.clip(-input.r + turnRightPower,-1,1));
-                        topRight.setPower(Range.clip(input.r - turnRightPower,-1,1));
-                        botLeft.setPower(Range.clip(input.r + turnRightPower,-1,1));
-                        botRight.setPower(Range.clip(-input.r - turnRightPower,-1,1));
-                    } else if (input.theta > (3 * PI) / 4 && input.theta < (5 * PI) / 4) { //left side of the square
-                        topLeft.setPower(Range.clip(input.r + turnRightPower,-1,1));
-                        topRight.setPower(Range.clip(input.r - turnRightPower,-1,1));
-                        botLeft.setPower(Range.clip(input.r + turnRightPower,-1,1));
-                        botRight.setPower(Range.clip(input.r - turnRightPower,-1,1));
-                    } else if (input.theta > (5 * PI) / 4 && input.theta < (7 * PI) / 4) { //Bottom side of the square
-                        topLeft.setPower(Range.clip(-input.r + turnRightPower,-1,1));
-                        topRight.setPower(Range.clip(-input.r - turnRightPower,-1,1));
-                        botLeft.setPower(Range.clip(-input.r + turnRightPower,-1,1));
-                        botRight.setPower(Range.clip(-input.r - turnRightPower,-1,1));
-                    }
-                }
 
-                break;
-
-            //Arcade drive with turn to angle functionality.
-            case ARCADE_TTA:
-                correction = usesGyro ? stabilityPID.getCorrection(imu.getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX, useDegreesStability ? AngleUnit.DEGREES : AngleUnit.RADIANS).firstAngle) : 0;
+                    turnCorrection = turnPID.getCorrection(angleTurn);
 
-                if((turnPower != 0 || turnLeft || turnRight) && usesGyro) {
-                    stabilityPID.setSetpoint(imu.getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX, useDegreesStability ? AngleUnit.DEGREES : AngleUnit.RADIANS).firstAngle);
-                    correction = 0;
-                }
-
-                if(!tta.isZeroVector() && usesGyro) {
-                    turnPID.setSetpoint(useDegreesTurn ? Math.toDegrees(tta.theta) : tta.theta);
+                    if((!tta.isZeroVector() || turnLeft || turnRight) && usesGyro) {
+                        stabilityPID.setSetpoint(angleStability);
+                        correction = 0;
+                        turnCorrection = 0;
+                    }
                 }
 
-                turnCorrection = turnPID.getCorrection(imu.getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX, useDegreesTurn ? AngleUnit.DEGREES : AngleUnit.RADIANS).firstAngle);
-
-                if((!tta.isZeroVector() || turnLeft || turnRight) && usesGyro) {
-                    stabilityPID.setSetpoint(imu.getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX, useDegreesStability ? AngleUnit.DEGREES : AngleUnit.RADIANS).firstAngle);
+                //Arcade drive only turns in place when the stick is released, it doesn't hold its heading.
+                if(driveType == DriveType.ARCADE_TTA && input.isZeroVector()) {
                     correction = 0;
-                    turnCorrection = 0;
                 }
 
                 if(!turnLeft && !turnRight) {
-                    if (input.isZeroVector()) {
-                        topLeft.setPower(Range.clip(-turnCorrection,-1,1));
-                        topRight.setPower(Range.clip(turnCorrection,-1,1));
-                        botLeft.setPower(Range.clip(-turnCorrection,-1,1));
-                        botRight.setPower(Range.clip(turnCorrection,-1,1));
-                    } else if (input.theta < PI / 4 || input.theta > (7 * PI) / 4) { //right side of the square
-                        topLeft.setPower(Range.clip(input.r - turnCorrection - correction,-1,1));
-                        topRight.setPower(Range.clip(-input.r + turnCorrection + correction,-1,1));
-                        botLeft.setPower(Range.clip(-input.r - turnCorrection - correction,-1,1));
-                        botRight.setPower(Range.clip(input.r + turnCorrection + correction,-1,1));
-                    } else if (input.theta > PI / 4 && input.theta < (3 * PI) / 4) { //top side of the square
-                        topLeft.setPower(Range.clip(-input.r - turnCorrection - correction,-1,1));
-                        topRight.setPower(Range.clip(input.r + turnCorrection + correction,-1,1));
-                        botLeft.setPower(Range.clip(input.r - turnCorrection - correction,-1,1));
-                        botRight.setPower(Range.clip(-input.r + turnCorrection + correction,-1,1));
-                    } else if (input.theta > (3 * PI) / 4 && input.theta < (5 * PI) / 4) { //left side of the square
-                        topLeft.setPower(Range.clip(input.r - turnCorrection - correction,-1,1));
-                        topRight.setPower(Range.clip(input.r + turnCorrection + correction,-1,1));
-                        botLeft.setPower(Range.clip(input.r - turnCorrection - correction,-1,1));
-                        botRight.setPower(Range.clip(input.r + turnCorrection + correction,-1,1));
-                    } else if (input.theta > (5 * PI) / 4 && input.theta < (7 * PI) / 4) { //Bottom side of the square
-                        topLeft.setPower(Range.clip(-input.r - turnCorrection - correction,-1,1));
-                        topRight.setPower(Range.clip(-input.r + turnCorrection + correction,-1,1));
-                        botLeft.setPower(Range.clip(-input.r - turnCorrection - correction,-1,1));
-                        botRight.setPower(Range.clip(-input.r + turnCorrection + correction,-1,1));
-                    }
+                    move(input.x, input.y, -turnCorrection - correction, heading);
                 }
                 else if(turnLeft) {
-                    if (input.isZeroVector()) {
-                        topLeft.setPower(Range.clip(-turnLeftPower,-1,1));
-                        topRight.setPower(Range.clip(turnLeftPower,-1,1));
-                        botLeft.setPower(Range.clip(-turnLeftPower,-1,1));
-                        botRight.setPower(Range.clip(turnLeftPower,-1,1));
-                    } else if (input.theta < PI / 4 || input.theta > (7 * PI) / 4) { //right side of the square
-                        topLeft.setPower(Range.clip(input.r - turnLeftPower,-1,1));
-                        topRight.setPower(Range.clip(-input.r + turnLeftPower,-1,1));
-                        botLeft.setPower(Range.clip(-input.r - turnLeftPower,-1,1));
-                        botRight.setPower(Range.clip(input.r + turnLeftPower,-1,1));
-                    } else if (input.theta > PI / 4 && input.theta < (3 * PI) / 4) { //top side of the square
-                        topLeft.setPower(Range.clip(-input.r - turnLeftPower,-1,1));
-                        topRight.setPower(Range.clip(input.r + turnLeftPower,-1,1));
-                        botLeft.setPower(Range.clip(input.r - turnLeftPower,-1,1));
-                        botRight.setPower(Range.clip(-input.r + turnLeftPower,-1,1));
-                    } else if (input.theta > (3 * PI) / 4 && input.theta < (5 * PI) / 4) { //left side of the square
-                        topLeft.setPower(Range.clip(input.r - turnLeftPower,-1,1));
-                        topRight.setPower(Range.clip(input.r + turnLeftPower,-1,1));
-                        botLeft.setPower(Range.clip(input.r - turnLeftPower,-1,1));
-                        botRight.setPower(Range.clip(input.r + turnLeftPower,-1,1));
-                    } else if (input.theta > (5 * PI) / 4 && input.theta < (7 * PI) / 4) { //Bottom side of the square
-                        topLeft.setPower(Range.clip(-input.r - turnLeftPower,-1,1));
-                        topRight.setPower(Range.clip(-input.r + turnLeftPower,-1,1));
-                        botLeft.setPower(Range.clip(-input.r - turnLeftPower,-1,1));
-                        botRight.setPower(Range.clip(-input.r + turnLeftPower,-1,1));
-                    }
+                    move(input.x, input.y, -turnLeftPower, heading);
                 }
                 else {
-                    if (input.isZeroVector()) {
-                        topLeft.setPower(Range.clip(turnRightPower,-1,1));
-                        topRight.setPower(Range.clip(-turnRightPower,-1,1));
-                        botLeft.setPower(Range.clip(turnRightPower,-1,1));
-                        botRight.setPower(Range.clip(-turnRightPower,-1,1));
-                    } else if (input.theta < PI / 4 || input.theta > (7 * PI) / 4) { //right side of the square
-                        topLeft.setPower(Range.clip(input.r + turnRightPower,-1,1));
-                        topRight.setPower(Range.clip(-input.r - turnRightPower,-1,1));
-                        botLeft.setPower(Range.clip(-input.r + turnRightPower,-1,1));
-                        botRight.setPower(Range.clip(input.r - turnRightPower,-1,1));
-                    } else if (input.theta > PI / 4 && input.theta < (3 * PI) / 4) { //top side of the square
-                        topLeft.setPower(Range.clip(-input.r + turnRightPower,-1,1));
-                        topRight.setPower(Range.clip(input.r - turnRightPower,-1,1));
-                        botLeft.setPower(Range.clip(input.r + turnRightPower,-1,1));
-                        botRight.setPower(Range.clip(-input.r - turnRightPower,-1,1));
-                    } else if (input.theta > (3 * PI) / 4 && input.theta < (5 * PI) / 4) { //left side of the square
-                        topLeft.setPower(Range.clip(input.r + turnRightPower,-1,1));
-                        topRight.setPower(Range.clip(input.r - turnRightPower,-1,1));
-                        botLeft.setPower(Range.clip(input.r + turnRightPower,-1,1));
-                        botRight.setPower(Range.clip(input.r - turnRightPower,-1,1));
-                    } else if (input.theta > (5 * PI) / 4 && input.theta < (7 * PI) / 4) { //Bottom side of the square
-                        topLeft.setPower(Range.clip(-input.r + turnRightPower,-1,1));
-                        topRight.setPower(Range.clip(-input.r - turnRightPower,-1,1));
-                        botLeft.setPower(Range.clip(-input.r + turnRightPower,-1,1));
-                        botRight.setPower(Range.clip(-input.r - turnRightPower,-1,1));
-                    }
+                    move(input.x, input.y, turnRightPower, heading);
                 }
-
                 break;
 
             //Special driving mode requested by Matthew. Two joysticks, one controlling each side of the robot. Stability PID and turn to angle PID do not matter here.
             case MATTHEW:
-                left.rotate(-(PI / 4));
-                right.rotate(-(PI / 4));
-
-                if(!turnLeft &&  !turnRight) {
-                    topLeft.setPower(left.x);
-                    botLeft.setPower(left.y);
-
-                    topRight.setPower(right.y);
-                    botRight.setPower(right.x);
-                }
-                else if (turnLeft) {
-                    topLeft.setPower(left.x - turnLeftPower);
-                    botLeft.setPower(left.y - turnLeftPower);
-
-                    topRight.setPower(right.y + turnLeftPower);
-                    botRight.setPower(right.x + turnLeftPower);
-                }
-                else {
-                    topLeft.setPower(left.x - turnRightPower);
-                    botLeft.setPower(left.y - turnRightPower);
-
-                    topRight.setPower(right.y + turnRightPower);
-                    botRight.setPower(right.x + turnRightPower);
-                }
+                //Turn right turns clockwise. It used to apply the same powers as turn left.
+                double omega = turnLeft ? turnLeftPower : turnRight ? -turnRightPower : 0;
+                setPower(kinematics.calculateSplit(left.x, left.y, right.x, right.y, omega));
                 break;
         }
     }
@@ -631,10 +419,17 @@ public class OmniWheelDrive extends SubSystem {
      * Resets all encoders affiliated with the drive train.
      */
     public void resetAllEncoders() {
-        topLeft.setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
-        topRight.setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
-        botLeft.setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
-        botRight.setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
+        synchronized (encoderLock) {
+            encoderOffsets[HolonomicKinematics.TOP_LEFT] += topLeft.getCurrentPosition();
+            encoderOffsets[HolonomicKinematics.TOP_RIGHT] += topRight.getCurrentPosition();
+            encoderOffsets[HolonomicKinematics.BOT_LEFT] += botLeft.getCurrentPosition();
+            encoderOffsets[HolonomicKinematics.BOT_RIGHT] += botRight.getCurrentPosition();
+
+            topLeft.setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
+            topRight.setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
+            botLeft.setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
+            botRight.setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
+        }
 
         topLeft.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
         topRight.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
@@ -647,6 +442,12 @@ public class OmniWheelDrive extends SubSystem {
         topRight.setPower(0);
         botLeft.setPower(0);
         botRight.setPower(0);
+        robot.powerManager.release(this);
+
+        for(int i = 0; i < 4; i++) {
+            velocitySetpoints[i] = 0;
+        }
+        lastVelocityUpdate = 0;
     }
 
     /**
@@ -664,16 +465,10 @@ public class OmniWheelDrive extends SubSystem {
         turnPID.setSetpoint(angle);
         while(Math.abs(angle-imu.getAngularOrientation(AxesReference.INTRINSIC,AxesOrder.ZYX,useDegreesTurn ? AngleUnit.DEGREES : AngleUnit.RADIANS).firstAngle) < tolerance) {
             double correction = turnPID.getCorrection(imu.getAngularOrientation(AxesReference.INTRINSIC,AxesOrder.ZYX,useDegreesTurn ? AngleUnit.DEGREES : AngleUnit.RADIANS).firstAngle);
-            topLeft.setPower(-correction);
-            topRight.setPower(correction);
-            botLeft.setPower(-correction);
-            botRight.setPower(correction);
+            setPower(kinematics.calculate(0, 0, correction));
             sleep(1);
         }
-        topLeft.setPower(0);
-        topRight.setPower(0);
-        botLeft.setPower(0);
-        botRight.setPower(0);
+        stopAllMotors();
     }
 
     /**
@@ -688,20 +483,7 @@ public class OmniWheelDrive extends SubSystem {
             throw new WrongDrivetypeException("Error: Drive arguments do not match drive type.");
         }
 
-        leftVector.scalarMultiply(constantSpeedMultiplier);
-        rightVector.scalarMultiply(constantSpeedMultiplier);
-
-        leftVector.rotate(-(PI / 4));
-        rightVector.rotate(-(PI / 4));
-
-        leftVector.scalarMultiply(constantSpeedMultiplier);
-        rightVector.scalarMultiply(constantSpeedMultiplier);
-
-        topLeft.setPower(leftVector.x);
-        botLeft.setPower(leftVector.y);
-
-        topRight.setPower(rightVector.y);
-        botRight.setPower(rightVector.x);
+        setPower(kinematics.calculateSplit(leftVector.x * constantSpeedMultiplier, leftVector.y * constantSpeedMultiplier, rightVector.x * constantSpeedMultiplier, rightVector.y * constantSpeedMultiplier, 0));
     }
 
     /**
@@ -719,17 +501,9 @@ public class OmniWheelDrive extends SubSystem {
 
         resetAllEncoders();
 
-        leftVector.rotate(-(PI / 4));
-        rightVector.rotate(-(PI / 4));
-
         long startTime = System.currentTimeMillis();
         while(System.currentTimeMillis() - startTime < timeMs) {
-            topLeft.setPower(leftVector.x);
-            botLeft.setPower(leftVector.y);
-
-            topRight.setPower(rightVector.y);
-            botRight.setPower(rightVector.x);
-
+            setPower(kinematics.calculateSplit(leftVector.x, leftVector.y, rightVector.x, rightVector.y, 0));
             sleep(1);
         }
 
@@ -748,58 +522,48 @@ public class OmniWheelDrive extends SubSystem {
      * @throws InterruptedException - Throws this exception when the program is unexpectedly interrupted.
      */
     public void drive(Vector leftVector, Vector rightVector, double distanceLeft, double distanceRight, Units unit) throws InterruptedException {
-        {
-            if (driveType != DriveType.MATTHEW) {
-                throw new WrongDrivetypeException("Error: Drive arguments do not match drive type.");
-            }
-
-            if ((leftVector.isZeroVector() && distanceLeft != 0) || (rightVector.isZeroVector() && distanceRight != 0)) {
-                throw new InvalidMoveCommandException("You can't move anywhere if you aren't trying to move ;)");
-            }
+        if (driveType != DriveType.MATTHEW) {
+            throw new WrongDrivetypeException("Error: Drive arguments do not match drive type.");
+        }
 
-            if (distanceLeft < 0 || distanceRight < 0) {
-                throw new DumpsterFireException("Where you're going, you don't need roads! (distance must be positive)");
-            }
+        if ((leftVector.isZeroVector() && distanceLeft != 0) || (rightVector.isZeroVector() && distanceRight != 0)) {
+            throw new InvalidMoveCommandException("You can't move anywhere if you aren't trying to move ;)");
+        }
 
-            resetAllEncoders();
+        if (distanceLeft < 0 || distanceRight < 0) {
+            throw new DumpsterFireException("Where you're going, you don't need roads! (distance must be positive)");
+        }
 
-            Vector leftDisplacement = new Vector(distanceLeft, leftVector.theta, Vector.CoordinateType.POLAR);
-            Vector rightDisplacement = new Vector(distanceRight, rightVector.theta, Vector.CoordinateType.POLAR);
+        resetAllEncoders();
 
-            EncoderToDistanceProcessor encProcessor = new EncoderToDistanceProcessor(encoderPerMeter);
+        Vector leftDisplacement = new Vector(distanceLeft, leftVector.theta, Vector.CoordinateType.POLAR);
+        Vector rightDisplacement = new Vector(distanceRight, rightVector.theta, Vector.CoordinateType.POLAR);
 
-            leftVector.scalarMultiply(constantSpeedMultiplier);
-            rightVector.scalarMultiply(constantSpeedMultiplier);
+        EncoderToDistanceProcessor encProcessor = new EncoderToDistanceProcessor(encoderPerMeter);
 
-            leftVector.rotate(-(PI / 4));
-            rightVector.rotate(-(PI / 4));
+        double[] powers = kinematics.calculateSplit(leftVector.x * constantSpeedMultiplier, leftVector.y * constantSpeedMultiplier, rightVector.x * constantSpeedMultiplier, rightVector.y * constantSpeedMultiplier, 0);
+        double topLeftPower = powers[HolonomicKinematics.TOP_LEFT], botLeftPower = powers[HolonomicKinematics.BOT_LEFT];
+        double topRightPower = powers[HolonomicKinematics.TOP_RIGHT], botRightPower = powers[HolonomicKinematics.BOT_RIGHT];
 
-            leftDisplacement.rotate(-(PI / 4));
-            rightDisplacement.rotate(-(PI / 4));
+        leftDisplacement.rotate(-(PI / 4));
+        rightDisplacement.rotate(-(PI / 4));
 
-            double thresh1Left = encProcessor.getEncoderAmount(Math.abs(leftDisplacement.x), unit);
-            double thresh2Left = encProcessor.getEncoderAmount(Math.abs(leftDisplacement.y), unit);
+        double thresh1Left = encProcessor.getEncoderAmount(Math.abs(leftDisplacement.x), unit);
+        double thresh2Left = encProcessor.getEncoderAmount(Math.abs(leftDisplacement.y), unit);
 
-            double thresh1Right = encProcessor.getEncoderAmount(Math.abs(leftDisplacement.x), unit);
-            double thresh2Right = encProcessor.getEncoderAmount(Math.abs(leftDisplacement.y), unit);
+        double thresh1Right = encProcessor.getEncoderAmount(Math.abs(rightDisplacement.x), unit);
+        double thresh2Right = encProcessor.getEncoderAmount(Math.abs(rightDisplacement.y), unit);
 
-            while (Math.abs(topLeft.getCurrentPosition()) < thresh1Left && Math.abs(topRight.getCurrentPosition()) < thresh2Right && Math.abs(botLeft.getCurrentPosition()) < thresh2Left && Math.abs(botRight.getCurrentPosition()) < thresh1Right) {
-                if (Math.abs(topLeft.getCurrentPosition()) < thresh1Left && Math.abs(botLeft.getCurrentPosition()) < thresh2Left) {
-                    topLeft.setPower(leftVector.x);
-                    botLeft.setPower(leftVector.y);
-                } else {
-                    topLeft.setPower(0);
-                    botLeft.setPower(0);
-                }
-                if (Math.abs(botRight.getCurrentPosition()) < thresh1Right && Math.abs(topRight.getCurrentPosition()) < thresh2Right) {
-                    topRight.setPower(rightVector.y);
-                    botRight.setPower(rightVector.x);
-                } else {
-                    topRight.setPower(0);
-                    botRight.setPower(0);
-                }
-                sleep(1);
-            }
+        double[] wheelPowers = new double[4];
+        while (Math.abs(topLeft.getCurrentPosition()) < thresh1Left && Math.abs(topRight.getCurrentPosition()) < thresh2Right && Math.abs(botLeft.getCurrentPosition()) < thresh2Left && Math.abs(botRight.getCurrentPosition()) < thresh1Right) {
+            boolean leftActive = Math.abs(topLeft.getCurrentPosition()) < thresh1Left && Math.abs(botLeft.getCurrentPosition()) < thresh2Left;
+            boolean rightActive = Math.abs(botRight.getCurrentPosition()) < thresh1Right && Math.abs(topRight.getCurrentPosition()) < thresh2Right;
+            wheelPowers[HolonomicKinematics.TOP_LEFT] = leftActive ? topLeftPower : 0;
+            wheelPowers[HolonomicKinematics.BOT_LEFT] = leftActive ? botLeftPower : 0;
+            wheelPowers[HolonomicKinematics.TOP_RIGHT] = rightActive ? topRightPower : 0;
+            wheelPowers[HolonomicKinematics.BOT_RIGHT] = rightActive ? botRightPower : 0;
+            setPower(wheelPowers);
+            sleep(1);
         }
 
         stopAllMotors();
@@ -811,63 +575,7 @@ public class OmniWheelDrive extends SubSystem {
      * @param v - The direction vector indicating how the robot should move.
      */
     public void drive(Vector v){
-        if (driveType == DriveType.MATTHEW) {
-            throw new WrongDrivetypeException("Error: Drive arguments do not match drive type.");
-        }
-
-        v.scalarMultiply(constantSpeedMultiplier);
-
-        switch (driveType) {
-            case STANDARD_TTA:
-            case STANDARD:
-                v.rotate(-(PI / 4));
-                topLeft.setPower(v.x);
-                topRight.setPower(v.y);
-                botLeft.setPower(v.y);
-                botRight.setPower(v.x);
-                break;
-            case FIELD_CENTRIC_TTA:
-            case FIELD_CENTRIC:
-                if(!usesGyro) {
-                    throw new WrongDrivetypeException("Field Centric Drive Must uses the IMU but the IMU was never set up");
-                }
-                v.rotate(-(PI / 4) + imu.getAngularOrientation(AxesReference.INTRINSIC,AxesOrder.ZYX,AngleUnit.RADIANS).firstAngle);
-                topLeft.setPower(v.x);
-                topRight.setPower(v.y);
-                botLeft.setPower(v.y);
-                botRight.setPower(v.x);
-                break;
-            case ARCADE_TTA:
-            case ARCADE:
-                if (v.isZeroVector()) {
-                    topLeft.setPower(0);
-                    topRight.setPower(0);
-                    botLeft.setPower(0);
-                    botRight.setPower(0);
-                }
-                else if (v.theta < PI / 4 || v.theta > (7 * PI) / 4) { //right side of the square
-                    topLeft.setPower(v.r);
-                    topRight.setPower(-v.r);
-                    botLeft.setPower(-v.r);
-                    botRight.setPower(v.r);
-                } else if (v.theta > PI / 4 && v.theta < (3 * PI) / 4) { //top side of the square
-                    topLeft.setPower(-v.r);
-                    topRight.setPower(v.r);
-                    botLeft.setPower(v.r);
-                    botRight.setPower(-v.r);
-                } else if (v.theta > (3 * PI) / 4 && v.theta < (5 * PI) / 4) { //left side of the square
-                    topLeft.setPower(v.r);
-                    topRight.setPower(v.r);
-                    botLeft.setPower(v.r);
-                    botRight.setPower(v.r);
-                } else if (v.theta > (5 * PI) / 4 && v.theta < (7 * PI) / 4) { //Bottom side of the square
-                    topLeft.setPower(-v.r);
-                    topRight.setPower(-v.r);
-                    botLeft.setPower(-v.r);
-                    botRight.setPower(-v.r);
-                }
-                break;
-        }
+        drive(v, false);
     }
 
     /**
@@ -881,68 +589,16 @@ public class OmniWheelDrive extends SubSystem {
             throw new WrongDrivetypeException("Error: Drive arguments do not match drive type.");
         }
 
-        v.scalarMultiply(constantSpeedMultiplier);
-
-        double correction;
-
-        if(stabilityControl && usesGyro) {
-            correction = stabilityPID.getCorrection(imu.getAngularOrientation(AxesReference.INTRINSIC,AxesOrder.ZYX, useDegreesStability ? AngleUnit.DEGREES : AngleUnit.RADIANS).firstAngle);
-        }
-        else {
-            correction = 0;
+        //Arcade drive stops when it isn't told to move.
+        if((driveType == DriveType.ARCADE || driveType == DriveType.ARCADE_TTA) && v.isZeroVector()) {
+            stopAllMotors();
+            return;
         }
 
-        switch (driveType) {
-            case STANDARD_TTA:
-            case STANDARD:
-                v.rotate(-(PI / 4));
-                topLeft.setPower(v.x - correction);
-                topRight.setPower(v.y + correction);
-                botLeft.setPower(v.y - correction);
-                botRight.setPower(v.x + correction);
-                break;
-            case FIELD_CENTRIC_TTA:
-            case FIELD_CENTRIC:
-                if(!usesGyro) {
-                    throw new WrongDrivetypeException("Field Centric Drive Must uses the IMU but the IMU was never set up");
-                }
-                v.rotate(-(PI / 4) + imu.getAngularOrientation(AxesReference.INTRINSIC,AxesOrder.ZYX,AngleUnit.RADIANS).firstAngle);
-                topLeft.setPower(v.x - correction);
-                topRight.setPower(v.y + correction);
-                botLeft.setPower(v.y - correction);
-                botRight.setPower(v.x + correction);
-                break;
-            case ARCADE_TTA:
-            case ARCADE:
-                if (v.isZeroVector()) {
-                    topLeft.setPower(0);
-                    topRight.setPower(0);
-                    botLeft.setPower(0);
-                    botRight.setPower(0);
-                }
-                else if (v.theta < PI / 4 || v.theta > (7 * PI) / 4) { //right side of the square
-                    topLeft.setPower(v.r - correction);
-                    topRight.setPower(-v.r + correction);
-                    botLeft.setPower(-v.r - correction);
-                    botRight.setPower(v.r + correction);
-                } else if (v.theta > PI / 4 && v.theta < (3 * PI) / 4) { //top side of the square
-                    topLeft.setPower(-v.r - correction);
-                    topRight.setPower(v.r + correction);
-                    botLeft.setPower(v.r - correction);
-                    botRight.setPower(-v.r + correction);
-                } else if (v.theta > (3 * PI) / 4 && v.theta < (5 * PI) / 4) { //left side of the square
-                    topLeft.setPower(v.r - correction);
-                    topRight.setPower(v.r + correction);
-                    botLeft.setPower(v.r - correction);
-                    botRight.setPower(v.r + correction);
-                } else if (v.theta > (5 * PI) / 4 && v.theta < (7 * PI) / 4) { //Bottom side of the square
-                    topLeft.setPower(-v.r - correction);
-                    topRight.setPower(-v.r + correction);
-                    botLeft.setPower(-v.r - correction);
-                    botRight.setPower(-v.r + correction);
-                }
-                break;
-        }
+        double heading = getMoveHeading(stabilityControl);
+        double correction = getStabilityCorrection(stabilityControl, heading);
+
+        move(v.x * constantSpeedMultiplier, v.y * constantSpeedMultiplier, -correction, heading);
     }
 
     /**
@@ -955,100 +611,7 @@ public class OmniWheelDrive extends SubSystem {
      * @throws InterruptedException - This error is thrown when the program is interrupted unexpectedly.
      */
     public void drive(Vector v, double distance, Units unit) throws InterruptedException{
-        if (driveType == DriveType.MATTHEW) {
-            throw new WrongDrivetypeException("Error: Drive arguments do not match drive type.");
-        }
-
-        if(v.isZeroVector() && distance != 0) {
-            throw new InvalidMoveCommandException("You can't move anywhere if you aren't trying to move ;)");
-        }
-
-        if(distance < 0) {
-            throw new DumpsterFireException("Where you're going, you don't need roads! (distance must be positive)");
-        }
-
-        if((driveType == DriveType.ARCADE || driveType == DriveType.ARCADE_TTA) && (v.theta == PI/4 || v.theta == (3*PI)/4 || v.theta == (5*PI)/4 || v.theta == (7*PI)/4)) {
-            throw new InvalidMoveCommandException("Error: You input an invalid velocity vector for arcade drive.");
-        }
-
-        v.scalarMultiply(constantSpeedMultiplier);
-
-        Vector displacement = new Vector(distance,v.theta,Vector.CoordinateType.POLAR);
-        EncoderToDistanceProcessor encProcessor = new EncoderToDistanceProcessor(encoderPerMeter);
-
-        resetAllEncoders();
-
-        double thresh1;
-        double thresh2;
-
-        switch (driveType) {
-            case STANDARD_TTA:
-            case STANDARD:
-                v.rotate(-(PI / 4));
-                displacement.rotate(-(PI / 4));
-
-                thresh1 = encProcessor.getEncoderAmount(Math.abs(displacement.x),unit);
-                thresh2 = encProcessor.getEncoderAmount(Math.abs(displacement.y),unit);
-
-                while(Math.abs(topLeft.getCurrentPosition()) < thresh1 && Math.abs(topRight.getCurrentPosition()) < thresh2 && Math.abs(botLeft.getCurrentPosition()) < thresh2 && Math.abs(botRight.getCurrentPosition()) < thresh1) {
-                    topLeft.setPower(v.x);
-                    topRight.setPower(v.y);
-                    botLeft.setPower(v.y);
-                    botRight.setPower(v.x);
-                    sleep(1);
-                }
-                break;
-            case FIELD_CENTRIC_TTA:
-            case FIELD_CENTRIC:
-                if(!usesGyro) {
-                    throw new WrongDrivetypeException("Field Centric Drive Must uses the IMU but the IMU was never set up");
-                }
-
-                v.rotate(-(PI / 4) + imu.getAngularOrientation(AxesReference.INTRINSIC,AxesOrder.ZYX,AngleUnit.RADIANS).firstAngle);
-                displacement.rotate(-(PI / 4) + imu.getAngularOrientation(AxesReference.INTRINSIC,AxesOrder.ZYX,AngleUnit.RADIANS).firstAngle);
-
-                thresh1 = encProcessor.getEncoderAmount(Math.abs(displacement.x),unit);
-                thresh2 = encProcessor.getEncoderAmount(Math.abs(displacement.y),unit);
-
-                while(Math.abs(topLeft.getCurrentPosition()) < thresh1 && Math.abs(topRight.getCurrentPosition()) < thresh2 && Math.abs(botLeft.getCurrentPosition()) < thresh2 && Math.abs(botRight.getCurrentPosition()) < thresh1) {
-                    topLeft.setPower(v.x);
-                    topRight.setPower(v.y);
-                    botLeft.setPower(v.y);
-                    botRight.setPower(v.x);
-                    sleep(1);
-                }
-                break;
-            case ARCADE_TTA:
-            case ARCADE:
-
-                double thresh = encoderPerMeter*Math.sqrt(2)/2;
-
-                while(Math.abs(topLeft.getCurrentPosition()) < thresh && Math.abs(topRight.getCurrentPosition()) < thresh && Math.abs(botLeft.getCurrentPosition()) < thresh && Math.abs(botRight.getCurrentPosition()) < thresh) {
-                    if (v.theta < PI / 4 || v.theta > (7 * PI) / 4) { //right side of the square
-                        topLeft.setPower(v.r);
-                        topRight.setPower(-v.r);
-                        botLeft.setPower(-v.r);
-                        botRight.setPower(v.r);
-                    } else if (v.theta > PI / 4 && v.theta < (3 * PI) / 4) { //top side of the square
-                        topLeft.setPower(-v.r);
-                        topRight.setPower(v.r);
-                        botLeft.setPower(v.r);
-                        botRight.setPower(-v.r);
-                    } else if (v.theta > (3 * PI) / 4 && v.theta < (5 * PI) / 4) { //left side of the square
-                        topLeft.setPower(v.r);
-                        topRight.setPower(v.r);
-                        botLeft.setPower(v.r);
-                        botRight.setPower(v.r);
-                    } else if (v.theta > (5 * PI) / 4 && v.theta < (7 * PI) / 4) { //Bottom side of the square
-                        topLeft.setPower(-v.r);
-                        topRight.setPower(-v.r);
-                        botLeft.setPower(-v.r);
-                        botRight.setPower(-v.r);
-                    }
-                    sleep(1);
-                }
-                break;
-        }
+        drive(v, distance, unit, false);
     }
 
     /**
@@ -1066,8 +629,6 @@ public class OmniWheelDrive extends SubSystem {
             throw new WrongDrivetypeException("Error: Drive arguments do not match drive type.");
         }
 
-        v.scalarMultiply(constantSpeedMultiplier);
-
         if(v.isZeroVector() && distance != 0) {
             throw new InvalidMoveCommandException("You can't move anywhere if you aren't trying to move ;)");
         }
@@ -1083,14 +644,8 @@ public class OmniWheelDrive extends SubSystem {
         Vector displacement = new Vector(distance,v.theta,Vector.CoordinateType.POLAR);
         EncoderToDistanceProcessor encProcessor = new EncoderToDistanceProcessor(encoderPerMeter);
 
-        double correction;
-
-        if(stabilityControl && usesGyro) {
-            correction = stabilityPID.getCorrection(imu.getAngularOrientation(AxesReference.INTRINSIC,AxesOrder.ZYX,useDegreesStability ? AngleUnit.DEGREES : AngleUnit.RADIANS).firstAngle);
-        }
-        else {
-            correction = 0;
-        }
+        double heading = getMoveHeading(stabilityControl);
+        double correction = getStabilityCorrection(stabilityControl, heading);
 
         resetAllEncoders();
 
@@ -1098,74 +653,30 @@ public class OmniWheelDrive extends SubSystem {
         double thresh2;
 
         switch (driveType) {
-            case STANDARD_TTA:
-            case STANDARD:
-                v.rotate(-(PI / 4));
-                displacement.rotate(-(PI / 4));
-
-                thresh1 = encProcessor.getEncoderAmount(Math.abs(displacement.x),unit);
-                thresh2 = encProcessor.getEncoderAmount(Math.abs(displacement.y),unit);
-
-                while(Math.abs(topLeft.getCurrentPosition()) < thresh1 && Math.abs(topRight.getCurrentPosition()) < thresh2 && Math.abs(botLeft.getCurrentPosition()) < thresh2 && Math.abs(botRight.getCurrentPosition()) < thresh1) {
-                    topLeft.setPower(v.x - correction);
-                    topRight.setPower(v.y + correction);
-                    botLeft.setPower(v.y - correction);
-                    botRight.setPower(v.x + correction);
-                    sleep(1);
-                }
+            case ARCADE_TTA:
+            case ARCADE:
+                thresh1 = encProcessor.getEncoderAmount(distance,unit)*Math.sqrt(2)/2;
+                thresh2 = thresh1;
                 break;
             case FIELD_CENTRIC_TTA:
             case FIELD_CENTRIC:
-                if(!usesGyro) {
-                    throw new WrongDrivetypeException("Field Centric Drive Must uses the IMU but the IMU was never set up");
-                }
-
-                v.rotate(-(PI / 4) + imu.getAngularOrientation(AxesReference.INTRINSIC,AxesOrder.ZYX,AngleUnit.RADIANS).firstAngle);
-                displacement.rotate(-(PI / 4) + imu.getAngularOrientation(AxesReference.INTRINSIC,AxesOrder.ZYX,AngleUnit.RADIANS).firstAngle);
-
+                displacement.rotate(-((PI / 4) + heading));
                 thresh1 = encProcessor.getEncoderAmount(Math.abs(displacement.x),unit);
                 thresh2 = encProcessor.getEncoderAmount(Math.abs(displacement.y),unit);
-
-                while(Math.abs(topLeft.getCurrentPosition()) < thresh1 && Math.abs(topRight.getCurrentPosition()) < thresh2 && Math.abs(botLeft.getCurrentPosition()) < thresh2 && Math.abs(botRight.getCurrentPosition()) < thresh1) {
-                    topLeft.setPower(v.x - correction);
-                    topRight.setPower(v.y + correction);
-                    botLeft.setPower(v.y - correction);
-                    botRight.setPower(v.x + correction);
-                    sleep(1);
-                }
                 break;
-            case ARCADE_TTA:
-            case ARCADE:
-
-                double thresh = encoderPerMeter*Math.sqrt(2)/2;
-
-                while(Math.abs(topLeft.getCurrentPosition()) < thresh && Math.abs(topRight.getCurrentPosition()) < thresh && Math.abs(botLeft.getCurrentPosition()) < thresh && Math.abs(botRight.getCurrentPosition()) < thresh) {
-                    if (v.theta < PI / 4 || v.theta > (7 * PI) / 4) { //right side of the square
-                        topLeft.setPower(v.r - correction);
-                        topRight.setPower(-v.r + correction);
-                        botLeft.setPower(-v.r - correction);
-                        botRight.setPower(v.r + correction);
-                    } else if (v.theta > PI / 4 && v.theta < (3 * PI) / 4) { //top side of the square
-                        topLeft.setPower(-v.r - correction);
-                        topRight.setPower(v.r + correction);
-                        botLeft.setPower(v.r - correction);
-                        botRight.setPower(-v.r + correction);
-                    } else if (v.theta > (3 * PI) / 4 && v.theta < (5 * PI) / 4) { //left side of the square
-                        topLeft.setPower(v.r - correction);
-                        topRight.setPower(v.r + correction);
-                        botLeft.setPower(v.r - correction);
-                        botRight.setPower(v.r + correction);
-                    } else if (v.theta > (5 * PI) / 4 && v.theta < (7 * PI) / 4) { //Bottom side of the square
-                        topLeft.setPower(-v.r - correction);
-                        topRight.setPower(-v.r + correction);
-                        botLeft.setPower(-v.r - correction);
-                        botRight.setPower(-v.r + correction);
-                    }
-                    sleep(1);
-                }
+            default:
+                //The heading is only read here for stability control, the move itself is robot relative.
+                displacement.rotate(-(PI / 4));
+                thresh1 = encProcessor.getEncoderAmount(Math.abs(displacement.x),unit);
+                thresh2 = encProcessor.getEncoderAmount(Math.abs(displacement.y),unit);
                 break;
         }
 
+        while(Math.abs(topLeft.getCurrentPosition()) < thresh1 && Math.abs(topRight.getCurrentPosition()) < thresh2 && Math.abs(botLeft.getCurrentPosition()) < thresh2 && Math.abs(botRight.getCurrentPosition()) < thresh1) {
+            move(v.x * constantSpeedMultiplier, v.y * constantSpeedMultiplier, -correction, heading);
+            sleep(1);
+        }
+
         stopAllMotors();
     }
 
@@ -1187,78 +698,16 @@ public class OmniWheelDrive extends SubSystem {
             throw new InvalidMoveCommandException("Error: You input an invalid velocity vector for arcade drive.");
         }
 
-        v.scalarMultiply(constantSpeedMultiplier);
-
         long startTime = System.currentTimeMillis();
 
-        double correction;
-
-        if(stabilityControl && usesGyro) {
-            correction = stabilityPID.getCorrection(imu.getAngularOrientation(AxesReference.INTRINSIC,AxesOrder.ZYX,useDegreesStability ? AngleUnit.DEGREES : AngleUnit.RADIANS).firstAngle);
-        }
-        else {
-            correction = 0;
-        }
+        double heading = getMoveHeading(stabilityControl);
+        double correction = getStabilityCorrection(stabilityControl, heading);
 
         resetAllEncoders();
 
-        switch (driveType) {
-            case STANDARD_TTA:
-            case STANDARD:
-                v.rotate(-(PI / 4));
-
-                while(System.currentTimeMillis() - startTime < timeMs) {
-                    topLeft.setPower(v.x - correction);
-                    topRight.setPower(v.y + correction);
-                    botLeft.setPower(v.y - correction);
-                    botRight.setPower(v.x + correction);
-                    sleep(1);
-                }
-                break;
-            case FIELD_CENTRIC_TTA:
-            case FIELD_CENTRIC:
-                if(!usesGyro) {
-                    throw new WrongDrivetypeException("Field Centric Drive Must uses the IMU but the IMU was never set up");
-                }
-
-                v.rotate(-(PI / 4) + imu.getAngularOrientation(AxesReference.INTRINSIC,AxesOrder.ZYX,AngleUnit.RADIANS).firstAngle);
-
-                while(System.currentTimeMillis() - startTime < timeMs) {
-                    topLeft.setPower(v.x - correction);
-                    topRight.setPower(v.y + correction);
-                    botLeft.setPower(v.y - correction);
-                    botRight.setPower(v.x + correction);
-                    sleep(1);
-                }
-                break;
-            case ARCADE_TTA:
-            case ARCADE:
-
-                while(System.currentTimeMillis() - startTime < timeMs) {
-                    if (v.theta < PI / 4 || v.theta > (7 * PI) / 4) { //right side of the square
-                        topLeft.setPower(v.r - correction);
-                        topRight.setPower(-v.r + correction);
-                        botLeft.setPower(-v.r - correction);
-                        botRight.setPower(v.r + correction);
-                    } else if (v.theta > PI / 4 && v.theta < (3 * PI) / 4) { //top side of the square
-                        topLeft.setPower(-v.r - correction);
-                        topRight.setPower(v.r + correction);
-                        botLeft.setPower(v.r - correction);
-                        botRight.setPower(-v.r + correction);
-                    } else if (v.theta > (3 * PI) / 4 && v.theta < (5 * PI) / 4) { //left side of the square
-                        topLeft.setPower(v.r - correction);
-                        topRight.setPower(v.r + correction);
-                        botLeft.setPower(v.r - correction);
-                        botRight.setPower(v.r + correction);
-                    } else if (v.theta > (5 * PI) / 4 && v.theta < (7 * PI) / 4) { //Bottom side of the square
-                        topLeft.setPower(-v.r - correction);
-                        topRight.setPower(-v.r + correction);
-                        botLeft.setPower(-v.r - correction);
-                        botRight.setPower(-v.r + correction);
-                    }
-                    sleep(1);
-                }
-                break;
+        while(System.currentTimeMillis() - startTime < timeMs) {
+            move(v.x * constantSpeedMultiplier, v.y * constantSpeedMultiplier, -correction, heading);
+            sleep(1);
         }
 
         stopAllMotors();
@@ -1273,79 +722,7 @@ public class OmniWheelDrive extends SubSystem {
      * @throws InterruptedException - Throws this exception if the program is unexpectedly interrupted.
      */
     public void drive(Vector v, double timeMs) throws InterruptedException{
-        if (driveType == DriveType.MATTHEW) {
-            throw new WrongDrivetypeException("Error: Drive arguments do not match drive type.");
-        }
-
-        if((driveType == DriveType.ARCADE || driveType == DriveType.ARCADE_TTA) && (v.theta == PI/4 || v.theta == (3*PI)/4 || v.theta == (5*PI)/4 || v.theta == (7*PI)/4)) {
-            throw new InvalidMoveCommandException("Error: You input an invalid velocity vector for arcade drive.");
-        }
-
-        v.scalarMultiply(constantSpeedMultiplier);
-
-        long startTime = System.currentTimeMillis();
-
-        resetAllEncoders();
-
-        switch (driveType) {
-            case STANDARD_TTA:
-            case STANDARD:
-                v.rotate(-(PI / 4));
-
-                while(System.currentTimeMillis() - startTime < timeMs) {
-                    topLeft.setPower(v.x);
-                    topRight.setPower(v.y);
-                    botLeft.setPower(v.y);
-                    botRight.setPower(v.x);
-                    sleep(1);
-                }
-                break;
-            case FIELD_CENTRIC_TTA:
-            case FIELD_CENTRIC:
-                if(!usesGyro) {
-                    throw new WrongDrivetypeException("Field Centric Drive Must uses the IMU but the IMU was never set up");
-                }
-
-                v.rotate(-(PI / 4) + imu.getAngularOrientation(AxesReference.INTRINSIC,AxesOrder.ZYX,AngleUnit.RADIANS).firstAngle);
-
-                while(System.currentTimeMillis() - startTime < timeMs) {
-                    topLeft.setPower(v.x);
-                    topRight.setPower(v.y);
-                    botLeft.setPower(v.y);
-                    botRight.setPower(v.x);
-                    sleep(1);
-                }
-                break;
-            case ARCADE_TTA:
-            case ARCADE:
-                while(System.currentTimeMillis() - startTime < timeMs) {
-                    if (v.theta < PI / 4 || v.theta > (7 * PI) / 4) { //right side of the square
-                        topLeft.setPower(v.r);
-                        topRight.setPower(-v.r);
-                        botLeft.setPower(-v.r);
-                        botRight.setPower(v.r);
-                    } else if (v.theta > PI / 4 && v.theta < (3 * PI) / 4) { //top side of the square
-                        topLeft.setPower(-v.r);
-                        topRight.setPower(v.r);
-                        botLeft.setPower(v.r);
-                        botRight.setPower(-v.r);
-                    } else if (v.theta > (3 * PI) / 4 && v.theta < (5 * PI) / 4) { //left side of the square
-                        topLeft.setPower(v.r);
-                        topRight.setPower(v.r);
-                        botLeft.setPower(v.r);
-                        botRight.setPower(v.r);
-                    } else if (v.theta > (5 * PI) / 4 && v.theta < (7 * PI) / 4) { //Bottom side of the square
-                        topLeft.setPower(-v.r);
-                        topRight.setPower(-v.r);
-                        botLeft.setPower(-v.r);
-                        botRight.setPower(-v.r);
-                    }
-                    sleep(1);
-                }
-                break;
-        }
-
-        stopAllMotors();
+        drive(v, timeMs, false);
     }
 
     /**
@@ -1428,6 +805,252 @@ public class OmniWheelDrive extends SubSystem {
         return config;
     }
 
+    /**
+     * Gets the number of encoder ticks per meter traveled by each wheel.
+     *
+     * @return - The number of encoder ticks per meter.
+     */
+    @Override
+    public double getEncodersPerMeter() {
+        return encoderPerMeter;
+    }
+
+    /**
+     * Gets the scale factor of each wheel's encoder from the saved encoder calibration.
+     * A wheel's encoder ticks per meter is the drive's encoder ticks per meter times its scale factor.
+     *
+     * @return - The scale factor of each wheel. [0] is top left, [1] is top right, [2] is bottom left, [3] is bottom right.
+     */
+    @Override
+    public double[] getWheelScales() {
+        return wheelScales.clone();
+    }
+
+    @Override
+    public void setChassisSpeeds(double vx, double vy, double omega) {
+        setPower(kinematics.calculate(vx, vy, omega));
+    }
+
+    @Override
+    public void stopChassis() {
+        stopAllMotors();
+    }
+
+    @Override
+    public boolean isHolonomic() {
+        return true;
+    }
+
+    @Override
+    public WheelLayout getWheelLayout() {
+        return WheelLayout.OMNI_X;
+    }
+
+    @Override
+    public int getWheelCount() {
+        return 4;
+    }
+
+    @Override
+    public void getWheelPositions(int[] positions) {
+        synchronized (encoderLock) {
+            positions[HolonomicKinematics.TOP_LEFT] = encoderOffsets[HolonomicKinematics.TOP_LEFT] + topLeft.getCurrentPosition();
+            positions[HolonomicKinematics.TOP_RIGHT] = encoderOffsets[HolonomicKinematics.TOP_RIGHT] + topRight.getCurrentPosition();
+            positions[HolonomicKinematics.BOT_LEFT] = encoderOffsets[HolonomicKinematics.BOT_LEFT] + botLeft.getCurrentPosition();
+            positions[HolonomicKinematics.BOT_RIGHT] = encoderOffsets[HolonomicKinematics.BOT_RIGHT] + botRight.getCurrentPosition();
+        }
+    }
+
+    @Override
+    public void getWheelVelocities(double[] velocities) {
+        velocities[HolonomicKinematics.TOP_LEFT] = topLeft.getVelocity();
+        velocities[HolonomicKinematics.TOP_RIGHT] = topRight.getVelocity();
+        velocities[HolonomicKinematics.BOT_LEFT] = botLeft.getVelocity();
+        velocities[HolonomicKinematics.BOT_RIGHT] = botRight.getVelocity();
+    }
+
+    /**
+     * Drives at a given chassis velocity using closed loop wheel velocity control.
+     *
+     * @param vx - The strafing velocity in meters/second, positive to the right.
+     * @param vy - The forward velocity in meters/second.
+     * @param omega - The turning velocity in radians/second, positive counterclockwise.
+     *
+     * @throws DumpsterFireException - Throws this exception if velocity control was not enabled in the params.
+     */
+    public void driveVelocity(double vx, double vy, double omega) {
+        if(!useVelocityControl) {
+            throw new DumpsterFireException("Velocity control must be enabled with setVelocityControl to drive at a velocity");
+        }
+        setPower(kinematics.calculate(vx / maxWheelSpeed, vy / maxWheelSpeed, omega * turnRadius / maxWheelSpeed));
+    }
+
+    /**
+     * Gets whether slip was detected on the last velocity update.
+     *
+     * @return - Whether the wheels are slipping.
+     */
+    public boolean isSlipping() {
+        return slipping;
+    }
+
+    /**
+     * Gets the fraction of the commanded wheel speeds currently being sent to the motors.
+     *
+     * @return - The traction scale, between 0 and 1.
+     */
+    public double getTractionScale() {
+        return tractionScale;
+    }
+
+    /**
+     * Moves and turns using the drive's kinematics. Arcade modes snap the translation to the nearest side of the square and field centric modes rotate it by the heading.
+     *
+     * @param vx - The strafing power, positive to the right.
+     * @param vy - The forward power.
+     * @param turnPower - The power to turn at, positive clockwise.
+     * @param heading - The robot's heading in radians. Only used in field centric modes.
+     */
+    private void move(double vx, double vy, double turnPower, double heading) {
+        switch (driveType) {
+            case ARCADE:
+            case ARCADE_TTA:
+                setPower(kinematics.calculateArcade(vx, vy, -turnPower));
+                break;
+            case FIELD_CENTRIC:
+            case FIELD_CENTRIC_TTA:
+                setPower(kinematics.calculateFieldCentric(vx, vy, -turnPower, heading));
+                break;
+            default:
+                setPower(kinematics.calculate(vx, vy, -turnPower));
+                break;
+        }
+    }
+
+    /**
+     * Reads the heading needed by an autonomous drive command.
+     *
+     * @param stabilityControl - Whether the command uses stability control.
+     * @return - The robot's heading in radians, or 0 if the command does not need it.
+     *
+     * @throws WrongDrivetypeException - Throws this exception if the drive is field centric but the IMU was never set up.
+     */
+    private double getMoveHeading(boolean stabilityControl) {
+        boolean fieldCentric = driveType == DriveType.FIELD_CENTRIC || driveType == DriveType.FIELD_CENTRIC_TTA;
+        if(fieldCentric && !usesGyro) {
+            throw new WrongDrivetypeException("Field Centric Drive Must uses the IMU but the IMU was never set up");
+        }
+        return usesGyro && (stabilityControl || fieldCentric) ? getHeading() : 0;
+    }
+
+    /**
+     * Gets the stability PID's correction for a heading.
+     *
+     * @param stabilityControl - Whether stability control is being used.
+     * @param heading - The robot's heading in radians.
+     * @return - The stability correction, or 0 if stability control is not being used.
+     */
+    private double getStabilityCorrection(boolean stabilityControl, double heading) {
+        return stabilityControl && usesGyro ? stabilityPID.getCorrection(useDegreesStability ? Math.toDegrees(heading) : heading) : 0;
+    }
+
+    /**
+     * Gets the robot's heading from the IMU.
+     *
+     * @return - The robot's heading in radians.
+     */
+    private double getHeading() {
+        return imu.getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX, AngleUnit.RADIANS).firstAngle;
+    }
+
+    /**
+     * Gets the robot's yaw rate from the IMU.
+     *
+     * @return - The robot's yaw rate in radians/second. Positive is counterclockwise.
+     */
+    private double getYawRate() {
+        AngularVelocity angularVelocity = imu.getAngularVelocity();
+        return angularVelocity.unit == AngleUnit.DEGREES ? Math.toRadians(angularVelocity.zRotationRate) : angularVelocity.zRotationRate;
+    }
+
+    /**
+     * Sets the powers of all 4 motors.
+     *
+     * @param powers - The normalized wheel powers, ordered top left, top right, bottom left, bottom right.
+     */
+    private void setPower(double[] powers) {
+        if(!useVelocityControl) {
+            robot.voltageCompensator.compensate(powers, 0, 4);
+        }
+        double budgetScale = robot.powerManager.request(this, motors, powers);
+        for(int i = 0; i < 4; i++) {
+            powers[i] *= budgetScale;
+        }
+
+        if(useVelocityControl) {
+            setVelocity(powers);
+            return;
+        }
+        topLeft.setPower(powers[HolonomicKinematics.TOP_LEFT]);
+        topRight.setPower(powers[HolonomicKinematics.TOP_RIGHT]);
+        botLeft.setPower(powers[HolonomicKinematics.BOT_LEFT]);
+        botRight.setPower(powers[HolonomicKinematics.BOT_RIGHT]);
+    }
+
+    /**
+     * Converts wheel powers into velocity setpoints and sends them to the motors' built in velocity PID.
+     * Each setpoint is scaled by the traction scale and slew limited by the max wheel acceleration.
+     *
+     * @param powers - The wheel powers, each a fraction of the max wheel speed. [0] is top left, [1] is top right, [2] is bottom left, [3] is bottom right.
+     */
+    private void setVelocity(double[] powers) {
+        long now = System.nanoTime();
+        //Long gaps between updates (the drive sat idle) are capped so the slew limit can't jump straight to full speed.
+        double dt = lastVelocityUpdate == 0 ? 0 : Math.min((now - lastVelocityUpdate) / 1e9, 0.1);
+        lastVelocityUpdate = now;
+
+        updateTraction(dt);
+
+        double maxTicksPerSecond = maxWheelSpeed * encoderPerMeter * tractionScale;
+        double maxStep = maxWheelAcceleration > 0 ? maxWheelAcceleration * encoderPerMeter * dt : Double.POSITIVE_INFINITY;
+        for(int i = 0; i < 4; i++) {
+            double target = Range.clip(powers[i], -1, 1) * maxTicksPerSecond;
+            velocitySetpoints[i] += Range.clip(target - velocitySetpoints[i], -maxStep, maxStep);
+        }
+
+        topLeft.setVelocity(velocitySetpoints[HolonomicKinematics.TOP_LEFT]);
+        topRight.setVelocity(velocitySetpoints[HolonomicKinematics.TOP_RIGHT]);
+        botLeft.setVelocity(velocitySetpoints[HolonomicKinematics.BOT_LEFT]);
+        botRight.setVelocity(velocitySetpoints[HolonomicKinematics.BOT_RIGHT]);
+    }
+
+    /**
+     * Checks the measured wheel velocities for slip and updates the traction scale.
+     * If the drive uses the gyroscope, the rotation implied by the wheels is also compared against the IMU's yaw rate.
+     *
+     * @param dt - The time since the last update in seconds.
+     */
+    private void updateTraction(double dt) {
+        wheelSpeeds[HolonomicKinematics.TOP_LEFT] = topLeft.getVelocity() / encoderPerMeter;
+        wheelSpeeds[HolonomicKinematics.TOP_RIGHT] = topRight.getVelocity() / encoderPerMeter;
+        wheelSpeeds[HolonomicKinematics.BOT_LEFT] = botLeft.getVelocity() / encoderPerMeter;
+        wheelSpeeds[HolonomicKinematics.BOT_RIGHT] = botRight.getVelocity() / encoderPerMeter;
+
+        boolean slip = HolonomicKinematics.getSlipRatio(wheelSpeeds, MIN_SLIP_CHECK_SPEED) > slipThreshold;
+
+        if(usesGyro && turnRadius > 0) {
+            slip |= Math.abs(HolonomicKinematics.getWheelYawRate(wheelSpeeds, turnRadius) - getYawRate()) > yawRateThreshold;
+        }
+
+        slipping = slip;
+        if(slipping) {
+            tractionScale = Math.max(MIN_TRACTION_SCALE, tractionScale * slipScaleDown);
+        }
+        else {
+            tractionScale = Math.min(1, tractionScale + slipRecoveryRate * dt);
+        }
+    }
+
     /**
      * Pulls teleop config settings from global robot config.
      *
@@ -1583,6 +1206,8 @@ public class OmniWheelDrive extends SubSystem {
         private double turnLeftPower, turnRightPower;
         //The PID controllers for turning to angles and stability, respectively.
         private PIDController turnPID, stabilityPID;
+        //The heading hold controller. Null if the stability PID is used in teleop instead.
+        private HeadingController headingController;
         //A boolean specifying whether or not to use the gyroscope.
         private boolean useGyro;
         //A boolean specifying whether to change the motor velocity PID.
@@ -1591,6 +1216,10 @@ public class OmniWheelDrive extends SubSystem {
         private double vkp, vki, vkd, vkf;
         //The number of encoder ticks per meter traveled.
         private double encoderPerMeter;
+        //The velocity control settings. A max wheel speed of 0 disables velocity control.
+        private double maxWheelSpeed, turnRadius, maxWheelAcceleration;
+        //The slip detection settings.
+        private double slipThreshold, yawRateThreshold, slipScaleDown, slipRecoveryRate;
         //The constant used to scale the drive's speed and to change the robot's speed in speed mode.
         private double constantSpeedMultiplier, speedModeMultiplier;
         //Boolean values specifying whether or not degrees should be used for the stability and turn PID controllers.
@@ -1629,10 +1258,19 @@ public class OmniWheelDrive extends SubSystem {
             changeVelocityPID = false;
             turnPID = new PIDController(0,0,0);
             stabilityPID = new PIDController(0,0,0);
-            encoderPerMeter = 1440;
+            encoderPerMeter = -1;
             constantSpeedMultiplier = 1;
             useDegreesStability = false;
             useDegreesTurn = false;
+
+            maxWheelSpeed = 0;
+            turnRadius = 0;
+            maxWheelAcceleration = 0;
+
+            slipThreshold = 0.25;
+            yawRateThreshold = 0.5;
+            slipScaleDown = 0.8;
+            slipRecoveryRate = 1;
         }
 
         /**
@@ -1941,6 +1579,54 @@ public class OmniWheelDrive extends SubSystem {
             return this;
         }
 
+        /**
+         * Makes teleop hold the robot's heading with a heading controller instead of the stability PID.
+         * The controller's D term uses the gyroscope's yaw rate, and a new heading is captured once the robot settles after the driver stops turning.
+         *
+         * @param kp - Proportional gain in power per radian.
+         * @param ki - Integral gain in power per radian-second.
+         * @param kd - Derivative gain in power per radian/second.
+         * @param settleTime - The longest time to wait for the robot to stop rotating after a turn in seconds.
+         * @return - This instance of Params.
+         */
+        public Params setHeadingHold(double kp, double ki, double kd, double settleTime) {
+            useGyro = true;
+            headingController = new HeadingController(kp, ki, kd, settleTime);
+            return this;
+        }
+
+        /**
+         * Enables closed loop velocity control. Wheel outputs become velocity setpoints for the motors' built in velocity PID instead of raw powers.
+         *
+         * @param maxWheelSpeed - The wheel speed that full power corresponds to in meters/second.
+         * @param turnRadius - The distance from the center of the robot to each wheel in meters.
+         * @param maxWheelAcceleration - The maximum wheel acceleration in meters/second^2. 0 means no limit.
+         * @return - This instance of Params.
+         */
+        public Params setVelocityControl(double maxWheelSpeed, double turnRadius, double maxWheelAcceleration) {
+            this.maxWheelSpeed = maxWheelSpeed;
+            this.turnRadius = turnRadius;
+            this.maxWheelAcceleration = maxWheelAcceleration;
+            return this;
+        }
+
+        /**
+         * Sets the slip detection settings used while velocity control is enabled.
+         *
+         * @param slipThreshold - The largest allowed kinematic inconsistency between the wheels, as a fraction of their total speed.
+         * @param yawRateThreshold - The largest allowed difference between the wheels' rotation rate and the gyroscope's yaw rate in radians/second. Only used if the drive uses the gyroscope.
+         * @param slipScaleDown - The amount to multiply the output by on each update while slipping.
+         * @param slipRecoveryRate - How much of the output to restore per second once the wheels grip again.
+         * @return - This instance of Params.
+         */
+        public Params setSlipDetection(double slipThreshold, double yawRateThreshold, double slipScaleDown, double slipRecoveryRate) {
+            this.slipThreshold = slipThreshold;
+            this.yawRateThreshold = yawRateThreshold;
+            this.slipScaleDown = slipScaleDown;
+            this.slipRecoveryRate = slipRecoveryRate;
+            return this;
+        }
+
         /**
          * Sets the velocity PID coefficients.
          *
@@ -2006,8 +1692,14 @@ public class OmniWheelDrive extends SubSystem {
         private double vkp, vki, vkd, vkf;
         //A boolean specifying if the velocity PID was changed.
         private boolean changeVelocityPID;
+        //The velocity control settings. A max wheel speed of 0 disables velocity control.
+        private double maxWheelSpeed, turnRadius, maxWheelAcceleration;
+        //The slip detection settings.
+        private double slipThreshold, yawRateThreshold, slipScaleDown, slipRecoveryRate;
         //Two PID controllers used to stabilize linear motion and to turn to specific angles.
         private PIDController stabilityPID, turnPID;
+        //The heading hold controller. Null if the stability PID is used in teleop instead.
+        private HeadingController headingController;
         //Boolean value specifying whether or not degrees should be used for the turn and stability PID controller.
         private boolean useDegreesStability, useDegreesTurn;
 
@@ -2037,6 +1729,15 @@ public class OmniWheelDrive extends SubSystem {
 
             useDegreesTurn = false;
             useDegreesStability = false;
+
+            maxWheelSpeed = 0;
+            turnRadius = 0;
+            maxWheelAcceleration = 0;
+
+            slipThreshold = 0.25;
+            yawRateThreshold = 0.5;
+            slipScaleDown = 0.8;
+            slipRecoveryRate = 1;
         }
 
         /**
@@ -2095,6 +1796,38 @@ public class OmniWheelDrive extends SubSystem {
             return this;
         }
 
+        /**
+         * Enables closed loop velocity control. Wheel outputs become velocity setpoints for the motors' built in velocity PID instead of raw powers.
+         *
+         * @param maxWheelSpeed - The wheel speed that full power corresponds to in meters/second.
+         * @param turnRadius - The distance from the center of the robot to each wheel in meters.
+         * @param maxWheelAcceleration - The maximum wheel acceleration in meters/second^2. 0 means no limit.
+         * @return - This instance of SpecificParams.
+         */
+        public SpecificParams setVelocityControl(double maxWheelSpeed, double turnRadius, double maxWheelAcceleration) {
+            this.maxWheelSpeed = maxWheelSpeed;
+            this.turnRadius = turnRadius;
+            this.maxWheelAcceleration = maxWheelAcceleration;
+            return this;
+        }
+
+        /**
+         * Sets the slip detection settings used while velocity control is enabled.
+         *
+         * @param slipThreshold - The largest allowed kinematic inconsistency between the wheels, as a fraction of their total speed.
+         * @param yawRateThreshold - The largest allowed difference between the wheels' rotation rate and the gyroscope's yaw rate in radians/second. Only used if the drive uses the gyroscope.
+         * @param slipScaleDown - The amount to multiply the output by on each update while slipping.
+         * @param slipRecoveryRate - How much of the output to restore per second once the wheels grip again.
+         * @return - This instance of SpecificParams.
+         */
+        public SpecificParams setSlipDetection(double slipThreshold, double yawRateThreshold, double slipScaleDown, double slipRecoveryRate) {
+            this.slipThreshold = slipThreshold;
+            this.yawRateThreshold = yawRateThreshold;
+            this.slipScaleDown = slipScaleDown;
+            this.slipRecoveryRate = slipRecoveryRate;
+            return this;
+        }
+
         /**
          *
          * @param kp - Proportional gain for velocity PID.
@@ -2250,5 +1983,20 @@ public class OmniWheelDrive extends SubSystem {
             this.stabilityPID = stabilityPID;
             return this;
         }
+
+        /**
+         * Makes teleop hold the robot's heading with a heading controller instead of the stability PID.
+         * The controller's D term uses the gyroscope's yaw rate, and a new heading is captured once the robot settles after the driver stops turning.
+         *
+         * @param kp - Proportional gain in power per radian.
+         * @param ki - Integral gain in power per radian-second.
+         * @param kd - Derivative gain in power per radian/second.
+         * @param settleTime - The longest time to wait for the robot to stop rotating after a turn in seconds.
+         * @return - This instance of SpecificParams.
+         */
+        public SpecificParams setHeadingHold(double kp, double ki, double kd, double settleTime) {
+            headingController = new HeadingController(kp, ki, kd, settleTime);
+            return this;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,561 @@
+/*
+ * Filename: PoseEstimator.java
+ * Author: Cole Savage
+ * Team Name: Level Up
+ * Date: 10/19/19
+ */
+
+package org.firstinspires.ftc.teamcode.system.subsystems;
+
+import com.qualcomm.hardware.bosch.BNO055IMU;
+
+import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
+import org.firstinspires.ftc.robotcore.external.navigation.AxesOrder;
+import org.firstinspires.ftc.robotcore.external.navigation.AxesReference;
+import org.firstinspires.ftc.teamcode.system.source.BaseRobot.Robot;
+import org.firstinspires.ftc.teamcode.system.source.BaseRobot.SubSystem;
+import org.firstinspires.ftc.teamcode.util.control.KalmanFilter;
+import org.firstinspires.ftc.teamcode.util.exceptions.DumpsterFireException;
+import org.firstinspires.ftc.teamcode.util.exceptions.WrongDrivetypeException;
+import org.firstinspires.ftc.teamcode.util.math.Pose;
+import org.firstinspires.ftc.teamcode.util.misc.BaseParam;
+
+import static java.lang.Math.PI;
+import static java.lang.Thread.sleep;
+
+/**
+ * An extended Kalman filter localization subsystem. Fuses wheel odometry from a mechanum or omniwheel drive with IMU heading,
+ * and accepts delayed vision fixes by rewinding to the time of the fix and re-applying the buffered odometry history.
+ */
+public class PoseEstimator extends SubSystem {
+
+    //The number of states (x, y, heading).
+    private static final int STATES = 3;
+    //The drive that the wheel encoders are read from.
+    private ChassisDrive drive;
+    //Gyroscope used to get the robot's current heading.
+    private BNO055IMU imu;
+    //The parameters for the estimator.
+    private Params params;
+    //The extended Kalman filter tracking (x, y, heading).
+    private KalmanFilter ekf;
+    //The number of encoder ticks per meter for each wheel.
+    private double encodersPerMeter;
+    //The encoder positions from this update and the last update. Swapped every update so reading the encoders doesn't allocate.
+    private int[] encoders, lastEncoders;
+    //The IMU reading that corresponds to the starting heading.
+    private double imuOffset;
+    //The latest pose estimate. Replaced, never modified, so it can be read from any thread.
+    private volatile Pose pose;
+
+    //Ring buffer of past updates used to replay odometry after a delayed vision fix.
+    private long[] historyTimes;
+    //Robot-relative odometry deltas (strafe, forward, heading change) for each history entry.
+    private double[] historyDeltas;
+    //IMU heading measurement for each history entry (NaN if there was none).
+    private double[] historyHeadings;
+    //The filter state and covariance before each history entry was applied.
+    private double[] historyStates, historyCovariances;
+    //The index of the next history entry to write and the number of valid entries.
+    private int historyIdx, historySize;
+
+    //Lock guarding the pending vision fix, which is written from the vision thread.
+    private final Object visionLock = new Object();
+    //The pending vision fix (x, y, heading) and the time it was captured at.
+    private double[] pendingFix;
+    private long pendingFixTime;
+    private boolean hasPendingFix;
+
+    //Preallocated buffers used during updates.
+    private double[] state, jacobian, innovation, headingMatrix, headingNoise, visionMatrix, visionNoise, fix;
+
+    /**
+     * Constructor for PoseEstimator.
+     *
+     * @param robot - The robot using this subsystem.
+     * @param drive - The drive to read encoders from. Must be a 4 wheel holonomic drive whose wheel positions keep counting through encoder resets.
+     * @param params - The parameters for the estimator.
+     *
+     * @throws WrongDrivetypeException - Throws this exception if the drive is not a 4 wheel holonomic drive.
+     */
+    public PoseEstimator(Robot robot, ChassisDrive drive, Params params) {
+        super(robot);
+
+        if(!drive.isHolonomic() || drive.getWheelCount() != 4) {
+            throw new WrongDrivetypeException("PoseEstimator requires a 4 wheel holonomic drive.");
+        }
+
+        this.drive = drive;
+        this.params = params;
+
+        if(params.encodersPerMeter > 0) {
+            encodersPerMeter = params.encodersPerMeter;
+        }
+        else {
+            encodersPerMeter = drive.getEncodersPerMeter();
+        }
+        encoders = new int[4];
+        lastEncoders = new int[4];
+        if(encodersPerMeter <= 0) {
+            throw new DumpsterFireException("PoseEstimator needs to know the number of encoder ticks per meter.");
+        }
+
+        if(params.useImu) {
+            imu = robot.hardwareMap.get(BNO055IMU.class, params.imuNumber == 1 ? "imu" : "imu 1");
+        }
+
+        ekf = new KalmanFilter(STATES, STATES);
+        ekf.setProcessNoise(new double[] {
+                params.positionNoise, 0, 0,
+                0, params.positionNoise, 0,
+                0, 0, params.headingNoise
+        });
+        ekf.setCovariance(1e-6);
+
+        historyTimes = new long[params.historyLength];
+        historyDeltas = new double[params.historyLength*STATES];
+        historyHeadings = new double[params.historyLength];
+        historyStates = new double[params.historyLength*STATES];
+        historyCovariances = new double[params.historyLength*STATES*STATES];
+
+        state = new double[STATES];
+        jacobian = new double[STATES*STATES];
+        innovation = new double[STATES];
+        headingMatrix = new double[] {0, 0, 1};
+        headingNoise = new double[] {params.imuHeadingVariance};
+        visionMatrix = new double[] {
+                1, 0, 0,
+                0, 1, 0,
+                0, 0, 1
+        };
+        visionNoise = new double[] {
+                params.visionPositionVariance, 0, 0,
+                0, params.visionPositionVariance, 0,
+                0, 0, params.visionHeadingVariance
+        };
+        fix = new double[STATES];
+        pendingFix = new double[STATES];
+
+        pose = new Pose(params.startX, params.startY, params.startHeading, System.currentTimeMillis());
+    }
+
+    @Override
+    public void init() throws InterruptedException {
+        if(params.useImu) {
+            imu.initialize(new BNO055IMU.Parameters());
+            while (!imu.isGyroCalibrated() && !robot.isStarted()) {
+                sleep(1);
+            }
+        }
+    }
+
+    @Override
+    public void init_loop() {}
+
+    @Override
+    public void start() {
+        reset(params.startX, params.startY, params.startHeading);
+    }
+
+    @Override
+    public void handle() {
+        update();
+    }
+
+    @Override
+    public void stop() {}
+
+    /**
+     * Resets the estimator to a known pose and clears the history.
+     *
+     * @param x - The x position of the robot in meters.
+     * @param y - The y position of the robot in meters.
+     * @param heading - The heading of the robot in radians.
+     */
+    public void reset(double x, double y, double heading) {
+        drive.getWheelPositions(lastEncoders);
+        imuOffset = params.useImu ? readImu() - heading : 0;
+
+        ekf.setState(0, x);
+        ekf.setState(1, y);
+        ekf.setState(2, heading);
+        ekf.setCovariance(1e-6);
+
+        historyIdx = 0;
+        historySize = 0;
+        synchronized (visionLock) {
+            hasPendingFix = false;
+        }
+
+        pose = new Pose(x, y, heading, System.currentTimeMillis());
+    }
+
+    /**
+     * Reads the sensors and updates the pose estimate. Called automatically every loop by handle().
+     */
+    public void update() {
+        long now = System.currentTimeMillis();
+
+        //Wheel deltas in meters. [0] is top left, [1] is top right, [2] is bottom left, [3] is bottom right.
+        //The drive's wheel positions keep counting through the encoder resets done by autonomous moves, so a reset never shows up as a jump here.
+        drive.getWheelPositions(encoders);
+        double dtl = (encoders[0] - lastEncoders[0])/encodersPerMeter;
+        double dtr = (encoders[1] - lastEncoders[1])/encodersPerMeter;
+        double dbl = (encoders[2] - lastEncoders[2])/encodersPerMeter;
+        double dbr = (encoders[3] - lastEncoders[3])/encodersPerMeter;
+        int[] temp = lastEncoders;
+        lastEncoders = encoders;
+        encoders = temp;
+
+        double strafe, forward;
+        if(drive.getWheelLayout() == ChassisDrive.WheelLayout.OMNI_X) {
+            //Omniwheels at 45 degrees see the projection of the motion onto the wheel direction.
+            strafe = (dtl - dtr - dbl + dbr)/(2*Math.sqrt(2));
+            forward = (dtl + dtr + dbl + dbr)/(2*Math.sqrt(2));
+        }
+        else {
+            //Mechanum rollers move each wheel by forward +/- strafe.
+            strafe = (dtl - dtr - dbl + dbr)/4;
+            forward = (dtl + dtr + dbl + dbr)/4;
+        }
+        double turn = -(dtl + dbl - dtr - dbr)/(4*params.turnRadius);
+
+        double heading = params.useImu ? wrap(readImu() - imuOffset) : Double.NaN;
+
+        //Record the update so it can be replayed if a delayed vision fix arrives.
+        int entry = historyIdx;
+        historyTimes[entry] = now;
+        historyDeltas[entry*STATES] = strafe;
+        historyDeltas[entry*STATES + 1] = forward;
+        historyDeltas[entry*STATES + 2] = turn;
+        historyHeadings[entry] = heading;
+        historyIdx = (historyIdx + 1) % params.historyLength;
+        historySize = Math.min(historySize + 1, params.historyLength);
+
+        boolean fixAvailable;
+        long fixTime;
+        synchronized (visionLock) {
+            fixAvailable = hasPendingFix;
+            fixTime = pendingFixTime;
+            if(hasPendingFix) {
+                System.arraycopy(pendingFix, 0, fix, 0, STATES);
+                hasPendingFix = false;
+            }
+        }
+
+        if(fixAvailable) {
+            applyDelayedFix(fixTime);
+        }
+        else {
+            step(entry);
+        }
+
+        ekf.getState(state);
+        pose = new Pose(state[0], state[1], state[2], now);
+    }
+
+    /**
+     * Adds a vision fix to be fused on the next update. Safe to call from any thread (ex: a camera callback).
+     *
+     * @param x - The measured x position of the robot in meters.
+     * @param y - The measured y position of the robot in meters.
+     * @param heading - The measured heading of the robot in radians.
+     * @param timestamp - The system time in milliseconds that the image the fix came from was captured at.
+     */
+    public void addVisionFix(double x, double y, double heading, long timestamp) {
+        synchronized (visionLock) {
+            pendingFix[0] = x;
+            pendingFix[1] = y;
+            pendingFix[2] = heading;
+            pendingFixTime = timestamp;
+            hasPendingFix = true;
+        }
+    }
+
+    /**
+     * Gets the latest pose estimate. Safe to call from any thread.
+     *
+     * @return - The latest pose estimate.
+     */
+    public Pose getPose() {
+        return pose;
+    }
+
+    /**
+     * Gets the variance of one of the pose estimate's components.
+     *
+     * @param idx - The component to get the variance of. 0 is x, 1 is y, 2 is heading.
+     * @return - The variance of the component.
+     */
+    public double getVariance(int idx) {
+        return ekf.getCovariance(idx, idx);
+    }
+
+    /**
+     * Applies a vision fix at the time it was captured and replays all odometry received since then.
+     *
+     * @param fixTime - The system time in milliseconds that the fix was captured at.
+     */
+    private void applyDelayedFix(long fixTime) {
+
+        //Walk backwards from the newest entry to find the first update that happened after the fix.
+        int newest = (historyIdx - 1 + params.historyLength) % params.historyLength;
+        int replayCount = 0;
+        int idx = newest;
+        while(replayCount < historySize && historyTimes[idx] > fixTime) {
+            replayCount++;
+            idx = (idx - 1 + params.historyLength) % params.historyLength;
+        }
+
+        if(replayCount == historySize && historySize == params.historyLength) {
+            //The fix is older than anything in the history, so it can't be placed correctly. Just apply the newest update.
+            step(newest);
+            return;
+        }
+
+        if(replayCount == 0) {
+            //The fix is newer than every update, so apply the current update and then the fix.
+            step(newest);
+            correctVision();
+            return;
+        }
+
+        //Rewind to just before the first update after the fix. The newest entry has not been applied yet, so its prior is the current state.
+        int first = (newest - replayCount + 1 + params.historyLength) % params.historyLength;
+        if(first != newest) {
+            ekf.setState(slice(historyStates, first*STATES, state));
+            restoreCovariance(first);
+        }
+        correctVision();
+
+        for(int i = 0; i < replayCount; i++) {
+            step((first + i) % params.historyLength);
+        }
+    }
+
+    /**
+     * Saves the prior for a history entry, then applies its odometry prediction and IMU correction.
+     *
+     * @param entry - The index of the history entry.
+     */
+    private void step(int entry) {
+        ekf.getState(state);
+        System.arraycopy(state, 0, historyStates, entry*STATES, STATES);
+        saveCovariance(entry);
+
+        double strafe = historyDeltas[entry*STATES];
+        double forward = historyDeltas[entry*STATES + 1];
+        double turn = historyDeltas[entry*STATES + 2];
+
+        //Integrate using the midpoint heading. Heading 0 faces the +y axis.
+        double theta = state[2] + turn/2;
+        double cos = Math.cos(theta);
+        double sin = Math.sin(theta);
+        double dx = strafe*cos - forward*sin;
+        double dy = strafe*sin + forward*cos;
+
+        state[0] += dx;
+        state[1] += dy;
+        state[2] = wrap(state[2] + turn);
+
+        jacobian[0] = 1; jacobian[1] = 0; jacobian[2] = -dy;
+        jacobian[3] = 0; jacobian[4] = 1; jacobian[5] = dx;
+        jacobian[6] = 0; jacobian[7] = 0; jacobian[8] = 1;
+
+        //Process noise grows with distance traveled so that a stationary robot doesn't drift.
+        ekf.predictExtended(state, jacobian, Math.abs(strafe) + Math.abs(forward) + Math.abs(turn) + params.minimumNoiseScale);
+
+        double heading = historyHeadings[entry];
+        if(!Double.isNaN(heading)) {
+            innovation[0] = wrap(heading - ekf.getState(2));
+            ekf.correctExtended(innovation, headingMatrix, headingNoise, 1);
+            ekf.setState(2, wrap(ekf.getState(2)));
+        }
+    }
+
+    /**
+     * Corrects the filter with the current vision fix.
+     */
+    private void correctVision() {
+        innovation[0] = fix[0] - ekf.getState(0);
+        innovation[1] = fix[1] - ekf.getState(1);
+        innovation[2] = wrap(fix[2] - ekf.getState(2));
+        ekf.correctExtended(innovation, visionMatrix, visionNoise, STATES);
+        ekf.setState(2, wrap(ekf.getState(2)));
+    }
+
+    /**
+     * Saves the filter's covariance into a history entry.
+     *
+     * @param entry - The index of the history entry.
+     */
+    private void saveCovariance(int entry) {
+        for(int i = 0; i < STATES; i++) {
+            for(int j = 0; j < STATES; j++) {
+                historyCovariances[entry*STATES*STATES + i*STATES + j] = ekf.getCovariance(i, j);
+            }
+        }
+    }
+
+    /**
+     * Restores the filter's covariance from a history entry.
+     *
+     * @param entry - The index of the history entry.
+     */
+    private void restoreCovariance(int entry) {
+        System.arraycopy(historyCovariances, entry*STATES*STATES, jacobian, 0, STATES*STATES);
+        ekf.setCovariance(jacobian);
+    }
+
+    /**
+     * Copies a section of an array into a buffer.
+     *
+     * @param source - The array to copy from.
+     * @param start - The index to start copying from.
+     * @param out - The buffer to copy into.
+     * @return - The buffer.
+     */
+    private static double[] slice(double[] source, int start, double[] out) {
+        System.arraycopy(source, start, out, 0, out.length);
+        return out;
+    }
+
+    /**
+     * Reads the raw heading from the IMU.
+     *
+     * @return - The IMU heading in radians.
+     */
+    private double readImu() {
+        return imu.getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX, AngleUnit.RADIANS).firstAngle;
+    }
+
+    /**
+     * Wraps an angle to the range [-pi, pi).
+     *
+     * @param angle - The angle in radians.
+     * @return - The wrapped angle.
+     */
+    private static double wrap(double angle) {
+        return ((angle + PI) % (2*PI) + 2*PI) % (2*PI) - PI;
+    }
+
+    /**
+     * A class used to specify the parameters of the pose estimator.
+     */
+    public static class Params implements BaseParam {
+        //The number of encoder ticks per meter. If not positive, the drive's value is used.
+        private double encodersPerMeter = -1;
+        //The distance from the center of the robot to the wheels in meters, used to estimate turning from the encoders.
+        private double turnRadius = 0.2;
+        //Whether to fuse the IMU heading.
+        private boolean useImu = true;
+        //The imu number, 1 or 2.
+        private int imuNumber = 1;
+        //The starting pose of the robot.
+        private double startX = 0, startY = 0, startHeading = 0;
+        //Process noise per meter (or radian) of odometry, and the minimum noise added every update.
+        private double positionNoise = 1e-3, headingNoise = 1e-2, minimumNoiseScale = 1e-4;
+        //Measurement noise of the IMU and vision fixes.
+        private double imuHeadingVariance = 1e-4, visionPositionVariance = 4e-4, visionHeadingVariance = 3e-3;
+        //The number of updates to keep for replaying delayed vision fixes.
+        private int historyLength = 100;
+
+        /**
+         * Sets the number of encoder ticks per meter.
+         *
+         * @param encodersPerMeter - The number of encoder ticks per meter.
+         * @return - This instance of Params.
+         */
+        public Params setEncodersPerMeter(double encodersPerMeter) {
+            this.encodersPerMeter = encodersPerMeter;
+            return this;
+        }
+
+        /**
+         * Sets the distance from the center of the robot to the wheels.
+         *
+         * @param turnRadius - The turning radius in meters.
+         * @return - This instance of Params.
+         */
+        public Params setTurnRadius(double turnRadius) {
+            this.turnRadius = turnRadius;
+            return this;
+        }
+
+        /**
+         * Sets whether to fuse the IMU heading.
+         *
+         * @param useImu - Whether to fuse the IMU heading.
+         * @param imuNumber - The imu number, 1 or 2.
+         * @return - This instance of Params.
+         */
+        public Params setUseImu(boolean useImu, int imuNumber) {
+            this.useImu = useImu;
+            this.imuNumber = imuNumber;
+            return this;
+        }
+
+        /**
+         * Sets the starting pose of the robot.
+         *
+         * @param x - The starting x position in meters.
+         * @param y - The starting y position in meters.
+         * @param heading - The starting heading in radians.
+         * @return - This instance of Params.
+         */
+        public Params setStartPose(double x, double y, double heading) {
+            startX = x;
+            startY = y;
+            startHeading = heading;
+            return this;
+        }
+
+        /**
+         * Sets the odometry process noise.
+         *
+         * @param positionNoise - The position variance added per meter traveled.
+         * @param headingNoise - The heading variance added per meter traveled.
+         * @return - This instance of Params.
+         */
+        public Params setProcessNoise(double positionNoise, double headingNoise) {
+            this.positionNoise = positionNoise;
+            this.headingNoise = headingNoise;
+            return this;
+        }
+
+        /**
+         * Sets the variance of the IMU heading.
+         *
+         * @param imuHeadingVariance - The variance of the IMU heading in radians^2.
+         * @return - This instance of Params.
+         */
+        public Params setImuVariance(double imuHeadingVariance) {
+            this.imuHeadingVariance = imuHeadingVariance;
+            return this;
+        }
+
+        /**
+         * Sets the variance of vision fixes.
+         *
+         * @param positionVariance - The variance of the fix position in meters^2.
+         * @param headingVariance - The variance of the fix heading in radians^2.
+         * @return - This instance of Params.
+         */
+        public Params setVisionVariance(double positionVariance, double headingVariance) {
+            visionPositionVariance = positionVariance;
+            visionHeadingVariance = headingVariance;
+            return this;
+        }
+
+        /**
+         * Sets the number of updates to keep for replaying delayed vision fixes.
+         *
+         * @param historyLength - The number of updates to keep.
+         * @return - This instance of Params.
+         */
+        public Params setHistoryLength(int historyLength) {
+            this.historyLength = Math.max(historyLength, 1);
+            return this;
+        }
+    }
+}
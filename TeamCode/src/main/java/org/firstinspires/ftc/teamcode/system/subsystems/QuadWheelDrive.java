@@ -8,16 +8,20 @@
 package org.firstinspires.ftc.teamcode.system.subsystems;
 
 import com.qualcomm.robotcore.hardware.DcMotor;
+import com.qualcomm.robotcore.hardware.DcMotorEx;
 
 import org.firstinspires.ftc.teamcode.system.source.BaseRobot.Robot;
 import org.firstinspires.ftc.teamcode.system.source.BaseRobot.SubSystem;
 import org.firstinspires.ftc.teamcode.util.annotations.AutonomousConfig;
 import org.firstinspires.ftc.teamcode.util.annotations.TeleopConfig;
+import org.firstinspires.ftc.teamcode.util.calib.EncoderCalibration;
 import org.firstinspires.ftc.teamcode.util.control.PIDController;
 import org.firstinspires.ftc.teamcode.util.exceptions.DumpsterFireException;
 import org.firstinspires.ftc.teamcode.util.exceptions.InvalidMoveCommandException;
 import org.firstinspires.ftc.teamcode.util.exceptions.NotBooleanInputException;
 import org.firstinspires.ftc.teamcode.util.exceptions.NotDoubleInputException;
+import org.firstinspires.ftc.teamcode.util.math.DifferentialDriveHelper;
+import org.firstinspires.ftc.teamcode.util.math.ResponseCurve;
 import org.firstinspires.ftc.teamcode.util.math.Vector;
 import org.firstinspires.ftc.teamcode.util.misc.BaseParam;
 import org.firstinspires.ftc.teamcode.util.misc.Button;
@@ -26,6 +30,7 @@ import org.firstinspires.ftc.teamcode.util.misc.CustomizableGamepad;
 import org.firstinspires.ftc.teamcode.util.misc.Toggle;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import static java.lang.Thread.sleep;
@@ -33,12 +38,26 @@ import static java.lang.Thread.sleep;
 /**
  * A customizable tankdrive subsystem.
  */
-public class QuadWheelDrive extends SubSystem{
+public class QuadWheelDrive extends SubSystem implements ChassisDrive {
 
     //Whether or not the config is being set up with specific values.
     private static boolean useSpecific = false;
     //The drivetrain's four motors
     private DcMotor botLeft, botRight, topLeft, topRight;
+    //All 4 motors, in the same order as motorPowers. Used to report the drive's current demand to the power manager.
+    private DcMotor[] motors;
+    //The voltage compensated power last requested for each motor, before the power manager's scale is applied. [0] is top left, [1] is bottom left, [2] is top right, [3] is bottom right.
+    private final double[] motorPowers = new double[4];
+    //The side powers last requested, before voltage compensation. [0] is left, [1] is right. Both sides are compensated together so their ratio is kept.
+    private final double[] sidePowers = new double[2];
+    //The number of encoder ticks per meter, from the saved encoder calibration. -1 if the drive hasn't been calibrated.
+    private double encodersPerMeter = -1;
+    //The scale factor of each wheel's encoder, from the saved encoder calibration.
+    private double[] wheelScales = new double[] {1, 1, 1, 1};
+    //Lock guarding the encoder offsets, since odometry reads the wheel positions from its own thread.
+    private final Object encoderLock = new Object();
+    //The position each wheel was at when its encoder was last reset, summed over every reset. Keeps getWheelPositions() counting through resets.
+    private final int[] encoderOffsets = new int[4];
     //A boolean determining if the robot should be allowed to turn and move simultaneously
     private boolean turnAndMove;
     //A toggle object that detects if a boolean input changes twice (like a square pulse)
@@ -48,7 +67,15 @@ public class QuadWheelDrive extends SubSystem{
     //Object that stores wanted buttons and is used to retrieve button inputs.
     private CustomizableGamepad inputs;
     //Button names CustomizableGamepad will use.
-    private static final String SPEEDMODEBUTTON = "speedModeButton", DRIVESTICK = "driveStick", TURNSTICK = "turnStick";
+    private static final String SPEEDMODEBUTTON = "speedModeButton", DRIVESTICK = "driveStick", TURNSTICK = "turnStick", QUICKTURNBUTTON = "quickTurnButton";
+    //Converts the drive and turn inputs into side powers for arcade and curvature drive.
+    private DifferentialDriveHelper driveHelper;
+
+    //Specifies how the drive and turn inputs are used in teleop. Standard uses the drive, turn and turnAndMove methods.
+    public enum DriveType {
+        STANDARD, ARCADE, CURVATURE
+    }
+    private DriveType driveType = DriveType.STANDARD;
 
     /**
      * This constructor creates the drive system without using config.
@@ -62,12 +89,17 @@ public class QuadWheelDrive extends SubSystem{
         inputs = new CustomizableGamepad(robot);
 
         setMotorConfiguration(params.topLeftMotor,params.topRightMotor,params.botLeftMotor,params.botRightMotor);
+        loadCalibration();
         setSpeedModeModifier(params.speedModeModifier);
         setConstantSpeedModifier(params.constantSpeedModifier);
         setTurnAndMove(params.turnAndMove);
         setDriveStick(params.buttonsToSet[0]);
         setTurnStick(params.buttonsToSet[1]);
         setSpeedMode(params.buttonsToSet[2]);
+        setQuickTurn(params.buttonsToSet[3]);
+
+        driveHelper = new DifferentialDriveHelper(params.throttleCurve, params.turnCurve, params.sensitivity, params.negativeInertia);
+        setDriveType(params.driveType);
     }
 
     /**
@@ -80,10 +112,13 @@ public class QuadWheelDrive extends SubSystem{
         super(robot);
 
         setMotorConfiguration(params.topLeftMotor,params.topRightMotor,params.botLeftMotor,params.botRightMotor);
+        loadCalibration();
 
         setSpeedModeModifier(params.speedModeModifier);
         setConstantSpeedModifier(params.constantSpeedModifier);
 
+        driveHelper = new DifferentialDriveHelper(ResponseCurve.Type.LINEAR, ResponseCurve.Type.LINEAR, params.sensitivity, params.negativeInertia);
+
         usesConfig = true;
     }
 
@@ -100,6 +135,9 @@ public class QuadWheelDrive extends SubSystem{
         super(robot);
 
         setMotorConfiguration(topLeftConfiguration,topRightConfiguration,botLeftConfiguration,botRightConfiguration);
+        loadCalibration();
+
+        driveHelper = new DifferentialDriveHelper(ResponseCurve.Type.LINEAR, ResponseCurve.Type.LINEAR, 1, 3);
 
         usesConfig = true;
     }
@@ -137,27 +175,42 @@ public class QuadWheelDrive extends SubSystem{
                 currentSpeedModeModifier = 1;
             }
         }
-        //drives forward and turns at the same time
-        if (turnAndMove) {
-            if (inputs.getDoubleInput(DRIVESTICK)!= 0 && inputs.getDoubleInput(TURNSTICK) != 0) {
-                turnAndMove(new Vector(inputs.getDoubleInput(DRIVESTICK), inputs.getDoubleInput(TURNSTICK)));
-            } else if (inputs.getDoubleInput(DRIVESTICK) != 0) {
-                drive(inputs.getDoubleInput(DRIVESTICK));
-            } else if (inputs.getDoubleInput(TURNSTICK)!= 0){
-                turn(inputs.getDoubleInput(TURNSTICK));
-            } else {
-                stopMovement();
-            }
-        }
-        //drives forward and turns but not at the same time
-        else {
-            if (inputs.getDoubleInput(TURNSTICK) != 0) {
-                turn(inputs.getDoubleInput(TURNSTICK));
-            } else if (inputs.getDoubleInput(DRIVESTICK) != 0) {
-                drive(inputs.getDoubleInput(DRIVESTICK));
-            } else {
-                stopMovement();
-            }
+
+        double driveInput = inputs.getDoubleInput(DRIVESTICK);
+        double turnInput = inputs.getDoubleInput(TURNSTICK);
+
+        switch (driveType) {
+            case ARCADE:
+                setPowers(driveHelper.arcade(driveInput, turnInput));
+                break;
+            case CURVATURE:
+                boolean quickTurn = !inputs.checkNoButton(QUICKTURNBUTTON) && inputs.getBooleanInput(QUICKTURNBUTTON);
+                setPowers(driveHelper.curvature(driveInput, turnInput, quickTurn));
+                break;
+            default:
+                //drives forward and turns at the same time
+                if (turnAndMove) {
+                    if (driveInput != 0 && turnInput != 0) {
+                        setPowers(driveInput - turnInput, driveInput + turnInput);
+                    } else if (driveInput != 0) {
+                        drive(driveInput);
+                    } else if (turnInput != 0) {
+                        turn(turnInput);
+                    } else {
+                        stopMovement();
+                    }
+                }
+                //drives forward and turns but not at the same time
+                else {
+                    if (turnInput != 0) {
+                        turn(turnInput);
+                    } else if (driveInput != 0) {
+                        drive(driveInput);
+                    } else {
+                        stopMovement();
+                    }
+                }
+                break;
         }
     }
 
@@ -190,10 +243,17 @@ public class QuadWheelDrive extends SubSystem{
      * Resents the encoders.
      */
     public void resetEncoders(){
-        botLeft.setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
-        botRight.setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
-        topLeft.setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
-        topRight.setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
+        synchronized (encoderLock) {
+            encoderOffsets[0] += topLeft.getCurrentPosition();
+            encoderOffsets[1] += topRight.getCurrentPosition();
+            encoderOffsets[2] += botLeft.getCurrentPosition();
+            encoderOffsets[3] += botRight.getCurrentPosition();
+
+            botLeft.setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
+            botRight.setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
+            topLeft.setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
+            topRight.setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
+        }
         botLeft.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
         botRight.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
         topLeft.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
@@ -206,10 +266,7 @@ public class QuadWheelDrive extends SubSystem{
      * @param speed - Speed to drive forward is positive and reverse is negative.
      */
     public void drive(double speed){
-        botLeft.setPower((speed * constantSpeedModifier) * currentSpeedModeModifier);
-        botRight.setPower((speed * constantSpeedModifier) * currentSpeedModeModifier);
-        topLeft.setPower((speed * constantSpeedModifier) * currentSpeedModeModifier);
-        topRight.setPower((speed * constantSpeedModifier) * currentSpeedModeModifier);
+        setPowers(speed, speed);
     }
 
     /**
@@ -218,10 +275,7 @@ public class QuadWheelDrive extends SubSystem{
      * @param speed - Speed to turn at(-1)-(1) (positive speed is turn right & negative speed is turn left).
      */
     public void turn(double speed){
-        botLeft.setPower(-(speed * constantSpeedModifier) * currentSpeedModeModifier);
-        botRight.setPower((speed * constantSpeedModifier) * currentSpeedModeModifier);
-        topLeft.setPower(-(speed * constantSpeedModifier) * currentSpeedModeModifier);
-        topRight.setPower((speed * constantSpeedModifier) * currentSpeedModeModifier);
+        setPowers(-speed, speed);
     }
 
     /**
@@ -230,20 +284,44 @@ public class QuadWheelDrive extends SubSystem{
      * @param input - A vector that determines linear/rotational speed and direction. First component is linear speed second is rotational speed (counterclockwise +)
      */
     public void turnAndMove(Vector input){
-        botLeft.setPower(((input.x - input.y) * constantSpeedModifier) * currentSpeedModeModifier);
-        botRight.setPower(((input.x + input.y) * constantSpeedModifier) * currentSpeedModeModifier);
-        topLeft.setPower(((input.x - input.y) * constantSpeedModifier) * currentSpeedModeModifier);
-        topRight.setPower(((input.x + input.y) * constantSpeedModifier) * currentSpeedModeModifier);
+        setPowers(input.x - input.y, input.x + input.y);
+    }
+
+    /**
+     * Sets the power of each side of the robot, applying the speed modifiers.
+     *
+     * @param left - The left side's power.
+     * @param right - The right side's power.
+     */
+    private void setPowers(double left, double right) {
+        sidePowers[DifferentialDriveHelper.LEFT] = (left * constantSpeedModifier) * currentSpeedModeModifier;
+        sidePowers[DifferentialDriveHelper.RIGHT] = (right * constantSpeedModifier) * currentSpeedModeModifier;
+        applyPowers();
+    }
+
+    /**
+     * Sets the power of each side of the robot from a left and right power array.
+     *
+     * @param powers - The side powers. [0] is left, [1] is right.
+     */
+    private void setPowers(double[] powers) {
+        setPowers(powers[DifferentialDriveHelper.LEFT], powers[DifferentialDriveHelper.RIGHT]);
     }
 
     /**
      * Stops all movement.
      */
     public void stopMovement(){
+        sidePowers[DifferentialDriveHelper.LEFT] = 0;
+        sidePowers[DifferentialDriveHelper.RIGHT] = 0;
+        for(int i = 0; i < 4; i++) {
+            motorPowers[i] = 0;
+        }
         botLeft.setPower(0);
         botRight.setPower(0);
         topLeft.setPower(0);
         topRight.setPower(0);
+        robot.powerManager.release(this);
     }
 
     /**
@@ -252,8 +330,8 @@ public class QuadWheelDrive extends SubSystem{
      * @param speed - Power to set the motor to(-1)-(1).
      */
     public void setPowerLeft(double speed){
-        botLeft.setPower((speed * constantSpeedModifier) * currentSpeedModeModifier);
-        topLeft.setPower((speed * constantSpeedModifier) * currentSpeedModeModifier);
+        sidePowers[DifferentialDriveHelper.LEFT] = (speed * constantSpeedModifier) * currentSpeedModeModifier;
+        applyPowers();
     }
 
     /**
@@ -262,8 +340,25 @@ public class QuadWheelDrive extends SubSystem{
      * @param speed - Power to set the motor to(-1)-(1).
      */
     public void setPowerRight(double speed){
-        botRight.setPower((speed * constantSpeedModifier) * currentSpeedModeModifier);
-        topRight.setPower((speed * constantSpeedModifier) * currentSpeedModeModifier);
+        sidePowers[DifferentialDriveHelper.RIGHT] = (speed * constantSpeedModifier) * currentSpeedModeModifier;
+        applyPowers();
+    }
+
+    /**
+     * Compensates the requested side powers for the battery voltage and sends them to the motors, scaled down by the power manager if they would go over the current budget.
+     */
+    private void applyPowers() {
+        motorPowers[0] = sidePowers[DifferentialDriveHelper.LEFT];
+        motorPowers[1] = sidePowers[DifferentialDriveHelper.LEFT];
+        motorPowers[2] = sidePowers[DifferentialDriveHelper.RIGHT];
+        motorPowers[3] = sidePowers[DifferentialDriveHelper.RIGHT];
+        robot.voltageCompensator.compensate(motorPowers, 0, 4);
+
+        double budgetScale = robot.powerManager.request(this, motors, motorPowers);
+        topLeft.setPower(motorPowers[0] * budgetScale);
+        botLeft.setPower(motorPowers[1] * budgetScale);
+        topRight.setPower(motorPowers[2] * budgetScale);
+        botRight.setPower(motorPowers[3] * budgetScale);
     }
 
     /**
@@ -431,6 +526,7 @@ public class QuadWheelDrive extends SubSystem{
         topRight = robot.hardwareMap.dcMotor.get(topRightConfigurationName);
         botLeft = robot.hardwareMap.dcMotor.get(botLeftConfigurationName);
         botRight = robot.hardwareMap.dcMotor.get(botRightConfigurationName);
+        motors = new DcMotor[] {topLeft, botLeft, topRight, botRight};
     }
 
     /**
@@ -502,6 +598,32 @@ public class QuadWheelDrive extends SubSystem{
         }
     }
 
+    /**
+     * Sets the boolean input that activates quick turn in curvature drive.
+     *
+     * @param button - The boolean input that activates quick turn.
+     *
+     * @throws NotBooleanInputException - Throws an exception if button does not return boolean values.
+     */
+    public void setQuickTurn(Button button){
+        if(button.isBoolean) {
+            inputs.addButton(QUICKTURNBUTTON, button);
+        }
+        else {
+            throw new NotBooleanInputException("quickTurnButton was not set to a boolean input");
+        }
+    }
+
+    /**
+     * Sets how the drive and turn inputs are used in teleop.
+     *
+     * @param driveType - The drive type.
+     */
+    public void setDriveType(DriveType driveType) {
+        this.driveType = driveType;
+        driveHelper.reset();
+    }
+
     /**
      * Pulls teleop config settings.
      */
@@ -510,9 +632,13 @@ public class QuadWheelDrive extends SubSystem{
         Map<String, Object> settingsData = robot.pullNonGamepad(this);
 
         setTurnAndMove((boolean) settingsData.get("Turn and Move"));
+        setDriveType((DriveType) settingsData.get("DriveType"));
+        driveHelper.setResponseCurves((ResponseCurve.Type) settingsData.get("ThrottleCurve"), (ResponseCurve.Type) settingsData.get("TurnCurve"));
         if (!useSpecific) {
             setConstantSpeedModifier((double) settingsData.get("ConstantSpeedModifier"));
             setSpeedModeModifier((double) settingsData.get("SpeedModeModifier"));
+            driveHelper.setSensitivity((double) settingsData.get("Sensitivity"));
+            driveHelper.setNegativeInertia((double) settingsData.get("NegativeInertia"));
         }
     }
 
@@ -570,6 +696,86 @@ public class QuadWheelDrive extends SubSystem{
         return new int[]{topLeft.getCurrentPosition(), topRight.getCurrentPosition(), botLeft.getCurrentPosition(), botRight.getCurrentPosition()};
     }
 
+    @Override
+    public void setChassisSpeeds(double vx, double vy, double omega) {
+        //Differential drives can't strafe, so vx is ignored.
+        double leftPower = vy - omega;
+        double rightPower = vy + omega;
+        double max = Math.max(1, Math.max(Math.abs(leftPower), Math.abs(rightPower)));
+        sidePowers[DifferentialDriveHelper.LEFT] = leftPower / max;
+        sidePowers[DifferentialDriveHelper.RIGHT] = rightPower / max;
+        applyPowers();
+    }
+
+    @Override
+    public void stopChassis() {
+        stopMovement();
+    }
+
+    @Override
+    public boolean isHolonomic() {
+        return false;
+    }
+
+    @Override
+    public WheelLayout getWheelLayout() {
+        return WheelLayout.DIFFERENTIAL;
+    }
+
+    @Override
+    public int getWheelCount() {
+        return 4;
+    }
+
+    @Override
+    public void getWheelPositions(int[] positions) {
+        synchronized (encoderLock) {
+            positions[0] = encoderOffsets[0] + topLeft.getCurrentPosition();
+            positions[1] = encoderOffsets[1] + topRight.getCurrentPosition();
+            positions[2] = encoderOffsets[2] + botLeft.getCurrentPosition();
+            positions[3] = encoderOffsets[3] + botRight.getCurrentPosition();
+        }
+    }
+
+    @Override
+    public void getWheelVelocities(double[] velocities) {
+        velocities[0] = getVelocity(topLeft);
+        velocities[1] = getVelocity(topRight);
+        velocities[2] = getVelocity(botLeft);
+        velocities[3] = getVelocity(botRight);
+    }
+
+    @Override
+    public double getEncodersPerMeter() {
+        return encodersPerMeter;
+    }
+
+    @Override
+    public double[] getWheelScales() {
+        return wheelScales.clone();
+    }
+
+    /**
+     * Loads the saved encoder calibration, if there is one.
+     */
+    private void loadCalibration() {
+        EncoderCalibration calibration = EncoderCalibration.load(robot, this.getClass(), 4);
+        if(calibration != null) {
+            encodersPerMeter = calibration.ticksPerMeter;
+            wheelScales = calibration.wheelScales;
+        }
+    }
+
+    /**
+     * Gets the velocity of a motor.
+     *
+     * @param motor - The motor.
+     * @return - The motor's velocity in encoder ticks per second, or 0 if the motor can't report its velocity.
+     */
+    private static double getVelocity(DcMotor motor) {
+        return motor instanceof DcMotorEx ? ((DcMotorEx) motor).getVelocity() : 0;
+    }
+
     /**
      * The teleop configuration settings.
      *
@@ -580,20 +786,38 @@ public class QuadWheelDrive extends SubSystem{
 
         if(useSpecific) {
             return new ConfigParam[]{
+                    new ConfigParam("DriveType", new LinkedHashMap<String, Object>() {{
+                        put(DriveType.STANDARD.name(), DriveType.STANDARD);
+                        put(DriveType.ARCADE.name(), DriveType.ARCADE);
+                        put(DriveType.CURVATURE.name(), DriveType.CURVATURE);
+                    }}, DriveType.STANDARD.name()),
                     new ConfigParam(DRIVESTICK, Button.DoubleInputs.left_stick_y),
                     new ConfigParam(TURNSTICK, Button.DoubleInputs.right_stick_x),
                     new ConfigParam(SPEEDMODEBUTTON, Button.BooleanInputs.noButton),
+                    new ConfigParam(QUICKTURNBUTTON, Button.BooleanInputs.noButton),
+                    new ConfigParam("ThrottleCurve", ResponseCurve.typeMap(), ResponseCurve.Type.LINEAR.name()),
+                    new ConfigParam("TurnCurve", ResponseCurve.typeMap(), ResponseCurve.Type.LINEAR.name()),
                     new ConfigParam("Turn and Move", ConfigParam.booleanMap, true)
             };
         }
         else {
             return new ConfigParam[]{
+                    new ConfigParam("DriveType", new LinkedHashMap<String, Object>() {{
+                        put(DriveType.STANDARD.name(), DriveType.STANDARD);
+                        put(DriveType.ARCADE.name(), DriveType.ARCADE);
+                        put(DriveType.CURVATURE.name(), DriveType.CURVATURE);
+                    }}, DriveType.STANDARD.name()),
                     new ConfigParam(DRIVESTICK, Button.DoubleInputs.left_stick_y),
                     new ConfigParam(TURNSTICK, Button.DoubleInputs.right_stick_x),
                     new ConfigParam(SPEEDMODEBUTTON, Button.BooleanInputs.noButton),
+                    new ConfigParam(QUICKTURNBUTTON, Button.BooleanInputs.noButton),
+                    new ConfigParam("ThrottleCurve", ResponseCurve.typeMap(), ResponseCurve.Type.LINEAR.name()),
+                    new ConfigParam("TurnCurve", ResponseCurve.typeMap(), ResponseCurve.Type.LINEAR.name()),
                     new ConfigParam("Turn and Move", ConfigParam.booleanMap, true),
                     new ConfigParam("SpeedModeModifier", ConfigParam.numberMap(0,100, .05), 1.0),
-                    new ConfigParam("ConstantSpeedModifier", ConfigParam.numberMap(0,100, .05), 1.0)
+                    new ConfigParam("ConstantSpeedModifier", ConfigParam.numberMap(0,100, .05), 1.0),
+                    new ConfigParam("Sensitivity", ConfigParam.numberMap(0,5, .05), 1.0),
+                    new ConfigParam("NegativeInertia", ConfigParam.numberMap(0,10, .5), 3.0)
             };
         }
     }
@@ -617,12 +841,18 @@ public class QuadWheelDrive extends SubSystem{
 
         //Motor config names to be used in TankDrive to set the motors
         private String botLeftMotor, botRightMotor, topLeftMotor, topRightMotor;
-        //Array of buttons to set the buttons to for the TankDrive class [1] is driveStick, [2] is turnStick, and [3] is speedModeButton.
-        private Button[] buttonsToSet = new Button[3];
+        //Array of buttons to set the buttons to for the TankDrive class [1] is driveStick, [2] is turnStick, [3] is speedModeButton, and [4] is quickTurnButton.
+        private Button[] buttonsToSet = new Button[4];
         //A boolean value specifying whether the robot is allowed to turn and move at the same time.
         private boolean turnAndMove;
         //Various double values for speed control.
         private double speedModeModifier = 1, constantSpeedModifier = 1;
+        //How the drive and turn inputs are used in teleop.
+        private DriveType driveType = DriveType.STANDARD;
+        //The response curves applied to the drive and turn inputs in arcade and curvature drive.
+        private ResponseCurve.Type throttleCurve = ResponseCurve.Type.LINEAR, turnCurve = ResponseCurve.Type.LINEAR;
+        //The curvature drive turn sensitivity and negative inertia scalar.
+        private double sensitivity = 1, negativeInertia = 3;
 
         /**
          * Constructor for Params.
@@ -722,6 +952,68 @@ public class QuadWheelDrive extends SubSystem{
             return this;
         }
 
+        /**
+         * Sets how the drive and turn inputs are used in teleop.
+         *
+         * @param driveType - The drive type.
+         * @return This instance of Params.
+         */
+        public Params setDriveType(DriveType driveType) {
+            this.driveType = driveType;
+            return this;
+        }
+
+        /**
+         * Sets the response curves applied to the drive and turn inputs in arcade and curvature drive.
+         *
+         * @param throttleCurve - The response curve applied to the drive input.
+         * @param turnCurve - The response curve applied to the turn input.
+         * @return This instance of Params.
+         */
+        public Params setResponseCurves(ResponseCurve.Type throttleCurve, ResponseCurve.Type turnCurve) {
+            this.throttleCurve = throttleCurve;
+            this.turnCurve = turnCurve;
+            return this;
+        }
+
+        /**
+         * Sets the curvature drive turn sensitivity.
+         *
+         * @param sensitivity - How sharply curvature drive turns for a given turn input.
+         * @return This instance of Params.
+         */
+        public Params setSensitivity(double sensitivity) {
+            this.sensitivity = sensitivity;
+            return this;
+        }
+
+        /**
+         * Sets the curvature drive negative inertia scalar.
+         *
+         * @param negativeInertia - How strongly changes in the turn input are exaggerated. 0 disables negative inertia.
+         * @return This instance of Params.
+         */
+        public Params setNegativeInertia(double negativeInertia) {
+            this.negativeInertia = negativeInertia;
+            return this;
+        }
+
+        /**
+         * Sets the quick turn button used in curvature drive.
+         *
+         * @param quickTurnButton - The quick turn button.
+         * @return This instance of Params.
+         *
+         * @throws NotBooleanInputException - Throws this exception when the provided button does not return boolean values.
+         */
+        public Params setQuickTurnButton(Button quickTurnButton) {
+            if(!quickTurnButton.isBoolean) {
+                throw new NotBooleanInputException("QuickTurnButton must be a boolean input.");
+            }
+            buttonsToSet[3] = quickTurnButton;
+            return this;
+        }
+
         /**
          * Set all buttons to default values.
          */
@@ -729,6 +1021,7 @@ public class QuadWheelDrive extends SubSystem{
             buttonsToSet[0] = new Button(1, Button.DoubleInputs.left_stick_y);
             buttonsToSet[1] = new Button(1, Button.DoubleInputs.right_stick_x);
             buttonsToSet[2] = new Button(1, Button.BooleanInputs.noButton);
+            buttonsToSet[3] = new Button(1, Button.BooleanInputs.noButton);
         }
     }
 
@@ -741,6 +1034,8 @@ public class QuadWheelDrive extends SubSystem{
         private String topLeftMotor, topRightMotor, botLeftMotor, botRightMotor;
         //Various double values for speed control.
         private double speedModeModifier = 1, constantSpeedModifier = 1;
+        //The curvature drive turn sensitivity and negative inertia scalar.
+        private double sensitivity = 1, negativeInertia = 3;
 
         /**
          * Constructor for NumberParams.
@@ -780,5 +1075,27 @@ public class QuadWheelDrive extends SubSystem{
             this.constantSpeedModifier = constantSpeedModifier;
             return this;
         }
+
+        /**
+         * Sets the curvature drive turn sensitivity.
+         *
+         * @param sensitivity - How sharply curvature drive turns for a given turn input.
+         * @return This instance of NumberParams.
+         */
+        public NumberParams setSensitivity(double sensitivity) {
+            this.sensitivity = sensitivity;
+            return this;
+        }
+
+        /**
+         * Sets the curvature drive negative inertia scalar.
+         *
+         * @param negativeInertia - How strongly changes in the turn input are exaggerated. 0 disables negative inertia.
+         * @return This instance of NumberParams.
+         */
+        public NumberParams setNegativeInertia(double negativeInertia) {
+            this.negativeInertia = negativeInertia;
+            return this;
+        }
     }
 }
\ No newline at end of file
@@ -8,16 +8,20 @@
 package org.firstinspires.ftc.teamcode.system.subsystems;
 
 import com.qualcomm.robotcore.hardware.DcMotor;
+import com.qualcomm.robotcore.hardware.DcMotorEx;
 
 import org.firstinspires.ftc.teamcode.system.source.BaseRobot.Robot;
 import org.firstinspires.ftc.teamcode.system.source.BaseRobot.SubSystem;
 import org.firstinspires.ftc.teamcode.util.annotations.AutonomousConfig;
 import org.firstinspires.ftc.teamcode.util.annotations.TeleopConfig;
+import org.firstinspires.ftc.teamcode.util.calib.EncoderCalibration;
 import org.firstinspires.ftc.teamcode.util.control.PIDController;
 import org.firstinspires.ftc.teamcode.util.exceptions.DumpsterFireException;
 import org.firstinspires.ftc.teamcode.util.exceptions.InvalidMoveCommandException;
 import org.firstinspires.ftc.teamcode.util.exceptions.NotBooleanInputException;
 import org.firstinspires.ftc.teamcode.util.exceptions.NotDoubleInputException;
+import org.firstinspires.ftc.teamcode.util.math.DifferentialDriveHelper;
+import org.firstinspires.ftc.teamcode.util.math.ResponseCurve;
 import org.firstinspires.ftc.teamcode.util.math.Vector;
 import org.firstinspires.ftc.teamcode.util.misc.BaseParam;
 import org.firstinspires.ftc.teamcode.util.misc.Button;
@@ -25,6 +29,7 @@ import org.firstinspires.ftc.teamcode.util.misc.ConfigParam;
 import org.firstinspires.ftc.teamcode.util.misc.CustomizableGamepad;
 import org.firstinspires.ftc.teamcode.util.misc.Toggle;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import static java.lang.Thread.sleep;
@@ -32,12 +37,26 @@ import static java.lang.Thread.sleep;
 /**
  * A customizable tankdrive subsystem.
  */
-public class TankDrive extends SubSystem{
+public class TankDrive extends SubSystem implements ChassisDrive {
 
     //A boolean specifying whether to set numbers to specific values or to use config.
     private static boolean useSpecific = false;
     //The drivetrain's two motors
     private DcMotor left, right;
+    //Both motors, in the same order as motorPowers. Used to report the drive's current demand to the power manager.
+    private DcMotor[] motors;
+    //The voltage compensated power last requested for each motor, before the power manager's scale is applied. [0] is left, [1] is right.
+    private final double[] motorPowers = new double[2];
+    //The side powers last requested, before voltage compensation. [0] is left, [1] is right. Both sides are compensated together so their ratio is kept.
+    private final double[] sidePowers = new double[2];
+    //The number of encoder ticks per meter, from the saved encoder calibration. -1 if the drive hasn't been calibrated.
+    private double encodersPerMeter = -1;
+    //The scale factor of each wheel's encoder, from the saved encoder calibration.
+    private double[] wheelScales = new double[] {1, 1};
+    //Lock guarding the encoder offsets, since odometry reads the wheel positions from its own thread.
+    private final Object encoderLock = new Object();
+    //The position each wheel was at when its encoder was last reset, summed over every reset. Keeps getWheelPositions() counting through resets.
+    private final int[] encoderOffsets = new int[2];
     //A boolean determining if the robot should be allowed to turn and move simultaneously
     private boolean turnAndMove;
     //A toggle object that detects if a boolean input changes twice (like a square pulse)
@@ -47,7 +66,15 @@ public class TankDrive extends SubSystem{
     //Object that stores wanted buttons and is used to retrieve button inputs.
     private CustomizableGamepad inputs;
     //Button names CustomizableGamepad will use.
-    private static final String SPEEDMODEBUTTON = "speedModeButton", DRIVESTICK = "driveStick", TURNSTICK = "turnStick";
+    private static final String SPEEDMODEBUTTON = "speedModeButton", DRIVESTICK = "driveStick", TURNSTICK = "turnStick", QUICKTURNBUTTON = "quickTurnButton";
+    //Converts the drive and turn inputs into side powers for arcade and curvature drive.
+    private DifferentialDriveHelper driveHelper;
+
+    //Specifies how the drive and turn inputs are used in teleop. Standard uses the drive, turn and turnAndMove methods.
+    public enum DriveType {
+        STANDARD, ARCADE, CURVATURE
+    }
+    private DriveType driveType = DriveType.STANDARD;
 
     /**
      * This constructor creates the drive system without using config.
@@ -61,12 +88,17 @@ public class TankDrive extends SubSystem{
         inputs = new CustomizableGamepad(robot);
 
         setMotorConfiguration(params.leftMotor, params.rightMotor);
+        loadCalibration();
         setSpeedModeModifier(params.speedModeModifier);
         setConstantSpeedModifier(params.constantSpeedModifier);
         setTurnAndMove(params.turnAndMove);
         setDriveStick(params.buttonsToSet[0]);
         setTurnStick(params.buttonsToSet[1]);
         setSpeedMode(params.buttonsToSet[2]);
+        setQuickTurn(params.buttonsToSet[3]);
+
+        driveHelper = new DifferentialDriveHelper(params.throttleCurve, params.turnCurve, params.sensitivity, params.negativeInertia);
+        setDriveType(params.driveType);
     }
 
     /**
@@ -79,10 +111,13 @@ public class TankDrive extends SubSystem{
         super(robot);
 
         setMotorConfiguration(params.leftMotor,params.rightMotor);
+        loadCalibration();
         
         setSpeedModeModifier(params.speedModeModifier);
         setConstantSpeedModifier(params.constantSpeedModifier);
-        
+
+        driveHelper = new DifferentialDriveHelper(ResponseCurve.Type.LINEAR, ResponseCurve.Type.LINEAR, params.sensitivity, params.negativeInertia);
+
         usesConfig = true;
     }
 
@@ -97,6 +132,9 @@ public class TankDrive extends SubSystem{
         super(robot);
 
         setMotorConfiguration(LeftMotorConfig, RightMotorConfig);
+        loadCalibration();
+
+        driveHelper = new DifferentialDriveHelper(ResponseCurve.Type.LINEAR, ResponseCurve.Type.LINEAR, 1, 3);
 
         usesConfig = true;
     }
@@ -134,27 +172,42 @@ public class TankDrive extends SubSystem{
                 currentSpeedModeModifier = 1;
             }
         }
-        //drives forward and turns at the same time
-        if (turnAndMove) {
-            if (inputs.getDoubleInput(DRIVESTICK)!= 0 && inputs.getDoubleInput(TURNSTICK) != 0) {
-                turnAndMove(new Vector(inputs.getDoubleInput(DRIVESTICK), inputs.getDoubleInput(TURNSTICK)));
-            } else if (inputs.getDoubleInput(DRIVESTICK) != 0) {
-                drive(inputs.getDoubleInput(DRIVESTICK));
-            } else if (inputs.getDoubleInput(TURNSTICK)!= 0){
-                turn(inputs.getDoubleInput(TURNSTICK));
-            } else {
-                stopMovement();
-            }
-        }
-        //drives forward and turns but not at the same time
-        else {
-            if (inputs.getDoubleInput(TURNSTICK) != 0) {
-                turn(inputs.getDoubleInput(TURNSTICK));
-            } else if (inputs.getDoubleInput(DRIVESTICK) != 0) {
-                drive(inputs.getDoubleInput(DRIVESTICK));
-            } else {
-                stopMovement();
-            }
+
+        double driveInput = inputs.getDoubleInput(DRIVESTICK);
+        double turnInput = inputs.getDoubleInput(TURNSTICK);
+
+        switch (driveType) {
+            case ARCADE:
+                setPowers(driveHelper.arcade(driveInput, turnInput));
+                break;
+            case CURVATURE:
+                boolean quickTurn = !inputs.checkNoButton(QUICKTURNBUTTON) && inputs.getBooleanInput(QUICKTURNBUTTON);
+                setPowers(driveHelper.curvature(driveInput, turnInput, quickTurn));
+                break;
+            default:
+                //drives forward and turns at the same time
+                if (turnAndMove) {
+                    if (driveInput != 0 && turnInput != 0) {
+                        setPowers(driveInput - turnInput, driveInput + turnInput);
+                    } else if (driveInput != 0) {
+                        drive(driveInput);
+                    } else if (turnInput != 0) {
+                        turn(turnInput);
+                    } else {
+                        stopMovement();
+                    }
+                }
+                //drives forward and turns but not at the same time
+                else {
+                    if (turnInput != 0) {
+                        turn(turnInput);
+                    } else if (driveInput != 0) {
+                        drive(driveInput);
+                    } else {
+                        stopMovement();
+                    }
+                }
+                break;
         }
     }
 
@@ -183,8 +236,13 @@ public class TankDrive extends SubSystem{
      * Resents the encoders.
      */
     public void resetEncoders(){
-        left.setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
-        right.setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
+        synchronized (encoderLock) {
+            encoderOffsets[DifferentialDriveHelper.LEFT] += left.getCurrentPosition();
+            encoderOffsets[DifferentialDriveHelper.RIGHT] += right.getCurrentPosition();
+
+            left.setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
+            right.setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
+        }
         left.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
         right.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
     }
@@ -195,8 +253,7 @@ public class TankDrive extends SubSystem{
      * @param speed - Speed to drive. Positive for forward and negative for backwards.
      */
     public void drive(double speed){
-        left.setPower((speed * constantSpeedModifier) * currentSpeedModeModifier);
-        right.setPower((speed * constantSpeedModifier) * currentSpeedModeModifier);
+        setPowers(speed, speed);
     }
 
     /**
@@ -205,8 +262,7 @@ public class TankDrive extends SubSystem{
      * @param speed - Speed to turn at. (positive speed is turn counterclockwise & negative speed is turn clockwise).
      */
     public void turn(double speed){
-        left.setPower(-(speed * constantSpeedModifier) * currentSpeedModeModifier);
-        right.setPower(((speed * constantSpeedModifier) * currentSpeedModeModifier));
+        setPowers(-speed, speed);
     }
 
     /**
@@ -215,16 +271,41 @@ public class TankDrive extends SubSystem{
      * @param input - Sets direction and rotational speed. (X is left and right, Y is forward and backwards)
      */
     public void turnAndMove(Vector input){
-        left.setPower(((input.x - input.y) * constantSpeedModifier) * currentSpeedModeModifier);
-        right.setPower(((input.x + input.y) * constantSpeedModifier) * currentSpeedModeModifier);
+        setPowers(input.x - input.y, input.x + input.y);
+    }
+
+    /**
+     * Sets the power of each side of the robot, applying the speed modifiers.
+     *
+     * @param left - The left side's power.
+     * @param right - The right side's power.
+     */
+    private void setPowers(double left, double right) {
+        sidePowers[DifferentialDriveHelper.LEFT] = (left * constantSpeedModifier) * currentSpeedModeModifier;
+        sidePowers[DifferentialDriveHelper.RIGHT] = (right * constantSpeedModifier) * currentSpeedModeModifier;
+        applyPowers();
+    }
+
+    /**
+     * Sets the power of each side of the robot from a left and right power array.
+     *
+     * @param powers - The side powers. [0] is left, [1] is right.
+     */
+    private void setPowers(double[] powers) {
+        setPowers(powers[DifferentialDriveHelper.LEFT], powers[DifferentialDriveHelper.RIGHT]);
     }
 
     /**
      * Stops all movement.
      */
     public void stopMovement(){
+        sidePowers[DifferentialDriveHelper.LEFT] = 0;
+        sidePowers[DifferentialDriveHelper.RIGHT] = 0;
+        motorPowers[DifferentialDriveHelper.LEFT] = 0;
+        motorPowers[DifferentialDriveHelper.RIGHT] = 0;
         left.setPower(0);
         right.setPower(0);
+        robot.powerManager.release(this);
     }
 
     /**
@@ -233,7 +314,8 @@ public class TankDrive extends SubSystem{
      * @param speed - Power to set the motor to. Positive for forward and negative for backwards.
      */
     public void setPowerLeft(double speed){
-        left.setPower((speed * constantSpeedModifier) * currentSpeedModeModifier);
+        sidePowers[DifferentialDriveHelper.LEFT] = (speed * constantSpeedModifier) * currentSpeedModeModifier;
+        applyPowers();
     }
 
     /**
@@ -242,7 +324,21 @@ public class TankDrive extends SubSystem{
      * @param speed - Power to set the motor to. Positive for forward and negative for backwards.
      */
     public void setPowerRight(double speed){
-        right.setPower((speed * constantSpeedModifier) * currentSpeedModeModifier);
+        sidePowers[DifferentialDriveHelper.RIGHT] = (speed * constantSpeedModifier) * currentSpeedModeModifier;
+        applyPowers();
+    }
+
+    /**
+     * Compensates the requested side powers for the battery voltage and sends them to the motors, scaled down by the power manager if they would go over the current budget.
+     */
+    private void applyPowers() {
+        motorPowers[DifferentialDriveHelper.LEFT] = sidePowers[DifferentialDriveHelper.LEFT];
+        motorPowers[DifferentialDriveHelper.RIGHT] = sidePowers[DifferentialDriveHelper.RIGHT];
+        robot.voltageCompensator.compensate(motorPowers, 0, 2);
+
+        double budgetScale = robot.powerManager.request(this, motors, motorPowers);
+        left.setPower(motorPowers[DifferentialDriveHelper.LEFT] * budgetScale);
+        right.setPower(motorPowers[DifferentialDriveHelper.RIGHT] * budgetScale);
     }
 
     /**
@@ -397,6 +493,7 @@ public class TankDrive extends SubSystem{
     public void setMotorConfiguration(String leftConfigurationName, String rightConfigurationName){
         left = robot.hardwareMap.dcMotor.get(leftConfigurationName);
         right = robot.hardwareMap.dcMotor.get(rightConfigurationName);
+        motors = new DcMotor[] {left, right};
     }
 
     /**
@@ -471,6 +568,32 @@ public class TankDrive extends SubSystem{
         }
     }
 
+    /**
+     * Sets the boolean input that activates quick turn in curvature drive.
+     *
+     * @param button - The boolean input that activates quick turn.
+     *
+     * @throws NotBooleanInputException - Throws an exception if button does not return boolean values.
+     */
+    public void setQuickTurn(Button button){
+        if(button.isBoolean) {
+            inputs.addButton(QUICKTURNBUTTON, button);
+        }
+        else {
+            throw new NotBooleanInputException("quickTurnButton was not set to a boolean input");
+        }
+    }
+
+    /**
+     * Sets how the drive and turn inputs are used in teleop.
+     *
+     * @param driveType - The drive type.
+     */
+    public void setDriveType(DriveType driveType) {
+        this.driveType = driveType;
+        driveHelper.reset();
+    }
+
     /**
      * Pulls the config settings for teleop.
      */
@@ -479,9 +602,13 @@ public class TankDrive extends SubSystem{
         Map<String, Object> settingsData = robot.pullNonGamepad(this);
 
         setTurnAndMove((boolean) settingsData.get("Turn and Move"));
+        setDriveType((DriveType) settingsData.get("DriveType"));
+        driveHelper.setResponseCurves((ResponseCurve.Type) settingsData.get("ThrottleCurve"), (ResponseCurve.Type) settingsData.get("TurnCurve"));
         if (!useSpecific) {
             setConstantSpeedModifier((double) settingsData.get("ConstantSpeedModifier"));
             setSpeedModeModifier((double) settingsData.get("SpeedModeModifier"));
+            driveHelper.setSensitivity((double) settingsData.get("Sensitivity"));
+            driveHelper.setNegativeInertia((double) settingsData.get("NegativeInertia"));
         }
     }
 
@@ -521,6 +648,82 @@ public class TankDrive extends SubSystem{
         return new int[]{left.getCurrentPosition(), right.getCurrentPosition()};
     }
 
+    @Override
+    public void setChassisSpeeds(double vx, double vy, double omega) {
+        //Differential drives can't strafe, so vx is ignored.
+        double leftPower = vy - omega;
+        double rightPower = vy + omega;
+        double max = Math.max(1, Math.max(Math.abs(leftPower), Math.abs(rightPower)));
+        sidePowers[DifferentialDriveHelper.LEFT] = leftPower / max;
+        sidePowers[DifferentialDriveHelper.RIGHT] = rightPower / max;
+        applyPowers();
+    }
+
+    @Override
+    public void stopChassis() {
+        stopMovement();
+    }
+
+    @Override
+    public boolean isHolonomic() {
+        return false;
+    }
+
+    @Override
+    public WheelLayout getWheelLayout() {
+        return WheelLayout.DIFFERENTIAL;
+    }
+
+    @Override
+    public int getWheelCount() {
+        return 2;
+    }
+
+    @Override
+    public void getWheelPositions(int[] positions) {
+        synchronized (encoderLock) {
+            positions[DifferentialDriveHelper.LEFT] = encoderOffsets[DifferentialDriveHelper.LEFT] + left.getCurrentPosition();
+            positions[DifferentialDriveHelper.RIGHT] = encoderOffsets[DifferentialDriveHelper.RIGHT] + right.getCurrentPosition();
+        }
+    }
+
+    @Override
+    public void getWheelVelocities(double[] velocities) {
+        velocities[DifferentialDriveHelper.LEFT] = getVelocity(left);
+        velocities[DifferentialDriveHelper.RIGHT] = getVelocity(right);
+    }
+
+    @Override
+    public double getEncodersPerMeter() {
+        return encodersPerMeter;
+    }
+
+    @Override
+    public double[] getWheelScales() {
+        return wheelScales.clone();
+    }
+
+    /**
+     * Loads the saved encoder calibration, if there is one.
+     */
+    private void loadCalibration() {
+        EncoderCalibration calibration = EncoderCalibration.load(robot, this.getClass(), 2);
+        if(calibration != null) {
+            encodersPerMeter = calibration.ticksPerMeter;
+            wheelScales = calibration.wheelScales;
+        }
+    }
+
+    /**
+     * Gets the velocity of a motor.
+     *
+     * @param motor - The motor.
+     * @return - The motor's velocity in encoder ticks per second, or 0 if the motor can't report its velocity.
+     */
+    private static double getVelocity(DcMotor motor) {
+        return motor instanceof DcMotorEx ? ((DcMotorEx) motor).getVelocity() : 0;
+    }
+
     /**
      * The teleop configuration settings.
      *
@@ -530,20 +733,38 @@ public class TankDrive extends SubSystem{
     public static ConfigParam[] teleOpConfig() {
         if(useSpecific) {
             return new ConfigParam[]{
+                    new ConfigParam("DriveType", new LinkedHashMap<String, Object>() {{
+                        put(DriveType.STANDARD.name(), DriveType.STANDARD);
+                        put(DriveType.ARCADE.name(), DriveType.ARCADE);
+                        put(DriveType.CURVATURE.name(), DriveType.CURVATURE);
+                    }}, DriveType.STANDARD.name()),
                     new ConfigParam(DRIVESTICK, Button.DoubleInputs.left_stick_y),
                     new ConfigParam(TURNSTICK, Button.DoubleInputs.right_stick_x),
                     new ConfigParam(SPEEDMODEBUTTON, Button.BooleanInputs.noButton),
+                    new ConfigParam(QUICKTURNBUTTON, Button.BooleanInputs.noButton),
+                    new ConfigParam("ThrottleCurve", ResponseCurve.typeMap(), ResponseCurve.Type.LINEAR.name()),
+                    new ConfigParam("TurnCurve", ResponseCurve.typeMap(), ResponseCurve.Type.LINEAR.name()),
                     new ConfigParam("Turn and Move", ConfigParam.booleanMap, true)
             };
         }
         else {
             return new ConfigParam[]{
+                    new ConfigParam("DriveType", new LinkedHashMap<String, Object>() {{
+                        put(DriveType.STANDARD.name(), DriveType.STANDARD);
+                        put(DriveType.ARCADE.name(), DriveType.ARCADE);
+                        put(DriveType.CURVATURE.name(), DriveType.CURVATURE);
+                    }}, DriveType.STANDARD.name()),
                     new ConfigParam(DRIVESTICK, Button.DoubleInputs.left_stick_y),
                     new ConfigParam(TURNSTICK, Button.DoubleInputs.right_stick_x),
                     new ConfigParam(SPEEDMODEBUTTON, Button.BooleanInputs.noButton),
+                    new ConfigParam(QUICKTURNBUTTON, Button.BooleanInputs.noButton),
+                    new ConfigParam("ThrottleCurve", ResponseCurve.typeMap(), ResponseCurve.Type.LINEAR.name()),
+                    new ConfigParam("TurnCurve", ResponseCurve.typeMap(), ResponseCurve.Type.LINEAR.name()),
                     new ConfigParam("Turn and Move", ConfigParam.booleanMap, true),
                     new ConfigParam("SpeedModeModifier", ConfigParam.numberMap(0,100, .05), 1.0),
-                    new ConfigParam("ConstantSpeedModifier", ConfigParam.numberMap(0,100, .05), 1.0)
+                    new ConfigParam("ConstantSpeedModifier", ConfigParam.numberMap(0,100, .05), 1.0),
+                    new ConfigParam("Sensitivity", ConfigParam.numberMap(0,5, .05), 1.0),
+                    new ConfigParam("NegativeInertia", ConfigParam.numberMap(0,10, .5), 3.0)
             };
         }
     }
@@ -566,12 +787,18 @@ public class TankDrive extends SubSystem{
     public static final class Params implements BaseParam {
         //Motor config names to be used in TankDrive to set the motors
         private String leftMotor, rightMotor;
-        //Array of buttons to set the buttons to for the TankDrive class [0] is driveStick, [1] is turnStick, and [2] is speedModeButton.
-        private Button[] buttonsToSet = new Button[3];
+        //Array of buttons to set the buttons to for the TankDrive class [0] is driveStick, [1] is turnStick, [2] is speedModeButton, and [3] is quickTurnButton.
+        private Button[] buttonsToSet = new Button[4];
         //A boolean value specifying if the drivetrain is allowed to turn and move simultaneously.
         private boolean turnAndMove = true;
         //Various double values for speed control.
         private double speedModeModifier = 1, constantSpeedModifier = 1;
+        //How the drive and turn inputs are used in teleop.
+        private DriveType driveType = DriveType.STANDARD;
+        //The response curves applied to the drive and turn inputs in arcade and curvature drive.
+        private ResponseCurve.Type throttleCurve = ResponseCurve.Type.LINEAR, turnCurve = ResponseCurve.Type.LINEAR;
+        //The curvature drive turn sensitivity and negative inertia scalar.
+        private double sensitivity = 1, negativeInertia = 3;
 
         /**
          * Constructor for Params.
@@ -661,6 +888,68 @@ public class TankDrive extends SubSystem{
             return this;
         }
 
+        /**
+         * Sets how the drive and turn inputs are used in teleop.
+         *
+         * @param driveType - The drive type.
+         * @return This instance of Params.
+         */
+        public Params setDriveType(DriveType driveType) {
+            this.driveType = driveType;
+            return this;
+        }
+
+        /**
+         * Sets the response curves applied to the drive and turn inputs in arcade and curvature drive.
+         *
+         * @param throttleCurve - The response curve applied to the drive input.
+         * @param turnCurve - The response curve applied to the turn input.
+         * @return This instance of Params.
+         */
+        public Params setResponseCurves(ResponseCurve.Type throttleCurve, ResponseCurve.Type turnCurve) {
+            this.throttleCurve = throttleCurve;
+            this.turnCurve = turnCurve;
+            return this;
+        }
+
+        /**
+         * Sets the curvature drive turn sensitivity.
+         *
+         * @param sensitivity - How sharply curvature drive turns for a given turn input.
+         * @return This instance of Params.
+         */
+        public Params setSensitivity(double sensitivity) {
+            this.sensitivity = sensitivity;
+            return this;
+        }
+
+        /**
+         * Sets the curvature drive negative inertia scalar.
+         *
+         * @param negativeInertia - How strongly changes in the turn input are exaggerated. 0 disables negative inertia.
+         * @return This instance of Params.
+         */
+        public Params setNegativeInertia(double negativeInertia) {
+            this.negativeInertia = negativeInertia;
+            return this;
+        }
+
+        /**
+         * Sets the quick turn button used in curvature drive.
+         *
+         * @param quickTurnButton - The quick turn button.
+         * @return This instance of Params.
+         *
+         * @throws NotBooleanInputException - Throws this exception when the provided button does not return boolean values.
+         */
+        public Params setQuickTurnButton(Button quickTurnButton) {
+            if(!quickTurnButton.isBoolean) {
+                throw new NotBooleanInputException("QuickTurnButton must be a boolean input.");
+            }
+            buttonsToSet[3] = quickTurnButton;
+            return this;
+        }
+
         /**
          * Sets the default button values.
          */
@@ -668,6 +957,7 @@ public class TankDrive extends SubSystem{
             buttonsToSet[0] = new Button(1, Button.DoubleInputs.left_stick_y);
             buttonsToSet[1] = new Button(1, Button.DoubleInputs.right_stick_x);
             buttonsToSet[2] = new Button(1, Button.BooleanInputs.noButton);
+            buttonsToSet[3] = new Button(1, Button.BooleanInputs.noButton);
         }
     }
 
@@ -679,6 +969,8 @@ public class TankDrive extends SubSystem{
         private String leftMotor, rightMotor;
         //Various double values used for speed control.
         private double speedModeModifier = 1, constantSpeedModifier = 1;
+        //The curvature drive turn sensitivity and negative inertia scalar.
+        private double sensitivity = 1, negativeInertia = 3;
 
         /**
          * Constructor for NumberParams.
@@ -713,5 +1005,27 @@ public class TankDrive extends SubSystem{
             this.constantSpeedModifier = constantSpeedModifier;
             return this;
         }
+
+        /**
+         * Sets the curvature drive turn sensitivity.
+         *
+         * @param sensitivity - How sharply curvature drive turns for a given turn input.
+         * @return This instance of NumberParams.
+         */
+        public NumberParams setSensitivity(double sensitivity) {
+            this.sensitivity = sensitivity;
+            return this;
+        }
+
+        /**
+         * Sets the curvature drive negative inertia scalar.
+         *
+         * @param negativeInertia - How strongly changes in the turn input are exaggerated. 0 disables negative inertia.
+         * @return This instance of NumberParams.
+         */
+        public NumberParams setNegativeInertia(double negativeInertia) {
+            this.negativeInertia = negativeInertia;
+            return this;
+        }
     }
 }
\ No newline at end of file
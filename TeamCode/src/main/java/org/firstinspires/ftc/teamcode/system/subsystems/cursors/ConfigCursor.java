@@ -9,25 +9,26 @@ package org.firstinspires.ftc.teamcode.system.subsystems.cursors;
 
 import org.firstinspires.ftc.teamcode.system.source.BaseRobot.Robot;
 import org.firstinspires.ftc.teamcode.system.source.GUI.Cursor;
-import org.firstinspires.ftc.teamcode.system.source.GUI.Menu;
 import org.firstinspires.ftc.teamcode.util.exceptions.NotBooleanInputException;
 import org.firstinspires.ftc.teamcode.util.misc.Button;
 import org.firstinspires.ftc.teamcode.util.misc.CustomizableGamepad;
+import org.firstinspires.ftc.teamcode.util.misc.KeyRepeater;
 
 /**
  * A cursor object used in config menus. Contains all the controls needed to use the config system.
+ * Holding a direction repeats the movement and speeds up the longer it is held. In write mode, holding select or reverse select repeats them the same way.
  */
 public class ConfigCursor extends Cursor {
 
     //The customizable set of inputs used to control the cursor.
     private CustomizableGamepad inputs;
-    //The millisecond timestamps of the last time when select was pressed and when reverse select was pressed, respectively
-    private long timeFromLastPressSelectMill, timeFromLastPressRSelectMill;
+    //The key repeats used for up/down movement, left/right movement, select and reverse select.
+    private final KeyRepeater verticalRepeater = new KeyRepeater(), horizontalRepeater = new KeyRepeater(), selectRepeater = new KeyRepeater(), reverseSelectRepeater = new KeyRepeater();
     //The names of the controls that are used to interact with the cursor.
     public static final String UP = "up", DOWN = "down", LEFT = "left", RIGHT = "right", SELECT = "select", SWITCH_GAMEPAD = "switchgamepad", REVERSE_SELECT = "it's rewind time", BACK_BUTTON = "back", DISABLE_AUTORUN = "disable autorun";
-    //A boolean value specifying if the cursor has been set to "Write mode"
+    //A boolean value specifying if the cursor has been set to "Write mode". Select and reverse select only repeat when held in write mode.
     private boolean writeMode;
-    //A boolean value used to toggle the controls on and off.
+    //A boolean value used to only trigger the non-directional buttons once per press.
     private boolean flag = true;
 
     /**
@@ -162,7 +163,7 @@ public class ConfigCursor extends Cursor {
     }
 
     /**
-     * Sets whether the cursor is in write mode.
+     * Sets whether the cursor is in write mode. Menus turn this on while the user is cycling through values with select and reverse select.
      *
      * @param writeMode - Whether the cursor will be set to write mode (true) or not (false).
      */
@@ -173,49 +174,35 @@ public class ConfigCursor extends Cursor {
     @Override
     public void update() {
 
-        if(inputs.getBooleanInput(SELECT) && (flag || (writeMode && System.currentTimeMillis()-timeFromLastPressSelectMill > 250))){
+        int verticalSteps = verticalRepeater.update(inputs.getBooleanInput(DOWN), inputs.getBooleanInput(UP));
+        int horizontalSteps = horizontalRepeater.update(inputs.getBooleanInput(RIGHT), inputs.getBooleanInput(LEFT));
+        int selectSteps = selectRepeater.update(inputs.getBooleanInput(SELECT));
+        int reverseSelectSteps = reverseSelectRepeater.update(inputs.getBooleanInput(REVERSE_SELECT));
+        boolean updated = true;
+
+        if(selectSteps > 0 && (flag || writeMode)){
             menu.onSelect();
-            menu.onButton(SELECT,inputs.getButton(SELECT));
-            timeFromLastPressSelectMill = System.currentTimeMillis();
+            pressRepeated(SELECT, selectSteps);
             flag = false;
         }
-        else if(inputs.getBooleanInput(REVERSE_SELECT) && (flag || (writeMode && System.currentTimeMillis()-timeFromLastPressRSelectMill > 250))) {
-            menu.onButton(REVERSE_SELECT,inputs.getButton(REVERSE_SELECT));
-            timeFromLastPressRSelectMill = System.currentTimeMillis();
+        else if(reverseSelectSteps > 0 && (flag || writeMode)) {
+            pressRepeated(REVERSE_SELECT, reverseSelectSteps);
             flag = false;
         }
         else if(inputs.getBooleanInput(SWITCH_GAMEPAD) && flag) {
             menu.onButton(SWITCH_GAMEPAD,inputs.getButton(SWITCH_GAMEPAD));
             flag = false;
         }
-        else if (inputs.getBooleanInput(UP) && y - 1 >= 0 && flag) {
-            y--;
-            if ((y + 1) % Menu.MAXLINESPERSCREEN == 0) {
-                super.menu.menuUp();
-            }
-            flag = false;
-
+        else if (verticalSteps < 0 && moveVertical(verticalSteps)) {
             menu.onButton(UP, inputs.getButton(UP));
         }
-        else if (inputs.getBooleanInput(DOWN) && y + 1 <= super.menu.getSelectionZoneHeight() - 1 && flag) {
-            y++;
-            if (y % Menu.MAXLINESPERSCREEN == 0) {
-                menu.menuDown();
-            }
-            flag = false;
-
+        else if (verticalSteps > 0 && moveVertical(verticalSteps)) {
             menu.onButton(DOWN, inputs.getButton(DOWN));
         }
-        else if (inputs.getBooleanInput(LEFT) && x - 1 >= 0 && flag) {
-            x--;
-            flag = false;
-
+        else if (horizontalSteps < 0 && moveHorizontal(horizontalSteps)) {
             menu.onButton(LEFT, inputs.getButton(LEFT));
         }
-        else if (inputs.getBooleanInput(RIGHT) && x + 1 <= menu.getSelectionZoneWidth() - 1 && flag) {
-            x++;
-            flag = false;
-
+        else if (horizontalSteps > 0 && moveHorizontal(horizontalSteps)) {
             menu.onButton(RIGHT, inputs.getButton(RIGHT));
         }
         else if(inputs.getBooleanInput(BACK_BUTTON) && flag) {
@@ -226,11 +213,15 @@ public class ConfigCursor extends Cursor {
             menu.onButton(DISABLE_AUTORUN,inputs.getButton(DISABLE_AUTORUN));
             flag = false;
         }
-        else if (!inputs.getBooleanInput(SELECT) && !inputs.getBooleanInput(UP) && !inputs.getBooleanInput(DOWN) && !inputs.getBooleanInput(LEFT) && !inputs.getBooleanInput(RIGHT) && !inputs.getBooleanInput(REVERSE_SELECT) && !inputs.getBooleanInput(SWITCH_GAMEPAD) && !inputs.getBooleanInput(BACK_BUTTON) && !inputs.getBooleanInput(DISABLE_AUTORUN) && !flag) {
+        else {
+            updated = false;
+        }
+
+        if (!inputs.getBooleanInput(SELECT) && !inputs.getBooleanInput(REVERSE_SELECT) && !inputs.getBooleanInput(SWITCH_GAMEPAD) && !inputs.getBooleanInput(BACK_BUTTON) && !inputs.getBooleanInput(DISABLE_AUTORUN)) {
             flag = true;
         }
 
-        cursorUpdated = !flag;
+        cursorUpdated = updated;
 
         if(writeMode) {
             forceCursorChar = !(inputs.getBooleanInput(SELECT) || inputs.getBooleanInput(REVERSE_SELECT));
@@ -239,4 +230,16 @@ public class ConfigCursor extends Cursor {
             forceCursorChar = true;
         }
     }
+
+    /**
+     * Sends a button press to the menu a number of times. Only the first press is sent if the menu leaves write mode, so a repeat can't carry over into another part of the menu.
+     *
+     * @param name - The name of the button.
+     * @param presses - The number of times to press the button.
+     */
+    private void pressRepeated(String name, int presses) {
+        for(int i = 0; i < presses && (i == 0 || writeMode); i++) {
+            menu.onButton(name, inputs.getButton(name));
+        }
+    }
 }
@@ -9,14 +9,15 @@ package org.firstinspires.ftc.teamcode.system.subsystems.cursors;
 
 import org.firstinspires.ftc.teamcode.system.source.BaseRobot.Robot;
 import org.firstinspires.ftc.teamcode.system.source.GUI.Cursor;
-import org.firstinspires.ftc.teamcode.system.source.GUI.Menu;
 import org.firstinspires.ftc.teamcode.util.exceptions.NotBooleanInputException;
 import org.firstinspires.ftc.teamcode.util.misc.BaseParam;
 import org.firstinspires.ftc.teamcode.util.misc.Button;
 import org.firstinspires.ftc.teamcode.util.misc.CustomizableGamepad;
+import org.firstinspires.ftc.teamcode.util.misc.KeyRepeater;
 
 /**
  * A default cursor object with normal movement and selection operations.
+ * Holding a direction repeats the movement and speeds up the longer it is held. Select only triggers once per press.
  */
 public class DefaultCursor extends Cursor {
 
@@ -24,8 +25,10 @@ public class DefaultCursor extends Cursor {
     private CustomizableGamepad inputs;
     //The names of the controls that are used to interact with the cursor.
     public static final String UP = "up", DOWN = "down", LEFT = "left", RIGHT = "right", SELECT = "select";
-    //A boolean value used to toggle the controls on and off.
+    //A boolean value used to only trigger select once per press.
     private boolean flag = true;
+    //The key repeats used for up/down and left/right movement.
+    private KeyRepeater verticalRepeater, horizontalRepeater;
 
     /**
      * Constructor for default cursor.
@@ -37,6 +40,8 @@ public class DefaultCursor extends Cursor {
         inputs = new CustomizableGamepad(robot);
 
         doBlink = params.doBlink;
+        verticalRepeater = new KeyRepeater(params.keyRepeat);
+        horizontalRepeater = new KeyRepeater(params.keyRepeat);
 
         setInputs(params.buttons[0], params.buttons[1], params.buttons[2], params.buttons[3], params.buttons[4]);
     }
@@ -68,42 +73,37 @@ public class DefaultCursor extends Cursor {
     @Override
     public void update() {
 
+        int verticalSteps = verticalRepeater.update(inputs.getBooleanInput(DOWN), inputs.getBooleanInput(UP));
+        int horizontalSteps = horizontalRepeater.update(inputs.getBooleanInput(RIGHT), inputs.getBooleanInput(LEFT));
+        boolean updated = false;
+
         if(inputs.getBooleanInput(SELECT) && flag){
             menu.onSelect();
             menu.onButton(SELECT, inputs.getButton(SELECT));
             flag = false;
+            updated = true;
         }
-        else if(inputs.getBooleanInput(UP) && y-1 >= 0 && flag){
-
-            y--;
-            if((y+1) % Menu.MAXLINESPERSCREEN == 0) {
-                menu.menuUp();
-            }
+        else if(verticalSteps < 0 && moveVertical(verticalSteps)){
             menu.onButton(UP,inputs.getButton(UP));
-            flag = false;
+            updated = true;
         }
-        else if(inputs.getBooleanInput(DOWN) && y+1 <= menu.getSelectionZoneHeight()-1 && flag){
-            y++;
-            if(y % Menu.MAXLINESPERSCREEN == 0) {
-                menu.menuDown();
-            }
+        else if(verticalSteps > 0 && moveVertical(verticalSteps)){
             menu.onButton(DOWN,inputs.getButton(DOWN));
-            flag = false;
+            updated = true;
         }
-        else if(inputs.getBooleanInput(LEFT) && x-1 >= 0 && flag){
-            x--;
+        else if(horizontalSteps < 0 && moveHorizontal(horizontalSteps)){
             menu.onButton(LEFT,inputs.getButton(LEFT));
-            flag = false;
+            updated = true;
         }
-        else if(inputs.getBooleanInput(RIGHT) && x+1 <= menu.getSelectionZoneWidth()-1 && flag){
-            x++;
+        else if(horizontalSteps > 0 && moveHorizontal(horizontalSteps)){
             menu.onButton(RIGHT,inputs.getButton(RIGHT));
-            flag = false;
+            updated = true;
         }
-        else if(!inputs.getBooleanInput(SELECT) && !inputs.getBooleanInput(UP) && !inputs.getBooleanInput(DOWN) && !inputs.getBooleanInput(LEFT) && !inputs.getBooleanInput(RIGHT) && !flag){
+
+        if(!inputs.getBooleanInput(SELECT)) {
             flag = true;
         }
-        cursorUpdated = !flag;
+        cursorUpdated = updated;
     }
 
     /**
@@ -119,6 +119,8 @@ public class DefaultCursor extends Cursor {
         private char cursorIcon = '█';
         //Whether or not the cursor should blink.
         private boolean doBlink = true;
+        //The key repeat settings used when a direction is held.
+        private KeyRepeater.Params keyRepeat = new KeyRepeater.Params();
 
         /**
          * Sets the cursor's blink speed.
@@ -131,6 +133,17 @@ public class DefaultCursor extends Cursor {
             return this;
         }
 
+        /**
+         * Sets how the cursor repeats its movement when a direction is held.
+         *
+         * @param keyRepeat - The key repeat settings.
+         * @return This instance of the params class.
+         */
+        public Params setKeyRepeat(KeyRepeater.Params keyRepeat) {
+            this.keyRepeat = keyRepeat;
+            return this;
+        }
+
         /**
          * Sets the cursor's up button.
          *
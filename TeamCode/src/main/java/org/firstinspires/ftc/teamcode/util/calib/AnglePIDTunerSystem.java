@@ -20,6 +20,7 @@ import org.firstinspires.ftc.teamcode.util.control.PIDController;
 import org.firstinspires.ftc.teamcode.util.exceptions.GuiNotPresentException;
 import org.firstinspires.ftc.teamcode.util.misc.Button;
 import org.firstinspires.ftc.teamcode.util.misc.CustomizableGamepad;
+import org.firstinspires.ftc.teamcode.util.misc.KeyRepeater;
 import org.firstinspires.ftc.teamcode.util.misc.Grapher;
 import org.firstinspires.ftc.teamcode.util.misc.Toggle;
 import org.opencv.android.CameraBridgeViewBase;
@@ -42,16 +43,14 @@ public class AnglePIDTunerSystem extends SubSystem implements CameraBridgeViewBa
     private BNO055IMU imu;
     //The menu used to display the current kp, ki, and kd values.
     private DisplayMenu display;
-    //The last time in milliseconds that the PID coefficients were changed.
-    private long lastActivatedTimestamp;
+    //Key repeats that turn holding the kp, ki, and kd buttons into accelerating changes.
+    private KeyRepeater pRepeater, iRepeater, dRepeater;
     //The PID coefficients.
     private double kp,ki,kd;
     //How much the coefficients will be incremented or decremented by.
     private double increment;
     //The target angle of the controller.
     private double setPoint;
-    //The delay between each update to the PID controller's coefficients.
-    private int delayMs;
     //The names of all the buttons used to change the PID coefficients.
     private final String SLOWMODE = "slowMode", P_INCREMENT = "PUp", P_DECREMENT = "PDown", I_INCREMENT = "IUp", I_DECREMENT = "IDown", D_INCREMENT = "DUp", D_DECREMENT = "DDown";
     //The type of drive system the robot is using.
@@ -301,18 +300,15 @@ public class AnglePIDTunerSystem extends SubSystem implements CameraBridgeViewBa
     @Override
     public void init_loop() {
 
-        display.clear();
-        if(!imu.isGyroCalibrated()) {
-            display.addLine("Calibrating IMU...");
-        }
-        else {
-            display.addLine("IMU Calibrated!");
-        }
+        display.put("IMU", imu.isGyroCalibrated() ? "Calibrated!" : "Calibrating...");
     }
 
     @Override
     public void start() {
-
+        display.remove("IMU");
+        display.put("kp",kp);
+        display.put("ki",ki);
+        display.put("kd",kd);
     }
 
     @Override
@@ -325,29 +321,19 @@ public class AnglePIDTunerSystem extends SubSystem implements CameraBridgeViewBa
             increment = 0.1;
         }
 
-        if(System.currentTimeMillis() - lastActivatedTimestamp >= delayMs) {
-
-            if (inputs.getBooleanInput(P_INCREMENT)) {
-                kp += increment;
-            } else if (inputs.getBooleanInput(P_DECREMENT)) {
-                kp -= increment;
-            }
-            if (inputs.getBooleanInput(I_INCREMENT)) {
-                ki += increment;
-            } else if (inputs.getBooleanInput(I_DECREMENT)) {
-                ki -= increment;
-            }
-            if (inputs.getBooleanInput(D_INCREMENT)) {
-                kd += increment;
-            } else if (inputs.getBooleanInput(D_DECREMENT)) {
-                kd -= increment;
-            }
-            lastActivatedTimestamp = System.currentTimeMillis();
+        int pSteps = pRepeater.update(inputs.getBooleanInput(P_INCREMENT), inputs.getBooleanInput(P_DECREMENT));
+        int iSteps = iRepeater.update(inputs.getBooleanInput(I_INCREMENT), inputs.getBooleanInput(I_DECREMENT));
+        int dSteps = dRepeater.update(inputs.getBooleanInput(D_INCREMENT), inputs.getBooleanInput(D_DECREMENT));
+
+        if(pSteps != 0 || iSteps != 0 || dSteps != 0) {
+            kp += pSteps * increment;
+            ki += iSteps * increment;
+            kd += dSteps * increment;
             pidTuner.setTunings(kp,ki,kd);
 
-            display.addData("kp",kp);
-            display.addData("ki",ki);
-            display.addData("kd",kd);
+            display.put("kp",kp);
+            display.put("ki",ki);
+            display.put("kd",kd);
         }
     }
 
@@ -380,8 +366,9 @@ public class AnglePIDTunerSystem extends SubSystem implements CameraBridgeViewBa
         slowModeToggle = new Toggle(Toggle.ToggleTypes.flipToggle, false);
 
         increment = 0.1;
-        lastActivatedTimestamp = 0;
-        delayMs = 200;
+        pRepeater = new KeyRepeater();
+        iRepeater = new KeyRepeater();
+        dRepeater = new KeyRepeater();
 
         kp = 0;
         ki = 0;
@@ -20,6 +20,7 @@ import org.firstinspires.ftc.teamcode.util.exceptions.NotBooleanInputException;
 import org.firstinspires.ftc.teamcode.util.misc.Button;
 import org.firstinspires.ftc.teamcode.util.misc.ConfigParam;
 import org.firstinspires.ftc.teamcode.util.misc.CustomizableGamepad;
+import org.firstinspires.ftc.teamcode.util.misc.KeyRepeater;
 import org.firstinspires.ftc.teamcode.util.misc.Toggle;
 import org.opencv.android.CameraBridgeViewBase;
 import org.opencv.core.Core;
@@ -50,10 +51,10 @@ public class ColorspaceCalib extends SubSystem implements CameraBridgeViewBase.C
     private Function<Mat,Mat> converter;
     //Selected colorspace that will be used.
     private ColorSpace colorSpace;
-    //Used to only allow the increment to change the x,y,z values every deleyMs milliseconds.
-    private long lastActivatedTimestamp;
-    //ChannelIdx is the index of the channel in the colorspace that will be filtered in single channel mode. DelayMs is time between changes to x, y, z values in milliseconds.
-    private int channelIdx, delayMs;
+    //Key repeats that turn holding the x, y, z buttons into accelerating changes.
+    private KeyRepeater xRepeater, yRepeater, zRepeater;
+    //The index of the channel in the colorspace that will be filtered in single channel mode.
+    private int channelIdx;
     //The mode of image filtering. Either single chanel images or 3 channel color images.
     private ImageType imageType;
     //The menu used to display the colorspace bounds to the screen.
@@ -341,12 +342,12 @@ public class ColorspaceCalib extends SubSystem implements CameraBridgeViewBase.C
     @Override
     public void handle() {
 
-        displayMenu.addData("x_upper",x_upper);
-        displayMenu.addData("x_lower",x_lower);
-        displayMenu.addData("y_upper",y_upper);
-        displayMenu.addData("y_lower",y_lower);
-        displayMenu.addData("z_upper",z_upper);
-        displayMenu.addData("z_lower",z_lower);
+        displayMenu.put("x_upper",x_upper);
+        displayMenu.put("x_lower",x_lower);
+        displayMenu.put("y_upper",y_upper);
+        displayMenu.put("y_lower",y_lower);
+        displayMenu.put("z_upper",z_upper);
+        displayMenu.put("z_lower",z_lower);
 
         slowModeToggle.updateToggle(inputs.getBooleanInput(SLOWMODE));
 
@@ -358,41 +359,18 @@ public class ColorspaceCalib extends SubSystem implements CameraBridgeViewBase.C
         
         upperLimit.updateToggle(inputs.getBooleanInput(CHANGELIMIT));
 
-        if(System.currentTimeMillis() - lastActivatedTimestamp >= delayMs) {
-            if (upperLimit.getCurrentState()) {
-                if (inputs.getBooleanInput(X_INCREMENT)) {
-                    x_upper += increment;
-                } else if (inputs.getBooleanInput(X_DECREMENT)) {
-                    x_upper -= increment;
-                }
-                if (inputs.getBooleanInput(Y_INCREMENT)) {
-                    y_upper += increment;
-                } else if (inputs.getBooleanInput(Y_DECREMENT)) {
-                    y_upper -= increment;
-                }
-                if (inputs.getBooleanInput(Z_INCREMENT)) {
-                    z_upper += increment;
-                } else if (inputs.getBooleanInput(Z_DECREMENT)) {
-                    z_upper -= increment;
-                }
-            } else {
-                if (inputs.getBooleanInput(X_INCREMENT)) {
-                    x_lower += increment;
-                } else if (inputs.getBooleanInput(X_DECREMENT)) {
-                    x_lower -= increment;
-                }
-                if (inputs.getBooleanInput(Y_INCREMENT)) {
-                    y_lower += increment;
-                } else if (inputs.getBooleanInput(Y_DECREMENT)) {
-                    y_lower -= increment;
-                }
-                if (inputs.getBooleanInput(Z_INCREMENT)) {
-                    z_lower += increment;
-                } else if (inputs.getBooleanInput(Z_DECREMENT)) {
-                    z_lower -= increment;
-                }
-            }
-            lastActivatedTimestamp = System.currentTimeMillis();
+        int xSteps = xRepeater.update(inputs.getBooleanInput(X_INCREMENT), inputs.getBooleanInput(X_DECREMENT));
+        int ySteps = yRepeater.update(inputs.getBooleanInput(Y_INCREMENT), inputs.getBooleanInput(Y_DECREMENT));
+        int zSteps = zRepeater.update(inputs.getBooleanInput(Z_INCREMENT), inputs.getBooleanInput(Z_DECREMENT));
+
+        if (upperLimit.getCurrentState()) {
+            x_upper += xSteps * increment;
+            y_upper += ySteps * increment;
+            z_upper += zSteps * increment;
+        } else {
+            x_lower += xSteps * increment;
+            y_lower += ySteps * increment;
+            z_lower += zSteps * increment;
         }
 
         x_lower = Range.clip(x_lower,0,x_upper);
@@ -523,12 +501,14 @@ public class ColorspaceCalib extends SubSystem implements CameraBridgeViewBase.C
     }
 
     /**
-     * Set delay between each x, y, or z change.
+     * Sets how the x, y, z values repeat and speed up when their buttons are held.
      *
-     * @param delayMs - delay in milliseconds between x, y, or z changes.
+     * @param keyRepeat - The key repeat settings. Each repeat step is multiplied by the current increment.
      */
-    public void setDelay(int delayMs) {
-        this.delayMs = delayMs;
+    public void setKeyRepeat(KeyRepeater.Params keyRepeat) {
+        xRepeater = new KeyRepeater(keyRepeat);
+        yRepeater = new KeyRepeater(keyRepeat);
+        zRepeater = new KeyRepeater(keyRepeat);
     }
 
     /**
@@ -546,8 +526,7 @@ public class ColorspaceCalib extends SubSystem implements CameraBridgeViewBase.C
         slowModeToggle = new Toggle(Toggle.ToggleTypes.flipToggle, false);
         increment = 5;
         upperLimit = new Toggle(Toggle.ToggleTypes.flipToggle, false);
-        lastActivatedTimestamp = 0;
-        delayMs = 200;
+        setKeyRepeat(new KeyRepeater.Params());
         inputs = new CustomizableGamepad(robot);
     }
 
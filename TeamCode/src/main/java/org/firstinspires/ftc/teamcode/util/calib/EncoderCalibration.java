@@ -0,0 +1,251 @@
+/*
+ * Filename: EncoderCalibration.java
+ * Author: Cole Savage
+ * Team Name: Level Up
+ * Date: 10/19/19
+ */
+
+package org.firstinspires.ftc.teamcode.util.calib;
+
+import android.os.Environment;
+import android.util.Log;
+
+import org.firstinspires.ftc.teamcode.system.source.BaseRobot.Robot;
+import org.firstinspires.ftc.teamcode.util.exceptions.DumpsterFireException;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+
+/**
+ * The result of an encoder distance calibration: the number of encoder ticks per meter traveled by each wheel's surface and a scale factor for each wheel.
+ * This is the same value the drivetrains use as their encoder ticks per meter. For omniwheels at 45 degrees it is not the ticks per meter the robot drives forwards.
+ * Calibrations are fit from several runs by least squares and are stored in the robot's config folder, where the drive classes load them when they are created.
+ */
+public class EncoderCalibration {
+
+    //The name of the folder in the robot's config folder where calibrations are stored.
+    private static final String CALIBRATION_FOLDER = "calibration";
+
+    //The average number of encoder ticks per meter across all the wheels.
+    public final double ticksPerMeter;
+    //How many more ticks each wheel reads per meter than the average. A wheel's ticks per meter is ticksPerMeter * wheelScales[i].
+    public final double[] wheelScales;
+    //The root mean square distance error of each wheel's fit in meters.
+    public final double[] wheelResiduals;
+    //The root mean square distance error of the whole fit in meters.
+    public final double residual;
+
+    /**
+     * Constructor for EncoderCalibration.
+     *
+     * @param ticksPerMeter - The average number of encoder ticks per meter across all the wheels.
+     * @param wheelScales - The scale factor of each wheel.
+     * @param wheelResiduals - The root mean square distance error of each wheel's fit in meters.
+     * @param residual - The root mean square distance error of the whole fit in meters.
+     */
+    public EncoderCalibration(double ticksPerMeter, double[] wheelScales, double[] wheelResiduals, double residual) {
+        this.ticksPerMeter = ticksPerMeter;
+        this.wheelScales = wheelScales.clone();
+        this.wheelResiduals = wheelResiduals.clone();
+        this.residual = residual;
+    }
+
+    /**
+     * Fits a calibration to a set of runs by least squares.
+     * Each wheel's ticks per meter is fit with the line ticks = c * distance through the origin, which gives c = sum(distance * ticks) / sum(distance^2).
+     * The average of the wheels' fits is the ticks per meter, and each wheel's scale factor is its fit divided by that average.
+     *
+     * @param distances - The distance the wheels' surfaces traveled during each run in meters.
+     * @param ticks - The change in each wheel's encoder during each run. ticks[run][wheel].
+     * @return - The fitted calibration.
+     *
+     * @throws DumpsterFireException - Throws this exception if there are no runs, the runs have a different number of wheels, or no run moved.
+     */
+    public static EncoderCalibration fit(double[] distances, int[][] ticks) {
+        if(distances.length == 0 || distances.length != ticks.length) {
+            throw new DumpsterFireException("Calibration needs the same number of distances and encoder readings, and at least one run.");
+        }
+
+        int wheels = ticks[0].length;
+        double distanceSquared = 0;
+        double[] crossTerms = new double[wheels];
+        for(int run = 0; run < distances.length; run++) {
+            if(ticks[run].length != wheels) {
+                throw new DumpsterFireException("Every calibration run must read the same number of wheels.");
+            }
+            distanceSquared += distances[run] * distances[run];
+            for(int wheel = 0; wheel < wheels; wheel++) {
+                //Encoder direction depends on the motor direction, so only the size of the change is used.
+                crossTerms[wheel] += distances[run] * Math.abs(ticks[run][wheel]);
+            }
+        }
+        if(distanceSquared == 0) {
+            throw new DumpsterFireException("Calibration needs at least one run where the robot moved.");
+        }
+
+        double[] wheelTicksPerMeter = new double[wheels];
+        double ticksPerMeter = 0;
+        for(int wheel = 0; wheel < wheels; wheel++) {
+            wheelTicksPerMeter[wheel] = crossTerms[wheel] / distanceSquared;
+            ticksPerMeter += wheelTicksPerMeter[wheel] / wheels;
+        }
+        if(ticksPerMeter <= 0) {
+            throw new DumpsterFireException("None of the encoders moved during calibration.");
+        }
+
+        double[] wheelScales = new double[wheels];
+        double[] wheelResiduals = new double[wheels];
+        double totalSquaredError = 0;
+        for(int wheel = 0; wheel < wheels; wheel++) {
+            wheelScales[wheel] = wheelTicksPerMeter[wheel] / ticksPerMeter;
+
+            double squaredError = 0;
+            for(int run = 0; run < distances.length; run++) {
+                double error = wheelTicksPerMeter[wheel] > 0 ? Math.abs(ticks[run][wheel]) / wheelTicksPerMeter[wheel] - distances[run] : distances[run];
+                squaredError += error * error;
+            }
+            wheelResiduals[wheel] = Math.sqrt(squaredError / distances.length);
+            totalSquaredError += squaredError;
+        }
+
+        return new EncoderCalibration(ticksPerMeter, wheelScales, wheelResiduals, Math.sqrt(totalSquaredError / (distances.length * wheels)));
+    }
+
+    /**
+     * Gets the number of encoder ticks per meter for one wheel.
+     *
+     * @param wheel - The index of the wheel.
+     * @return - The wheel's encoder ticks per meter.
+     */
+    public double getWheelTicksPerMeter(int wheel) {
+        return ticksPerMeter * wheelScales[wheel];
+    }
+
+    /**
+     * Saves the calibration to the robot's config folder.
+     *
+     * @param robot - The robot being calibrated.
+     * @param driveClass - The class of the drivetrain that was calibrated.
+     */
+    public void save(Robot robot, Class driveClass) {
+        File folder = new File(getFolderPath(robot));
+        if(!folder.exists()) {
+            Log.i("File Creation", folder.mkdirs() ? "Directory created!" : "File error, couldn't create directory");
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("TicksPerMeter:").append(ticksPerMeter).append("\r\n");
+        for(int i = 0; i < wheelScales.length; i++) {
+            sb.append("WheelScale:").append(wheelScales[i]).append("\r\n");
+        }
+        sb.append("Residual:").append(residual);
+
+        FileOutputStream fos;
+        try {
+            File file = new File(getFilePath(robot, driveClass));
+            if(file.exists() && !file.delete()) {
+                Log.e("File Error", "Could not delete file at " + file.getPath());
+            }
+
+            fos = new FileOutputStream(file, false);
+
+            FileWriter fWriter;
+            try {
+                fWriter = new FileWriter(fos.getFD());
+                fWriter.write(sb.toString());
+                fWriter.flush();
+                fWriter.close();
+            } catch (Exception e) {
+                e.printStackTrace();
+            } finally {
+                fos.getFD().sync();
+                fos.close();
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Loads the saved calibration for a drivetrain.
+     *
+     * @param robot - The robot the drivetrain is on.
+     * @param driveClass - The class of the drivetrain.
+     * @param wheels - The number of wheels the drivetrain reads.
+     * @return - The saved calibration, or null if the drivetrain has not been calibrated or the saved calibration doesn't match the drivetrain.
+     */
+    public static EncoderCalibration load(Robot robot, Class driveClass, int wheels) {
+        File file = new File(getFilePath(robot, driveClass));
+        if(!file.exists()) {
+            return null;
+        }
+
+        double ticksPerMeter = 0;
+        double residual = 0;
+        double[] wheelScales = new double[wheels];
+        int wheel = 0;
+
+        try {
+            BufferedReader bufferedReader = new BufferedReader(new FileReader(file));
+            try {
+                String line;
+                while((line = bufferedReader.readLine()) != null) {
+                    String[] data = line.split(":");
+                    if(data.length != 2) {
+                        continue;
+                    }
+                    switch (data[0].trim()) {
+                        case "TicksPerMeter":
+                            ticksPerMeter = Double.parseDouble(data[1].trim());
+                            break;
+                        case "WheelScale":
+                            if(wheel < wheels) {
+                                wheelScales[wheel] = Double.parseDouble(data[1].trim());
+                            }
+                            wheel++;
+                            break;
+                        case "Residual":
+                            residual = Double.parseDouble(data[1].trim());
+                            break;
+                    }
+                }
+            } finally {
+                bufferedReader.close();
+            }
+        } catch (Exception e) {
+            Log.e("File Error", "Could not read calibration at " + file.getPath(), e);
+            return null;
+        }
+
+        if(ticksPerMeter <= 0 || wheel != wheels) {
+            Log.w("Calibration Warning", "Calibration at " + file.getPath() + " doesn't match " + driveClass.getSimpleName() + ", ignoring it.");
+            return null;
+        }
+
+        return new EncoderCalibration(ticksPerMeter, wheelScales, new double[wheels], residual);
+    }
+
+    /**
+     * Gets the folder that a robot's calibrations are stored in.
+     *
+     * @param robot - The robot.
+     * @return - The path to the calibration folder inside the robot's config folder.
+     */
+    private static String getFolderPath(Robot robot) {
+        return Environment.getExternalStorageDirectory().getPath() + "/System64/robot_" + robot.getClass().getSimpleName() + '/' + CALIBRATION_FOLDER;
+    }
+
+    /**
+     * Gets the file that a drivetrain's encoder calibration is stored in.
+     *
+     * @param robot - The robot the drivetrain is on.
+     * @param driveClass - The class of the drivetrain.
+     * @return - The path to the calibration file.
+     */
+    private static String getFilePath(Robot robot, Class driveClass) {
+        return getFolderPath(robot) + '/' + driveClass.getSimpleName() + "_encoders.txt";
+    }
+}
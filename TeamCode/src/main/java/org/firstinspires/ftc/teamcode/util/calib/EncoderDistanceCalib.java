@@ -11,37 +11,53 @@ import org.firstinspires.ftc.teamcode.system.menus.DisplayMenu;
 import org.firstinspires.ftc.teamcode.system.menus.EncoderDistanceCalibMenu;
 import org.firstinspires.ftc.teamcode.system.source.BaseRobot.Robot;
 import org.firstinspires.ftc.teamcode.system.source.BaseRobot.SubSystem;
+import org.firstinspires.ftc.teamcode.system.subsystems.ChassisDrive;
 import org.firstinspires.ftc.teamcode.system.subsystems.MechanumDrive;
 import org.firstinspires.ftc.teamcode.system.subsystems.OmniWheelDrive;
 import org.firstinspires.ftc.teamcode.system.subsystems.QuadWheelDrive;
 import org.firstinspires.ftc.teamcode.system.subsystems.TankDrive;
+import org.firstinspires.ftc.teamcode.util.exceptions.DumpsterFireException;
 import org.firstinspires.ftc.teamcode.util.exceptions.GuiNotPresentException;
 import org.firstinspires.ftc.teamcode.util.exceptions.NotAnAlchemistException;
 import org.firstinspires.ftc.teamcode.util.math.Units;
-import org.firstinspires.ftc.teamcode.util.math.Vector;
 import org.firstinspires.ftc.teamcode.util.misc.BaseParam;
 import org.firstinspires.ftc.teamcode.util.misc.Button;
 
-import java.util.LinkedHashMap;
-
 import static java.lang.Thread.sleep;
 
 /**
- * Finds the number of encoder ticks per meter that can be used in the encoder.
+ * Finds the number of encoder ticks per meter that can be used in the encoder, and a scale factor for each wheel.
+ * The robot drives forward several times at different powers and for different times. After each run, the user measures how far the robot went and enters it.
+ * The runs are then fit by least squares and the result is saved to the robot's config folder, where the drivetrain loads it the next time it is created.
  * 
  * BeforeHAL: Wow im so bad at coding. I only use one constructor in my classes.
  * AfterHAL: Wow im so good at coding. I only used one constructor in this class.
  */
 public class EncoderDistanceCalib extends SubSystem {
 
-    //The drivetrain subsystem being used.
-    private SubSystem driveSubSystem;
-    //How far the user measured the robot to move.
-    private double distance;
+    //The name of the distance entry menu.
+    private static final String ENTRY_MENU = "Getting Menu";
+    //The default power and time of each calibration run. The runs cover a range of speeds and distances.
+    private static final double[] DEFAULT_POWERS = new double[] {0.3, 0.5, 0.7, 1};
+    private static final long[] DEFAULT_DURATIONS_MS = new long[] {2500, 2000, 1500, 1000};
+
+    //The drivetrain being used.
+    private ChassisDrive drive;
     //The unit of distance being entered.
     private Units unit;
-    //Map of motor names to encoder positions at the start and end of the program.
-    private LinkedHashMap<String, Integer> startEncoderPos, endingEncoderPos;
+    //The power and time of each calibration run.
+    private double[] powers;
+    private long[] durationsMs;
+    //The measured distance of each run in meters.
+    private double[] distances;
+    //The change in each wheel's encoder during each run. ticks[run][wheel].
+    private int[][] ticks;
+    //The names of the wheels, in the same order as the encoder readings.
+    private String[] wheelNames;
+    //The encoder positions at the start and end of a run.
+    private int[] startPositions, endPositions;
+    //The index of the current run.
+    private int run;
     //The entry speed mode button.
     private Button switchSpeedButton;
 
@@ -51,18 +67,17 @@ public class EncoderDistanceCalib extends SubSystem {
     public enum DriveTrain {
         TANK_DRIVE, QUAD_WHEEL_DRIVE, MECHANUM_DRIVE, OMNIWHEEL_DRIVE
     }
-    private DriveTrain driveTrain;
 
     /**
      * An enum representing the state of the calibration program.
      */
     private enum State{
-        RUNNING, DISPLAYING, DONE
+        RUNNING, MEASURING, FITTING, DONE
     }
     private State state = State.RUNNING;
 
     /**
-     * Constructor for EncoderDistanceCalib.
+     * Constructor for EncoderDistanceCalib. Uses the default set of calibration runs.
      *
      * @param robot - The robot using this subsystem.
      * @param driveTrain - The drivetrain being used.
@@ -71,46 +86,72 @@ public class EncoderDistanceCalib extends SubSystem {
      * @param switchSpeedButton - The speed mode button for distance entry.
      */
     public EncoderDistanceCalib(Robot robot, DriveTrain driveTrain, Units unit, BaseParam params, Button switchSpeedButton) {
+        this(robot, driveTrain, unit, params, switchSpeedButton, DEFAULT_POWERS, DEFAULT_DURATIONS_MS);
+    }
+
+    /**
+     * Constructor for EncoderDistanceCalib.
+     *
+     * @param robot - The robot using this subsystem.
+     * @param driveTrain - The drivetrain being used.
+     * @param unit - The unit of distance to enter.
+     * @param params - The drivetrain params to use to create the drivetrain.
+     * @param switchSpeedButton - The speed mode button for distance entry.
+     * @param powers - The power of each calibration run.
+     * @param durationsMs - The time of each calibration run in milliseconds.
+     *
+     * @throws GuiNotPresentException - Throws this exception if the robot does not use a GUI.
+     * @throws NotAnAlchemistException - Throws this exception if the params do not match the drivetrain.
+     * @throws DumpsterFireException - Throws this exception if the number of powers and durations don't match.
+     */
+    public EncoderDistanceCalib(Robot robot, DriveTrain driveTrain, Units unit, BaseParam params, Button switchSpeedButton, double[] powers, long[] durationsMs) {
         super(robot);
 
         this.unit = unit;
         this.switchSpeedButton = switchSpeedButton;
 
-        startEncoderPos = new LinkedHashMap<>();
-        endingEncoderPos = new LinkedHashMap<>();
-
         if(!robot.usesGUI()){
-            throw new GuiNotPresentException("ColorspaceCalib requires a GUI to correctly run");
+            throw new GuiNotPresentException("EncoderDistanceCalib requires a GUI to correctly run");
+        }
+        if(powers.length == 0 || powers.length != durationsMs.length) {
+            throw new DumpsterFireException("Every calibration run needs a power and a duration.");
         }
 
-        this.driveTrain = driveTrain;
+        this.powers = powers.clone();
+        this.durationsMs = durationsMs.clone();
+        distances = new double[powers.length];
+        ticks = new int[powers.length][];
 
         switch (driveTrain) {
             case TANK_DRIVE:
                 if (!(params instanceof TankDrive.Params)) {
                     throw new NotAnAlchemistException("Given param must be a param from passed DriveTrain");
                 }
-                driveSubSystem = new TankDrive(robot, (TankDrive.Params) params);
+                drive = new TankDrive(robot, (TankDrive.Params) params);
                 break;
             case MECHANUM_DRIVE:
                 if (!(params instanceof MechanumDrive.Params)) {
                     throw new NotAnAlchemistException("Given param must be a param from passed DriveTrain");
                 }
-                driveSubSystem = new MechanumDrive(robot, (MechanumDrive.Params) params);
+                drive = new MechanumDrive(robot, (MechanumDrive.Params) params);
                 break;
             case OMNIWHEEL_DRIVE:
-            if(!(params instanceof OmniWheelDrive.Params)){
-                throw new NotAnAlchemistException("Given param must be a param from passed DriveTrain");
-            }
-            driveSubSystem = new OmniWheelDrive(robot, (OmniWheelDrive.Params) params);
+                if(!(params instanceof OmniWheelDrive.Params)){
+                    throw new NotAnAlchemistException("Given param must be a param from passed DriveTrain");
+                }
+                drive = new OmniWheelDrive(robot, (OmniWheelDrive.Params) params);
                 break;
             case QUAD_WHEEL_DRIVE:
                 if (!(params instanceof QuadWheelDrive.Params)) {
                     throw new NotAnAlchemistException("Given param must be a param from passed DriveTrain");
                 }
-                driveSubSystem = new QuadWheelDrive(robot, (QuadWheelDrive.Params) params);
+                drive = new QuadWheelDrive(robot, (QuadWheelDrive.Params) params);
                 break;
         }
+
+        wheelNames = drive.getWheelCount() == 2 ? new String[] {"Left", "Right"} : new String[] {"TopLeft", "TopRight", "BotLeft", "BotRight"};
+        startPositions = new int[drive.getWheelCount()];
+        endPositions = new int[drive.getWheelCount()];
     }
 
     @Override
@@ -124,56 +165,43 @@ public class EncoderDistanceCalib extends SubSystem {
 
     @Override
     public void start() {
-        switch (driveTrain){
-            case TANK_DRIVE:
-                startEncoderPos.put("Left", ((TankDrive) driveSubSystem).getLeftMotorEncoderPos());
-                startEncoderPos.put("Right", ((TankDrive) driveSubSystem).getRightMotorEncoderPos());
-                break;
-            case MECHANUM_DRIVE:
-                startEncoderPos.put("BotLeft", ((MechanumDrive) driveSubSystem).getBotLeftEncoderPos());
-                startEncoderPos.put("BotRight", ((MechanumDrive) driveSubSystem).getBotRightEncoderPos());
-                startEncoderPos.put("TopLeft", ((MechanumDrive) driveSubSystem).getTopLeftEncoderPos());
-                startEncoderPos.put("TopRight", ((MechanumDrive) driveSubSystem).getTopRightEncoderPos());
-                break;
-            case OMNIWHEEL_DRIVE:
-                startEncoderPos.put("BotLeft", ((OmniWheelDrive) driveSubSystem).getBotLeftEncoderPos());
-                startEncoderPos.put("BotRight", ((OmniWheelDrive) driveSubSystem).getBotRightEncoderPos());
-                startEncoderPos.put("TopLeft", ((OmniWheelDrive) driveSubSystem).getTopLeftEncoderPos());
-                startEncoderPos.put("TopRight", ((OmniWheelDrive) driveSubSystem).getTopRightEncoderPos());
-                break;
-            case QUAD_WHEEL_DRIVE:
-                startEncoderPos.put("BotLeft", ((QuadWheelDrive) driveSubSystem).getBotLeftMotorEncoderPos());
-                startEncoderPos.put("BotRight", ((QuadWheelDrive) driveSubSystem).getBotRightMotorEncoderPos());
-                startEncoderPos.put("TopLeft", ((QuadWheelDrive) driveSubSystem).getTopLeftMotorEncoderPos());
-                startEncoderPos.put("TopRight", ((QuadWheelDrive) driveSubSystem).getTopRightMotorEncoderPos());
-                break;
-        }
+        run = 0;
+        state = State.RUNNING;
     }
 
     @Override
     public void handle() throws InterruptedException {
         if(state == State.RUNNING) {
-            switch (driveTrain) {
-                case TANK_DRIVE:
-                    usingTankDrive();
-                    break;
-                case MECHANUM_DRIVE:
-                    usingMechanumDrive();
-                    break;
-                case OMNIWHEEL_DRIVE:
-                    usingOmniWheelDrive();
-                    break;
-                case QUAD_WHEEL_DRIVE:
-                    usingQuadWheelDrive();
-                    break;
+            drive.getWheelPositions(startPositions);
+            driveRun(powers[run], durationsMs[run]);
+            //Let the robot coast to a stop before reading the encoders.
+            sleep(100);
+            drive.getWheelPositions(endPositions);
+
+            ticks[run] = new int[endPositions.length];
+            for(int i = 0; i < endPositions.length; i++) {
+                ticks[run][i] = endPositions[i] - startPositions[i];
             }
+
+            robot.gui.addMenu(ENTRY_MENU, new EncoderDistanceCalibMenu(robot.gui, unit, switchSpeedButton, this));
+            robot.gui.setActiveMenu(ENTRY_MENU);
+            state = State.MEASURING;
         }
-        else if(state == State.DISPLAYING) {
+        else if(state == State.FITTING) {
+            EncoderCalibration calibration = EncoderCalibration.fit(getWheelDistances(), ticks);
+            calibration.save(robot, drive.getClass());
+
             DisplayMenu displayMenu1 = new DisplayMenu(robot.gui);
             robot.gui.addMenu("DisplayMenu1", displayMenu1);
-            for (String key: startEncoderPos.keySet()) {
-                displayMenu1.addData(key, (endingEncoderPos.get(key) - startEncoderPos.get(key))/distance);
+            robot.gui.setActiveMenu("DisplayMenu1");
+            displayMenu1.addData("Ticks Per Meter", calibration.ticksPerMeter);
+            for (int i = 0; i < wheelNames.length; i++) {
+                displayMenu1.addData(wheelNames[i] + " Scale", calibration.wheelScales[i]);
+                displayMenu1.addData(wheelNames[i] + " Error (m)", calibration.wheelResiduals[i]);
             }
+            displayMenu1.addData("Fit Error (m)", calibration.residual);
+            displayMenu1.addLine("Saved to config.");
+            state = State.DONE;
         }
     }
 
@@ -182,80 +210,48 @@ public class EncoderDistanceCalib extends SubSystem {
     }
 
     /**
-     * Drive forward for 2 seconds using tank drive.
-     *
-     * @throws InterruptedException - Throws this exception when the program is interrupted unexpectedly.
-     */
-    private void usingTankDrive() throws InterruptedException {
-        ((TankDrive) driveSubSystem).driveTime(2000, 1);
-        sleep(100);
-        endingEncoderPos.put("Left", ((TankDrive) driveSubSystem).getLeftMotorEncoderPos());
-        endingEncoderPos.put("Right", ((TankDrive) driveSubSystem).getRightMotorEncoderPos());
-        robot.gui.addMenu("Getting Menu", new EncoderDistanceCalibMenu(robot.gui, unit, switchSpeedButton, this));
-        robot.gui.setActiveMenu("Getting menu");
-        state = State.DISPLAYING;
-    }
-
-    /**
-     * Drive forward for 2 seconds using mechanum drive.
+     * Drives forward at a given power for a given time.
      *
-     * @throws InterruptedException - Throws this exception when the program is interrupted unexpectedly.
-     */
-    private void usingMechanumDrive() throws InterruptedException {
-        ((MechanumDrive) driveSubSystem).driveTime(new Vector(0,1), 2000);
-        sleep(100);
-        endingEncoderPos.put("BotLeft", ((MechanumDrive) driveSubSystem).getBotLeftEncoderPos());
-        endingEncoderPos.put("BotRight", ((MechanumDrive) driveSubSystem).getBotRightEncoderPos());
-        endingEncoderPos.put("TopLeft", ((MechanumDrive) driveSubSystem).getTopLeftEncoderPos());
-        endingEncoderPos.put("TopRight", ((MechanumDrive) driveSubSystem).getTopRightEncoderPos());
-        robot.gui.addMenu("Getting Menu", new EncoderDistanceCalibMenu(robot.gui, unit, switchSpeedButton, this));
-        robot.gui.setActiveMenu("Getting menu");
-        state = State.DISPLAYING;
-    }
-
-    /**
-     * Drive forward for 2 seconds using omniwheel drive.
+     * @param power - The power to drive at.
+     * @param durationMs - How long to drive in milliseconds.
      *
      * @throws InterruptedException - Throws this exception when the program is interrupted unexpectedly.
      */
-    private void usingOmniWheelDrive() throws InterruptedException{
-        ((OmniWheelDrive) driveSubSystem).drive(new Vector(0,1), 2000);
-        sleep(100);
-        endingEncoderPos.put("BotLeft", ((MechanumDrive) driveSubSystem).getBotLeftEncoderPos());
-        endingEncoderPos.put("BotRight", ((MechanumDrive) driveSubSystem).getBotRightEncoderPos());
-        endingEncoderPos.put("TopLeft", ((MechanumDrive) driveSubSystem).getTopLeftEncoderPos());
-        endingEncoderPos.put("TopRight", ((MechanumDrive) driveSubSystem).getTopRightEncoderPos());
-        robot.gui.addMenu("Getting Menu", new EncoderDistanceCalibMenu(robot.gui, unit, switchSpeedButton, this));
-        robot.gui.setActiveMenu("Getting menu");
-        state = State.DISPLAYING;
+    private void driveRun(double power, long durationMs) throws InterruptedException {
+        long startTime = System.currentTimeMillis();
+        while(System.currentTimeMillis() - startTime < durationMs) {
+            drive.setChassisSpeeds(0, power, 0);
+            sleep(1);
+        }
+        drive.stopChassis();
     }
 
     /**
-     * Drive forward for 2 seconds using quad wheel drive.
+     * Gets how far the wheels' surfaces traveled in each run. The drivetrains measure encoder ticks per meter of wheel travel,
+     * and omniwheels mounted at 45 degrees only roll cos(45) times as far as the robot drives forwards.
      *
-     * @throws InterruptedException - Throws this exception when the program is interrupted unexpectedly.
+     * @return - The distance each wheel's surface traveled during each run in meters.
      */
-    private void usingQuadWheelDrive() throws InterruptedException {
-        ((QuadWheelDrive) driveSubSystem).driveTime(2000, 1);
-        sleep(100);
-        endingEncoderPos.put("BotLeft", ((QuadWheelDrive) driveSubSystem).getBotLeftMotorEncoderPos());
-        endingEncoderPos.put("BotRight", ((QuadWheelDrive) driveSubSystem).getBotRightMotorEncoderPos());
-        endingEncoderPos.put("TopLeft", ((QuadWheelDrive) driveSubSystem).getTopLeftMotorEncoderPos());
-        endingEncoderPos.put("TopRight", ((QuadWheelDrive) driveSubSystem).getTopRightMotorEncoderPos());
-        robot.gui.addMenu("Getting Menu", new EncoderDistanceCalibMenu(robot.gui, unit, switchSpeedButton, this));
-        robot.gui.setActiveMenu("Getting menu");
-        state = State.DISPLAYING;
+    private double[] getWheelDistances() {
+        double wheelTravel = drive.getWheelLayout() == ChassisDrive.WheelLayout.OMNI_X ? Math.sqrt(2) / 2 : 1;
+        double[] wheelDistances = new double[distances.length];
+        for(int i = 0; i < distances.length; i++) {
+            wheelDistances[i] = distances[i] * wheelTravel;
+        }
+        return wheelDistances;
     }
 
     /**
-     * Closes menu and gets the distance from the user.
+     * Closes menu and records the distance the user measured for the current run.
      *
-     * @param distance - The distance entered by the user.
+     * @param distance - The distance entered by the user in meters.
      */
     public void numberSelected(double distance){
-        this.distance = distance;
-        state = State.DISPLAYING;
-        robot.gui.removeMenu("Getting Menu");
+        distances[run] = distance;
+        robot.gui.removeMenu(ENTRY_MENU);
+
+        run++;
+        state = run < powers.length ? State.RUNNING : State.FITTING;
     }
 
 }
@@ -0,0 +1,654 @@
+/*
+ * Filename: GainOptimizer.java
+ * Author: Cole Savage
+ * Team Name: Level Up
+ * Date: 10/19/19
+ */
+
+package org.firstinspires.ftc.teamcode.util.control;
+
+import org.firstinspires.ftc.teamcode.util.misc.BaseParam;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * An offline tool for finding PID gains. Gains are scored by simulating step responses of a PIDController driving a PlantModel
+ * and are searched for in parallel using a grid sweep followed by multi-start Nelder-Mead.
+ */
+public class GainOptimizer {
+
+    //The parameters for the optimizer.
+    private Params params;
+    //The fork-join pool used to evaluate gains in parallel.
+    private ForkJoinPool pool;
+
+    /**
+     * Constructor for GainOptimizer.
+     *
+     * @param params - The parameters for the optimizer.
+     */
+    public GainOptimizer(Params params) {
+        this.params = params;
+        pool = new ForkJoinPool();
+    }
+
+    /**
+     * Simulates a single step response with the given gains.
+     *
+     * @param kp - Proportional control coefficient.
+     * @param ki - Integral control coefficient.
+     * @param kd - Derivative control coefficient.
+     * @param step - The size of the step.
+     * @return - The measured step response.
+     */
+    public StepResponse simulate(double kp, double ki, double kd, double step) {
+        PlantModel plant = new PlantModel(params.plantParams);
+        PIDController pid = new PIDController(kp, ki, kd, params.type);
+        pid.init(step, 0);
+        pid.setOutputClamp(-1, 1);
+        pid.setIClamp(-params.integralClamp, params.integralClamp);
+
+        double tolerance = Math.abs(step) * params.settleTolerance;
+        double peak = 0;
+        double itae = 0;
+        double settlingTime = 0;
+        boolean settled = false;
+
+        double position = 0;
+        int steps = (int) Math.ceil(params.simTime / params.dt);
+        for(int i = 1; i <= steps; i++) {
+            double t = i * params.dt;
+            position = plant.update(pid.getCorrection(position, i == 1 ? 0 : params.dt), params.dt);
+
+            double error = step - position;
+            itae += t * Math.abs(error) * params.dt;
+            peak = Math.max(peak, position * Math.signum(step));
+
+            //Settling time is the last time the response was outside of the tolerance band.
+            if(Math.abs(error) > tolerance) {
+                settlingTime = t;
+                settled = false;
+            }
+            else {
+                settled = true;
+            }
+        }
+
+        double overshoot = Math.max(0, (peak - Math.abs(step)) / Math.abs(step));
+        return new StepResponse(settled ? settlingTime : params.simTime, overshoot, itae, settled);
+    }
+
+    /**
+     * Scores a set of gains over every step in the test set. Lower scores are better.
+     *
+     * @param gains - The gains to score, in the order kp, ki, kd.
+     * @return - The score of the gains.
+     */
+    public double score(double[] gains) {
+        for(int i = 0; i < 3; i++) {
+            if(gains[i] < params.lowerBounds[i] || gains[i] > params.upperBounds[i]) {
+                return Double.MAX_VALUE;
+            }
+        }
+
+        double score = 0;
+        for(double step : params.steps) {
+            StepResponse response = simulate(gains[0], gains[1], gains[2], step);
+            score += params.settlingWeight * response.settlingTime
+                    + params.overshootWeight * response.overshoot
+                    + params.itaeWeight * response.itae / Math.abs(step)
+                    + (response.settled ? 0 : params.unsettledPenalty);
+        }
+        return score / params.steps.length;
+    }
+
+    /**
+     * Evaluates every point on an evenly spaced grid of gains in parallel and returns the best one.
+     *
+     * @param resolution - The number of grid points along each gain axis.
+     * @return - The best gains found, in the order kp, ki, kd.
+     */
+    public double[] sweep(int resolution) {
+        int total = resolution * resolution * resolution;
+        Candidate best = pool.invoke(new SweepTask(0, total, resolution));
+        return best.gains;
+    }
+
+    /**
+     * Searches for the best gains using a coarse parallel sweep followed by parallel multi-start Nelder-Mead.
+     *
+     * @return - The best gains found, in the order kp, ki, kd.
+     */
+    public double[] optimize() {
+        Random random = new Random(params.seed);
+
+        List<NelderMeadTask> tasks = new ArrayList<>();
+        tasks.add(new NelderMeadTask(sweep(params.sweepResolution)));
+        for(int i = 1; i < params.restarts; i++) {
+            double[] start = new double[3];
+            for(int j = 0; j < 3; j++) {
+                start[j] = params.lowerBounds[j] + random.nextDouble() * (params.upperBounds[j] - params.lowerBounds[j]);
+            }
+            tasks.add(new NelderMeadTask(start));
+        }
+
+        Candidate best = null;
+        for(NelderMeadTask task : pool.invoke(new InvokeAllTask(tasks))) {
+            Candidate result = task.join();
+            if(best == null || result.score < best.score) {
+                best = result;
+            }
+        }
+        return best.gains;
+    }
+
+    /**
+     * Writes a set of gains to a config file in the same subsystem:option:value format used by the config menus.
+     *
+     * @param filePath - The path of the file to write.
+     * @param subsystemName - The name of the subsystem the gains belong to.
+     * @param gains - The gains to write, in the order kp, ki, kd.
+     */
+    public static void writeConfig(String filePath, String subsystemName, double[] gains) {
+
+        String[] names = new String[] {"kp", "ki", "kd"};
+        StringBuilder sb = new StringBuilder();
+        for(int i = 0; i < names.length; i++) {
+            sb.append(subsystemName);
+            sb.append(':');
+            sb.append(names[i]);
+            sb.append(':');
+            sb.append(gains[i]);
+            sb.append("\r\n");
+        }
+
+        sb.delete(sb.length()-2,sb.length()); //removes trailing \r\n characters so there isn't a blank line at the end of the file
+
+        File configFile = new File(filePath);
+        configFile.delete();
+
+        try {
+            FileWriter fWriter = new FileWriter(configFile);
+            fWriter.write(sb.toString());
+            fWriter.flush();
+            fWriter.close();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Runs the optimizer with the default plant and writes the result to a config file.
+     *
+     * @param args - The path of the output file followed by the name of the subsystem.
+     */
+    public static void main(String[] args) {
+        String filePath = args.length > 0 ? args[0] : "gains.txt";
+        String subsystemName = args.length > 1 ? args[1] : "Drive";
+
+        GainOptimizer optimizer = new GainOptimizer(new Params());
+        double[] gains = optimizer.optimize();
+
+        System.out.println("kp: " + gains[0] + " ki: " + gains[1] + " kd: " + gains[2] + " score: " + optimizer.score(gains));
+        writeConfig(filePath, subsystemName, gains);
+    }
+
+    /**
+     * A class for storing the performance metrics of a single step response.
+     */
+    public static class StepResponse {
+        //The time in seconds it took the response to stay within the tolerance band.
+        public final double settlingTime;
+        //The fraction of the step that the response overshot by.
+        public final double overshoot;
+        //The integral of time multiplied by absolute error.
+        public final double itae;
+        //Whether the response ended within the tolerance band.
+        public final boolean settled;
+
+        /**
+         * Constructor for StepResponse.
+         *
+         * @param settlingTime - The settling time in seconds.
+         * @param overshoot - The overshoot as a fraction of the step.
+         * @param itae - The integral of time multiplied by absolute error.
+         * @param settled - Whether the response ended within the tolerance band.
+         */
+        public StepResponse(double settlingTime, double overshoot, double itae, boolean settled) {
+            this.settlingTime = settlingTime;
+            this.overshoot = overshoot;
+            this.itae = itae;
+            this.settled = settled;
+        }
+    }
+
+    /**
+     * A set of gains and its score.
+     */
+    private static class Candidate {
+        //The gains, in the order kp, ki, kd.
+        private double[] gains;
+        //The score of the gains.
+        private double score;
+
+        /**
+         * Constructor for Candidate.
+         *
+         * @param gains - The gains, in the order kp, ki, kd.
+         * @param score - The score of the gains.
+         */
+        private Candidate(double[] gains, double score) {
+            this.gains = gains;
+            this.score = score;
+        }
+    }
+
+    /**
+     * Recursively splits a range of grid indices and returns the best candidate in the range.
+     */
+    private class SweepTask extends RecursiveTask<Candidate> {
+        //The range of grid indices handled by this task.
+        private int start, end;
+        //The number of grid points along each gain axis.
+        private int resolution;
+
+        /**
+         * Constructor for SweepTask.
+         *
+         * @param start - The first grid index (inclusive).
+         * @param end - The last grid index (exclusive).
+         * @param resolution - The number of grid points along each gain axis.
+         */
+        private SweepTask(int start, int end, int resolution) {
+            this.start = start;
+            this.end = end;
+            this.resolution = resolution;
+        }
+
+        @Override
+        protected Candidate compute() {
+            if(end - start > params.sweepGrainSize) {
+                int mid = (start + end) / 2;
+                SweepTask left = new SweepTask(start, mid, resolution);
+                left.fork();
+                Candidate right = new SweepTask(mid, end, resolution).compute();
+                Candidate leftResult = left.join();
+                return leftResult.score <= right.score ? leftResult : right;
+            }
+
+            Candidate best = new Candidate(new double[3], Double.MAX_VALUE);
+            double[] gains = new double[3];
+            for(int idx = start; idx < end; idx++) {
+                int remainder = idx;
+                for(int i = 0; i < 3; i++) {
+                    int axisIdx = remainder % resolution;
+                    remainder /= resolution;
+                    gains[i] = resolution == 1 ? params.lowerBounds[i] : params.lowerBounds[i] + axisIdx * (params.upperBounds[i] - params.lowerBounds[i]) / (resolution - 1);
+                }
+                double score = score(gains);
+                if(score < best.score) {
+                    best = new Candidate(gains.clone(), score);
+                }
+            }
+            return best;
+        }
+    }
+
+    /**
+     * Forks a list of Nelder-Mead searches so that they run in parallel.
+     */
+    private static class InvokeAllTask extends RecursiveTask<List<NelderMeadTask>> {
+        //The searches to run.
+        private List<NelderMeadTask> tasks;
+
+        /**
+         * Constructor for InvokeAllTask.
+         *
+         * @param tasks - The searches to run.
+         */
+        private InvokeAllTask(List<NelderMeadTask> tasks) {
+            this.tasks = tasks;
+        }
+
+        @Override
+        protected List<NelderMeadTask> compute() {
+            invokeAll(tasks);
+            return tasks;
+        }
+    }
+
+    /**
+     * A single Nelder-Mead simplex search starting from a given point.
+     */
+    private class NelderMeadTask extends RecursiveTask<Candidate> {
+        //The starting gains of the search.
+        private double[] start;
+
+        /**
+         * Constructor for NelderMeadTask.
+         *
+         * @param start - The starting gains of the search, in the order kp, ki, kd.
+         */
+        private NelderMeadTask(double[] start) {
+            this.start = start;
+        }
+
+        @Override
+        protected Candidate compute() {
+            int n = 3;
+            double[][] simplex = new double[n + 1][];
+            double[] scores = new double[n + 1];
+
+            simplex[0] = start.clone();
+            for(int i = 0; i < n; i++) {
+                double[] vertex = start.clone();
+                vertex[i] += params.initialStepFraction * (params.upperBounds[i] - params.lowerBounds[i]);
+                if(vertex[i] > params.upperBounds[i]) {
+                    vertex[i] = start[i] - params.initialStepFraction * (params.upperBounds[i] - params.lowerBounds[i]);
+                }
+                simplex[i + 1] = vertex;
+            }
+            for(int i = 0; i <= n; i++) {
+                scores[i] = score(simplex[i]);
+            }
+
+            double[] centroid = new double[n];
+            double[] trial = new double[n];
+            double[] trial2 = new double[n];
+            for(int iteration = 0; iteration < params.maxIterations; iteration++) {
+
+                //Sort vertices from best to worst.
+                for(int i = 1; i <= n; i++) {
+                    for(int j = i; j > 0 && scores[j] < scores[j - 1]; j--) {
+                        double[] tempVertex = simplex[j];
+                        simplex[j] = simplex[j - 1];
+                        simplex[j - 1] = tempVertex;
+                        double tempScore = scores[j];
+                        scores[j] = scores[j - 1];
+                        scores[j - 1] = tempScore;
+                    }
+                }
+
+                if(Math.abs(scores[n] - scores[0]) < params.convergenceTolerance) {
+                    break;
+                }
+
+                for(int j = 0; j < n; j++) {
+                    centroid[j] = 0;
+                    for(int i = 0; i < n; i++) {
+                        centroid[j] += simplex[i][j] / n;
+                    }
+                }
+
+                //Reflection.
+                for(int j = 0; j < n; j++) {
+                    trial[j] = centroid[j] + (centroid[j] - simplex[n][j]);
+                }
+                double reflectedScore = score(trial);
+
+                if(reflectedScore < scores[0]) {
+                    //Expansion.
+                    for(int j = 0; j < n; j++) {
+                        trial2[j] = centroid[j] + 2 * (centroid[j] - simplex[n][j]);
+                    }
+                    double expandedScore = score(trial2);
+                    if(expandedScore < reflectedScore) {
+                        simplex[n] = trial2.clone();
+                        scores[n] = expandedScore;
+                    }
+                    else {
+                        simplex[n] = trial.clone();
+                        scores[n] = reflectedScore;
+                    }
+                }
+                else if(reflectedScore < scores[n - 1]) {
+                    simplex[n] = trial.clone();
+                    scores[n] = reflectedScore;
+                }
+                else {
+                    //Contraction.
+                    for(int j = 0; j < n; j++) {
+                        trial2[j] = centroid[j] + 0.5 * (simplex[n][j] - centroid[j]);
+                    }
+                    double contractedScore = score(trial2);
+                    if(contractedScore < scores[n]) {
+                        simplex[n] = trial2.clone();
+                        scores[n] = contractedScore;
+                    }
+                    else {
+                        //Shrink towards the best vertex.
+                        for(int i = 1; i <= n; i++) {
+                            for(int j = 0; j < n; j++) {
+                                simplex[i][j] = simplex[0][j] + 0.5 * (simplex[i][j] - simplex[0][j]);
+                            }
+                            scores[i] = score(simplex[i]);
+                        }
+                    }
+                }
+            }
+
+            int bestIdx = 0;
+            for(int i = 1; i <= n; i++) {
+                if(scores[i] < scores[bestIdx]) {
+                    bestIdx = i;
+                }
+            }
+            return new Candidate(simplex[bestIdx], scores[bestIdx]);
+        }
+    }
+
+    /**
+     * A class used to specify the parameters of the optimizer.
+     */
+    public static class Params implements BaseParam {
+        //The parameters of the simulated plant.
+        private PlantModel.Params plantParams = new PlantModel.Params();
+        //The type of PID controller to simulate.
+        private PIDController.Type type = PIDController.Type.STANDARD;
+        //The step sizes to test the gains against.
+        private double[] steps = new double[] {0.25, 1, Math.PI/2};
+        //The simulation timestep and total length of each simulation in seconds.
+        private double dt = 0.01, simTime = 4;
+        //The fraction of the step that counts as settled.
+        private double settleTolerance = 0.02;
+        //The bounds on the integral term of the controller.
+        private double integralClamp = 0.5;
+        //The weights of each metric in the score.
+        private double settlingWeight = 1, overshootWeight = 5, itaeWeight = 1;
+        //The score penalty given to responses that never settle.
+        private double unsettledPenalty = 10;
+        //The search bounds on each gain, in the order kp, ki, kd.
+        private double[] lowerBounds = new double[] {0, 0, 0}, upperBounds = new double[] {5, 2, 1};
+        //The number of grid points along each axis in the coarse sweep.
+        private int sweepResolution = 10;
+        //The number of grid points evaluated by a single task before it stops splitting.
+        private int sweepGrainSize = 32;
+        //The number of Nelder-Mead searches to run.
+        private int restarts = 8;
+        //The maximum number of iterations for each Nelder-Mead search.
+        private int maxIterations = 200;
+        //The size of the starting simplex as a fraction of the search bounds.
+        private double initialStepFraction = 0.1;
+        //The score spread across the simplex at which a search is considered converged.
+        private double convergenceTolerance = 1e-6;
+        //The random seed used to choose the Nelder-Mead starting points.
+        private long seed = 0;
+
+        /**
+         * Sets the parameters of the simulated plant.
+         *
+         * @param plantParams - The parameters of the simulated plant.
+         * @return - This instance of Params.
+         */
+        public Params setPlantParams(PlantModel.Params plantParams) {
+            this.plantParams = plantParams;
+            return this;
+        }
+
+        /**
+         * Sets the type of PID controller to simulate.
+         *
+         * @param type - The type of PID controller.
+         * @return - This instance of Params.
+         */
+        public Params setType(PIDController.Type type) {
+            this.type = type;
+            return this;
+        }
+
+        /**
+         * Sets the step sizes to test the gains against.
+         *
+         * @param steps - The step sizes. None may be 0.
+         * @return - This instance of Params.
+         */
+        public Params setSteps(double... steps) {
+            this.steps = steps;
+            return this;
+        }
+
+        /**
+         * Sets the simulation timestep.
+         *
+         * @param dt - The timestep in seconds.
+         * @return - This instance of Params.
+         */
+        public Params setDt(double dt) {
+            this.dt = dt;
+            return this;
+        }
+
+        /**
+         * Sets the length of each simulation.
+         *
+         * @param simTime - The length of each simulation in seconds.
+         * @return - This instance of Params.
+         */
+        public Params setSimTime(double simTime) {
+            this.simTime = simTime;
+            return this;
+        }
+
+        /**
+         * Sets the fraction of the step that counts as settled.
+         *
+         * @param settleTolerance - The settling tolerance as a fraction of the step.
+         * @return - This instance of Params.
+         */
+        public Params setSettleTolerance(double settleTolerance) {
+            this.settleTolerance = settleTolerance;
+            return this;
+        }
+
+        /**
+         * Sets the bounds on the integral term of the simulated controller.
+         *
+         * @param integralClamp - The maximum magnitude of the integral term.
+         * @return - This instance of Params.
+         */
+        public Params setIntegralClamp(double integralClamp) {
+            this.integralClamp = integralClamp;
+            return this;
+        }
+
+        /**
+         * Sets the weights of each metric in the score.
+         *
+         * @param settlingWeight - The weight of the settling time.
+         * @param overshootWeight - The weight of the overshoot.
+         * @param itaeWeight - The weight of the ITAE.
+         * @return - This instance of Params.
+         */
+        public Params setWeights(double settlingWeight, double overshootWeight, double itaeWeight) {
+            this.settlingWeight = settlingWeight;
+            this.overshootWeight = overshootWeight;
+            this.itaeWeight = itaeWeight;
+            return this;
+        }
+
+        /**
+         * Sets the score penalty given to responses that never settle.
+         *
+         * @param unsettledPenalty - The score penalty.
+         * @return - This instance of Params.
+         */
+        public Params setUnsettledPenalty(double unsettledPenalty) {
+            this.unsettledPenalty = unsettledPenalty;
+            return this;
+        }
+
+        /**
+         * Sets the search bounds on each gain.
+         *
+         * @param lowerBounds - The lower bounds, in the order kp, ki, kd.
+         * @param upperBounds - The upper bounds, in the order kp, ki, kd.
+         * @return - This instance of Params.
+         */
+        public Params setBounds(double[] lowerBounds, double[] upperBounds) {
+            this.lowerBounds = lowerBounds;
+            this.upperBounds = upperBounds;
+            return this;
+        }
+
+        /**
+         * Sets the number of grid points along each axis in the coarse sweep.
+         *
+         * @param sweepResolution - The sweep resolution.
+         * @return - This instance of Params.
+         */
+        public Params setSweepResolution(int sweepResolution) {
+            this.sweepResolution = Math.max(sweepResolution, 1);
+            return this;
+        }
+
+        /**
+         * Sets the number of grid points evaluated by a single task before it stops splitting.
+         *
+         * @param sweepGrainSize - The grain size.
+         * @return - This instance of Params.
+         */
+        public Params setSweepGrainSize(int sweepGrainSize) {
+            this.sweepGrainSize = Math.max(sweepGrainSize, 1);
+            return this;
+        }
+
+        /**
+         * Sets the number of Nelder-Mead searches to run.
+         *
+         * @param restarts - The number of searches. The first always starts from the best point of the coarse sweep.
+         * @return - This instance of Params.
+         */
+        public Params setRestarts(int restarts) {
+            this.restarts = Math.max(restarts, 1);
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of iterations for each Nelder-Mead search.
+         *
+         * @param maxIterations - The maximum number of iterations.
+         * @return - This instance of Params.
+         */
+        public Params setMaxIterations(int maxIterations) {
+            this.maxIterations = maxIterations;
+            return this;
+        }
+
+        /**
+         * Sets the random seed used to choose the Nelder-Mead starting points.
+         *
+         * @param seed - The random seed.
+         * @return - This instance of Params.
+         */
+        public Params setSeed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+    }
+}
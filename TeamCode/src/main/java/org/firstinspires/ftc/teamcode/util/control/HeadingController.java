@@ -0,0 +1,189 @@
+/*
+ * Filename: HeadingController.java
+ * Author: Cole Savage
+ * Team Name: Level Up
+ * Date: 10/19/19
+ */
+
+package org.firstinspires.ftc.teamcode.util.control;
+
+import com.qualcomm.robotcore.util.Range;
+
+/**
+ * Holds the robot's heading while the driver isn't turning.
+ * The D term uses the yaw rate measured by the gyroscope instead of differentiating the heading, so it doesn't get noisier as the loop gets faster.
+ * When the driver stops turning, the controller waits for the robot to finish rotating before capturing its heading as the new setpoint,
+ * so the robot doesn't snap back to where it was when the stick was released.
+ * Headings are in radians and yaw rates are in radians/second, both counterclockwise positive.
+ */
+public class HeadingController {
+
+    //The states of the controller.
+    public enum State {
+        TURNING, SETTLING, HOLDING
+    }
+
+    //PID coefficients.
+    private double kp, ki, kd;
+    //The longest time to wait for the robot to stop rotating after a turn in seconds.
+    private double settleTime;
+    //The yaw rate below which the robot counts as stopped in radians/second.
+    private double settleRate;
+    //The largest magnitude the integral term can contribute to the output.
+    private double integralLimit;
+    //The heading being held.
+    private double setpoint;
+    //The accumulated heading error in radian-seconds.
+    private double integral;
+    //The current state of the controller.
+    private State state;
+    //The time the driver stopped turning and the time of the last update, both in nanoseconds.
+    private long releaseTime, lastUpdate;
+
+    /**
+     * Constructor for HeadingController.
+     *
+     * @param kp - Proportional control coefficient.
+     * @param ki - Integral control coefficient.
+     * @param kd - Derivative control coefficient. Multiplied by the measured yaw rate.
+     * @param settleTime - The longest time to wait for the robot to stop rotating after a turn in seconds.
+     */
+    public HeadingController(double kp, double ki, double kd, double settleTime) {
+        this.kp = kp;
+        this.ki = ki;
+        this.kd = kd;
+        this.settleTime = settleTime;
+
+        settleRate = 0.05;
+        integralLimit = 0.2;
+
+        state = State.SETTLING;
+    }
+
+    /**
+     * Calculates the turning correction for this loop.
+     *
+     * @param heading - The robot's heading in radians.
+     * @param yawRate - The robot's yaw rate from the gyroscope in radians/second.
+     * @param turning - Whether the driver is currently turning the robot.
+     * @return - The correction to apply, from -1 to 1. Positive is counterclockwise.
+     */
+    public double update(double heading, double yawRate, boolean turning) {
+        long now = System.nanoTime();
+        double dt = lastUpdate == 0 ? 0 : Math.min((now - lastUpdate) / 1e9, 0.1);
+        lastUpdate = now;
+
+        if(turning) {
+            state = State.TURNING;
+            return 0;
+        }
+
+        if(state == State.TURNING) {
+            state = State.SETTLING;
+            releaseTime = now;
+        }
+
+        if(state == State.SETTLING) {
+            if(Math.abs(yawRate) > settleRate && (now - releaseTime) / 1e9 < settleTime) {
+                return 0;
+            }
+            hold(heading);
+        }
+
+        double error = angleWrap(setpoint - heading);
+        if(ki != 0) {
+            integral = Range.clip(integral + error * dt, -integralLimit / ki, integralLimit / ki);
+        }
+
+        return Range.clip(kp * error + ki * integral - kd * yawRate, -1, 1);
+    }
+
+    /**
+     * Holds a heading, starting immediately.
+     *
+     * @param heading - The heading to hold in radians.
+     */
+    public void hold(double heading) {
+        setpoint = heading;
+        integral = 0;
+        state = State.HOLDING;
+    }
+
+    /**
+     * Makes the controller capture a new setpoint the next time the robot is stopped, without correcting before then.
+     */
+    public void reset() {
+        integral = 0;
+        lastUpdate = 0;
+        releaseTime = System.nanoTime();
+        state = State.SETTLING;
+    }
+
+    /**
+     * Gets the heading being held.
+     *
+     * @return - The setpoint in radians.
+     */
+    public double getSetpoint() {
+        return setpoint;
+    }
+
+    /**
+     * Gets the current state of the controller.
+     *
+     * @return - The controller's state.
+     */
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Sets the PID coefficients.
+     *
+     * @param kp - Proportional control coefficient.
+     * @param ki - Integral control coefficient.
+     * @param kd - Derivative control coefficient. Multiplied by the measured yaw rate.
+     */
+    public void setCoefficients(double kp, double ki, double kd) {
+        this.kp = kp;
+        this.ki = ki;
+        this.kd = kd;
+        integral = 0;
+    }
+
+    /**
+     * Sets the settling window used to capture a new setpoint after a turn.
+     *
+     * @param settleTime - The longest time to wait for the robot to stop rotating in seconds.
+     * @param settleRate - The yaw rate below which the robot counts as stopped in radians/second.
+     */
+    public void setSettling(double settleTime, double settleRate) {
+        this.settleTime = settleTime;
+        this.settleRate = settleRate;
+    }
+
+    /**
+     * Sets the largest magnitude the integral term can contribute to the output.
+     *
+     * @param integralLimit - The integral limit, from 0 to 1.
+     */
+    public void setIntegralLimit(double integralLimit) {
+        this.integralLimit = integralLimit;
+    }
+
+    /**
+     * Wraps an angle to between -PI and PI.
+     *
+     * @param angle - The angle in radians.
+     * @return - The equivalent angle between -PI and PI.
+     */
+    private static double angleWrap(double angle) {
+        while(angle > Math.PI) {
+            angle -= 2 * Math.PI;
+        }
+        while(angle < -Math.PI) {
+            angle += 2 * Math.PI;
+        }
+        return angle;
+    }
+}
@@ -0,0 +1,548 @@
+/*
+ * Filename: KalmanFilter.java
+ * Author: Cole Savage
+ * Team Name: Level Up
+ * Date: 10/19/19
+ */
+
+package org.firstinspires.ftc.teamcode.util.control;
+
+import org.firstinspires.ftc.teamcode.util.exceptions.DumpsterFireException;
+
+/**
+ * A pure java linear Kalman filter for small state vectors (2-6 states).
+ * All matrices are stored as preallocated row-major double arrays, so predict and correct do not allocate.
+ */
+public class KalmanFilter {
+
+    //The maximum and minimum supported number of states.
+    private static final int MIN_STATES = 2, MAX_STATES = 6;
+
+    //The number of states and measurements.
+    private final int n, m;
+    //The state vector.
+    private final double[] x;
+    //The state covariance matrix (n x n).
+    private final double[] P;
+    //The state transition matrix (n x n).
+    private final double[] F;
+    //The process noise covariance matrix (n x n).
+    private final double[] Q;
+    //The measurement matrix (m x n).
+    private final double[] H;
+    //The measurement noise covariance matrix (m x m).
+    private final double[] R;
+    //Preallocated temporary matrices used during predict and correct.
+    private final double[] tempNN, tempNN2, tempMN, S, SInv, K, innovation, tempState, measurement;
+    //The number of position axes used by the kinematic model. 0 if the kinematic model is not being used.
+    private int kinematicAxes;
+
+    /**
+     * Constructor for KalmanFilter. The transition and measurement matrices default to identity.
+     *
+     * @param stateSize - The number of states being tracked (2-6).
+     * @param measurementSize - The number of values measured on each correction (1 to stateSize).
+     *
+     * @throws DumpsterFireException - Throws this exception if the state or measurement sizes are not supported.
+     */
+    public KalmanFilter(int stateSize, int measurementSize) {
+        if(stateSize < MIN_STATES || stateSize > MAX_STATES) {
+            throw new DumpsterFireException("KalmanFilter only supports between " + MIN_STATES + " and " + MAX_STATES + " states.");
+        }
+        if(measurementSize < 1 || measurementSize > stateSize) {
+            throw new DumpsterFireException("KalmanFilter measurement size must be between 1 and the number of states.");
+        }
+
+        n = stateSize;
+        m = measurementSize;
+
+        x = new double[n];
+        P = new double[n*n];
+        F = new double[n*n];
+        Q = new double[n*n];
+        H = new double[m*n];
+        R = new double[m*m];
+
+        tempNN = new double[n*n];
+        tempNN2 = new double[n*n];
+        //Correction buffers are sized for the largest possible measurement so that extended corrections of any size can share them.
+        tempMN = new double[n*n];
+        S = new double[n*n];
+        SInv = new double[n*n];
+        K = new double[n*n];
+        innovation = new double[n];
+        tempState = new double[n];
+        measurement = new double[m];
+
+        setIdentity(F, n);
+        setIdentity(P, n);
+        for(int i = 0; i < m; i++) {
+            H[i*n + i] = 1;
+        }
+
+        kinematicAxes = 0;
+    }
+
+    /**
+     * Uses a kinematic model for the transition matrix, rebuilt from dt on every call to predict(dt).
+     * States are ordered by derivative and then by axis, for example (x, y, vx, vy, ax, ay) for 2 axes.
+     *
+     * @param axes - The number of position axes. Must divide the number of states evenly.
+     *
+     * @throws DumpsterFireException - Throws this exception if the number of axes does not divide the number of states.
+     */
+    public void setKinematicModel(int axes) {
+        if(axes <= 0 || n % axes != 0) {
+            throw new DumpsterFireException("The number of axes must evenly divide the number of states.");
+        }
+        kinematicAxes = axes;
+        buildKinematicTransition(1);
+    }
+
+    /**
+     * Sets the state transition matrix. Disables the kinematic model.
+     *
+     * @param transitionMatrix - The new transition matrix, row-major (n x n).
+     */
+    public void setTransitionMatrix(double[] transitionMatrix) {
+        kinematicAxes = 0;
+        System.arraycopy(transitionMatrix, 0, F, 0, n*n);
+    }
+
+    /**
+     * Sets the measurement matrix.
+     *
+     * @param measurementMatrix - The new measurement matrix, row-major (m x n).
+     */
+    public void setMeasurementMatrix(double[] measurementMatrix) {
+        System.arraycopy(measurementMatrix, 0, H, 0, m*n);
+    }
+
+    /**
+     * Sets the process noise covariance to a diagonal matrix. When using the kinematic model, this is the noise per second.
+     *
+     * @param variance - The variance of each state.
+     */
+    public void setProcessNoise(double variance) {
+        setScaledIdentity(Q, n, variance);
+    }
+
+    /**
+     * Sets the process noise covariance matrix. When using the kinematic model, this is the noise per second.
+     *
+     * @param processNoise - The new process noise covariance, row-major (n x n).
+     */
+    public void setProcessNoise(double[] processNoise) {
+        System.arraycopy(processNoise, 0, Q, 0, n*n);
+    }
+
+    /**
+     * Sets the measurement noise covariance to a diagonal matrix.
+     *
+     * @param variance - The variance of each measurement.
+     */
+    public void setMeasurementNoise(double variance) {
+        setScaledIdentity(R, m, variance);
+    }
+
+    /**
+     * Sets the measurement noise covariance matrix.
+     *
+     * @param measurementNoise - The new measurement noise covariance, row-major (m x m).
+     */
+    public void setMeasurementNoise(double[] measurementNoise) {
+        System.arraycopy(measurementNoise, 0, R, 0, m*m);
+    }
+
+    /**
+     * Sets the state covariance to a diagonal matrix.
+     *
+     * @param variance - The variance of each state.
+     */
+    public void setCovariance(double variance) {
+        setScaledIdentity(P, n, variance);
+    }
+
+    /**
+     * Sets the state vector.
+     *
+     * @param state - The new state vector.
+     */
+    public void setState(double[] state) {
+        System.arraycopy(state, 0, x, 0, n);
+    }
+
+    /**
+     * Sets a single value in the state vector.
+     *
+     * @param idx - The index of the state.
+     * @param value - The new value of the state.
+     */
+    public void setState(int idx, double value) {
+        x[idx] = value;
+    }
+
+    /**
+     * Predicts the next state using the current transition matrix and process noise.
+     */
+    public void predict() {
+
+        //x = Fx
+        multiply(F, x, tempState, n, n);
+        System.arraycopy(tempState, 0, x, 0, n);
+
+        //P = FPF^T + Q
+        multiply(F, P, tempNN, n, n, n);
+        multiplyTransposeB(tempNN, F, P, n, n, n);
+        for(int i = 0; i < n*n; i++) {
+            P[i] += Q[i];
+        }
+    }
+
+    /**
+     * Predicts the next state after a given amount of time. If the kinematic model is in use, the transition matrix is rebuilt from dt and the process noise is scaled by dt.
+     *
+     * @param dt - The time since the last prediction in seconds.
+     */
+    public void predict(double dt) {
+        if(kinematicAxes == 0) {
+            predict();
+            return;
+        }
+
+        buildKinematicTransition(dt);
+
+        multiply(F, x, tempState, n, n);
+        System.arraycopy(tempState, 0, x, 0, n);
+
+        multiply(F, P, tempNN, n, n, n);
+        multiplyTransposeB(tempNN, F, P, n, n, n);
+        for(int i = 0; i < n*n; i++) {
+            P[i] += Q[i]*dt;
+        }
+    }
+
+    /**
+     * Corrects the state using a single measurement. Only valid when the measurement size is 1.
+     *
+     * @param z0 - The measurement.
+     */
+    public void correct(double z0) {
+        measurement[0] = z0;
+        correct(measurement);
+    }
+
+    /**
+     * Corrects the state using a pair of measurements. Only valid when the measurement size is 2.
+     *
+     * @param z0 - The first measurement.
+     * @param z1 - The second measurement.
+     */
+    public void correct(double z0, double z1) {
+        measurement[0] = z0;
+        measurement[1] = z1;
+        correct(measurement);
+    }
+
+    /**
+     * Corrects the state using a measurement vector. Uses the Joseph form covariance update to keep the covariance symmetric and positive definite.
+     *
+     * @param z - The measurement vector (length m).
+     *
+     * @throws DumpsterFireException - Throws this exception if the innovation covariance is singular.
+     */
+    public void correct(double[] z) {
+
+        //y = z - Hx
+        multiply(H, x, innovation, m, n);
+        for(int i = 0; i < m; i++) {
+            innovation[i] = z[i] - innovation[i];
+        }
+
+        applyCorrection(innovation, H, R, m);
+    }
+
+    /**
+     * Predicts the next state for an extended Kalman filter, where the caller has already propagated the state through the nonlinear model.
+     *
+     * @param predictedState - The new state vector (length n).
+     * @param jacobian - The jacobian of the state transition function evaluated at the previous state, row-major (n x n).
+     * @param processNoiseScale - The amount to scale the process noise by (ex: dt).
+     */
+    public void predictExtended(double[] predictedState, double[] jacobian, double processNoiseScale) {
+        System.arraycopy(predictedState, 0, x, 0, n);
+
+        multiply(jacobian, P, tempNN, n, n, n);
+        multiplyTransposeB(tempNN, jacobian, P, n, n, n);
+        for(int i = 0; i < n*n; i++) {
+            P[i] += Q[i]*processNoiseScale;
+        }
+    }
+
+    /**
+     * Corrects the state for an extended Kalman filter using an innovation computed by the caller (ex: with angle wrapping applied).
+     * The measurement size may differ from the one given in the constructor.
+     *
+     * @param innovation - The measurement residual z - h(x) (length measurementSize).
+     * @param measurementMatrix - The jacobian of the measurement function, row-major (measurementSize x n).
+     * @param measurementNoise - The measurement noise covariance, row-major (measurementSize x measurementSize).
+     * @param measurementSize - The number of measured values (1 to n).
+     *
+     * @throws DumpsterFireException - Throws this exception if the innovation covariance is singular.
+     */
+    public void correctExtended(double[] innovation, double[] measurementMatrix, double[] measurementNoise, int measurementSize) {
+        if(measurementSize < 1 || measurementSize > n) {
+            throw new DumpsterFireException("KalmanFilter measurement size must be between 1 and the number of states.");
+        }
+        applyCorrection(innovation, measurementMatrix, measurementNoise, measurementSize);
+    }
+
+    /**
+     * Applies a correction with the Joseph form covariance update.
+     *
+     * @param y - The innovation vector (length size).
+     * @param H - The measurement matrix (size x n).
+     * @param R - The measurement noise covariance (size x size).
+     * @param size - The number of measured values.
+     */
+    private void applyCorrection(double[] y, double[] H, double[] R, int size) {
+
+        //S = HPH^T + R
+        multiply(H, P, tempMN, size, n, n);
+        multiplyTransposeB(tempMN, H, S, size, n, size);
+        for(int i = 0; i < size*size; i++) {
+            S[i] += R[i];
+        }
+
+        //K = PH^T S^-1
+        invert(S, SInv, size);
+        multiplyTransposeB(P, H, tempMN, n, n, size);
+        multiply(tempMN, SInv, K, n, size, size);
+
+        //x = x + Ky
+        for(int i = 0; i < n; i++) {
+            double sum = 0;
+            for(int j = 0; j < size; j++) {
+                sum += K[i*size + j]*y[j];
+            }
+            x[i] += sum;
+        }
+
+        //P = (I-KH)P(I-KH)^T + KRK^T
+        multiply(K, H, tempNN, n, size, n);
+        for(int i = 0; i < n*n; i++) {
+            tempNN[i] = -tempNN[i];
+        }
+        for(int i = 0; i < n; i++) {
+            tempNN[i*n + i] += 1;
+        }
+        multiply(tempNN, P, tempNN2, n, n, n);
+        multiplyTransposeB(tempNN2, tempNN, P, n, n, n);
+
+        multiply(K, R, tempMN, n, size, size);
+        for(int i = 0; i < n; i++) {
+            for(int j = 0; j < n; j++) {
+                double sum = 0;
+                for(int k = 0; k < size; k++) {
+                    sum += tempMN[i*size + k]*K[j*size + k];
+                }
+                P[i*n + j] += sum;
+            }
+        }
+    }
+
+    /**
+     * Gets a value from the state vector.
+     *
+     * @param idx - The index of the state.
+     * @return - The value of the state.
+     */
+    public double getState(int idx) {
+        return x[idx];
+    }
+
+    /**
+     * Copies the state vector into the given array.
+     *
+     * @param out - The array to copy the state into (length n).
+     */
+    public void getState(double[] out) {
+        System.arraycopy(x, 0, out, 0, n);
+    }
+
+    /**
+     * Gets a value from the state covariance matrix.
+     *
+     * @param row - The row of the value.
+     * @param col - The column of the value.
+     * @return - The covariance value.
+     */
+    public double getCovariance(int row, int col) {
+        return P[row*n + col];
+    }
+
+    /**
+     * Copies the state covariance matrix into the given array.
+     *
+     * @param out - The array to copy the covariance into, row-major (n x n).
+     */
+    public void getCovariance(double[] out) {
+        System.arraycopy(P, 0, out, 0, n*n);
+    }
+
+    /**
+     * Sets the state covariance matrix.
+     *
+     * @param covariance - The new covariance matrix, row-major (n x n).
+     */
+    public void setCovariance(double[] covariance) {
+        System.arraycopy(covariance, 0, P, 0, n*n);
+    }
+
+    /**
+     * Gets the number of states being tracked.
+     *
+     * @return - The number of states.
+     */
+    public int getStateSize() {
+        return n;
+    }
+
+    /**
+     * Gets the number of values measured on each correction.
+     *
+     * @return - The number of measurements.
+     */
+    public int getMeasurementSize() {
+        return m;
+    }
+
+    /**
+     * Rebuilds the transition matrix for the kinematic model.
+     *
+     * @param dt - The timestep in seconds.
+     */
+    private void buildKinematicTransition(double dt) {
+        int order = n/kinematicAxes;
+        for(int i = 0; i < n*n; i++) {
+            F[i] = 0;
+        }
+        for(int row = 0; row < n; row++) {
+            int rowDerivative = row/kinematicAxes;
+            int axis = row%kinematicAxes;
+            double coefficient = 1;
+            for(int colDerivative = rowDerivative; colDerivative < order; colDerivative++) {
+                F[row*n + colDerivative*kinematicAxes + axis] = coefficient;
+                coefficient *= dt/(colDerivative - rowDerivative + 1); //dt^k / k!
+            }
+        }
+    }
+
+    /**
+     * Computes out = A*v, where A is rows x cols.
+     */
+    private static void multiply(double[] A, double[] v, double[] out, int rows, int cols) {
+        for(int i = 0; i < rows; i++) {
+            double sum = 0;
+            for(int j = 0; j < cols; j++) {
+                sum += A[i*cols + j]*v[j];
+            }
+            out[i] = sum;
+        }
+    }
+
+    /**
+     * Computes out = A*B, where A is rows x inner and B is inner x cols.
+     */
+    private static void multiply(double[] A, double[] B, double[] out, int rows, int inner, int cols) {
+        for(int i = 0; i < rows; i++) {
+            for(int j = 0; j < cols; j++) {
+                double sum = 0;
+                for(int k = 0; k < inner; k++) {
+                    sum += A[i*inner + k]*B[k*cols + j];
+                }
+                out[i*cols + j] = sum;
+            }
+        }
+    }
+
+    /**
+     * Computes out = A*B^T, where A is rows x inner and B is cols x inner.
+     */
+    private static void multiplyTransposeB(double[] A, double[] B, double[] out, int rows, int inner, int cols) {
+        for(int i = 0; i < rows; i++) {
+            for(int j = 0; j < cols; j++) {
+                double sum = 0;
+                for(int k = 0; k < inner; k++) {
+                    sum += A[i*inner + k]*B[j*inner + k];
+                }
+                out[i*cols + j] = sum;
+            }
+        }
+    }
+
+    /**
+     * Inverts a small symmetric positive definite matrix using Gauss-Jordan elimination. The input matrix is overwritten.
+     *
+     * @throws DumpsterFireException - Throws this exception if the matrix is singular.
+     */
+    private static void invert(double[] A, double[] out, int size) {
+        setIdentity(out, size);
+        for(int col = 0; col < size; col++) {
+            int pivot = col;
+            for(int row = col + 1; row < size; row++) {
+                if(Math.abs(A[row*size + col]) > Math.abs(A[pivot*size + col])) {
+                    pivot = row;
+                }
+            }
+            if(Math.abs(A[pivot*size + col]) < 1e-12) {
+                throw new DumpsterFireException("Kalman filter innovation covariance is singular, check the measurement noise.");
+            }
+            if(pivot != col) {
+                for(int k = 0; k < size; k++) {
+                    double temp = A[col*size + k];
+                    A[col*size + k] = A[pivot*size + k];
+                    A[pivot*size + k] = temp;
+                    temp = out[col*size + k];
+                    out[col*size + k] = out[pivot*size + k];
+                    out[pivot*size + k] = temp;
+                }
+            }
+            double scale = 1/A[col*size + col];
+            for(int k = 0; k < size; k++) {
+                A[col*size + k] *= scale;
+                out[col*size + k] *= scale;
+            }
+            for(int row = 0; row < size; row++) {
+                if(row != col) {
+                    double factor = A[row*size + col];
+                    if(factor != 0) {
+                        for(int k = 0; k < size; k++) {
+                            A[row*size + k] -= factor*A[col*size + k];
+                            out[row*size + k] -= factor*out[col*size + k];
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets a square matrix to the identity matrix.
+     */
+    private static void setIdentity(double[] A, int size) {
+        setScaledIdentity(A, size, 1);
+    }
+
+    /**
+     * Sets a square matrix to a scaled identity matrix.
+     */
+    private static void setScaledIdentity(double[] A, int size, double scale) {
+        for(int i = 0; i < size*size; i++) {
+            A[i] = 0;
+        }
+        for(int i = 0; i < size; i++) {
+            A[i*size + i] = scale;
+        }
+    }
+}
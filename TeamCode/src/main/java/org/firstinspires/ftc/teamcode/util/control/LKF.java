@@ -1,13 +1,10 @@
 package org.firstinspires.ftc.teamcode.util.control;
 
-import org.opencv.core.CvType;
-import org.opencv.core.Mat;
 import org.opencv.core.Point;
-import org.opencv.core.Scalar;
-import org.opencv.video.KalmanFilter;
 
-@Deprecated
-//TODO currently broken, WIP
+/**
+ * A constant acceleration position tracker for vision targets, backed by the pure java KalmanFilter.
+ */
 public class LKF {
     public Point lastResult;
     private KalmanFilter kf;
@@ -27,55 +24,17 @@ public class LKF {
 
     public LKF(Point init) {
 
-        //dynamParams: number of things in the state vector that change
-        //measureParams: number of parameters in the state vector that are measured (x and y position only so 2)
-        //control params you shouldn't worry about too much
-        kf = new KalmanFilter(params, 2, 0, CvType.CV_32F);
-
-        //transitionMatrix
-        Mat transitionMatrix = new Mat(params, params, CvType.CV_32F, new Scalar(0));
-
-         /* For taking into account only velocity
-        float[] tM = {
-                1, 0, 1, 0,
-                0, 1, 0, 1,
-                0, 0, 1, 0,
-                0, 0, 0, 1 };
-         */
-
-        //For taking into account acceleration
-        float[] tM = {
-                1, 0, 1, 0, 0.5f, 0,
-                0, 1, 0, 1, 0, 0.5f,
-                0, 0, 1, 0, 1, 0,
-                0, 0, 0, 1, 0, 1,
-                0, 0, 0, 0, 1, 0,
-                0, 0, 0, 0, 0, 1 };
-
-
-        transitionMatrix.put(0,0,tM);
-
-        kf.set_transitionMatrix(transitionMatrix);
+        //State vector is (x, y, vx, vy, ax, ay) and only x and y are measured.
+        kf = new KalmanFilter(params, 2);
+        kf.setKinematicModel(2);
 
         lastResult = new Point(init.x,init.y);
-        Mat statePre = new Mat(((int) Math.round(Math.sqrt(tM.length))), 1, CvType.CV_32F, new Scalar(0));
-        statePre.put(0, 0, init.x);
-        statePre.put(1, 0, init.y);
-        kf.set_statePre(statePre);
-
-        kf.set_measurementMatrix(Mat.eye(2,params, CvType.CV_32F));
-
-        Mat processNoiseCov = Mat.eye(params, params, CvType.CV_32F);
-        processNoiseCov = processNoiseCov.mul(processNoiseCov, 1e-4);
-        kf.set_processNoiseCov(processNoiseCov);
+        kf.setState(0, init.x);
+        kf.setState(1, init.y);
 
-        Mat id1 = Mat.eye(2,2, CvType.CV_32F);
-        id1 = id1.mul(id1,1e-3);
-        kf.set_measurementNoiseCov(id1);
-
-        Mat id2 = Mat.eye(params,params, CvType.CV_32F);
-        id2 = id2.mul(id2,1e-2);
-        kf.set_errorCovPost(id2);
+        kf.setProcessNoise(1e-4);
+        kf.setMeasurementNoise(1e-3);
+        kf.setCovariance(1e-2);
 
         creationTime = System.currentTimeMillis();
 
@@ -95,16 +54,16 @@ public class LKF {
 
         totalUpdates++;
 
-        Mat measurement = new Mat(2, 1, CvType.CV_32F, new Scalar(0)) ;
+        double measurementX, measurementY;
 
         if (!dataCorrect) {
-            measurement.put(0, 0, lastResult.x);
-            measurement.put(1, 0, lastResult.y);
+            measurementX = lastResult.x;
+            measurementY = lastResult.y;
             trustworthyness = 1.0*correctTimes/totalUpdates;
 
         } else {
-            measurement.put(0, 0, p.x);
-            measurement.put(1, 0, p.y);
+            measurementX = p.x;
+            measurementY = p.y;
             creationTime = System.currentTimeMillis();
 
             correctTimes++;
@@ -115,9 +74,9 @@ public class LKF {
         lastUpdateTimer = System.currentTimeMillis() - creationTime;
 
         // Correction
-        Mat estimated = kf.correct(measurement); //updates predicted state from the measurement
-        lastResult.x = estimated.get(0, 0)[0];
-        lastResult.y = estimated.get(1, 0)[0];
+        kf.correct(measurementX, measurementY); //updates predicted state from the measurement
+        lastResult.x = kf.getState(0);
+        lastResult.y = kf.getState(1);
 
         if(totalUpdates%2 == 0 && isFirstUpdate) {
             isFirstUpdate = false;
@@ -128,18 +87,24 @@ public class LKF {
 
     public Point getPrediction() {
         this.wasUpdated = false;
-        Mat prediction = kf.predict();
-        lastResult = new Point(prediction.get(0, 0)[0], prediction.get(1, 0)[0]);
+        kf.predict();
+        lastResult.x = kf.getState(0);
+        lastResult.y = kf.getState(1);
         return lastResult;
     }
-    public Point correction(Point p){
-        Mat measurement = new Mat(2, 1, CvType.CV_32F, new Scalar(0));
-        measurement.put(0, 0, p.x);
-        measurement.put(1, 0, p.y);
 
-        Mat estimated = kf.correct(measurement);
-        lastResult.x = estimated.get(0, 0)[0];
-        lastResult.y = estimated.get(1, 0)[0];
+    public Point getPrediction(double dt) {
+        this.wasUpdated = false;
+        kf.predict(dt);
+        lastResult.x = kf.getState(0);
+        lastResult.y = kf.getState(1);
+        return lastResult;
+    }
+
+    public Point correction(Point p){
+        kf.correct(p.x, p.y);
+        lastResult.x = kf.getState(0);
+        lastResult.y = kf.getState(1);
         return lastResult;
     }
 }
@@ -270,6 +270,25 @@ public class PIDController {
         }
 
         double dT = lastUpdate == 0 ? 0 : (System.currentTimeMillis() - lastUpdate) / 1000.0; //because I like seconds
+        double correction = getCorrection(current, dT);
+        lastUpdate = System.currentTimeMillis();
+
+        return correction;
+    }
+
+    /**
+     * Gets the correction value based on the controller calculations using an externally supplied timestep. Used when the controller is run against simulated time instead of the system clock.
+     *
+     * @param current - Current measured state of whatever you're trying to control.
+     * @param dT - The time since the last update in seconds.
+     * @return result - Correction based on PID controller calculations.
+     */
+    public double getCorrection(double current, double dT) {
+
+        if(!active) { // Controller disabled
+            return 0;
+        }
+
         double error = getError(current);
 
         switch(type) {
@@ -279,7 +298,6 @@ public class PIDController {
                 D = dT <= 0.0001 ? 0 : -kd * (current - lastState) / dT;
                 F = kf*setpoint;
                 lastState = current;
-                lastUpdate = System.currentTimeMillis();
 
                 return Range.clip(P + I + D + F,clampLower,clampUpper);
             case P_ON_M:
@@ -287,7 +305,6 @@ public class PIDController {
                 I = Range.clip(I + ki * error * dT, iClampLower, iClampUpper);
                 D = dT <= 0.0001 ? 0 : -kd * (current - lastState) / dT;
                 lastState = current;
-                lastUpdate = System.currentTimeMillis();
 
                 return Range.clip(P + I + D,clampLower,clampUpper);
             default:
@@ -295,7 +312,6 @@ public class PIDController {
                 I = Range.clip(I + ki * error * dT, iClampLower, iClampUpper);
                 D = dT <= 0.0001 ? 0 : -kd * (current - lastState) / dT;
                 lastState = current;
-                lastUpdate = System.currentTimeMillis();
 
                 return Range.clip(P + I + D,clampLower,clampUpper);
         }
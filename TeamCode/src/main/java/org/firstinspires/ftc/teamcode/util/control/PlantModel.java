@@ -0,0 +1,151 @@
+/*
+ * Filename: PlantModel.java
+ * Author: Cole Savage
+ * Team Name: Level Up
+ * Date: 10/19/19
+ */
+
+package org.firstinspires.ftc.teamcode.util.control;
+
+import org.firstinspires.ftc.teamcode.util.misc.BaseParam;
+
+/**
+ * A simple simulated model of a motor driven mechanism (a drivetrain's linear position or a robot's heading). Used to test control systems offline.
+ */
+public class PlantModel {
+
+    //The parameters describing the physical behavior of the plant.
+    private Params params;
+    //The current position and velocity of the plant.
+    private double position, velocity;
+    //A circular buffer of previous control inputs, used to simulate loop latency.
+    private double[] inputDelayBuffer;
+    //The current index in the input delay buffer.
+    private int delayIdx;
+
+    /**
+     * Constructor for PlantModel.
+     *
+     * @param params - The parameters describing the plant.
+     */
+    public PlantModel(Params params) {
+        this.params = params;
+        inputDelayBuffer = new double[params.latencySteps + 1];
+        reset(0);
+    }
+
+    /**
+     * Resets the plant to a resting state at the given position.
+     *
+     * @param position - The starting position of the plant.
+     */
+    public void reset(double position) {
+        this.position = position;
+        velocity = 0;
+        delayIdx = 0;
+        for(int i = 0; i < inputDelayBuffer.length; i++) {
+            inputDelayBuffer[i] = 0;
+        }
+    }
+
+    /**
+     * Advances the plant forward in time by one timestep.
+     *
+     * @param input - The motor power applied to the plant, from -1 to 1.
+     * @param dt - The timestep in seconds.
+     * @return - The new position of the plant.
+     */
+    public double update(double input, double dt) {
+
+        //Latency: the input that acts on the plant now is the one sent latencySteps updates ago.
+        inputDelayBuffer[delayIdx] = Math.max(-1, Math.min(1, input));
+        delayIdx = (delayIdx + 1) % inputDelayBuffer.length;
+        double delayedInput = inputDelayBuffer[delayIdx];
+
+        //Static friction: powers below the breakaway power do nothing.
+        double effectiveInput = Math.abs(delayedInput) <= params.staticFriction ? 0 : delayedInput - Math.signum(delayedInput) * params.staticFriction;
+
+        //First order motor response towards the commanded velocity.
+        double targetVelocity = effectiveInput * params.maxVelocity;
+        velocity += (targetVelocity - velocity) * Math.min(1, dt / params.timeConstant);
+
+        position += velocity * dt;
+        return position;
+    }
+
+    /**
+     * Gets the current position of the plant.
+     *
+     * @return - The current position of the plant.
+     */
+    public double getPosition() {
+        return position;
+    }
+
+    /**
+     * Gets the current velocity of the plant.
+     *
+     * @return - The current velocity of the plant.
+     */
+    public double getVelocity() {
+        return velocity;
+    }
+
+    /**
+     * A class used to specify the physical parameters of the plant.
+     */
+    public static class Params implements BaseParam {
+        //The velocity of the plant at full power in position units per second.
+        private double maxVelocity = 1.5;
+        //The time constant of the motor's response in seconds.
+        private double timeConstant = 0.15;
+        //The minimum power needed to make the plant move.
+        private double staticFriction = 0.05;
+        //The number of control loop updates between a command being sent and it affecting the plant.
+        private int latencySteps = 1;
+
+        /**
+         * Sets the velocity of the plant at full power.
+         *
+         * @param maxVelocity - The velocity of the plant at full power in position units per second (ex: m/s or rad/s).
+         * @return - This instance of Params.
+         */
+        public Params setMaxVelocity(double maxVelocity) {
+            this.maxVelocity = maxVelocity;
+            return this;
+        }
+
+        /**
+         * Sets the time constant of the motor's response.
+         *
+         * @param timeConstant - The time constant in seconds.
+         * @return - This instance of Params.
+         */
+        public Params setTimeConstant(double timeConstant) {
+            this.timeConstant = Math.max(timeConstant, 1e-6);
+            return this;
+        }
+
+        /**
+         * Sets the minimum power needed to make the plant move.
+         *
+         * @param staticFriction - The breakaway power, from 0 to 1.
+         * @return - This instance of Params.
+         */
+        public Params setStaticFriction(double staticFriction) {
+            this.staticFriction = Math.abs(staticFriction);
+            return this;
+        }
+
+        /**
+         * Sets the number of control loop updates between a command being sent and it affecting the plant.
+         *
+         * @param latencySteps - The latency in control loop updates.
+         * @return - This instance of Params.
+         */
+        public Params setLatencySteps(int latencySteps) {
+            this.latencySteps = Math.max(latencySteps, 0);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Filename: PredictiveBrake.java
+ * Author: Cole Savage
+ * Team Name: Level Up
+ * Date: 10/19/19
+ */
+
+package org.firstinspires.ftc.teamcode.util.control;
+
+import com.qualcomm.robotcore.util.Range;
+
+/**
+ * Controls a move to a distance target. The move cruises at full power until the predicted stopping distance reaches the remaining distance,
+ * cuts power so the robot decelerates to the target, then finishes with a short PID tail.
+ * The deceleration used to predict the stopping distance is learned from each braking phase, so the brake point converges over repeated moves.
+ * Distances are in meters and velocities are in meters/second, both measured along the direction of travel.
+ */
+public class PredictiveBrake {
+
+    //The phases of a move.
+    public enum Phase {
+        CRUISE, BRAKE, TAIL, DONE
+    }
+
+    //The learned deceleration of the robot when power is cut in meters/second^2.
+    private double deceleration;
+    //The delay between cutting power and the robot starting to slow down in seconds.
+    private double latency;
+    //How much of each new deceleration measurement is blended into the learned deceleration (0-1).
+    private double learningRate;
+    //The PID controller used to converge on the target at the end of the move.
+    private PIDController tailPID;
+    //The remaining distance below which the PID tail always takes over, and the distance from the target that counts as arrived, both in meters.
+    private double tailDistance, tolerance;
+    //The velocity below which the robot counts as stopped in meters/second.
+    private double settleVelocity;
+    //The longest the PID tail is allowed to run in seconds.
+    private double tailTimeout;
+    //The current phase of the move.
+    private Phase phase;
+    //The velocity and remaining distance when the brake phase started.
+    private double brakeStartVelocity, brakeStartRemaining;
+    //The time the PID tail started in nanoseconds.
+    private long tailStartTime;
+
+    /**
+     * Constructor for PredictiveBrake.
+     *
+     * @param deceleration - The initial guess for the robot's deceleration when power is cut in meters/second^2.
+     * @param latency - The delay between cutting power and the robot starting to slow down in seconds.
+     * @param tailPID - The PID controller used to converge on the target. Its input is the remaining distance in meters and its output is a power fraction.
+     */
+    public PredictiveBrake(double deceleration, double latency, PIDController tailPID) {
+        this.deceleration = deceleration;
+        this.latency = latency;
+        this.tailPID = tailPID;
+
+        learningRate = 0.3;
+        tailDistance = 0.02;
+        tolerance = 0.005;
+        settleVelocity = 0.02;
+        tailTimeout = 0.5;
+
+        phase = Phase.DONE;
+    }
+
+    /**
+     * Starts a new move. Must be called before the first update of each move.
+     */
+    public void reset() {
+        phase = Phase.CRUISE;
+        brakeStartVelocity = 0;
+        brakeStartRemaining = 0;
+    }
+
+    /**
+     * Calculates the power to apply this loop.
+     *
+     * @param remaining - The distance left to the target in meters. Negative once the robot has overshot.
+     * @param velocity - The robot's velocity towards the target in meters/second.
+     * @return - The fraction of the cruising power to apply, from -1 to 1. Negative values drive back towards the target.
+     */
+    public double update(double remaining, double velocity) {
+        switch (phase) {
+            case CRUISE:
+                if(remaining <= tailDistance) {
+                    startTail(remaining);
+                    return update(remaining, velocity);
+                }
+                if(getStoppingDistance(velocity) >= remaining) {
+                    phase = Phase.BRAKE;
+                    brakeStartVelocity = velocity;
+                    brakeStartRemaining = remaining;
+                    return 0;
+                }
+                return 1;
+            case BRAKE:
+                if(velocity <= settleVelocity || remaining <= tolerance) {
+                    learn(remaining, velocity);
+                    startTail(remaining);
+                    return update(remaining, velocity);
+                }
+                return 0;
+            case TAIL:
+                if((Math.abs(remaining) <= tolerance && Math.abs(velocity) <= settleVelocity) || (System.nanoTime() - tailStartTime) / 1e9 > tailTimeout) {
+                    phase = Phase.DONE;
+                    return 0;
+                }
+                return Range.clip(-tailPID.getCorrection(remaining), -1, 1);
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Predicts how far the robot will travel before stopping if power is cut now.
+     *
+     * @param velocity - The robot's velocity in meters/second.
+     * @return - The stopping distance in meters.
+     */
+    public double getStoppingDistance(double velocity) {
+        if(velocity <= 0) {
+            return 0;
+        }
+        return velocity * latency + velocity * velocity / (2 * deceleration);
+    }
+
+    /**
+     * Gets whether the move has finished.
+     *
+     * @return - Whether the robot has settled on the target.
+     */
+    public boolean isDone() {
+        return phase == Phase.DONE;
+    }
+
+    /**
+     * Gets the current phase of the move.
+     *
+     * @return - The current phase.
+     */
+    public Phase getPhase() {
+        return phase;
+    }
+
+    /**
+     * Gets the learned deceleration.
+     *
+     * @return - The deceleration in meters/second^2.
+     */
+    public double getDeceleration() {
+        return deceleration;
+    }
+
+    /**
+     * Sets the learned deceleration.
+     *
+     * @param deceleration - The deceleration in meters/second^2.
+     */
+    public void setDeceleration(double deceleration) {
+        this.deceleration = deceleration;
+    }
+
+    /**
+     * Sets how much of each new deceleration measurement is blended into the learned deceleration.
+     *
+     * @param learningRate - The learning rate, from 0 (never learn) to 1 (only use the last move).
+     */
+    public void setLearningRate(double learningRate) {
+        this.learningRate = Range.clip(learningRate, 0, 1);
+    }
+
+    /**
+     * Sets the tolerances used to end the move.
+     *
+     * @param tailDistance - The remaining distance below which the PID tail always takes over in meters.
+     * @param tolerance - The distance from the target that counts as arrived in meters.
+     * @param settleVelocity - The velocity below which the robot counts as stopped in meters/second.
+     * @param tailTimeout - The longest the PID tail is allowed to run in seconds.
+     */
+    public void setTolerances(double tailDistance, double tolerance, double settleVelocity, double tailTimeout) {
+        this.tailDistance = tailDistance;
+        this.tolerance = tolerance;
+        this.settleVelocity = settleVelocity;
+        this.tailTimeout = tailTimeout;
+    }
+
+    /**
+     * Updates the learned deceleration from the braking phase that just ended.
+     * The latency is removed from the distance traveled so the measurement only covers the time the robot was actually slowing down.
+     *
+     * @param remaining - The distance left to the target in meters.
+     * @param velocity - The robot's velocity towards the target in meters/second.
+     */
+    private void learn(double remaining, double velocity) {
+        double brakingDistance = brakeStartRemaining - remaining - brakeStartVelocity * latency;
+        double velocityChange = brakeStartVelocity * brakeStartVelocity - velocity * velocity;
+        if(brakingDistance > 0 && velocityChange > 0) {
+            deceleration += learningRate * (velocityChange / (2 * brakingDistance) - deceleration);
+        }
+    }
+
+    /**
+     * Hands control over to the PID tail.
+     *
+     * @param remaining - The distance left to the target in meters.
+     */
+    private void startTail(double remaining) {
+        phase = Phase.TAIL;
+        tailStartTime = System.nanoTime();
+        tailPID.init(0, remaining);
+        tailPID.setOutputClamp(-1, 1);
+    }
+}
@@ -0,0 +1,571 @@
+/*
+ * Filename: PurePursuit.java
+ * Author: Cole Savage
+ * Team Name: Level Up
+ * Date: 10/19/19
+ */
+
+package org.firstinspires.ftc.teamcode.util.control;
+
+import org.firstinspires.ftc.teamcode.util.exceptions.DumpsterFireException;
+import org.firstinspires.ftc.teamcode.util.math.Pose;
+import org.firstinspires.ftc.teamcode.util.math.Vector;
+import org.firstinspires.ftc.teamcode.util.misc.BaseParam;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.lang.Math.PI;
+
+/**
+ * A pure pursuit path follower. The path is a polyline (a spline can be followed by sampling it into points).
+ * Path segments are stored in a uniform grid so that finding the lookahead point only checks segments near the robot.
+ *
+ * Outputs are robot-relative powers: strafe is positive to the right, forward is positive forwards, and turn is positive counterclockwise.
+ * Heading 0 faces the +y axis, matching PoseEstimator.
+ */
+public class PurePursuit {
+
+    //The parameters for the follower.
+    private Params params;
+    //The path points.
+    private double[] xs, ys;
+    //The cumulative path length at each point.
+    private double[] cumulativeLength;
+    //The total length of the path.
+    private double totalLength;
+    //The spatial index. cells[i] holds the indices of every segment that passes through grid cell i.
+    private int[][] cells;
+    //The bounds and size of the spatial index grid.
+    private double minX, minY, cellSize;
+    private int gridWidth, gridHeight;
+    //The progress along the path, as segment index + fraction along the segment. Never moves backwards.
+    private double progress;
+    //The current lookahead point.
+    private double targetX, targetY;
+    //The latest outputs.
+    private double strafe, forward, turn;
+    //Whether the robot has reached the end of the path.
+    private boolean finished;
+
+    /**
+     * Constructor for PurePursuit.
+     *
+     * @param path - The points of the path, in meters.
+     * @param params - The parameters for the follower.
+     *
+     * @throws DumpsterFireException - Throws this exception if the path has fewer than 2 points.
+     */
+    public PurePursuit(List<Vector> path, Params params) {
+        if(path.size() < 2) {
+            throw new DumpsterFireException("A path needs at least 2 points.");
+        }
+
+        this.params = params;
+
+        xs = new double[path.size()];
+        ys = new double[path.size()];
+        for(int i = 0; i < path.size(); i++) {
+            xs[i] = path.get(i).x;
+            ys[i] = path.get(i).y;
+        }
+
+        cumulativeLength = new double[xs.length];
+        for(int i = 1; i < xs.length; i++) {
+            cumulativeLength[i] = cumulativeLength[i - 1] + Math.hypot(xs[i] - xs[i - 1], ys[i] - ys[i - 1]);
+        }
+        totalLength = cumulativeLength[xs.length - 1];
+
+        buildIndex();
+        reset();
+    }
+
+    /**
+     * Restarts the path from the beginning.
+     */
+    public void reset() {
+        progress = 0;
+        finished = false;
+        targetX = xs[0];
+        targetY = ys[0];
+        strafe = 0;
+        forward = 0;
+        turn = 0;
+    }
+
+    /**
+     * Updates the outputs for a holonomic drive (mechanum or omniwheel). The robot translates towards the lookahead point and turns
+     * to face along the path, or to hold the path's target heading if one was set.
+     *
+     * @param pose - The current pose of the robot.
+     */
+    public void updateHolonomic(Pose pose) {
+        updateTarget(pose.x, pose.y);
+
+        double speed = getSpeed(pose.x, pose.y);
+
+        double dx = targetX - pose.x;
+        double dy = targetY - pose.y;
+        double distance = Math.hypot(dx, dy);
+        if(distance < 1e-9) {
+            strafe = 0;
+            forward = 0;
+        }
+        else {
+            //Rotate the field direction into the robot's frame.
+            double cos = Math.cos(-pose.heading);
+            double sin = Math.sin(-pose.heading);
+            strafe = speed*(dx*cos - dy*sin)/distance;
+            forward = speed*(dx*sin + dy*cos)/distance;
+        }
+
+        double targetHeading = params.holdHeading ? params.heading : headingOf(dx, dy, pose.heading);
+        turn = clip(params.headingGain*wrap(targetHeading - pose.heading), params.maxTurn);
+
+        if(finished) {
+            strafe = 0;
+            forward = 0;
+        }
+    }
+
+    /**
+     * Updates the outputs for a tank or quad wheel drive. The robot drives along the arc that passes through the lookahead point.
+     *
+     * @param pose - The current pose of the robot.
+     */
+    public void updateCurvature(Pose pose) {
+        updateTarget(pose.x, pose.y);
+
+        double speed = getSpeed(pose.x, pose.y);
+
+        //Lookahead point in the robot's frame.
+        double dx = targetX - pose.x;
+        double dy = targetY - pose.y;
+        double cos = Math.cos(-pose.heading);
+        double sin = Math.sin(-pose.heading);
+        double right = dx*cos - dy*sin;
+        double ahead = dx*sin + dy*cos;
+
+        double distanceSquared = right*right + ahead*ahead;
+        double curvature = distanceSquared < 1e-9 ? 0 : -2*right/distanceSquared;
+
+        strafe = 0;
+        forward = finished ? 0 : speed;
+        turn = finished ? 0 : clip(curvature*speed*params.trackWidth/2, params.maxTurn);
+
+        //Scale down if the combined wheel powers would saturate, so the arc is preserved.
+        double max = Math.abs(forward) + Math.abs(turn);
+        if(max > 1) {
+            forward /= max;
+            turn /= max;
+        }
+    }
+
+    /**
+     * Gets the strafe output. Only nonzero for holonomic drives.
+     *
+     * @return - The strafe power, positive to the right.
+     */
+    public double getStrafe() {
+        return strafe;
+    }
+
+    /**
+     * Gets the forward output.
+     *
+     * @return - The forward power.
+     */
+    public double getForward() {
+        return forward;
+    }
+
+    /**
+     * Gets the turn output. Note that MechanumDrive.turnAndMove() treats positive turn power as clockwise, so pass -getTurn() to it.
+     *
+     * @return - The turn power, positive counterclockwise.
+     */
+    public double getTurn() {
+        return turn;
+    }
+
+    /**
+     * Gets the current lookahead point.
+     *
+     * @return - The current lookahead point.
+     */
+    public Vector getTarget() {
+        return new Vector(targetX, targetY);
+    }
+
+    /**
+     * Gets the distance along the path that the robot has traveled.
+     *
+     * @return - The distance along the path in meters.
+     */
+    public double getDistanceTraveled() {
+        int segment = Math.min((int) progress, xs.length - 2);
+        return cumulativeLength[segment] + (progress - segment)*(cumulativeLength[segment + 1] - cumulativeLength[segment]);
+    }
+
+    /**
+     * Gets whether the robot has reached the end of the path.
+     *
+     * @return - Whether the robot has reached the end of the path.
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Finds the lookahead point. Only segments in grid cells that the lookahead circle overlaps, and that are not behind the current progress, are checked.
+     *
+     * @param x - The x position of the robot.
+     * @param y - The y position of the robot.
+     */
+    private void updateTarget(double x, double y) {
+        int last = xs.length - 1;
+        double endDistance = Math.hypot(xs[last] - x, ys[last] - y);
+
+        if(endDistance < params.endTolerance && progress >= last - 1) {
+            finished = true;
+        }
+
+        double lookahead = params.lookahead;
+        int minSegment = (int) progress;
+        int maxSegment = Math.min(last - 1, minSegment + params.searchWindow);
+
+        double bestProgress = -1;
+
+        int cellMinX = cellX(x - lookahead), cellMaxX = cellX(x + lookahead);
+        int cellMinY = cellY(y - lookahead), cellMaxY = cellY(y + lookahead);
+        for(int cx = cellMinX; cx <= cellMaxX; cx++) {
+            for(int cy = cellMinY; cy <= cellMaxY; cy++) {
+                for(int segment : cells[cy*gridWidth + cx]) {
+                    if(segment < minSegment || segment > maxSegment) {
+                        continue;
+                    }
+                    double t = furthestIntersection(segment, x, y, lookahead);
+                    if(!Double.isNaN(t) && segment + t > bestProgress && segment + t >= progress) {
+                        bestProgress = segment + t;
+                    }
+                }
+            }
+        }
+
+        if(bestProgress < 0) {
+            //The robot is off the path (further than the lookahead distance), so steer back towards the closest point.
+            bestProgress = closestProgress(x, y, minSegment, maxSegment);
+        }
+
+        if(endDistance < lookahead && bestProgress >= last - 1) {
+            bestProgress = last;
+        }
+
+        progress = Math.max(progress, bestProgress);
+
+        int segment = Math.min((int) progress, last - 1);
+        double t = progress - segment;
+        targetX = xs[segment] + t*(xs[segment + 1] - xs[segment]);
+        targetY = ys[segment] + t*(ys[segment + 1] - ys[segment]);
+    }
+
+    /**
+     * Gets the commanded speed, slowing down as the robot approaches the end of the path.
+     *
+     * @param x - The x position of the robot.
+     * @param y - The y position of the robot.
+     * @return - The commanded speed.
+     */
+    private double getSpeed(double x, double y) {
+        int last = xs.length - 1;
+        double remaining = totalLength - getDistanceTraveled() + Math.hypot(targetX - x, targetY - y);
+        if(progress >= last) {
+            remaining = Math.hypot(xs[last] - x, ys[last] - y);
+        }
+        return Math.max(params.minSpeed, Math.min(params.maxSpeed, params.endDecelerationGain*remaining));
+    }
+
+    /**
+     * Finds the furthest point along a segment where it intersects a circle.
+     *
+     * @param segment - The segment index.
+     * @param cx - The x position of the center of the circle.
+     * @param cy - The y position of the center of the circle.
+     * @param radius - The radius of the circle.
+     * @return - The fraction along the segment of the intersection, or NaN if there isn't one.
+     */
+    private double furthestIntersection(int segment, double cx, double cy, double radius) {
+        double dx = xs[segment + 1] - xs[segment];
+        double dy = ys[segment + 1] - ys[segment];
+        double fx = xs[segment] - cx;
+        double fy = ys[segment] - cy;
+
+        double a = dx*dx + dy*dy;
+        if(a < 1e-12) {
+            return Double.NaN;
+        }
+        double b = 2*(fx*dx + fy*dy);
+        double c = fx*fx + fy*fy - radius*radius;
+        double discriminant = b*b - 4*a*c;
+        if(discriminant < 0) {
+            return Double.NaN;
+        }
+
+        double sqrt = Math.sqrt(discriminant);
+        double t2 = (-b + sqrt)/(2*a);
+        if(t2 >= 0 && t2 <= 1) {
+            return t2;
+        }
+        double t1 = (-b - sqrt)/(2*a);
+        if(t1 >= 0 && t1 <= 1) {
+            return t1;
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Finds the closest point on the path within a range of segments.
+     *
+     * @param x - The x position of the robot.
+     * @param y - The y position of the robot.
+     * @param minSegment - The first segment to check.
+     * @param maxSegment - The last segment to check.
+     * @return - The progress value of the closest point.
+     */
+    private double closestProgress(double x, double y, int minSegment, int maxSegment) {
+        double bestDistance = Double.MAX_VALUE;
+        double best = progress;
+        for(int segment = minSegment; segment <= maxSegment; segment++) {
+            double dx = xs[segment + 1] - xs[segment];
+            double dy = ys[segment + 1] - ys[segment];
+            double lengthSquared = dx*dx + dy*dy;
+            double t = lengthSquared < 1e-12 ? 0 : ((x - xs[segment])*dx + (y - ys[segment])*dy)/lengthSquared;
+            t = Math.max(0, Math.min(1, t));
+            double px = xs[segment] + t*dx - x;
+            double py = ys[segment] + t*dy - y;
+            double distance = px*px + py*py;
+            if(distance < bestDistance) {
+                bestDistance = distance;
+                best = segment + t;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Builds the uniform grid spatial index of path segments.
+     */
+    private void buildIndex() {
+        cellSize = Math.max(params.lookahead, 1e-3);
+
+        minX = Double.MAX_VALUE;
+        minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        for(int i = 0; i < xs.length; i++) {
+            minX = Math.min(minX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            maxX = Math.max(maxX, xs[i]);
+            maxY = Math.max(maxY, ys[i]);
+        }
+        gridWidth = (int) ((maxX - minX)/cellSize) + 1;
+        gridHeight = (int) ((maxY - minY)/cellSize) + 1;
+
+        List<List<Integer>> buckets = new ArrayList<>();
+        for(int i = 0; i < gridWidth*gridHeight; i++) {
+            buckets.add(new ArrayList<Integer>());
+        }
+
+        //Add each segment to every cell covered by its bounding box.
+        for(int segment = 0; segment < xs.length - 1; segment++) {
+            int x0 = cellX(Math.min(xs[segment], xs[segment + 1])), x1 = cellX(Math.max(xs[segment], xs[segment + 1]));
+            int y0 = cellY(Math.min(ys[segment], ys[segment + 1])), y1 = cellY(Math.max(ys[segment], ys[segment + 1]));
+            for(int cx = x0; cx <= x1; cx++) {
+                for(int cy = y0; cy <= y1; cy++) {
+                    buckets.get(cy*gridWidth + cx).add(segment);
+                }
+            }
+        }
+
+        cells = new int[buckets.size()][];
+        for(int i = 0; i < buckets.size(); i++) {
+            List<Integer> bucket = buckets.get(i);
+            cells[i] = new int[bucket.size()];
+            for(int j = 0; j < bucket.size(); j++) {
+                cells[i][j] = bucket.get(j);
+            }
+        }
+    }
+
+    /**
+     * Gets the grid column containing an x position, clamped to the grid.
+     *
+     * @param x - The x position.
+     * @return - The grid column.
+     */
+    private int cellX(double x) {
+        return Math.max(0, Math.min(gridWidth - 1, (int) Math.floor((x - minX)/cellSize)));
+    }
+
+    /**
+     * Gets the grid row containing a y position, clamped to the grid.
+     *
+     * @param y - The y position.
+     * @return - The grid row.
+     */
+    private int cellY(double y) {
+        return Math.max(0, Math.min(gridHeight - 1, (int) Math.floor((y - minY)/cellSize)));
+    }
+
+    /**
+     * Gets the heading that faces along a direction. Keeps the current heading if the direction is too short to be meaningful.
+     *
+     * @param dx - The x component of the direction.
+     * @param dy - The y component of the direction.
+     * @param currentHeading - The current heading of the robot.
+     * @return - The heading that faces along the direction.
+     */
+    private static double headingOf(double dx, double dy, double currentHeading) {
+        if(Math.hypot(dx, dy) < 1e-3) {
+            return currentHeading;
+        }
+        return Math.atan2(-dx, dy);
+    }
+
+    /**
+     * Wraps an angle to the range [-pi, pi).
+     *
+     * @param angle - The angle in radians.
+     * @return - The wrapped angle.
+     */
+    private static double wrap(double angle) {
+        return ((angle + PI) % (2*PI) + 2*PI) % (2*PI) - PI;
+    }
+
+    /**
+     * Clamps a value to a symmetric range.
+     *
+     * @param value - The value to clamp.
+     * @param max - The maximum magnitude.
+     * @return - The clamped value.
+     */
+    private static double clip(double value, double max) {
+        return Math.max(-max, Math.min(max, value));
+    }
+
+    /**
+     * A class used to specify the parameters of the path follower.
+     */
+    public static class Params implements BaseParam {
+        //The lookahead distance in meters.
+        private double lookahead = 0.3;
+        //The maximum and minimum drive powers.
+        private double maxSpeed = 0.8, minSpeed = 0.1;
+        //How quickly the robot slows down near the end of the path, in power per meter remaining.
+        private double endDecelerationGain = 2;
+        //The distance from the end of the path at which the path is considered finished.
+        private double endTolerance = 0.02;
+        //The proportional gain and maximum power used for turning.
+        private double headingGain = 1.5, maxTurn = 0.6;
+        //Whether holonomic drives should hold a fixed heading instead of facing along the path.
+        private boolean holdHeading = false;
+        //The heading to hold in radians.
+        private double heading = 0;
+        //The distance between the left and right wheels in meters, used for curvature drives.
+        private double trackWidth = 0.4;
+        //The number of segments past the current progress that are searched for the lookahead point.
+        private int searchWindow = 20;
+
+        /**
+         * Sets the lookahead distance.
+         *
+         * @param lookahead - The lookahead distance in meters.
+         * @return - This instance of Params.
+         */
+        public Params setLookahead(double lookahead) {
+            this.lookahead = lookahead;
+            return this;
+        }
+
+        /**
+         * Sets the range of drive powers.
+         *
+         * @param minSpeed - The minimum drive power, used near the end of the path.
+         * @param maxSpeed - The maximum drive power.
+         * @return - This instance of Params.
+         */
+        public Params setSpeed(double minSpeed, double maxSpeed) {
+            this.minSpeed = minSpeed;
+            this.maxSpeed = maxSpeed;
+            return this;
+        }
+
+        /**
+         * Sets how quickly the robot slows down near the end of the path.
+         *
+         * @param endDecelerationGain - The slowdown gain in power per meter remaining.
+         * @return - This instance of Params.
+         */
+        public Params setEndDecelerationGain(double endDecelerationGain) {
+            this.endDecelerationGain = endDecelerationGain;
+            return this;
+        }
+
+        /**
+         * Sets the distance from the end of the path at which the path is considered finished.
+         *
+         * @param endTolerance - The end tolerance in meters.
+         * @return - This instance of Params.
+         */
+        public Params setEndTolerance(double endTolerance) {
+            this.endTolerance = endTolerance;
+            return this;
+        }
+
+        /**
+         * Sets the turning gain and maximum turning power.
+         *
+         * @param headingGain - The proportional gain for heading error.
+         * @param maxTurn - The maximum turning power.
+         * @return - This instance of Params.
+         */
+        public Params setTurning(double headingGain, double maxTurn) {
+            this.headingGain = headingGain;
+            this.maxTurn = maxTurn;
+            return this;
+        }
+
+        /**
+         * Makes holonomic drives hold a fixed heading instead of facing along the path.
+         *
+         * @param heading - The heading to hold in radians.
+         * @return - This instance of Params.
+         */
+        public Params setHoldHeading(double heading) {
+            holdHeading = true;
+            this.heading = heading;
+            return this;
+        }
+
+        /**
+         * Sets the distance between the left and right wheels, used for curvature drives.
+         *
+         * @param trackWidth - The track width in meters.
+         * @return - This instance of Params.
+         */
+        public Params setTrackWidth(double trackWidth) {
+            this.trackWidth = trackWidth;
+            return this;
+        }
+
+        /**
+         * Sets the number of segments past the current progress that are searched for the lookahead point.
+         *
+         * @param searchWindow - The number of segments to search.
+         * @return - This instance of Params.
+         */
+        public Params setSearchWindow(int searchWindow) {
+            this.searchWindow = Math.max(searchWindow, 1);
+            return this;
+        }
+    }
+}
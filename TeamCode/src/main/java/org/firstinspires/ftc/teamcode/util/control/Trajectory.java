@@ -0,0 +1,307 @@
+/*
+ * Filename: Trajectory.java
+ * Author: Cole Savage
+ * Team Name: Level Up
+ * Date: 10/19/19
+ */
+
+package org.firstinspires.ftc.teamcode.util.control;
+
+import org.firstinspires.ftc.teamcode.util.math.Vector;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A time-parameterized path made up of evenly spaced samples. Generated by TrajectoryGenerator.
+ * Heading 0 faces the +y axis, matching PoseEstimator and PurePursuit.
+ */
+public class Trajectory {
+
+    //Identifies trajectory files and their format version.
+    private static final int MAGIC = 0x54524A31, VERSION = 1;
+
+    //The hash of the waypoints and settings this trajectory was generated from.
+    private final long key;
+    //The distance along the path, position, path heading, curvature, planned velocity and time of each sample.
+    private final double[] s, x, y, heading, curvature, velocity, time;
+
+    /**
+     * Constructor for Trajectory.
+     *
+     * @param key - The hash of the waypoints and settings the trajectory was generated from.
+     * @param s - The distance along the path of each sample in meters.
+     * @param x - The x position of each sample in meters.
+     * @param y - The y position of each sample in meters.
+     * @param heading - The direction of the path at each sample in radians.
+     * @param curvature - The curvature of the path at each sample in 1/meters.
+     * @param velocity - The planned velocity at each sample in meters/second.
+     * @param time - The planned time of each sample in seconds.
+     */
+    public Trajectory(long key, double[] s, double[] x, double[] y, double[] heading, double[] curvature, double[] velocity, double[] time) {
+        this.key = key;
+        this.s = s;
+        this.x = x;
+        this.y = y;
+        this.heading = heading;
+        this.curvature = curvature;
+        this.velocity = velocity;
+        this.time = time;
+    }
+
+    /**
+     * Gets the number of samples in the trajectory.
+     *
+     * @return - The number of samples.
+     */
+    public int size() {
+        return s.length;
+    }
+
+    /**
+     * Gets the total length of the trajectory.
+     *
+     * @return - The length of the trajectory in meters.
+     */
+    public double getLength() {
+        return s[s.length - 1];
+    }
+
+    /**
+     * Gets the total planned duration of the trajectory.
+     *
+     * @return - The duration of the trajectory in seconds.
+     */
+    public double getDuration() {
+        return time[time.length - 1];
+    }
+
+    /**
+     * Gets the hash of the waypoints and settings the trajectory was generated from.
+     *
+     * @return - The trajectory's key.
+     */
+    public long getKey() {
+        return key;
+    }
+
+    /**
+     * Finds the last sample at or before a given time using binary search.
+     *
+     * @param t - The time in seconds.
+     * @return - The index of the sample.
+     */
+    public int getIndexAtTime(double t) {
+        return search(time, t);
+    }
+
+    /**
+     * Finds the last sample at or before a given distance along the path using binary search.
+     *
+     * @param distance - The distance along the path in meters.
+     * @return - The index of the sample.
+     */
+    public int getIndexAtDistance(double distance) {
+        return search(s, distance);
+    }
+
+    /**
+     * Gets the distance along the path of a sample.
+     *
+     * @param idx - The index of the sample.
+     * @return - The distance along the path in meters.
+     */
+    public double getDistance(int idx) {
+        return s[idx];
+    }
+
+    /**
+     * Gets the x position of a sample.
+     *
+     * @param idx - The index of the sample.
+     * @return - The x position in meters.
+     */
+    public double getX(int idx) {
+        return x[idx];
+    }
+
+    /**
+     * Gets the y position of a sample.
+     *
+     * @param idx - The index of the sample.
+     * @return - The y position in meters.
+     */
+    public double getY(int idx) {
+        return y[idx];
+    }
+
+    /**
+     * Gets the direction of the path at a sample.
+     *
+     * @param idx - The index of the sample.
+     * @return - The path heading in radians.
+     */
+    public double getHeading(int idx) {
+        return heading[idx];
+    }
+
+    /**
+     * Gets the curvature of the path at a sample.
+     *
+     * @param idx - The index of the sample.
+     * @return - The curvature in 1/meters.
+     */
+    public double getCurvature(int idx) {
+        return curvature[idx];
+    }
+
+    /**
+     * Gets the planned velocity at a sample.
+     *
+     * @param idx - The index of the sample.
+     * @return - The planned velocity in meters/second.
+     */
+    public double getVelocity(int idx) {
+        return velocity[idx];
+    }
+
+    /**
+     * Gets the planned time of a sample.
+     *
+     * @param idx - The index of the sample.
+     * @return - The planned time in seconds.
+     */
+    public double getTime(int idx) {
+        return time[idx];
+    }
+
+    /**
+     * Converts the trajectory into a list of points that can be followed with PurePursuit.
+     *
+     * @param spacing - The approximate distance between points in meters.
+     * @return - The points of the trajectory.
+     */
+    public List<Vector> toPath(double spacing) {
+        List<Vector> path = new ArrayList<>();
+        double next = 0;
+        for(int i = 0; i < s.length; i++) {
+            if(s[i] >= next || i == s.length - 1) {
+                path.add(new Vector(x[i], y[i]));
+                next = s[i] + spacing;
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Saves the trajectory to a binary file. Values are stored as floats to keep the file small.
+     *
+     * @param filePath - The path of the file to write.
+     * @throws IOException - Throws this exception if the file could not be written.
+     */
+    public void save(String filePath) throws IOException {
+        File file = new File(filePath);
+        File parent = file.getParentFile();
+        if(parent != null && !parent.exists()) {
+            parent.mkdirs();
+        }
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(key);
+            out.writeInt(s.length);
+            for(int i = 0; i < s.length; i++) {
+                out.writeFloat((float) s[i]);
+                out.writeFloat((float) x[i]);
+                out.writeFloat((float) y[i]);
+                out.writeFloat((float) heading[i]);
+                out.writeFloat((float) curvature[i]);
+                out.writeFloat((float) velocity[i]);
+                out.writeFloat((float) time[i]);
+            }
+        }
+        finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Loads a trajectory from a binary file.
+     *
+     * @param filePath - The path of the file to read.
+     * @param expectedKey - The key the trajectory must have.
+     * @return - The loaded trajectory, or null if the file does not exist, is not a trajectory file, or has a different key.
+     */
+    public static Trajectory load(String filePath, long expectedKey) {
+        File file = new File(filePath);
+        if(!file.exists()) {
+            return null;
+        }
+
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            try {
+                if(in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != expectedKey) {
+                    return null;
+                }
+
+                int size = in.readInt();
+                double[] s = new double[size], x = new double[size], y = new double[size], heading = new double[size], curvature = new double[size], velocity = new double[size], time = new double[size];
+                for(int i = 0; i < size; i++) {
+                    s[i] = in.readFloat();
+                    x[i] = in.readFloat();
+                    y[i] = in.readFloat();
+                    heading[i] = in.readFloat();
+                    curvature[i] = in.readFloat();
+                    velocity[i] = in.readFloat();
+                    time[i] = in.readFloat();
+                }
+                return new Trajectory(expectedKey, s, x, y, heading, curvature, velocity, time);
+            }
+            finally {
+                in.close();
+            }
+        }
+        catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Finds the last index in a sorted array whose value is at or below a target.
+     *
+     * @param values - The sorted array.
+     * @param target - The target value.
+     * @return - The index, clamped to the array.
+     */
+    private static int search(double[] values, double target) {
+        int low = 0, high = values.length - 1;
+        if(target <= values[0]) {
+            return 0;
+        }
+        if(target >= values[high]) {
+            return high;
+        }
+        while(high - low > 1) {
+            int mid = (low + high) >>> 1;
+            if(values[mid] <= target) {
+                low = mid;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,382 @@
+/*
+ * Filename: TrajectoryGenerator.java
+ * Author: Cole Savage
+ * Team Name: Level Up
+ * Date: 10/19/19
+ */
+
+package org.firstinspires.ftc.teamcode.util.control;
+
+import android.os.Environment;
+import android.util.Log;
+
+import org.firstinspires.ftc.teamcode.util.exceptions.DumpsterFireException;
+import org.firstinspires.ftc.teamcode.util.math.Pose;
+import org.firstinspires.ftc.teamcode.util.misc.BaseParam;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Generates trajectories through a list of waypoints using cubic or quintic Hermite splines.
+ * The splines are reparameterized by arc length with a lookup table, sampled at an even spacing, and given a velocity plan
+ * that respects the maximum velocity, acceleration, and lateral acceleration around curves.
+ * Generated trajectories are cached to binary files keyed by a hash of the waypoints and settings.
+ */
+public class TrajectoryGenerator {
+
+    /**
+     * The type of spline to connect the waypoints with.
+     */
+    public enum SplineType {
+        CUBIC, QUINTIC
+    }
+
+    //The parameters for the generator.
+    private Params params;
+
+    /**
+     * Constructor for TrajectoryGenerator.
+     *
+     * @param params - The parameters for the generator.
+     */
+    public TrajectoryGenerator(Params params) {
+        this.params = params;
+    }
+
+    /**
+     * Gets a trajectory through the waypoints, loading it from the cache if it has already been generated.
+     * The heading of each waypoint is the direction the path travels through it (0 faces the +y axis).
+     *
+     * @param waypoints - The waypoints, in meters and radians.
+     * @return - The trajectory.
+     */
+    public Trajectory getTrajectory(List<Pose> waypoints) {
+        long key = hash(waypoints);
+        String filePath = params.cacheDirectory + "/" + Long.toHexString(key) + ".traj";
+
+        if(params.useCache) {
+            Trajectory cached = Trajectory.load(filePath, key);
+            if(cached != null) {
+                return cached;
+            }
+        }
+
+        Trajectory trajectory = generate(waypoints, key);
+
+        if(params.useCache) {
+            try {
+                trajectory.save(filePath);
+            } catch (IOException e) {
+                Log.e(this.getClass().getSimpleName(), "Could not cache trajectory at " + filePath, e);
+            }
+        }
+        return trajectory;
+    }
+
+    /**
+     * Generates a trajectory through the waypoints without using the cache.
+     *
+     * @param waypoints - The waypoints, in meters and radians.
+     * @return - The trajectory.
+     */
+    public Trajectory generate(List<Pose> waypoints) {
+        return generate(waypoints, hash(waypoints));
+    }
+
+    /**
+     * Generates a trajectory through the waypoints.
+     *
+     * @param waypoints - The waypoints, in meters and radians.
+     * @param key - The hash of the waypoints and settings.
+     * @return - The trajectory.
+     *
+     * @throws DumpsterFireException - Throws this exception if there are fewer than 2 waypoints.
+     */
+    private Trajectory generate(List<Pose> waypoints, long key) {
+        if(waypoints.size() < 2) {
+            throw new DumpsterFireException("A trajectory needs at least 2 waypoints.");
+        }
+
+        int segments = waypoints.size() - 1;
+
+        //Hermite coefficients for each segment: position, first derivative and second derivative at each end, for x and y.
+        double[][] coefficients = new double[segments][];
+        for(int i = 0; i < segments; i++) {
+            coefficients[i] = buildSegment(waypoints, i);
+        }
+
+        //Arc length lookup table. lutS[j] is the distance along the path at segment j/lutResolution, u = j%lutResolution/lutResolution.
+        int lutResolution = params.lutResolution;
+        int lutSize = segments*lutResolution + 1;
+        double[] lutS = new double[lutSize];
+        double[] point = new double[6];
+        evaluate(coefficients[0], 0, point);
+        double lastX = point[0], lastY = point[1];
+        for(int j = 1; j < lutSize; j++) {
+            int segment = Math.min((j - 1)/lutResolution, segments - 1);
+            double u = (double) (j - segment*lutResolution)/lutResolution;
+            evaluate(coefficients[segment], u, point);
+            lutS[j] = lutS[j - 1] + Math.hypot(point[0] - lastX, point[1] - lastY);
+            lastX = point[0];
+            lastY = point[1];
+        }
+
+        double length = lutS[lutSize - 1];
+        int samples = Math.max(2, (int) Math.ceil(length/params.sampleSpacing) + 1);
+        double spacing = length/(samples - 1);
+
+        double[] s = new double[samples], x = new double[samples], y = new double[samples], heading = new double[samples], curvature = new double[samples], velocity = new double[samples], time = new double[samples];
+
+        //Sample the spline at even distances, using binary search in the lookup table to find the spline parameter.
+        for(int i = 0; i < samples; i++) {
+            double target = Math.min(i*spacing, length);
+            int low = 0, high = lutSize - 1;
+            while(high - low > 1) {
+                int mid = (low + high) >>> 1;
+                if(lutS[mid] <= target) {
+                    low = mid;
+                }
+                else {
+                    high = mid;
+                }
+            }
+            double span = lutS[high] - lutS[low];
+            double fraction = span < 1e-12 ? 0 : (target - lutS[low])/span;
+            double globalU = (low + fraction)/lutResolution;
+            int segment = Math.min((int) globalU, segments - 1);
+            evaluate(coefficients[segment], globalU - segment, point);
+
+            s[i] = target;
+            x[i] = point[0];
+            y[i] = point[1];
+            heading[i] = Math.atan2(-point[2], point[3]);
+            double speedSquared = point[2]*point[2] + point[3]*point[3];
+            curvature[i] = speedSquared < 1e-12 ? 0 : (point[2]*point[5] - point[3]*point[4])/Math.pow(speedSquared, 1.5);
+        }
+
+        planVelocity(s, curvature, velocity, time);
+
+        return new Trajectory(key, s, x, y, heading, curvature, velocity, time);
+    }
+
+    /**
+     * Plans the velocity at each sample. Each sample is first limited by the maximum velocity and the lateral acceleration limit,
+     * then a forward pass limits acceleration and a backward pass limits deceleration. The robot starts and ends at rest.
+     *
+     * @param s - The distance along the path of each sample.
+     * @param curvature - The curvature at each sample.
+     * @param velocity - The array to store the planned velocities in.
+     * @param time - The array to store the planned times in.
+     */
+    private void planVelocity(double[] s, double[] curvature, double[] velocity, double[] time) {
+        int n = s.length;
+        for(int i = 0; i < n; i++) {
+            double k = Math.abs(curvature[i]);
+            velocity[i] = k < 1e-9 ? params.maxVelocity : Math.min(params.maxVelocity, Math.sqrt(params.maxLateralAcceleration/k));
+        }
+        velocity[0] = 0;
+        velocity[n - 1] = 0;
+
+        for(int i = 1; i < n; i++) {
+            double ds = s[i] - s[i - 1];
+            velocity[i] = Math.min(velocity[i], Math.sqrt(velocity[i - 1]*velocity[i - 1] + 2*params.maxAcceleration*ds));
+        }
+        for(int i = n - 2; i >= 0; i--) {
+            double ds = s[i + 1] - s[i];
+            velocity[i] = Math.min(velocity[i], Math.sqrt(velocity[i + 1]*velocity[i + 1] + 2*params.maxAcceleration*ds));
+        }
+
+        time[0] = 0;
+        for(int i = 1; i < n; i++) {
+            double averageVelocity = (velocity[i] + velocity[i - 1])/2;
+            time[i] = time[i - 1] + (averageVelocity < 1e-9 ? 0 : (s[i] - s[i - 1])/averageVelocity);
+        }
+    }
+
+    /**
+     * Builds the Hermite end conditions for a segment. Tangent magnitudes are scaled by the length of the segment.
+     *
+     * @param waypoints - The waypoints.
+     * @param i - The index of the segment.
+     * @return - The end conditions {x0, y0, dx0, dy0, ddx0, ddy0, x1, y1, dx1, dy1, ddx1, ddy1}.
+     */
+    private double[] buildSegment(List<Pose> waypoints, int i) {
+        Pose start = waypoints.get(i);
+        Pose end = waypoints.get(i + 1);
+        double chord = Math.hypot(end.x - start.x, end.y - start.y)*params.tangentScale;
+
+        return new double[] {
+                start.x, start.y, -Math.sin(start.heading)*chord, Math.cos(start.heading)*chord, 0, 0,
+                end.x, end.y, -Math.sin(end.heading)*chord, Math.cos(end.heading)*chord, 0, 0
+        };
+    }
+
+    /**
+     * Evaluates a Hermite segment.
+     *
+     * @param c - The end conditions of the segment.
+     * @param u - The spline parameter, from 0 to 1.
+     * @param out - The array to store {x, y, dx, dy, ddx, ddy} in.
+     */
+    private void evaluate(double[] c, double u, double[] out) {
+        double u2 = u*u, u3 = u2*u;
+
+        if(params.splineType == SplineType.CUBIC) {
+            double h00 = 2*u3 - 3*u2 + 1, h10 = u3 - 2*u2 + u, h01 = -2*u3 + 3*u2, h11 = u3 - u2;
+            double d00 = 6*u2 - 6*u, d10 = 3*u2 - 4*u + 1, d01 = -6*u2 + 6*u, d11 = 3*u2 - 2*u;
+            double dd00 = 12*u - 6, dd10 = 6*u - 4, dd01 = -12*u + 6, dd11 = 6*u - 2;
+            for(int axis = 0; axis < 2; axis++) {
+                double p0 = c[axis], v0 = c[2 + axis], p1 = c[6 + axis], v1 = c[8 + axis];
+                out[axis] = h00*p0 + h10*v0 + h01*p1 + h11*v1;
+                out[2 + axis] = d00*p0 + d10*v0 + d01*p1 + d11*v1;
+                out[4 + axis] = dd00*p0 + dd10*v0 + dd01*p1 + dd11*v1;
+            }
+        }
+        else {
+            double u4 = u3*u, u5 = u4*u;
+            double h0 = 1 - 10*u3 + 15*u4 - 6*u5, h1 = u - 6*u3 + 8*u4 - 3*u5, h2 = 0.5*u2 - 1.5*u3 + 1.5*u4 - 0.5*u5;
+            double h3 = 0.5*u3 - u4 + 0.5*u5, h4 = -4*u3 + 7*u4 - 3*u5, h5 = 10*u3 - 15*u4 + 6*u5;
+            double d0 = -30*u2 + 60*u3 - 30*u4, d1 = 1 - 18*u2 + 32*u3 - 15*u4, d2 = u - 4.5*u2 + 6*u3 - 2.5*u4;
+            double d3 = 1.5*u2 - 4*u3 + 2.5*u4, d4 = -12*u2 + 28*u3 - 15*u4, d5 = 30*u2 - 60*u3 + 30*u4;
+            double dd0 = -60*u + 180*u2 - 120*u3, dd1 = -36*u + 96*u2 - 60*u3, dd2 = 1 - 9*u + 18*u2 - 10*u3;
+            double dd3 = 3*u - 12*u2 + 10*u3, dd4 = -24*u + 84*u2 - 60*u3, dd5 = 60*u - 180*u2 + 120*u3;
+            for(int axis = 0; axis < 2; axis++) {
+                double p0 = c[axis], v0 = c[2 + axis], a0 = c[4 + axis], p1 = c[6 + axis], v1 = c[8 + axis], a1 = c[10 + axis];
+                out[axis] = h0*p0 + h1*v0 + h2*a0 + h3*a1 + h4*v1 + h5*p1;
+                out[2 + axis] = d0*p0 + d1*v0 + d2*a0 + d3*a1 + d4*v1 + d5*p1;
+                out[4 + axis] = dd0*p0 + dd1*v0 + dd2*a0 + dd3*a1 + dd4*v1 + dd5*p1;
+            }
+        }
+    }
+
+    /**
+     * Hashes the waypoints and every setting that affects the generated trajectory.
+     *
+     * @param waypoints - The waypoints.
+     * @return - A 64 bit FNV-1a hash.
+     */
+    private long hash(List<Pose> waypoints) {
+        long hash = 0xcbf29ce484222325L;
+        for(Pose waypoint : waypoints) {
+            hash = mix(hash, Double.doubleToLongBits(waypoint.x));
+            hash = mix(hash, Double.doubleToLongBits(waypoint.y));
+            hash = mix(hash, Double.doubleToLongBits(waypoint.heading));
+        }
+        hash = mix(hash, params.splineType.ordinal());
+        hash = mix(hash, Double.doubleToLongBits(params.tangentScale));
+        hash = mix(hash, Double.doubleToLongBits(params.sampleSpacing));
+        hash = mix(hash, params.lutResolution);
+        hash = mix(hash, Double.doubleToLongBits(params.maxVelocity));
+        hash = mix(hash, Double.doubleToLongBits(params.maxAcceleration));
+        hash = mix(hash, Double.doubleToLongBits(params.maxLateralAcceleration));
+        return hash;
+    }
+
+    /**
+     * Mixes a value into an FNV-1a hash one byte at a time.
+     *
+     * @param hash - The current hash.
+     * @param value - The value to mix in.
+     * @return - The new hash.
+     */
+    private static long mix(long hash, long value) {
+        for(int i = 0; i < 8; i++) {
+            hash ^= (value >>> (8*i)) & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * A class used to specify the parameters of the trajectory generator.
+     */
+    public static class Params implements BaseParam {
+        //The type of spline to use.
+        private SplineType splineType = SplineType.QUINTIC;
+        //The tangent magnitude at each waypoint as a multiple of the segment length.
+        private double tangentScale = 1;
+        //The distance between trajectory samples in meters.
+        private double sampleSpacing = 0.01;
+        //The number of arc length lookup table entries per segment.
+        private int lutResolution = 200;
+        //The velocity limits in meters/second and meters/second^2.
+        private double maxVelocity = 1.2, maxAcceleration = 1.5, maxLateralAcceleration = 1.5;
+        //Whether to load and save trajectories from the cache.
+        private boolean useCache = true;
+        //The directory trajectories are cached in.
+        private String cacheDirectory = Environment.getExternalStorageDirectory().getPath() + "/System64/trajectories";
+
+        /**
+         * Sets the type of spline to use.
+         *
+         * @param splineType - The type of spline.
+         * @return - This instance of Params.
+         */
+        public Params setSplineType(SplineType splineType) {
+            this.splineType = splineType;
+            return this;
+        }
+
+        /**
+         * Sets the tangent magnitude at each waypoint as a multiple of the segment length. Larger values make wider curves.
+         *
+         * @param tangentScale - The tangent scale.
+         * @return - This instance of Params.
+         */
+        public Params setTangentScale(double tangentScale) {
+            this.tangentScale = tangentScale;
+            return this;
+        }
+
+        /**
+         * Sets the distance between trajectory samples.
+         *
+         * @param sampleSpacing - The sample spacing in meters.
+         * @return - This instance of Params.
+         */
+        public Params setSampleSpacing(double sampleSpacing) {
+            this.sampleSpacing = sampleSpacing;
+            return this;
+        }
+
+        /**
+         * Sets the number of arc length lookup table entries per segment.
+         *
+         * @param lutResolution - The lookup table resolution.
+         * @return - This instance of Params.
+         */
+        public Params setLutResolution(int lutResolution) {
+            this.lutResolution = Math.max(lutResolution, 1);
+            return this;
+        }
+
+        /**
+         * Sets the velocity limits.
+         *
+         * @param maxVelocity - The maximum velocity in meters/second.
+         * @param maxAcceleration - The maximum acceleration in meters/second^2.
+         * @param maxLateralAcceleration - The maximum lateral (centripetal) acceleration in meters/second^2.
+         * @return - This instance of Params.
+         */
+        public Params setConstraints(double maxVelocity, double maxAcceleration, double maxLateralAcceleration) {
+            this.maxVelocity = maxVelocity;
+            this.maxAcceleration = maxAcceleration;
+            this.maxLateralAcceleration = maxLateralAcceleration;
+            return this;
+        }
+
+        /**
+         * Sets whether to use the trajectory cache and where to store it.
+         *
+         * @param useCache - Whether to load and save trajectories from the cache.
+         * @param cacheDirectory - The directory trajectories are cached in.
+         * @return - This instance of Params.
+         */
+        public Params setCache(boolean useCache, String cacheDirectory) {
+            this.useCache = useCache;
+            this.cacheDirectory = cacheDirectory;
+            return this;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import android.os.Environment;
 import android.util.Log;
 
 import org.firstinspires.ftc.teamcode.system.source.BaseRobot.Robot;
+import org.firstinspires.ftc.teamcode.system.source.GUI.DirectoryListSource;
 import org.firstinspires.ftc.teamcode.system.source.GUI.GUI;
 import org.firstinspires.ftc.teamcode.system.source.GUI.GuiLine;
 import org.firstinspires.ftc.teamcode.system.source.GUI.ScrollingListMenu;
@@ -85,11 +86,12 @@ public class ConfigDebugMenu extends ScrollingListMenu {
      * @param gui - The GUI being used to render the menu.
      */
     public ConfigDebugMenu(GUI gui) {
-        super(gui, new ConfigCursor(gui.robot,500), genInitialLines(Environment.getExternalStorageDirectory().getPath()+"/System64/"),1,genInitialLines(Environment.getExternalStorageDirectory().getPath()+"/System64/").size());
+        super(gui, new ConfigCursor(gui.robot,500), new GuiLine[]{new GuiLine("#","Delete")},1,1);
         menuState = MenuState.START;
         currentFilepath = Environment.getExternalStorageDirectory().getPath()+"/System64/";
         config = new HashMap<>();
         configState = ConfigurationState.AUTONOMOUS;
+        setRootDirLines();
     }
 
     @Override
@@ -104,9 +106,9 @@ public class ConfigDebugMenu extends ScrollingListMenu {
             //startup, shows all robot directories.
             case START:
                 if(name.equals(ConfigCursor.SELECT)) {
-                    if(!lines.get(cursor.y).postSelectionText.equals("Delete")) {
+                    if(!getRow(cursor.y).postSelectionText.equals("Delete")) {
                         menuState = MenuState.TELEOP_AUTO_SELECT;
-                        currentFilepath += lines.get(cursor.y).postSelectionText;
+                        currentFilepath += getRow(cursor.y).postSelectionText;
 
                         robotFilepath = currentFilepath;
 
@@ -115,7 +117,7 @@ public class ConfigDebugMenu extends ScrollingListMenu {
                         resetCursorPos();
                         setFolderSelectLines();
                     }
-                    else if(new File(currentFilepath).listFiles().length > 0){
+                    else if(DirectoryListSource.countFiles(currentFilepath, null) > 0){
                         menuState = MenuState.DELETE_ROBOT;
 
                         resetCursorPos();
@@ -128,7 +130,7 @@ public class ConfigDebugMenu extends ScrollingListMenu {
                 if(name.equals(ConfigCursor.SELECT)) {
                     menuState = MenuState.START;
 
-                    deleteDirectory(currentFilepath+lines.get(cursor.y).postSelectionText);
+                    deleteDirectory(currentFilepath+getRow(cursor.y).postSelectionText);
 
                     resetCursorPos();
                     setRootDirLines();
@@ -145,9 +147,9 @@ public class ConfigDebugMenu extends ScrollingListMenu {
                 if(name.equals(ConfigCursor.SELECT)) {
                     menuState = MenuState.ROOT_DIR;
 
-                    configState = lines.get(cursor.y).postSelectionText.equals("autonomous") ? ConfigurationState.AUTONOMOUS : ConfigurationState.TELEOP;
+                    configState = getRow(cursor.y).postSelectionText.equals("autonomous") ? ConfigurationState.AUTONOMOUS : ConfigurationState.TELEOP;
 
-                    currentFilepath += '/'+lines.get(cursor.y).postSelectionText;
+                    currentFilepath += '/'+getRow(cursor.y).postSelectionText;
 
                     resetCursorPos();
                     setRobotDirLines();
@@ -165,14 +167,14 @@ public class ConfigDebugMenu extends ScrollingListMenu {
             //robot directory has been selected, showing all config files in the directory and new/edit/delete options.
             case ROOT_DIR:
                 if(name.equals(ConfigCursor.SELECT)) {
-                    if ((lines.get(cursor.y).postSelectionText.equals("Delete Config") || lines.get(cursor.y).postSelectionText.equals("Edit Config")) && genLines(currentFilepath,"robot_info.txt").size() > 0) {
-                        menuState = lines.get(cursor.y).postSelectionText.equals("Delete Config") ? MenuState.DELETE_CONFIG : MenuState.CHOOSE_EDIT_CONFIG;
+                    if ((getRow(cursor.y).postSelectionText.equals("Delete Config") || getRow(cursor.y).postSelectionText.equals("Edit Config")) && DirectoryListSource.countFiles(currentFilepath, "robot_info.txt") > 0) {
+                        menuState = getRow(cursor.y).postSelectionText.equals("Delete Config") ? MenuState.DELETE_CONFIG : MenuState.CHOOSE_EDIT_CONFIG;
 
                         genDefaultConfigMap();
                         resetCursorPos();
                         setConfigListLines();
 
-                    } else if (lines.get(cursor.y).postSelectionText.equals("New Config")) {
+                    } else if (getRow(cursor.y).postSelectionText.equals("New Config")) {
                         menuState = MenuState.NEW_CONFIG;
 
                         genDefaultConfigMap();
@@ -195,7 +197,7 @@ public class ConfigDebugMenu extends ScrollingListMenu {
                 if(name.equals(ConfigCursor.SELECT)) {
                     menuState = MenuState.ROOT_DIR;
 
-                    String configPath = currentFilepath + '/' + lines.get(cursor.y).postSelectionText + ".txt";
+                    String configPath = currentFilepath + '/' + getRow(cursor.y).postSelectionText + ".txt";
                     File configFile = new File(configPath);
 
                     if (!configFile.delete()) {
@@ -219,7 +221,7 @@ public class ConfigDebugMenu extends ScrollingListMenu {
             case NEW_CONFIG:
 
                 if(name.equals(ConfigCursor.SELECT)) {
-                    if (!lines.get(cursor.y).postSelectionText.equals("Done")) {
+                    if (!getRow(cursor.y).postSelectionText.equals("Done")) {
                         ((ConfigCursor) cursor).setWriteMode(true);
                         char[] currentNameText = lines.get(0).selectionZoneText.toCharArray();
                         currentNameText[cursor.x] = VALID_CHARS.get((VALID_CHARS.indexOf(currentNameText[cursor.x]) + 1) % VALID_CHARS.size());
@@ -253,7 +255,7 @@ public class ConfigDebugMenu extends ScrollingListMenu {
                     }
                 }
 
-                else if(name.equals(ConfigCursor.REVERSE_SELECT) && !lines.get(cursor.y).postSelectionText.equals("Done")) {
+                else if(name.equals(ConfigCursor.REVERSE_SELECT) && !getRow(cursor.y).postSelectionText.equals("Done")) {
                     ((ConfigCursor) cursor).setWriteMode(true);
                     char[] currentNameText = lines.get(0).selectionZoneText.toCharArray();
                     currentNameText[cursor.x] = VALID_CHARS.get(customMod.apply((VALID_CHARS.indexOf(currentNameText[cursor.x]) - 1),VALID_CHARS.size()));
@@ -275,7 +277,7 @@ public class ConfigDebugMenu extends ScrollingListMenu {
 
                 if(name.equals(ConfigCursor.SELECT)) {
 
-                    selectedConfigPath = currentFilepath + '/' + lines.get(cursor.y).postSelectionText + ".txt";
+                    selectedConfigPath = currentFilepath + '/' + getRow(cursor.y).postSelectionText + ".txt";
 
                     readConfigFile(selectedConfigPath);
 
@@ -295,9 +297,9 @@ public class ConfigDebugMenu extends ScrollingListMenu {
                 break;
             case SELECT_SUBSYSTEM:
                 if(name.equals(ConfigCursor.SELECT)) {
-                    if (!lines.get(cursor.y).postSelectionText.equals("Done")) {
+                    if (!getRow(cursor.y).postSelectionText.equals("Done")) {
                         menuState = MenuState.CONFIGURE_SUBSYSTEM;
-                        selectedSubsystemName = lines.get(cursor.y).postSelectionText;
+                        selectedSubsystemName = getRow(cursor.y).postSelectionText;
 
                         resetCursorPos();
                         setSubsystemOptionsLines();
@@ -331,9 +333,10 @@ public class ConfigDebugMenu extends ScrollingListMenu {
 
             case CONFIGURE_SUBSYSTEM:
                 if(name.equals(ConfigCursor.SELECT)) {
-                    if (!lines.get(cursor.y).postSelectionText.equals("Done")) {
+                    if (!getRow(cursor.y).postSelectionText.equals("Done")) {
+                        ((ConfigCursor) cursor).setWriteMode(true);
 
-                        String[] data = parseOptionLine(lines.get(cursor.y));
+                        String[] data = parseOptionLine(getRow(cursor.y));
 
                         List<ConfigParam> subsystemParams = config.get(selectedSubsystemName);
                         ConfigParam currentParam = new ConfigParam("", new String[]{}, "");
@@ -360,9 +363,10 @@ public class ConfigDebugMenu extends ScrollingListMenu {
                         setSubsystemSelectionLines();
                     }
                 }
-                else if(name.equals(ConfigCursor.REVERSE_SELECT) && !lines.get(cursor.y).postSelectionText.equals("Done")) {
+                else if(name.equals(ConfigCursor.REVERSE_SELECT) && !getRow(cursor.y).postSelectionText.equals("Done")) {
+                    ((ConfigCursor) cursor).setWriteMode(true);
 
-                    String[] data = parseOptionLine(lines.get(cursor.y));
+                    String[] data = parseOptionLine(getRow(cursor.y));
 
                     List<ConfigParam> subsystemParams = config.get(selectedSubsystemName);
                     ConfigParam currentParam = new ConfigParam("", new String[]{}, "");
@@ -381,8 +385,8 @@ public class ConfigDebugMenu extends ScrollingListMenu {
                     lines.set(cursor.y, new GuiLine("#", currentParam.usesGamepad ? data[0] + " | " + currentParam.options.get(customMod.apply((currentParam.options.indexOf(data[1])-1), currentParam.options.size())) + " | " + data[2] : data[0] + " | " + currentParam.options.get(customMod.apply((currentParam.options.indexOf(data[1])-1), currentParam.options.size()))));
                 }
 
-                else if(name.equals(ConfigCursor.SWITCH_GAMEPAD) && !lines.get(cursor.y).postSelectionText.equals("Done")) {
-                    String unparsedLine = lines.get(cursor.y).postSelectionText;
+                else if(name.equals(ConfigCursor.SWITCH_GAMEPAD) && !getRow(cursor.y).postSelectionText.equals("Done")) {
+                    String unparsedLine = getRow(cursor.y).postSelectionText;
                     String currentOptionName = unparsedLine.substring(0, unparsedLine.indexOf('|')).trim();
 
                     int tempIdx = unparsedLine.substring(unparsedLine.indexOf('|') + 1).indexOf('|'); //This number is the index of the vertical bar in the substring formed by taking all the text after the first vertical bar.
@@ -425,38 +429,28 @@ public class ConfigDebugMenu extends ScrollingListMenu {
      * Sets the root directory lines. Shows all robot folders and gives delete option.
      */
     private void setRootDirLines() {
-        List<GuiLine> newLines = genLines(currentFilepath);
-        newLines.add(new GuiLine("#","Delete"));
-        super.setSelectionZoneHeight(newLines.size(), newLines);
+        super.setSource(getSelectionZoneWidth(), new DirectoryListSource(currentFilepath, null, new String[]{}, new String[]{"Delete"}));
     }
 
     /**
      * Shows all deletable robot folders.
      */
     private void setRootDeleteLines() {
-        List<GuiLine> newLines = genLines(currentFilepath);
-        super.setSelectionZoneHeight(newLines.size(), newLines);
+        super.setSource(getSelectionZoneWidth(), new DirectoryListSource(currentFilepath, null));
     }
 
     /**
      * Set the folder select lines. Run when you select a robot folder, lists teleop and autonomous folders.
      */
     private void setFolderSelectLines() {
-        List<GuiLine> newLines = genLines(currentFilepath, "robot_info.txt");
-        super.setSelectionZoneHeight(newLines.size(),newLines);
+        super.setSource(getSelectionZoneWidth(), new DirectoryListSource(currentFilepath, "robot_info.txt"));
     }
 
     /**
      * Sets the normal configuration menu lines.
      */
     private void setRobotDirLines() {
-        List<GuiLine> newLines = new ArrayList<>();
-        newLines.add(new GuiLine("#", "New Config"));
-        newLines.add(new GuiLine("#", "Edit Config"));
-        newLines.add(new GuiLine("#", "Delete Config"));
-        newLines.addAll(genLines(currentFilepath, "robot_info.txt"));
-
-        super.setSelectionZoneWidthAndHeight(1,newLines.size(), newLines);
+        super.setSource(1, new DirectoryListSource(currentFilepath, "robot_info.txt", new String[]{"New Config", "Edit Config", "Delete Config"}, new String[]{}));
     }
 
     /**
@@ -478,8 +472,7 @@ public class ConfigDebugMenu extends ScrollingListMenu {
      * Sets config list lines. Lists out all config files.
      */
     private void setConfigListLines() {
-        List<GuiLine> newLines = genLines(currentFilepath,"robot_info.txt");
-        super.setSelectionZoneHeight(newLines.size(), newLines);
+        super.setSource(getSelectionZoneWidth(), new DirectoryListSource(currentFilepath, "robot_info.txt"));
     }
 
     /**
@@ -522,6 +515,7 @@ public class ConfigDebugMenu extends ScrollingListMenu {
     private void resetCursorPos() {
         cursor.setX(0);
         cursor.setY(0);
+        ((ConfigCursor) cursor).setWriteMode(false);
     }
 
     /**
@@ -797,58 +791,6 @@ public class ConfigDebugMenu extends ScrollingListMenu {
         return outputList;
     }
 
-    /**
-     * Generates program's initial lines.
-     *
-     * @param filePath - The filepath to use to generate the initial lines.
-     * @return The program's initial lines.
-     */
-    private static ArrayList<GuiLine> genInitialLines(String filePath) {
-        File rootDirectory = new File(filePath);
-        File[] dirs = rootDirectory.listFiles();
-        ArrayList<GuiLine> startingLines = new ArrayList<>();
-        for(File dir : dirs) {
-            startingLines.add(new GuiLine("#",dir.getName()));
-        }
-        startingLines.add(new GuiLine("#","Delete"));
-        return startingLines;
-    }
-
-    /**
-     * Generates GuiLines for a specific filepath.
-     *
-     * @param filePath - The path to the folder to generate GuiLines for.
-     * @return The list of GuiLines representing all the folders/files in that directory.
-     */
-    private static ArrayList<GuiLine> genLines(String filePath) {
-        File rootDirectory = new File(filePath);
-        File[] dirs = rootDirectory.listFiles();
-        ArrayList<GuiLine> startingLines = new ArrayList<>();
-        for(File dir : dirs) {
-            startingLines.add(new GuiLine("#",dir.getName().replace(".txt","")));
-        }
-        return startingLines;
-    }
-
-    /**
-     * Generates GuiLines for a specific filepath.
-     *
-     * @param filePath - The path to the folder to generate GuiLines for.
-     * @param exclude - A certain file or folder name to exclude from the list of GuiLines.
-     * @return The list of GuiLines representing all the folders/files in that directory.
-     */
-    private static ArrayList<GuiLine> genLines(String filePath, String exclude) {
-        File rootDirectory = new File(filePath);
-        File[] dirs = rootDirectory.listFiles();
-        ArrayList<GuiLine> startingLines = new ArrayList<>();
-        for(File dir : dirs) {
-            if (!dir.getName().equals(exclude)) {
-                startingLines.add(new GuiLine("#",dir.getName().replace(".txt","")));
-            }
-        }
-        return startingLines;
-    }
-
     /**
      * Parse a GuiLine that represents a ConfigParam.
      *
@@ -0,0 +1,192 @@
+/*
+ * Filename: DifferentialDriveHelper.java
+ * Author: Cole Savage
+ * Team Name: Level Up
+ * Date: 10/19/19
+ */
+
+package org.firstinspires.ftc.teamcode.util.math;
+
+import com.qualcomm.robotcore.util.Range;
+
+/**
+ * Converts driver inputs into left and right powers for a differential (tank style) drive using arcade or curvature drive.
+ * Positive throttle drives forwards and positive turn turns counterclockwise, matching the drives' turn methods.
+ * The output array is reused between calls, so nothing is allocated in the drive loop.
+ */
+public class DifferentialDriveHelper {
+
+    //Indices of each side in the output array.
+    public static final int LEFT = 0, RIGHT = 1;
+    //The throttle below which quick turn builds up the quick stop accumulator.
+    private static final double QUICK_STOP_DEADBAND = 0.2;
+    //The weight of each new quick turn input in the quick stop accumulator.
+    private static final double QUICK_STOP_WEIGHT = 0.1;
+    //The amount the quick turn input is scaled by before it is added to the quick stop accumulator.
+    private static final double QUICK_STOP_SCALAR = 5;
+
+    //The left and right powers from the last calculation.
+    private final double[] powers = new double[2];
+    //The response curves applied to the throttle and turn inputs.
+    private ResponseCurve throttleCurve, turnCurve;
+    //How sharply curvature drive turns for a given turn input.
+    private double sensitivity;
+    //How strongly changes in the turn input are exaggerated to counteract the robot's rotational inertia.
+    private double negativeInertiaScalar;
+    //The turn input from the last curvature update.
+    private double lastTurn;
+    //Accumulated negative inertia that is added to the turn and decays back to 0.
+    private double negativeInertiaAccumulator;
+    //Accumulated quick turn rotation that is removed from the turn once quick turn ends, so the robot stops rotating immediately.
+    private double quickStopAccumulator;
+
+    /**
+     * Constructor for DifferentialDriveHelper.
+     *
+     * @param throttleCurve - The response curve applied to the throttle input.
+     * @param turnCurve - The response curve applied to the turn input.
+     * @param sensitivity - How sharply curvature drive turns for a given turn input.
+     * @param negativeInertiaScalar - How strongly changes in the turn input are exaggerated. 0 disables negative inertia.
+     */
+    public DifferentialDriveHelper(ResponseCurve.Type throttleCurve, ResponseCurve.Type turnCurve, double sensitivity, double negativeInertiaScalar) {
+        this.throttleCurve = new ResponseCurve(throttleCurve);
+        this.turnCurve = new ResponseCurve(turnCurve);
+        this.sensitivity = sensitivity;
+        this.negativeInertiaScalar = negativeInertiaScalar;
+    }
+
+    /**
+     * Calculates arcade drive powers, where the throttle and turn are added together and scaled down if either side would saturate.
+     *
+     * @param throttle - The forward input, from -1 to 1.
+     * @param turn - The turn input, from -1 to 1. Positive is counterclockwise.
+     * @return - The left and right powers. This array is reused by the next calculation.
+     */
+    public double[] arcade(double throttle, double turn) {
+        throttle = throttleCurve.apply(throttle);
+        turn = turnCurve.apply(turn);
+
+        powers[LEFT] = throttle - turn;
+        powers[RIGHT] = throttle + turn;
+        HolonomicKinematics.normalize(powers, 0, 2);
+        return powers;
+    }
+
+    /**
+     * Calculates curvature drive powers, where the turn input sets the curvature of the robot's path instead of its turning speed.
+     * Quick turn allows the robot to turn in place.
+     *
+     * @param throttle - The forward input, from -1 to 1.
+     * @param turn - The turn input, from -1 to 1. Positive is counterclockwise.
+     * @param quickTurn - Whether quick turn is active.
+     * @return - The left and right powers. This array is reused by the next calculation.
+     */
+    public double[] curvature(double throttle, double turn, boolean quickTurn) {
+        throttle = throttleCurve.apply(throttle);
+        turn = turnCurve.apply(turn);
+
+        double negativeInertia = turn - lastTurn;
+        lastTurn = turn;
+        negativeInertiaAccumulator += negativeInertia * negativeInertiaScalar;
+        turn += negativeInertiaAccumulator;
+        negativeInertiaAccumulator = decay(negativeInertiaAccumulator);
+
+        double angularPower;
+        double overPower;
+        if(quickTurn) {
+            if(Math.abs(throttle) < QUICK_STOP_DEADBAND) {
+                quickStopAccumulator = (1 - QUICK_STOP_WEIGHT) * quickStopAccumulator + QUICK_STOP_WEIGHT * Range.clip(turn, -1, 1) * QUICK_STOP_SCALAR;
+            }
+            overPower = 1;
+            angularPower = turn;
+        }
+        else {
+            overPower = 0;
+            angularPower = Math.abs(throttle) * turn * sensitivity - quickStopAccumulator;
+            quickStopAccumulator = decay(quickStopAccumulator);
+        }
+
+        double left = throttle - angularPower;
+        double right = throttle + angularPower;
+
+        //When one side saturates, quick turn moves the excess onto the other side so the robot keeps rotating at the requested rate.
+        if(left > 1) {
+            right -= overPower * (left - 1);
+            left = 1;
+        }
+        else if(right > 1) {
+            left -= overPower * (right - 1);
+            right = 1;
+        }
+        else if(left < -1) {
+            right += overPower * (-1 - left);
+            left = -1;
+        }
+        else if(right < -1) {
+            left += overPower * (-1 - right);
+            right = -1;
+        }
+
+        powers[LEFT] = Range.clip(left, -1, 1);
+        powers[RIGHT] = Range.clip(right, -1, 1);
+        return powers;
+    }
+
+    /**
+     * Clears the negative inertia and quick stop state.
+     */
+    public void reset() {
+        lastTurn = 0;
+        negativeInertiaAccumulator = 0;
+        quickStopAccumulator = 0;
+    }
+
+    /**
+     * Sets the response curves applied to the inputs. The curves are precomputed here rather than in the drive loop.
+     *
+     * @param throttleCurve - The response curve applied to the throttle input.
+     * @param turnCurve - The response curve applied to the turn input.
+     */
+    public void setResponseCurves(ResponseCurve.Type throttleCurve, ResponseCurve.Type turnCurve) {
+        if(this.throttleCurve.getType() != throttleCurve) {
+            this.throttleCurve = new ResponseCurve(throttleCurve);
+        }
+        if(this.turnCurve.getType() != turnCurve) {
+            this.turnCurve = new ResponseCurve(turnCurve);
+        }
+    }
+
+    /**
+     * Sets how sharply curvature drive turns for a given turn input.
+     *
+     * @param sensitivity - The turn sensitivity.
+     */
+    public void setSensitivity(double sensitivity) {
+        this.sensitivity = sensitivity;
+    }
+
+    /**
+     * Sets how strongly changes in the turn input are exaggerated.
+     *
+     * @param negativeInertiaScalar - The negative inertia scalar. 0 disables negative inertia.
+     */
+    public void setNegativeInertia(double negativeInertiaScalar) {
+        this.negativeInertiaScalar = negativeInertiaScalar;
+    }
+
+    /**
+     * Moves an accumulator 1 step towards 0.
+     *
+     * @param accumulator - The accumulator's value.
+     * @return - The decayed value.
+     */
+    private static double decay(double accumulator) {
+        if(accumulator > 1) {
+            return accumulator - 1;
+        }
+        else if(accumulator < -1) {
+            return accumulator + 1;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Filename: HolonomicKinematics.java
+ * Author: Cole Savage
+ * Team Name: Level Up
+ * Date: 10/19/19
+ */
+
+package org.firstinspires.ftc.teamcode.util.math;
+
+import org.firstinspires.ftc.teamcode.util.exceptions.DumpsterFireException;
+
+/**
+ * Maps a chassis speed (vx, vy, omega) to the powers of a 4 wheel holonomic drive through a precomputed wheel matrix.
+ * vx is positive to the right, vy is positive forwards and omega is positive counterclockwise.
+ * Wheel outputs are ordered the same as the drive configs: [0] is top left, [1] is top right, [2] is bottom left, [3] is bottom right.
+ * The output array is reused between calls, so nothing is allocated in the drive loop.
+ */
+public class HolonomicKinematics {
+
+    //Indices of each wheel in the output array.
+    public static final int TOP_LEFT = 0, TOP_RIGHT = 1, BOT_LEFT = 2, BOT_RIGHT = 3;
+    //The wheel matrix for an X layout (mechanum or 45 degree omniwheels). This is equivalent to rotating the input by -pi/4 and scaling it by sqrt(2).
+    private static final double[][] X_DRIVE = new double[][] {
+            { 1, 1, -1},
+            {-1, 1,  1},
+            {-1, 1, -1},
+            { 1, 1,  1}
+    };
+
+    //The wheel matrix, stored row-major. Row i holds the vx, vy and omega coefficients of wheel i.
+    private final double[] matrix = new double[12];
+    //The wheel powers from the last calculation.
+    private final double[] powers = new double[4];
+
+    /**
+     * Constructor for HolonomicKinematics that uses the X layout wheel matrix.
+     */
+    public HolonomicKinematics() {
+        this(X_DRIVE);
+    }
+
+    /**
+     * Constructor for HolonomicKinematics that uses the X layout wheel matrix with scaled translation terms.
+     *
+     * @param translationScale - The amount to scale the vx and vy coefficients by. 1 matches mechanum drive, sqrt(2)/2 is a pure -pi/4 rotation.
+     */
+    public HolonomicKinematics(double translationScale) {
+        this(X_DRIVE);
+        for(int i = 0; i < 4; i++) {
+            matrix[3 * i] *= translationScale;
+            matrix[3 * i + 1] *= translationScale;
+        }
+    }
+
+    /**
+     * Constructor for HolonomicKinematics that uses a custom wheel matrix.
+     *
+     * @param wheelMatrix - A 4x3 matrix. Row i holds the vx, vy and omega coefficients of wheel i.
+     *
+     * @throws DumpsterFireException - Throws this exception if the matrix is not 4x3.
+     */
+    public HolonomicKinematics(double[][] wheelMatrix) {
+        if(wheelMatrix.length != 4) {
+            throw new DumpsterFireException("Wheel matrix must have one row per wheel (4 rows)");
+        }
+        for(int i = 0; i < 4; i++) {
+            if(wheelMatrix[i].length != 3) {
+                throw new DumpsterFireException("Each row of the wheel matrix must have a vx, vy and omega coefficient");
+            }
+            System.arraycopy(wheelMatrix[i], 0, matrix, 3 * i, 3);
+        }
+    }
+
+    /**
+     * Calculates the robot-centric wheel powers for a chassis speed.
+     *
+     * @param vx - The strafing speed, positive to the right.
+     * @param vy - The forward speed.
+     * @param omega - The turning speed, positive counterclockwise.
+     * @return - The normalized wheel powers. This array is reused by the next calculation.
+     */
+    public double[] calculate(double vx, double vy, double omega) {
+        for(int i = 0; i < 4; i++) {
+            powers[i] = matrix[3 * i] * vx + matrix[3 * i + 1] * vy + matrix[3 * i + 2] * omega;
+        }
+        normalize(powers, 0, 4);
+        return powers;
+    }
+
+    /**
+     * Calculates the wheel powers for a field-centric chassis speed.
+     *
+     * @param vx - The strafing speed relative to the field, positive to the right.
+     * @param vy - The forward speed relative to the field.
+     * @param omega - The turning speed, positive counterclockwise.
+     * @param heading - The robot's current heading in radians, counterclockwise positive.
+     * @return - The normalized wheel powers. This array is reused by the next calculation.
+     */
+    public double[] calculateFieldCentric(double vx, double vy, double omega, double heading) {
+        double cos = Math.cos(heading);
+        double sin = Math.sin(heading);
+        return calculate(vx * cos + vy * sin, vy * cos - vx * sin, omega);
+    }
+
+    /**
+     * Calculates the wheel powers for arcade drive, where the translation is snapped to the nearest side of the square (forwards, backwards, left or right).
+     * The snapped translation is scaled by sqrt(2), which is the gain arcade drive has always had, so a full stick still saturates the wheels.
+     *
+     * @param vx - The strafing speed, positive to the right.
+     * @param vy - The forward speed.
+     * @param omega - The turning speed, positive counterclockwise.
+     * @return - The normalized wheel powers. This array is reused by the next calculation.
+     */
+    public double[] calculateArcade(double vx, double vy, double omega) {
+        double r = Math.sqrt(2 * (vx * vx + vy * vy));
+        if(Math.abs(vx) > Math.abs(vy)) {
+            return calculate(Math.signum(vx) * r, 0, omega);
+        }
+        return calculate(0, Math.signum(vy) * r, omega);
+    }
+
+    /**
+     * Calculates the wheel powers when each side of the robot is controlled by its own translation (matthew drive).
+     * Each side is normalized separately.
+     *
+     * @param leftX - The left side's strafing speed, positive to the right.
+     * @param leftY - The left side's forward speed.
+     * @param rightX - The right side's strafing speed, positive to the right.
+     * @param rightY - The right side's forward speed.
+     * @param omega - The turning speed, positive counterclockwise.
+     * @return - The normalized wheel powers. This array is reused by the next calculation.
+     */
+    public double[] calculateSplit(double leftX, double leftY, double rightX, double rightY, double omega) {
+        for(int i = 0; i < 4; i++) {
+            boolean isLeft = i == TOP_LEFT || i == BOT_LEFT;
+            powers[i] = matrix[3 * i] * (isLeft ? leftX : rightX) + matrix[3 * i + 1] * (isLeft ? leftY : rightY) + matrix[3 * i + 2] * omega;
+        }
+        normalizePair(TOP_LEFT, BOT_LEFT);
+        normalizePair(TOP_RIGHT, BOT_RIGHT);
+        return powers;
+    }
+
+    /**
+     * Gets the wheel powers from the last calculation.
+     *
+     * @return - The wheel powers.
+     */
+    public double[] getPowers() {
+        return powers;
+    }
+
+    /**
+     * Gets how kinematically inconsistent a set of measured X layout wheel speeds is.
+     * An X layout has 4 wheels but only 3 degrees of freedom, so tl + tr - bl - br is 0 whenever every wheel is gripping.
+     *
+     * @param wheelSpeeds - The measured wheel surface speeds, in the same order as the wheel powers.
+     * @param minSpeed - The summed wheel speed below which the check is skipped, since encoder noise dominates at low speed.
+     * @return - The inconsistency as a fraction of the wheels' total speed, or 0 if the wheels are moving slower than minSpeed.
+     */
+    public static double getSlipRatio(double[] wheelSpeeds, double minSpeed) {
+        double totalSpeed = Math.abs(wheelSpeeds[TOP_LEFT]) + Math.abs(wheelSpeeds[TOP_RIGHT]) + Math.abs(wheelSpeeds[BOT_LEFT]) + Math.abs(wheelSpeeds[BOT_RIGHT]);
+        if(totalSpeed <= minSpeed) {
+            return 0;
+        }
+        return Math.abs(wheelSpeeds[TOP_LEFT] + wheelSpeeds[TOP_RIGHT] - wheelSpeeds[BOT_LEFT] - wheelSpeeds[BOT_RIGHT]) / totalSpeed;
+    }
+
+    /**
+     * Gets the yaw rate implied by a set of measured X layout wheel speeds.
+     *
+     * @param wheelSpeeds - The measured wheel surface speeds in meters/second, in the same order as the wheel powers.
+     * @param turnRadius - The wheel surface speed per radian/second of rotation, in meters.
+     * @return - The yaw rate in radians/second. Positive is counterclockwise.
+     */
+    public static double getWheelYawRate(double[] wheelSpeeds, double turnRadius) {
+        return ((wheelSpeeds[TOP_RIGHT] + wheelSpeeds[BOT_RIGHT]) - (wheelSpeeds[TOP_LEFT] + wheelSpeeds[BOT_LEFT])) / (4 * turnRadius);
+    }
+
+    /**
+     * Scales a range of values in place so that none of them has a magnitude above 1, keeping their ratios.
+     *
+     * @param values - The values to normalize.
+     * @param start - The first index to normalize (inclusive).
+     * @param end - The last index to normalize (exclusive).
+     */
+    public static void normalize(double[] values, int start, int end) {
+        double max = 1;
+        for(int i = start; i < end; i++) {
+            max = Math.max(max, Math.abs(values[i]));
+        }
+        if(max > 1) {
+            for(int i = start; i < end; i++) {
+                values[i] /= max;
+            }
+        }
+    }
+
+    /**
+     * Normalizes two of the wheel powers together.
+     *
+     * @param a - The index of the first wheel.
+     * @param b - The index of the second wheel.
+     */
+    private void normalizePair(int a, int b) {
+        double max = Math.max(Math.abs(powers[a]), Math.abs(powers[b]));
+        if(max > 1) {
+            powers[a] /= max;
+            powers[b] /= max;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Filename: Pose.java
+ * Author: Cole Savage
+ * Team Name: Level Up
+ * Date: 10/19/19
+ */
+
+package org.firstinspires.ftc.teamcode.util.math;
+
+/**
+ * An immutable robot pose on the field. Because it can't change after being created, it can be safely shared between threads.
+ */
+public class Pose {
+
+    //The position of the robot on the field in meters.
+    public final double x, y;
+    //The heading of the robot in radians, counterclockwise positive.
+    public final double heading;
+    //The system time in milliseconds that the pose was measured at.
+    public final long timestamp;
+
+    /**
+     * Constructor for Pose.
+     *
+     * @param x - The x position of the robot in meters.
+     * @param y - The y position of the robot in meters.
+     * @param heading - The heading of the robot in radians.
+     * @param timestamp - The system time in milliseconds that the pose was measured at.
+     */
+    public Pose(double x, double y, double heading, long timestamp) {
+        this.x = x;
+        this.y = y;
+        this.heading = heading;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Gets the position of the robot as a vector.
+     *
+     * @return - The position of the robot as a vector.
+     */
+    public Vector getPosition() {
+        return new Vector(x, y);
+    }
+
+    @Override
+    public String toString() {
+        return "(" + x + ", " + y + ", " + heading + ")";
+    }
+}
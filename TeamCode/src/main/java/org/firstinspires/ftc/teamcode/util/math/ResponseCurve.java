@@ -0,0 +1,104 @@
+/*
+ * Filename: ResponseCurve.java
+ * Author: Cole Savage
+ * Team Name: Level Up
+ * Date: 10/19/19
+ */
+
+package org.firstinspires.ftc.teamcode.util.math;
+
+import java.util.LinkedHashMap;
+
+/**
+ * A joystick response curve that is precomputed into a lookup table, so applying it in the drive loop is a table lookup and a linear interpolation.
+ * Curves are odd-symmetric: the table covers inputs from 0 to 1 and the sign of the input is reapplied to the output.
+ */
+public class ResponseCurve {
+
+    //The types of response curves.
+    public enum Type {
+        LINEAR, SQUARED, CUBIC, SINE
+    }
+
+    //The number of intervals in the lookup table.
+    private static final int TABLE_SIZE = 256;
+    //How strongly the sine curve boosts small inputs (0-1). Larger values make the center of the stick more responsive.
+    private static final double SINE_NONLINEARITY = 0.65;
+
+    //The type of this curve.
+    private final Type type;
+    //The curve sampled at evenly spaced inputs from 0 to 1.
+    private final double[] table = new double[TABLE_SIZE + 1];
+
+    /**
+     * Constructor for ResponseCurve.
+     *
+     * @param type - The shape of the curve.
+     */
+    public ResponseCurve(Type type) {
+        this.type = type;
+        for(int i = 0; i <= TABLE_SIZE; i++) {
+            table[i] = shape(type, (double) i / TABLE_SIZE);
+        }
+    }
+
+    /**
+     * Applies the curve to an input.
+     *
+     * @param input - The input, from -1 to 1. Values outside of this range are clipped.
+     * @return - The shaped output, from -1 to 1.
+     */
+    public double apply(double input) {
+        double x = Math.min(Math.abs(input), 1) * TABLE_SIZE;
+        int idx = (int) x;
+        if(idx >= TABLE_SIZE) {
+            return Math.signum(input) * table[TABLE_SIZE];
+        }
+        return Math.signum(input) * (table[idx] + (table[idx + 1] - table[idx]) * (x - idx));
+    }
+
+    /**
+     * Gets the type of the curve.
+     *
+     * @return - The curve's type.
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Creates a map of every curve type, for use as a config option.
+     *
+     * @return - A map from each curve type's name to the curve type.
+     */
+    public static LinkedHashMap<String, Object> typeMap() {
+        LinkedHashMap<String, Object> map = new LinkedHashMap<>();
+        for(Type type : Type.values()) {
+            map.put(type.name(), type);
+        }
+        return map;
+    }
+
+    /**
+     * Evaluates a curve shape for an input between 0 and 1.
+     *
+     * @param type - The shape of the curve.
+     * @param x - The input, from 0 to 1.
+     * @return - The output, from 0 to 1.
+     */
+    private static double shape(Type type, double x) {
+        switch (type) {
+            case SQUARED:
+                return x * x;
+            case CUBIC:
+                return x * x * x;
+            case SINE:
+                //Two passes through the sine curve used by curvature drive.
+                double denominator = Math.sin(Math.PI / 2 * SINE_NONLINEARITY);
+                x = Math.sin(Math.PI / 2 * SINE_NONLINEARITY * x) / denominator;
+                return Math.sin(Math.PI / 2 * SINE_NONLINEARITY * x) / denominator;
+            default:
+                return x;
+        }
+    }
+}
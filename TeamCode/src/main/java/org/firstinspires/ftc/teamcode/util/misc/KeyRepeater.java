@@ -0,0 +1,173 @@
+/*
+ * Filename: KeyRepeater.java
+ * Author: Cole Savage
+ * Team Name: Level Up
+ * Date: 10/19/19
+ */
+
+package org.firstinspires.ftc.teamcode.util.misc;
+
+import org.firstinspires.ftc.teamcode.util.exceptions.DumpsterFireException;
+
+/**
+ * Turns a held button into repeated steps, like holding down a key on a keyboard.
+ * Pressing the button gives one step immediately. If the button is still held after the hold delay, it repeats once every repeat interval,
+ * and the size of each repeat grows through the step sizes (1, 5, then 25 by default) the longer the button is held.
+ * Call update once per loop with the button's current state and apply the returned number of steps.
+ */
+public class KeyRepeater {
+
+    //The time the button must be held before it starts repeating in milliseconds.
+    private final long holdDelayMs;
+    //The time between repeats in milliseconds.
+    private final long repeatIntervalMs;
+    //The number of steps given by each repeat, in the order they are reached.
+    private final int[] stepSizes;
+    //The number of repeats at each step size before moving on to the next one.
+    private final int repeatsPerStep;
+    //A boolean specifying if the button was held during the last update.
+    private boolean held;
+    //The time of the next repeat in milliseconds.
+    private long nextRepeatTimeMs;
+    //The number of repeats since the button was pressed.
+    private int repeats;
+    //The direction held during the last update of an increase and decrease button pair. 1 is increasing, -1 is decreasing and 0 is neither.
+    private int lastDirection;
+
+    /**
+     * Constructor for KeyRepeater.
+     *
+     * @param params - The parameters for the key repeat.
+     */
+    public KeyRepeater(Params params) {
+        holdDelayMs = params.holdDelayMs;
+        repeatIntervalMs = params.repeatIntervalMs;
+        stepSizes = params.stepSizes;
+        repeatsPerStep = params.repeatsPerStep;
+    }
+
+    /**
+     * Constructor for KeyRepeater. Uses the default parameters.
+     */
+    public KeyRepeater() {
+        this(new Params());
+    }
+
+    /**
+     * Updates the repeater with the button's current state.
+     *
+     * @param pressed - Whether the button is currently pressed.
+     * @return - The number of steps to take this loop. 0 if there is nothing to do.
+     */
+    public int update(boolean pressed) {
+        if(!pressed) {
+            held = false;
+            return 0;
+        }
+
+        long now = System.currentTimeMillis();
+        if(!held) {
+            held = true;
+            repeats = 0;
+            nextRepeatTimeMs = now + holdDelayMs;
+            return stepSizes[0];
+        }
+
+        if(now < nextRepeatTimeMs) {
+            return 0;
+        }
+        nextRepeatTimeMs = now + repeatIntervalMs;
+
+        int step = stepSizes[Math.min(repeats / repeatsPerStep, stepSizes.length - 1)];
+        repeats++;
+        return step;
+    }
+
+    /**
+     * Updates the repeater with the current state of an increase and decrease button pair. Switching directions starts the repeat over.
+     *
+     * @param increase - Whether the increase button is currently pressed.
+     * @param decrease - Whether the decrease button is currently pressed.
+     * @return - The signed number of steps to take this loop. Positive to increase, negative to decrease and 0 if there is nothing to do or both buttons are pressed.
+     */
+    public int update(boolean increase, boolean decrease) {
+        int direction = increase == decrease ? 0 : increase ? 1 : -1;
+        if(direction != lastDirection) {
+            reset();
+            lastDirection = direction;
+        }
+        return direction * update(direction != 0);
+    }
+
+    /**
+     * Resets the repeater so that the next press is treated as a new press.
+     */
+    public void reset() {
+        held = false;
+        repeats = 0;
+    }
+
+    /**
+     * A class used to pass parameters to the repeater when it is created.
+     */
+    public static final class Params implements BaseParam {
+
+        //The time the button must be held before it starts repeating in milliseconds.
+        private long holdDelayMs = 400;
+        //The time between repeats in milliseconds.
+        private long repeatIntervalMs = 100;
+        //The number of steps given by each repeat, in the order they are reached.
+        private int[] stepSizes = {1, 5, 25};
+        //The number of repeats at each step size before moving on to the next one.
+        private int repeatsPerStep = 10;
+
+        /**
+         * Sets the time the button must be held before it starts repeating.
+         *
+         * @param holdDelayMs - The hold delay in milliseconds.
+         * @return This instance of the params class.
+         */
+        public Params setHoldDelayMs(long holdDelayMs) {
+            this.holdDelayMs = holdDelayMs;
+            return this;
+        }
+
+        /**
+         * Sets the time between repeats.
+         *
+         * @param repeatIntervalMs - The repeat interval in milliseconds.
+         * @return This instance of the params class.
+         */
+        public Params setRepeatIntervalMs(long repeatIntervalMs) {
+            this.repeatIntervalMs = repeatIntervalMs;
+            return this;
+        }
+
+        /**
+         * Sets the number of steps given by each repeat. The repeat moves on to the next step size after every repeatsPerStep repeats.
+         *
+         * @param stepSizes - The step sizes, in the order they are reached. The first step size is also used for the initial press.
+         * @return This instance of the params class.
+         *
+         * @throws DumpsterFireException - Throws this exception if no step sizes are given.
+         */
+        public Params setStepSizes(int... stepSizes) {
+            if(stepSizes.length == 0) {
+                throw new DumpsterFireException("Key repeat needs at least one step size");
+            }
+            this.stepSizes = stepSizes;
+            return this;
+        }
+
+        /**
+         * Sets the number of repeats at each step size before moving on to the next one.
+         *
+         * @param repeatsPerStep - The number of repeats per step size.
+         * @return This instance of the params class.
+         */
+        public Params setRepeatsPerStep(int repeatsPerStep) {
+            this.repeatsPerStep = Math.max(repeatsPerStep, 1);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * Filename: PowerManager.java
+ * Author: Cole Savage
+ * Team Name: Level Up
+ * Date: 10/19/19
+ */
+
+package org.firstinspires.ftc.teamcode.util.misc;
+
+import com.qualcomm.robotcore.hardware.DcMotor;
+import com.qualcomm.robotcore.hardware.DcMotorEx;
+import com.qualcomm.robotcore.util.Range;
+
+import org.firstinspires.ftc.teamcode.system.source.BaseRobot.SubSystem;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the total current drawn by the robot's motors under a budget to prevent brownouts.
+ * Each subsystem requests its motor powers every loop. The current each motor will draw is estimated with a simple DC motor model:
+ * the motor current is stallCurrent * (power - speed / freeSpeed), and the battery current is that times the power (the motor driver's duty cycle).
+ * Subsystems with a higher priority are served first. If the budget runs out partway through a priority level, every subsystem at that level is scaled by the same amount.
+ */
+public class PowerManager {
+
+    //The default current budget in amps. The expansion hub's fuse is rated for 20 amps.
+    private static final double DEFAULT_BUDGET = 18;
+    //The default motor stall current in amps (goBILDA 5202 series motor).
+    private static final double DEFAULT_STALL_CURRENT = 9.2;
+
+    //The total current budget in amps.
+    private double budget;
+    //The latest demand from each subsystem, from highest to lowest priority. Only grows when a new subsystem makes its first request.
+    private final List<Demand> demands = new ArrayList<>();
+    //The estimated current draw of all subsystems at their allowed scales.
+    private double estimatedCurrent;
+
+    /**
+     * A subsystem's current demand, stored as the coefficients of its estimated current as a function of the power scale s: quadratic * s^2 - linear * s.
+     */
+    private static final class Demand {
+        //The subsystem making the demand.
+        private final SubSystem owner;
+        //The free speed of each of the subsystem's motors in encoder ticks per second.
+        private double[] freeSpeeds;
+        //The subsystem's priority. Higher priorities are served first.
+        private int priority;
+        //The stall current of the subsystem's motors in amps.
+        private double stallCurrent = DEFAULT_STALL_CURRENT;
+        //The coefficients of the estimated current.
+        private double quadratic, linear;
+        //The scale the subsystem's powers are allowed to run at.
+        private double scale = 1;
+
+        /**
+         * Constructor for Demand.
+         *
+         * @param owner - The subsystem making the demand.
+         */
+        private Demand(SubSystem owner) {
+            this.owner = owner;
+        }
+
+        /**
+         * Estimates the demand's current draw at a given scale.
+         *
+         * @param s - The power scale.
+         * @return - The estimated current in amps.
+         */
+        private double currentAt(double s) {
+            return Math.max(0, quadratic * s * s - linear * s);
+        }
+    }
+
+    /**
+     * Constructor for PowerManager.
+     */
+    public PowerManager() {
+        budget = DEFAULT_BUDGET;
+    }
+
+    /**
+     * Requests a set of motor powers and finds how much they must be scaled down to stay in the budget.
+     * Call this every time the subsystem's motor powers change, including when they are set to 0.
+     *
+     * @param owner - The subsystem setting the powers.
+     * @param motors - The motors being set.
+     * @param powers - The requested power of each motor, from -1 to 1.
+     * @return - The factor to multiply every requested power by, from 0 to 1.
+     */
+    public synchronized double request(SubSystem owner, DcMotor[] motors, double[] powers) {
+        Demand demand = getDemand(owner);
+        if(demand.freeSpeeds == null || demand.freeSpeeds.length != motors.length) {
+            demand.freeSpeeds = new double[motors.length];
+            for(int i = 0; i < motors.length; i++) {
+                demand.freeSpeeds[i] = motors[i].getMotorType().getMaxRPM() * motors[i].getMotorType().getTicksPerRev() / 60;
+            }
+        }
+
+        demand.quadratic = 0;
+        demand.linear = 0;
+        for(int i = 0; i < motors.length; i++) {
+            double speed = 0;
+            if(demand.freeSpeeds[i] > 0 && motors[i] instanceof DcMotorEx) {
+                speed = ((DcMotorEx) motors[i]).getVelocity() / demand.freeSpeeds[i];
+            }
+            demand.quadratic += demand.stallCurrent * powers[i] * powers[i];
+            demand.linear += demand.stallCurrent * powers[i] * speed;
+        }
+
+        allocate();
+        return demand.scale;
+    }
+
+    /**
+     * Releases a subsystem's demand. Call this when the subsystem stops all of its motors.
+     *
+     * @param owner - The subsystem.
+     */
+    public synchronized void release(SubSystem owner) {
+        Demand demand = getDemand(owner);
+        demand.quadratic = 0;
+        demand.linear = 0;
+        allocate();
+    }
+
+    /**
+     * Sets a subsystem's priority. Higher priorities are served first. Subsystems default to priority 0.
+     *
+     * @param subSystem - The subsystem.
+     * @param priority - The subsystem's priority.
+     */
+    public synchronized void setPriority(SubSystem subSystem, int priority) {
+        Demand demand = getDemand(subSystem);
+        demands.remove(demand);
+        demand.priority = priority;
+        insertDemand(demand);
+        allocate();
+    }
+
+    /**
+     * Sets the stall current of a subsystem's motors, used to estimate their current draw.
+     *
+     * @param subSystem - The subsystem.
+     * @param stallCurrent - The stall current of the subsystem's motors in amps.
+     */
+    public synchronized void setStallCurrent(SubSystem subSystem, double stallCurrent) {
+        getDemand(subSystem).stallCurrent = stallCurrent;
+    }
+
+    /**
+     * Sets the total current budget.
+     *
+     * @param budget - The budget in amps. Use Double.POSITIVE_INFINITY to disable budgeting.
+     */
+    public synchronized void setBudget(double budget) {
+        this.budget = budget;
+        allocate();
+    }
+
+    /**
+     * Gets the estimated current draw of every subsystem at its allowed scale.
+     *
+     * @return - The estimated current in amps.
+     */
+    public synchronized double getEstimatedCurrent() {
+        return estimatedCurrent;
+    }
+
+    /**
+     * Gets the scale a subsystem's powers were last allowed to run at.
+     *
+     * @param subSystem - The subsystem.
+     * @return - The subsystem's scale, from 0 to 1.
+     */
+    public synchronized double getScale(SubSystem subSystem) {
+        return getDemand(subSystem).scale;
+    }
+
+    /**
+     * Gets the demand for a subsystem, creating it on its first request.
+     *
+     * @param owner - The subsystem.
+     * @return - The subsystem's demand.
+     */
+    private Demand getDemand(SubSystem owner) {
+        for(int i = 0; i < demands.size(); i++) {
+            if(demands.get(i).owner == owner) {
+                return demands.get(i);
+            }
+        }
+        Demand demand = new Demand(owner);
+        insertDemand(demand);
+        return demand;
+    }
+
+    /**
+     * Adds a demand to the list, keeping it sorted from highest to lowest priority. Demands with the same priority are kept in the order they were added.
+     *
+     * @param demand - The demand to add.
+     */
+    private void insertDemand(Demand demand) {
+        int idx = demands.size();
+        while(idx > 0 && demands.get(idx - 1).priority < demand.priority) {
+            idx--;
+        }
+        demands.add(idx, demand);
+    }
+
+    /**
+     * Splits the budget between the subsystems, from the highest priority to the lowest.
+     * The demands are kept sorted by priority, so each priority level is a run of neighbouring demands.
+     */
+    private void allocate() {
+        double remaining = budget;
+        estimatedCurrent = 0;
+
+        int start = 0;
+        while(start < demands.size()) {
+            int level = demands.get(start).priority;
+            int end = start;
+            double quadratic = 0, linear = 0, full = 0;
+            while(end < demands.size() && demands.get(end).priority == level) {
+                Demand demand = demands.get(end);
+                quadratic += demand.quadratic;
+                linear += demand.linear;
+                full += demand.currentAt(1);
+                end++;
+            }
+
+            double scale = 1;
+            if(full > remaining && quadratic > 0) {
+                //Solve quadratic * s^2 - linear * s = remaining for the largest s.
+                scale = Range.clip((linear + Math.sqrt(linear * linear + 4 * quadratic * Math.max(remaining, 0))) / (2 * quadratic), 0, 1);
+            }
+
+            for(int i = start; i < end; i++) {
+                Demand demand = demands.get(i);
+                demand.scale = scale;
+                double current = demand.currentAt(scale);
+                remaining -= current;
+                estimatedCurrent += current;
+            }
+            start = end;
+        }
+    }
+}
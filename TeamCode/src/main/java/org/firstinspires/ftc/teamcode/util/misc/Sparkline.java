@@ -0,0 +1,170 @@
+/*
+ * Filename: Sparkline.java
+ * Author: Cole Savage
+ * Team Name: Level Up
+ * Date: 10/19/19
+ */
+
+package org.firstinspires.ftc.teamcode.util.misc;
+
+import org.firstinspires.ftc.teamcode.util.exceptions.DumpsterFireException;
+
+/**
+ * A small text graph of the most recent values of something, drawn with Unicode block characters so it fits on one telemetry line.
+ * Values are stored in a fixed size ring buffer, so adding values never allocates memory. The text is only redrawn when it is requested after a new value was added.
+ */
+public class Sparkline {
+
+    //The characters used to draw the graph, from lowest to highest.
+    private static final char[] BLOCKS = {'▁', '▂', '▃', '▄', '▅', '▆', '▇', '█'};
+    //The character drawn for values that aren't numbers.
+    private static final char GAP = ' ';
+
+    //The ring buffer of values.
+    private final double[] values;
+    //The buffer the graph is drawn into.
+    private final char[] chars;
+    //The index the next value will be written to and the number of values stored.
+    private int head, count;
+    //The fixed range of the graph. Only used if fixedRange is true.
+    private double rangeMin, rangeMax;
+    //A boolean specifying if the graph uses a fixed range (true) or scales to the values being shown (false).
+    private boolean fixedRange;
+    //The graph's text, or null if it needs to be redrawn.
+    private String text;
+
+    /**
+     * Constructor for Sparkline. The graph scales to fit the values being shown.
+     *
+     * @param width - The number of values shown, which is also the length of the graph's text.
+     *
+     * @throws DumpsterFireException - Throws this exception if the width is not positive.
+     */
+    public Sparkline(int width) {
+        if(width <= 0) {
+            throw new DumpsterFireException("A sparkline needs to show at least one value");
+        }
+        values = new double[width];
+        chars = new char[width];
+    }
+
+    /**
+     * Constructor for Sparkline. The graph uses a fixed range, and values outside of it are drawn at the top or bottom.
+     *
+     * @param width - The number of values shown, which is also the length of the graph's text.
+     * @param min - The value drawn at the bottom of the graph.
+     * @param max - The value drawn at the top of the graph.
+     *
+     * @throws DumpsterFireException - Throws this exception if the width is not positive.
+     */
+    public Sparkline(int width, double min, double max) {
+        this(width);
+        setRange(min, max);
+    }
+
+    /**
+     * Adds a value to the graph, replacing the oldest value if the graph is full.
+     *
+     * @param value - The value to add.
+     */
+    public void add(double value) {
+        values[head] = value;
+        head = (head + 1) % values.length;
+        if(count < values.length) {
+            count++;
+        }
+        text = null;
+    }
+
+    /**
+     * Removes every value from the graph.
+     */
+    public void clear() {
+        head = 0;
+        count = 0;
+        text = null;
+    }
+
+    /**
+     * Sets a fixed range for the graph.
+     *
+     * @param min - The value drawn at the bottom of the graph.
+     * @param max - The value drawn at the top of the graph.
+     */
+    public void setRange(double min, double max) {
+        rangeMin = min;
+        rangeMax = max;
+        fixedRange = true;
+        text = null;
+    }
+
+    /**
+     * Makes the graph scale to fit the values being shown.
+     */
+    public void setAutoRange() {
+        fixedRange = false;
+        text = null;
+    }
+
+    /**
+     * Gets the number of values stored.
+     *
+     * @return - The number of values stored.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Gets the most recently added value.
+     *
+     * @return - The most recent value, or NaN if the graph is empty.
+     */
+    public double getLatest() {
+        return count == 0 ? Double.NaN : values[(head - 1 + values.length) % values.length];
+    }
+
+    /**
+     * Gets the graph as text, from the oldest value on the left to the newest on the right.
+     *
+     * @return - The graph's text. Its length is the number of values stored.
+     */
+    public String getText() {
+        if(text != null) {
+            return text;
+        }
+
+        int start = (head - count + values.length) % values.length;
+
+        double min = rangeMin;
+        double max = rangeMax;
+        if(!fixedRange) {
+            min = Double.POSITIVE_INFINITY;
+            max = Double.NEGATIVE_INFINITY;
+            for(int i = 0; i < count; i++) {
+                double value = values[(start + i) % values.length];
+                if(!Double.isNaN(value)) {
+                    min = Math.min(min, value);
+                    max = Math.max(max, value);
+                }
+            }
+        }
+
+        for(int i = 0; i < count; i++) {
+            double value = values[(start + i) % values.length];
+            if(Double.isNaN(value)) {
+                chars[i] = GAP;
+            }
+            else if(max <= min) {
+                chars[i] = BLOCKS[BLOCKS.length / 2];
+            }
+            else {
+                int level = (int) ((value - min) / (max - min) * (BLOCKS.length - 1) + 0.5);
+                chars[i] = BLOCKS[Math.max(0, Math.min(level, BLOCKS.length - 1))];
+            }
+        }
+
+        text = new String(chars, 0, count);
+        return text;
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Filename: VoltageCompensator.java
+ * Author: Cole Savage
+ * Team Name: Level Up
+ * Date: 10/19/19
+ */
+
+package org.firstinspires.ftc.teamcode.util.misc;
+
+import android.util.Log;
+
+import com.qualcomm.robotcore.hardware.HardwareMap;
+import com.qualcomm.robotcore.hardware.VoltageSensor;
+import com.qualcomm.robotcore.util.Range;
+
+/**
+ * Scales motor powers so that the robot behaves the same at any battery voltage.
+ * The battery voltage is sampled from every VoltageSensor in the hardware map on a slow background thread and low pass filtered,
+ * so the drive loop only ever reads a cached scale factor.
+ */
+public class VoltageCompensator {
+
+    //The hardware map to get the voltage sensors from.
+    private final HardwareMap hardwareMap;
+    //The voltage that motor powers are tuned at.
+    private double nominalVoltage;
+    //The time between voltage samples in milliseconds.
+    private long samplePeriodMs;
+    //The time constant of the voltage low pass filter in seconds.
+    private double filterTimeConstant;
+    //The lowest and highest allowed scale factors. Guards against bad sensor readings.
+    private double minScale, maxScale;
+    //A boolean specifying whether compensation is applied.
+    private volatile boolean enabled;
+    //The filtered battery voltage. 0 until the first sample is taken.
+    private volatile double filteredVoltage;
+    //The current scale factor.
+    private volatile double scale;
+    //The thread that samples the voltage sensors.
+    private Thread samplingThread;
+
+    /**
+     * Constructor for VoltageCompensator.
+     *
+     * @param hardwareMap - The hardware map to get the voltage sensors from.
+     */
+    public VoltageCompensator(HardwareMap hardwareMap) {
+        this.hardwareMap = hardwareMap;
+
+        nominalVoltage = 12;
+        samplePeriodMs = 250;
+        filterTimeConstant = 1;
+        minScale = 0.5;
+        maxScale = 1.5;
+
+        enabled = true;
+        filteredVoltage = 0;
+        scale = 1;
+    }
+
+    /**
+     * Starts sampling the battery voltage in the background.
+     */
+    public synchronized void start() {
+        if(samplingThread != null) {
+            return;
+        }
+
+        samplingThread = new Thread() {
+            @Override
+            public void run() {
+                runSampling();
+            }
+        };
+        samplingThread.setName("VoltageCompensator");
+        samplingThread.setDaemon(true);
+        samplingThread.start();
+    }
+
+    /**
+     * Stops sampling the battery voltage.
+     *
+     * @throws InterruptedException - Throws this exception if the program is unexpectedly interrupted.
+     */
+    public synchronized void stop() throws InterruptedException {
+        if(samplingThread != null) {
+            samplingThread.interrupt();
+            samplingThread.join(100);
+            samplingThread = null;
+        }
+    }
+
+    /**
+     * Compensates a motor power for the current battery voltage.
+     *
+     * @param power - The power tuned at the nominal voltage, from -1 to 1.
+     * @return - The power to send to the motor, from -1 to 1.
+     */
+    public double compensate(double power) {
+        return Range.clip(power * getScale(), -1, 1);
+    }
+
+    /**
+     * Compensates an array of motor powers in place. If any power would saturate, all of them are scaled down together so their ratios are kept.
+     *
+     * @param powers - The powers tuned at the nominal voltage.
+     * @param start - The first index to compensate (inclusive).
+     * @param end - The last index to compensate (exclusive).
+     */
+    public void compensate(double[] powers, int start, int end) {
+        double scale = getScale();
+        double max = 1;
+        for(int i = start; i < end; i++) {
+            powers[i] *= scale;
+            max = Math.max(max, Math.abs(powers[i]));
+        }
+        if(max > 1) {
+            for(int i = start; i < end; i++) {
+                powers[i] /= max;
+            }
+        }
+    }
+
+    /**
+     * Gets the factor that motor powers are currently multiplied by.
+     *
+     * @return - The scale factor, or 1 if compensation is disabled or no voltage has been measured yet.
+     */
+    public double getScale() {
+        return enabled ? scale : 1;
+    }
+
+    /**
+     * Gets the filtered battery voltage.
+     *
+     * @return - The battery voltage in volts, or 0 if no voltage has been measured yet.
+     */
+    public double getVoltage() {
+        return filteredVoltage;
+    }
+
+    /**
+     * Sets whether compensation is applied.
+     *
+     * @param enabled - Whether compensation is applied.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Sets the voltage that motor powers are tuned at.
+     *
+     * @param nominalVoltage - The nominal voltage in volts.
+     */
+    public void setNominalVoltage(double nominalVoltage) {
+        this.nominalVoltage = nominalVoltage;
+    }
+
+    /**
+     * Sets how often the voltage is sampled and how heavily it is filtered.
+     *
+     * @param samplePeriodMs - The time between samples in milliseconds.
+     * @param filterTimeConstant - The time constant of the low pass filter in seconds.
+     */
+    public void setSampling(long samplePeriodMs, double filterTimeConstant) {
+        this.samplePeriodMs = samplePeriodMs;
+        this.filterTimeConstant = filterTimeConstant;
+    }
+
+    /**
+     * Sets the range the scale factor is clipped to.
+     *
+     * @param minScale - The lowest allowed scale factor.
+     * @param maxScale - The highest allowed scale factor.
+     */
+    public void setScaleLimits(double minScale, double maxScale) {
+        this.minScale = minScale;
+        this.maxScale = maxScale;
+    }
+
+    /**
+     * Samples the voltage sensors until the thread is interrupted.
+     */
+    private void runSampling() {
+        while(!Thread.currentThread().isInterrupted()) {
+            try {
+                sample();
+            }
+            catch (Exception ex) {
+                Log.e(this.getClass().getSimpleName(), ex.getMessage(), ex);
+            }
+
+            try {
+                Thread.sleep(samplePeriodMs);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Reads the voltage sensors and updates the filtered voltage and scale factor.
+     * The lowest positive reading is used, since the most loaded hub limits every motor on it. Sensors that read 0 are disconnected and ignored.
+     */
+    private void sample() {
+        double voltage = Double.POSITIVE_INFINITY;
+        for(VoltageSensor sensor : hardwareMap.voltageSensor) {
+            double reading = sensor.getVoltage();
+            if(reading > 0) {
+                voltage = Math.min(voltage, reading);
+            }
+        }
+        if(Double.isInfinite(voltage)) {
+            return;
+        }
+
+        if(filteredVoltage == 0) {
+            filteredVoltage = voltage;
+        }
+        else {
+            double dt = samplePeriodMs / 1000.0;
+            filteredVoltage += (voltage - filteredVoltage) * dt / (filterTimeConstant + dt);
+        }
+        scale = Range.clip(nominalVoltage / filteredVoltage, minScale, maxScale);
+    }
+}